@@ -0,0 +1,63 @@
+package com.packtpub.mmj.restsample.model;
+
+/**
+ * Operands of a batch calculation. The power function reads base and
+ * exponent, the sqrt function reads value; operand i of each array belongs to
+ * operation i.
+ *
+ * @author sousharm
+ */
+public class Operands {
+
+    private String[] base;
+    private String[] exponent;
+    private String[] value;
+
+    /**
+     *
+     * @return
+     */
+    public String[] getBase() {
+        return base;
+    }
+
+    /**
+     *
+     * @param base
+     */
+    public void setBase(String[] base) {
+        this.base = base;
+    }
+
+    /**
+     *
+     * @return
+     */
+    public String[] getExponent() {
+        return exponent;
+    }
+
+    /**
+     *
+     * @param exponent
+     */
+    public void setExponent(String[] exponent) {
+        this.exponent = exponent;
+    }
+
+    /**
+     *
+     * @return
+     */
+    public String[] getValue() {
+        return value;
+    }
+
+    /**
+     *
+     * @param value
+     */
+    public void setValue(String[] value) {
+        this.value = value;
+    }
+}
@@ -1,11 +1,26 @@
 package com.packtpub.mmj.restsample.resources;
 
 import com.packtpub.mmj.restsample.model.Calculation;
+import com.packtpub.mmj.restsample.model.Operands;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
+import java.util.function.IntToDoubleFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import static org.springframework.web.bind.annotation.RequestMethod.GET;
+import static org.springframework.web.bind.annotation.RequestMethod.POST;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -19,6 +34,16 @@ public class CalculationController {
 
     private static final String PATTERN = "^-?+\\d+\\.?+\\d*$";
 
+    private static final Pattern NUMBER = Pattern.compile(PATTERN);
+
+    /**
+     * Batch size from which the operations are split across the common
+     * fork/join pool
+     */
+    static final int PARALLEL_THRESHOLD = 8192;
+
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
     /**
      *
      * @param b
@@ -32,8 +57,8 @@ public class CalculationController {
         input.add(e);
         List<String> output = new ArrayList();
         String powValue;
-        if (b != null && e != null && b.matches(PATTERN) && e.matches(PATTERN)) {
-            powValue = String.valueOf(Math.pow(Double.valueOf(b), Double.valueOf(e)));
+        if (b != null && e != null && NUMBER.matcher(b).matches() && NUMBER.matcher(e).matches()) {
+            powValue = String.valueOf(Math.pow(Double.parseDouble(b), Double.parseDouble(e)));
         } else {
             powValue = "Base or/and Exponent is/are not set to numeric value.";
         }
@@ -52,12 +77,127 @@ public class CalculationController {
         input.add(aValue);
         List<String> output = new ArrayList();
         String sqrtValue;
-        if (aValue != null && aValue.matches(PATTERN)) {
-            sqrtValue = String.valueOf(Math.sqrt(Double.valueOf(aValue)));
+        if (aValue != null && NUMBER.matcher(aValue).matches()) {
+            sqrtValue = String.valueOf(Math.sqrt(Double.parseDouble(aValue)));
         } else {
             sqrtValue = "Input value is not set to numeric value.";
         }
         output.add(sqrtValue);
         return new Calculation(input, output, "sqrt");
     }
+
+    /**
+     * Raises each base to its exponent. The response is streamed as
+     * <code>{"function": "power", "invalid": [indexes], "output": [results]}</code>;
+     * the output of a non numeric operand is null.
+     *
+     * @param operands base and exponent arrays of the same length
+     * @param response
+     * @throws IOException
+     */
+    @RequestMapping(value = "/batch/power", method = POST, consumes = MediaType.APPLICATION_JSON_VALUE)
+    public void batchPow(@RequestBody Operands operands, HttpServletResponse response) throws IOException {
+        String[] b = operands.getBase();
+        String[] e = operands.getExponent();
+        if (b == null || e == null || b.length != e.length) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Base and exponent must be arrays of the same length.");
+            return;
+        }
+        BitSet invalid = new BitSet();
+        double[] base = parse(b, invalid);
+        double[] exponent = parse(e, invalid);
+        write(response, "power", compute(base.length, (i) -> Math.pow(base[i], exponent[i])), invalid);
+    }
+
+    /**
+     * Square root of each value, streamed like {@link #batchPow}.
+     *
+     * @param operands value array
+     * @param response
+     * @throws IOException
+     */
+    @RequestMapping(value = "/batch/sqrt", method = POST, consumes = MediaType.APPLICATION_JSON_VALUE)
+    public void batchSqrt(@RequestBody Operands operands, HttpServletResponse response) throws IOException {
+        String[] v = operands.getValue();
+        if (v == null) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Value must be an array.");
+            return;
+        }
+        BitSet invalid = new BitSet();
+        double[] value = parse(v, invalid);
+        write(response, "sqrt", compute(value.length, (i) -> Math.sqrt(value[i])), invalid);
+    }
+
+    /**
+     * Validates the operands with one reused matcher and parses them.
+     *
+     * @param operands
+     * @param invalid receives the index of each non numeric operand
+     * @return the operands, 0 where invalid
+     */
+    static double[] parse(String[] operands, BitSet invalid) {
+        double[] values = new double[operands.length];
+        Matcher matcher = NUMBER.matcher("");
+        for (int i = 0; i < operands.length; i++) {
+            String operand = operands[i];
+            if (operand != null && matcher.reset(operand).matches()) {
+                values[i] = Double.parseDouble(operand);
+            } else {
+                invalid.set(i);
+            }
+        }
+        return values;
+    }
+
+    /**
+     *
+     * @param size number of operations
+     * @param operation result of operation i
+     * @return the results, computed in parallel from PARALLEL_THRESHOLD
+     * operations
+     */
+    static double[] compute(int size, IntToDoubleFunction operation) {
+        double[] results = new double[size];
+        if (size >= PARALLEL_THRESHOLD) {
+            Arrays.parallelSetAll(results, operation);
+        } else {
+            Arrays.setAll(results, operation);
+        }
+        return results;
+    }
+
+    private static void write(HttpServletResponse response, String function, double[] results, BitSet invalid) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        // The buffer goes out whenever it fills up, so the results stream as they are written
+        Writer out = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+        out.write("{\"function\":\"");
+        out.write(function);
+        out.write("\",\"invalid\":[");
+        int first = invalid.nextSetBit(0);
+        for (int i = first; i >= 0; i = invalid.nextSetBit(i + 1)) {
+            if (i != first) {
+                out.write(',');
+            }
+            out.write(Integer.toString(i));
+        }
+        out.write("],\"output\":[");
+        for (int i = 0; i < results.length; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            if (invalid.get(i)) {
+                out.write("null");
+            } else if (Double.isNaN(results[i]) || Double.isInfinite(results[i])) {
+                // Not representable as JSON numbers, sent like the single value API
+                out.write('"');
+                out.write(Double.toString(results[i]));
+                out.write('"');
+            } else {
+                out.write(Double.toString(results[i]));
+            }
+        }
+        out.write("]}");
+        out.flush();
+    }
 }
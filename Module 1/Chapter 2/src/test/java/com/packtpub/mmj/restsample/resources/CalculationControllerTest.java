@@ -1,10 +1,13 @@
 package com.packtpub.mmj.restsample.resources;
 
 import com.packtpub.mmj.restsample.RestSampleApp;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertNull;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.boot.test.SpringApplicationConfiguration;
@@ -129,4 +132,61 @@ public class CalculationControllerTest {
         assertEquals(outputList.size(), 1);
         assertEquals("Base or/and Exponent is/are not set to numeric value.", outputList.get(0));
     }
+
+    /**
+     * Test the /calculation/batch/power API
+     */
+    @Test
+    public void testBatchPowApi() {
+        Map<String, Object> operands = new HashMap<>();
+        operands.put("base", Arrays.asList("2", "3", "2a", "-1"));
+        operands.put("exponent", Arrays.asList("4", "2", "1", "0.5"));
+
+        //Invoking the API
+        Map<String, Object> response
+                = restTemplate.postForObject("http://localhost:8080/calculation/batch/power", operands, Map.class);
+
+        assertNotNull(response);
+
+        //Asserting the response of the API.
+        assertEquals("power", response.get("function"));
+        List invalidList = (List) response.get("invalid");
+        assertEquals(1, invalidList.size());
+        assertEquals(2, invalidList.get(0));
+        List outputList = (List) response.get("output");
+        assertEquals(4, outputList.size());
+        assertEquals(16.0, outputList.get(0));
+        assertEquals(9.0, outputList.get(1));
+        assertNull(outputList.get(2));
+        assertEquals("NaN", outputList.get(3));
+    }
+
+    /**
+     * Test the /calculation/batch/sqrt API above the parallel threshold
+     */
+    @Test
+    public void testBatchSqrtApi() {
+        int size = CalculationController.PARALLEL_THRESHOLD * 2;
+        String[] values = new String[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = Integer.toString(i * i);
+        }
+        Map<String, Object> operands = new HashMap<>();
+        operands.put("value", values);
+
+        //Invoking the API
+        Map<String, Object> response
+                = restTemplate.postForObject("http://localhost:8080/calculation/batch/sqrt", operands, Map.class);
+
+        assertNotNull(response);
+
+        //Asserting the response of the API.
+        assertEquals("sqrt", response.get("function"));
+        assertEquals(0, ((List) response.get("invalid")).size());
+        List outputList = (List) response.get("output");
+        assertEquals(size, outputList.size());
+        for (int i = 0; i < size; i++) {
+            assertEquals((double) i, ((Number) outputList.get(i)).doubleValue());
+        }
+    }
 }
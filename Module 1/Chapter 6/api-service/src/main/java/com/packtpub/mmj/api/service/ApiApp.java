@@ -1,7 +1,11 @@
 package com.packtpub.mmj.api.service;
 
 import com.netflix.hystrix.strategy.HystrixPlugins;
+import com.packtpub.mmj.common.JwtTokenServices;
 import com.packtpub.mmj.common.MDCHystrixConcurrencyStrategy;
+import com.packtpub.mmj.common.RegistrySnapshot;
+import com.packtpub.mmj.common.RegistrySnapshotRibbonConfiguration;
+import com.packtpub.mmj.common.SmileHttpMessageConverter;
 import javax.net.ssl.HttpsURLConnection;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,10 +17,13 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.client.circuitbreaker.EnableCircuitBreaker;
 import org.springframework.cloud.client.loadbalancer.LoadBalanced;
 import org.springframework.cloud.netflix.eureka.EnableEurekaClient;
+import org.springframework.cloud.netflix.ribbon.RibbonClients;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
 import org.springframework.security.oauth2.config.annotation.web.configuration.EnableResourceServer;
+import org.springframework.security.oauth2.provider.token.ResourceServerTokenServices;
 import org.springframework.web.client.RestTemplate;
 
 @SpringBootApplication
@@ -25,6 +32,8 @@ import org.springframework.web.client.RestTemplate;
 @EnableResourceServer
 @Configuration
 @ComponentScan({"com.packtpub.mmj.api.service", "com.packtpub.mmj.common"})
+@Import(RegistrySnapshot.class)
+@RibbonClients(defaultConfiguration = RegistrySnapshotRibbonConfiguration.class)
 public class ApiApp {
 
     private static final Logger LOG = LoggerFactory.getLogger(ApiApp.class);
@@ -45,10 +54,31 @@ public class ApiApp {
         return connectionFactory;
     }
 
+    @Value("${app.security.jwt.keys-uri}")
+    String tokenKeysUri;
+
+    @Value("${app.security.jwt.cache-size:10000}")
+    int tokenCacheSize;
+
+    /**
+     * Access tokens are verified locally against the keys of the security
+     * service instead of calling its /user endpoint on every request.
+     *
+     * @return
+     */
+    @Bean
+    public ResourceServerTokenServices tokenServices() {
+        return new JwtTokenServices(tokenKeysUri, tokenCacheSize);
+    }
+
     @LoadBalanced
     @Bean
     RestTemplate restTemplate() {
-        return new RestTemplate();
+        RestTemplate restTemplate = new RestTemplate();
+        // Internal hops prefer Smile responses; the Accept header lists it
+        // ahead of JSON, while request bodies are still written as JSON
+        restTemplate.getMessageConverters().add(0, SmileHttpMessageConverter.forReading());
+        return restTemplate;
     }
 
     public static void main(String[] args) {
@@ -8,6 +8,7 @@ package com.packtpub.mmj.booking.domain.model.entity;
 public abstract class BaseEntity<T> extends Entity<T> {
 
     private boolean isModified;
+    private long version;
 
     /**
      *
@@ -28,4 +29,22 @@ public abstract class BaseEntity<T> extends Entity<T> {
         return isModified;
     }
 
+    /**
+     * Version assigned by the repository on every write, increasing with each
+     * mutation. Drives the entity tag of the resource.
+     *
+     * @return
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     *
+     * @param version
+     */
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
 }
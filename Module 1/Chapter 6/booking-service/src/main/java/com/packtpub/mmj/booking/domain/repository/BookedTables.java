@@ -0,0 +1,75 @@
+package com.packtpub.mmj.booking.domain.repository;
+
+import com.packtpub.mmj.booking.domain.model.entity.Booking;
+import com.packtpub.mmj.booking.domain.valueobject.BookingSlot;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Tables booked in each slot, maintained incrementally by the repository on
+ * every write, so checking whether a table is free does not scan the bookings.
+ *
+ * @author Sourabh Sharma
+ */
+public class BookedTables {
+
+    /**
+     * Number of bookings of each table, per slot
+     */
+    private final Map<BookingSlot, Map<String, Integer>> tables = new HashMap<>();
+
+    /**
+     * Slot and table indexed for each booking, so that an update or a removal
+     * takes back exactly what was indexed even if the booking was modified in
+     * place
+     */
+    private final Map<String, BookingSlot> indexedSlots = new HashMap<>();
+    private final Map<String, String> indexedTables = new HashMap<>();
+
+    /**
+     * Indexes the booking, replacing what was indexed for the same id.
+     *
+     * @param booking
+     */
+    public synchronized void put(Booking booking) {
+        remove(booking.getId());
+        if (booking.getTableId() == null) {
+            return;
+        }
+        BookingSlot slot = BookingSlot.of(booking);
+        indexedSlots.put(booking.getId(), slot);
+        indexedTables.put(booking.getId(), booking.getTableId());
+        tables.computeIfAbsent(slot, (key) -> new HashMap<>()).merge(booking.getTableId(), 1, Integer::sum);
+    }
+
+    /**
+     * Takes back what was indexed for the booking.
+     *
+     * @param bookingId
+     */
+    public synchronized void remove(String bookingId) {
+        BookingSlot slot = indexedSlots.remove(bookingId);
+        if (slot == null) {
+            return;
+        }
+        String tableId = indexedTables.remove(bookingId);
+        Map<String, Integer> booked = tables.get(slot);
+        if (booked.merge(tableId, -1, Integer::sum) == 0) {
+            booked.remove(tableId);
+            if (booked.isEmpty()) {
+                tables.remove(slot);
+            }
+        }
+    }
+
+    /**
+     *
+     * @param slot
+     * @param tableId
+     * @return true if a booking holds the table in the slot
+     */
+    public synchronized boolean contains(BookingSlot slot, String tableId) {
+        Map<String, Integer> booked = tables.get(slot);
+        return booked != null && booked.containsKey(tableId);
+    }
+}
@@ -1,5 +1,7 @@
 package com.packtpub.mmj.booking.domain.repository;
 
+import com.packtpub.mmj.booking.domain.valueobject.BookingSlot;
+import java.time.LocalDate;
 import java.util.Collection;
 
 /**
@@ -24,4 +26,20 @@ public interface BookingRepository<Booking, String> extends Repository<Booking,
      * @throws Exception
      */
     public Collection<Booking> findByName(String name) throws Exception;
+
+    /**
+     *
+     * @param restaurantId
+     * @param date
+     * @return bookings per hour of the day, followed by the day total
+     */
+    public int[] getOccupancy(String restaurantId, LocalDate date);
+
+    /**
+     *
+     * @param slot
+     * @param tableId
+     * @return true if the table is booked in the slot
+     */
+    public boolean isBooked(BookingSlot slot, String tableId);
 }
@@ -2,6 +2,8 @@ package com.packtpub.mmj.booking.domain.repository;
 
 import com.packtpub.mmj.booking.domain.model.entity.Booking;
 import com.packtpub.mmj.booking.domain.model.entity.Entity;
+import com.packtpub.mmj.booking.domain.valueobject.BookingSlot;
+import com.packtpub.mmj.common.EntityVersions;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.ArrayList;
@@ -19,15 +21,27 @@ public class InMemBookingRepository implements BookingRepository<Booking, String
 
     private Map<String, Booking> entities;
 
+    private final EntityVersions versions = new EntityVersions();
+
+    /**
+     * Occupancy analytics, maintained on every write
+     */
+    private final OccupancyCounters occupancy = new OccupancyCounters();
+
+    /**
+     * Tables booked per slot, maintained on every write
+     */
+    private final BookedTables bookedTables = new BookedTables();
+
     /**
      * Initialize the in-memory Booking Repository with sample Map
      */
     public InMemBookingRepository() {
         entities = new HashMap();
         Booking booking = new Booking("1", "Booking 1", "1", "1", "1", LocalDate.now(), LocalTime.now());
-        entities.put("1", booking);
+        add(booking);
         Booking booking2 = new Booking("2", "Booking 2", "2", "2", "2", LocalDate.now(), LocalTime.now());
-        entities.put("2", booking2);
+        add(booking2);
     }
 
     /**
@@ -52,7 +66,10 @@ public class InMemBookingRepository implements BookingRepository<Booking, String
      */
     @Override
     public void add(Booking entity) {
+        entity.setVersion(versions.next());
         entities.put(entity.getId(), entity);
+        occupancy.put(entity);
+        bookedTables.put(entity);
     }
 
     /**
@@ -63,6 +80,8 @@ public class InMemBookingRepository implements BookingRepository<Booking, String
     public void remove(String id) {
         if (entities.containsKey(id)) {
             entities.remove(id);
+            occupancy.remove(id);
+            bookedTables.remove(id);
         }
     }
 
@@ -73,7 +92,10 @@ public class InMemBookingRepository implements BookingRepository<Booking, String
     @Override
     public void update(Booking entity) {
         if (entities.containsKey(entity.getId())) {
+            entity.setVersion(versions.next());
             entities.put(entity.getId(), entity);
+            occupancy.put(entity);
+            bookedTables.put(entity);
         }
     }
 
@@ -124,4 +146,27 @@ public class InMemBookingRepository implements BookingRepository<Booking, String
         return bookings;
     }
 
+    /**
+     * Read from counters maintained on every write, never from the bookings.
+     *
+     * @param restaurantId
+     * @param date
+     * @return bookings per hour of the day, followed by the day total
+     */
+    @Override
+    public int[] getOccupancy(String restaurantId, LocalDate date) {
+        return occupancy.get(restaurantId, date);
+    }
+
+    /**
+     * Read from the index maintained on every write, never from the bookings.
+     *
+     * @param slot
+     * @param tableId
+     * @return true if the table is booked in the slot
+     */
+    @Override
+    public boolean isBooked(BookingSlot slot, String tableId) {
+        return bookedTables.contains(slot, tableId);
+    }
 }
@@ -0,0 +1,82 @@
+package com.packtpub.mmj.booking.domain.repository;
+
+import com.packtpub.mmj.booking.domain.model.entity.Booking;
+import com.packtpub.mmj.booking.domain.valueobject.BookingSlot;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Bookings per restaurant, day and hour, maintained incrementally by the
+ * repository on every write. Each (restaurant, day) owns one array of 24 hourly
+ * counters followed by the day total, so reading the occupancy of a day costs
+ * the same whatever the number of bookings.
+ *
+ * @author Sourabh Sharma
+ */
+public class OccupancyCounters {
+
+    /**
+     * Index of the day total in the counter arrays
+     */
+    public static final int DAY = 24;
+
+    private final Map<String, Map<LocalDate, int[]>> counters = new HashMap<>();
+
+    /**
+     * Slot counted for each booking, so that an update or a removal takes back
+     * exactly what was counted even if the booking was modified in place
+     */
+    private final Map<String, BookingSlot> countedSlots = new HashMap<>();
+
+    /**
+     * Counts the booking, replacing what was counted for the same id.
+     *
+     * @param booking
+     */
+    public synchronized void put(Booking booking) {
+        remove(booking.getId());
+        if (booking.getRestaurantId() == null || booking.getDate() == null || booking.getTime() == null) {
+            return;
+        }
+        BookingSlot slot = BookingSlot.of(booking);
+        countedSlots.put(booking.getId(), slot);
+        int[] day = counters.computeIfAbsent(slot.getRestaurantId(), (id) -> new HashMap<>())
+                .computeIfAbsent(slot.getDate(), (date) -> new int[DAY + 1]);
+        day[slot.getTime().getHour()]++;
+        day[DAY]++;
+    }
+
+    /**
+     * Takes back what was counted for the booking.
+     *
+     * @param bookingId
+     */
+    public synchronized void remove(String bookingId) {
+        BookingSlot slot = countedSlots.remove(bookingId);
+        if (slot == null) {
+            return;
+        }
+        Map<LocalDate, int[]> days = counters.get(slot.getRestaurantId());
+        int[] day = days.get(slot.getDate());
+        day[slot.getTime().getHour()]--;
+        if (--day[DAY] == 0) {
+            days.remove(slot.getDate());
+            if (days.isEmpty()) {
+                counters.remove(slot.getRestaurantId());
+            }
+        }
+    }
+
+    /**
+     *
+     * @param restaurantId
+     * @param date
+     * @return copy of the 24 hourly counters followed by the day total
+     */
+    public synchronized int[] get(String restaurantId, LocalDate date) {
+        Map<LocalDate, int[]> days = counters.get(restaurantId);
+        int[] day = days == null ? null : days.get(date);
+        return day == null ? new int[DAY + 1] : day.clone();
+    }
+}
@@ -0,0 +1,299 @@
+package com.packtpub.mmj.booking.domain.service;
+
+import com.packtpub.mmj.booking.domain.valueobject.BookingHold;
+import com.packtpub.mmj.booking.domain.valueobject.BookingHoldEvent;
+import com.packtpub.mmj.booking.domain.valueobject.BookingSlot;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tentative holds on tables. A held table cannot be booked by anyone else
+ * until the hold is confirmed, cancelled or expires. Expiry is driven by a
+ * {@link TimingWheel}, so placing and releasing a hold are O(1) and the
+ * periodic expiry only touches the holds that are due, never the whole set.
+ * <p>
+ * Booking writes run under the same lock as the holds, through
+ * {@link #write(Callable)} and {@link #confirm(String, Confirmation)}, so a
+ * table is never both held and booked.
+ *
+ * @author Sourabh Sharma
+ */
+@Component
+public class BookingHolds {
+
+    private static final Logger logger = Logger.getLogger(BookingHolds.class.getName());
+
+    private static final long DEFAULT_TICK_MILLIS = 1000;
+
+    /**
+     * Booking write turning a hold into a booking
+     *
+     * @param <T> the booking
+     */
+    @FunctionalInterface
+    public interface Confirmation<T> {
+
+        /**
+         *
+         * @param hold the hold being confirmed
+         * @return the booking
+         * @throws Exception if the booking cannot be written
+         */
+        T apply(BookingHold hold) throws Exception;
+    }
+
+    private static class Held {
+
+        final BookingHold hold;
+        final TimingWheel.Timeout<BookingHold> timeout;
+
+        Held(BookingHold hold, TimingWheel.Timeout<BookingHold> timeout) {
+            this.hold = hold;
+            this.timeout = timeout;
+        }
+    }
+
+    private final TimingWheel<BookingHold> wheel;
+    private final LongSupplier clock;
+    private final Map<String, Held> holds = new HashMap<>();
+    private final Map<BookingSlot, Map<String, String>> holdIdsByTable = new HashMap<>();
+    private final List<Consumer<BookingHoldEvent>> subscribers = new CopyOnWriteArrayList<>();
+
+    /**
+     * Holds expiring with a one second resolution
+     */
+    public BookingHolds() {
+        this(DEFAULT_TICK_MILLIS);
+    }
+
+    /**
+     *
+     * @param tickMillis resolution of the expiry
+     */
+    @Autowired
+    public BookingHolds(@Value("${app.holds.tick-ms:1000}") long tickMillis) {
+        this(tickMillis, System::currentTimeMillis);
+    }
+
+    /**
+     *
+     * @param tickMillis resolution of the expiry
+     * @param clock current time in milliseconds
+     */
+    BookingHolds(long tickMillis, LongSupplier clock) {
+        this.clock = clock;
+        this.wheel = new TimingWheel<>(tickMillis, clock.getAsLong());
+    }
+
+    /**
+     * Holds the table of the given slot, assigning the hold an id when it has
+     * none.
+     *
+     * @param hold
+     * @param ttlMillis time after which the hold is released
+     * @return the hold, with its id and expiry time
+     * @throws IllegalStateException if the table is already held
+     */
+    public BookingHold hold(BookingHold hold, long ttlMillis) {
+        return hold(hold, ttlMillis, (slot, tableId) -> false);
+    }
+
+    /**
+     * Holds the table of the given slot unless it is already booked.
+     *
+     * @param hold
+     * @param ttlMillis time after which the hold is released
+     * @param booked tells whether the table is booked in the slot
+     * @return the hold, with its id and expiry time
+     * @throws IllegalStateException if the table is already held or booked
+     */
+    public BookingHold hold(BookingHold hold, long ttlMillis, BiPredicate<BookingSlot, String> booked) {
+        synchronized (this) {
+            if (hold.getId() == null || hold.getId().isEmpty()) {
+                hold.setId(UUID.randomUUID().toString());
+            }
+            if (holds.containsKey(hold.getId())) {
+                throw new IllegalStateException(String.format("Hold %s already exists", hold.getId()));
+            }
+            Map<String, String> tables = holdIdsByTable.computeIfAbsent(hold.slot(), (slot) -> new HashMap<>());
+            if (tables.containsKey(hold.getTableId())) {
+                throw new IllegalStateException(String.format("Table %s is already held in %s", hold.getTableId(), hold.slot()));
+            }
+            if (booked.test(hold.slot(), hold.getTableId())) {
+                throw new IllegalStateException(String.format("Table %s is already booked in %s", hold.getTableId(), hold.slot()));
+            }
+            hold.setExpiresAt(clock.getAsLong() + ttlMillis);
+            tables.put(hold.getTableId(), hold.getId());
+            holds.put(hold.getId(), new Held(hold, wheel.schedule(hold, hold.getExpiresAt())));
+        }
+        publish(BookingHoldEvent.Type.HELD, hold);
+        return hold;
+    }
+
+    /**
+     *
+     * @param slot
+     * @param tableId
+     * @return true if the table is held in the slot
+     */
+    public synchronized boolean isHeld(BookingSlot slot, String tableId) {
+        Map<String, String> tables = holdIdsByTable.get(slot);
+        return tables != null && tables.containsKey(tableId);
+    }
+
+    /**
+     *
+     * @param id
+     * @return the hold, null if it does not exist or expired
+     */
+    public synchronized BookingHold get(String id) {
+        Held held = holds.get(id);
+        return held == null ? null : held.hold;
+    }
+
+    /**
+     * Runs a booking write while no hold can be placed, confirmed or released.
+     *
+     * @param <T>
+     * @param write
+     * @return the result of the write
+     * @throws Exception thrown by the write
+     */
+    public synchronized <T> T write(Callable<T> write) throws Exception {
+        return write.call();
+    }
+
+    /**
+     * Books the held table through the given write, then releases the hold.
+     * The hold is kept if the write throws, so the owner can retry until it
+     * expires.
+     *
+     * @param <T>
+     * @param id
+     * @param write booking write
+     * @return the booking, null if the hold does not exist or expired
+     * @throws Exception thrown by the write
+     */
+    public <T> T confirm(String id, Confirmation<T> write) throws Exception {
+        Held held;
+        T booking;
+        synchronized (this) {
+            held = holds.get(id);
+            if (held == null) {
+                return null;
+            }
+            booking = write.apply(held.hold);
+            remove(held);
+        }
+        publish(BookingHoldEvent.Type.CONFIRMED, held.hold);
+        return booking;
+    }
+
+    /**
+     *
+     * @param id
+     * @return true if the hold existed
+     */
+    public boolean cancel(String id) {
+        Held held;
+        synchronized (this) {
+            held = holds.get(id);
+            if (held == null) {
+                return false;
+            }
+            remove(held);
+        }
+        publish(BookingHoldEvent.Type.CANCELLED, held.hold);
+        return true;
+    }
+
+    /**
+     * Expires the holds that are due. Runs every tick.
+     */
+    @Scheduled(fixedDelayString = "${app.holds.tick-ms:1000}")
+    public void expire() {
+        advance(clock.getAsLong());
+    }
+
+    /**
+     * Expires the holds that are due at the given time.
+     *
+     * @param nowMillis
+     * @return number of expired holds
+     */
+    public int advance(long nowMillis) {
+        List<BookingHold> expired = new ArrayList<>();
+        synchronized (this) {
+            wheel.advance(nowMillis, (hold) -> {
+                holds.remove(hold.getId());
+                unindex(hold);
+                expired.add(hold);
+            });
+        }
+        expired.forEach((hold) -> publish(BookingHoldEvent.Type.EXPIRED, hold));
+        return expired.size();
+    }
+
+    /**
+     *
+     * @return number of live holds
+     */
+    public synchronized int size() {
+        return holds.size();
+    }
+
+    /**
+     *
+     * @param subscriber receives every hold event
+     */
+    public void subscribe(Consumer<BookingHoldEvent> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    /**
+     *
+     * @param subscriber
+     */
+    public void unsubscribe(Consumer<BookingHoldEvent> subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    private void remove(Held held) {
+        holds.remove(held.hold.getId());
+        wheel.cancel(held.timeout);
+        unindex(held.hold);
+    }
+
+    private void unindex(BookingHold hold) {
+        Map<String, String> tables = holdIdsByTable.get(hold.slot());
+        if (tables != null && tables.remove(hold.getTableId(), hold.getId()) && tables.isEmpty()) {
+            holdIdsByTable.remove(hold.slot());
+        }
+    }
+
+    private void publish(BookingHoldEvent.Type type, BookingHold hold) {
+        BookingHoldEvent event = new BookingHoldEvent(type, hold, clock.getAsLong());
+        subscribers.forEach((subscriber) -> {
+            try {
+                subscriber.accept(event);
+            } catch (RuntimeException ex) {
+                logger.log(Level.FINE, "Dropping hold subscriber {0}", ex);
+                subscribers.remove(subscriber);
+            }
+        });
+    }
+}
@@ -2,8 +2,12 @@ package com.packtpub.mmj.booking.domain.service;
 
 import com.packtpub.mmj.booking.domain.model.entity.Booking;
 import com.packtpub.mmj.booking.domain.model.entity.Entity;
+import com.packtpub.mmj.booking.domain.valueobject.BookingHold;
+import com.packtpub.mmj.booking.domain.valueobject.Occupancy;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -19,6 +23,26 @@ public interface BookingService {
      */
     public void add(Booking booking) throws Exception;
 
+    /**
+     * Holds a table that is not booked yet.
+     *
+     * @param hold
+     * @param ttlMillis time after which the hold is released
+     * @return the hold, with its id and expiry time
+     * @throws IllegalStateException if the table is already held or booked
+     */
+    public BookingHold hold(BookingHold hold, long ttlMillis);
+
+    /**
+     * Turns a hold into a booking of the held table.
+     *
+     * @param holdId
+     * @param name
+     * @return the booking
+     * @throws Exception
+     */
+    public Booking confirmHold(String holdId, String name) throws Exception;
+
     /**
      *
      * @param booking
@@ -49,6 +73,16 @@ public interface BookingService {
      */
     public Collection<Booking> findByName(String name) throws Exception;
 
+    /**
+     *
+     * @param restaurantId
+     * @param from first day, inclusive
+     * @param to last day, inclusive
+     * @return occupancy of each day of the range
+     * @throws Exception
+     */
+    public List<Occupancy> getOccupancy(String restaurantId, LocalDate from, LocalDate to) throws Exception;
+
     /**
      *
      * @param name
@@ -3,9 +3,18 @@ package com.packtpub.mmj.booking.domain.service;
 import com.packtpub.mmj.booking.domain.model.entity.Booking;
 import com.packtpub.mmj.booking.domain.model.entity.Entity;
 import com.packtpub.mmj.booking.domain.repository.BookingRepository;
+import com.packtpub.mmj.booking.domain.repository.OccupancyCounters;
+import com.packtpub.mmj.booking.domain.valueobject.BookingHold;
+import com.packtpub.mmj.booking.domain.valueobject.BookingSlot;
+import com.packtpub.mmj.booking.domain.valueobject.Occupancy;
+import com.packtpub.mmj.booking.domain.valueobject.WaitlistPromotion;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -19,25 +28,101 @@ public class BookingServiceImpl extends BaseService<Booking, String>
 
     private BookingRepository<Booking, String> bookingRepository;
 
+    private Waitlist waitlist;
+
+    private BookingHolds holds;
+
     /**
      *
      * @param bookingRepository
      */
-    @Autowired
     public BookingServiceImpl(BookingRepository<Booking, String> bookingRepository) {
+        this(bookingRepository, new Waitlist());
+    }
+
+    /**
+     *
+     * @param bookingRepository
+     * @param waitlist
+     */
+    public BookingServiceImpl(BookingRepository<Booking, String> bookingRepository, Waitlist waitlist) {
+        this(bookingRepository, waitlist, new BookingHolds());
+    }
+
+    /**
+     *
+     * @param bookingRepository
+     * @param waitlist
+     * @param holds
+     */
+    @Autowired
+    public BookingServiceImpl(BookingRepository<Booking, String> bookingRepository, Waitlist waitlist, BookingHolds holds) {
         super(bookingRepository);
         this.bookingRepository = bookingRepository;
+        this.waitlist = waitlist;
+        this.holds = holds;
     }
 
     @Override
     public void add(Booking booking) throws Exception {
-        if (bookingRepository.containsName(booking.getName())) {
-            throw new Exception(String.format("There is already a product with the name - %s", booking.getName()));
+        validate(booking);
+        holds.write(() -> {
+            if (holds.isHeld(BookingSlot.of(booking), booking.getTableId())) {
+                throw new Exception(String.format("Table %s is held by another customer.", booking.getTableId()));
+            }
+            insert(booking);
+            return booking;
+        });
+    }
+
+    /**
+     *
+     * @param hold
+     * @param ttlMillis
+     * @return
+     */
+    @Override
+    public BookingHold hold(BookingHold hold, long ttlMillis) {
+        return holds.hold(hold, ttlMillis, bookingRepository::isBooked);
+    }
+
+    /**
+     * The booking gets an id of its own; the hold is released only once the
+     * booking is written.
+     *
+     * @param holdId
+     * @param name
+     * @return
+     * @throws Exception
+     */
+    @Override
+    public Booking confirmHold(String holdId, String name) throws Exception {
+        Booking booking = holds.confirm(holdId, (hold) -> {
+            Booking held = new Booking(UUID.randomUUID().toString(), name, hold.getRestaurantId(),
+                    hold.getTableId(), hold.getUserId(), hold.getDate(), hold.getTime());
+            validate(held);
+            insert(held);
+            return held;
+        });
+        if (booking == null) {
+            throw new Exception(String.format("Hold %s does not exist or has expired.", holdId));
         }
+        return booking;
+    }
 
+    private void validate(Booking booking) throws Exception {
         if (booking.getName() == null || "".equals(booking.getName())) {
             throw new Exception("Booking name cannot be null or empty string.");
         }
+        if (bookingRepository.containsName(booking.getName())) {
+            throw new Exception(String.format("There is already a product with the name - %s", booking.getName()));
+        }
+    }
+
+    private void insert(Booking booking) throws Exception {
+        if (bookingRepository.isBooked(BookingSlot.of(booking), booking.getTableId())) {
+            throw new Exception(String.format("Table %s is already booked.", booking.getTableId()));
+        }
         super.add(booking);
     }
 
@@ -63,13 +148,35 @@ public class BookingServiceImpl extends BaseService<Booking, String>
     }
 
     /**
+     * Removes the booking and promotes the first customer waiting for its
+     * slot, if any.
      *
      * @param id
      * @throws Exception
      */
     @Override
     public void delete(String id) throws Exception {
-        bookingRepository.remove(id);
+        // the freed table goes to the head of the waitlist before anyone else can hold it
+        WaitlistPromotion promotion = holds.write(() -> {
+            synchronized (waitlist) {
+                Entity entity = bookingRepository.get(id);
+                bookingRepository.remove(id);
+                if (!(entity instanceof Booking)) {
+                    return null;
+                }
+                Booking freed = (Booking) entity;
+                return waitlist.promote(BookingSlot.of(freed), freed.getTableId(), (entry) -> {
+                    Booking booking = new Booking(UUID.randomUUID().toString(), entry.getName(),
+                            entry.getRestaurantId(), freed.getTableId(), entry.getUserId(), entry.getDate(),
+                            entry.getTime());
+                    bookingRepository.add(booking);
+                    return booking;
+                });
+            }
+        });
+        if (promotion != null) {
+            waitlist.publish(promotion);
+        }
     }
 
     /**
@@ -83,6 +190,25 @@ public class BookingServiceImpl extends BaseService<Booking, String>
         return bookingRepository.get(id);
     }
 
+    /**
+     *
+     * @param restaurantId
+     * @param from
+     * @param to
+     * @return
+     * @throws Exception
+     */
+    @Override
+    public List<Occupancy> getOccupancy(String restaurantId, LocalDate from, LocalDate to) throws Exception {
+        List<Occupancy> days = new ArrayList<>();
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            int[] counters = bookingRepository.getOccupancy(restaurantId, date);
+            days.add(new Occupancy(restaurantId, date, counters[OccupancyCounters.DAY],
+                    Arrays.copyOf(counters, OccupancyCounters.DAY)));
+        }
+        return days;
+    }
+
     /**
      *
      * @param name
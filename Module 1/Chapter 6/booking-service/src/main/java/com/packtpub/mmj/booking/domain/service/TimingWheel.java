@@ -0,0 +1,200 @@
+package com.packtpub.mmj.booking.domain.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel. Timeouts hang in doubly linked buckets, so
+ * scheduling and cancelling are O(1) whatever the number of pending timeouts.
+ * Level 0 has one bucket per tick; each upper level has buckets 64 times wider
+ * and is cascaded into the lower levels when the level below wraps around.
+ * Four levels cover 64^4 ticks, later deadlines wait in the top level and are
+ * cascaded again.
+ *
+ * @author Sourabh Sharma
+ * @param <T> payload of the timeouts
+ */
+public class TimingWheel<T> {
+
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+
+    /**
+     * Pending timeout, also the node of its bucket list
+     *
+     * @param <T>
+     */
+    public static final class Timeout<T> {
+
+        private final T payload;
+        private final long deadlineTick;
+        private Timeout<T> prev;
+        private Timeout<T> next;
+
+        private Timeout(T payload, long deadlineTick) {
+            this.payload = payload;
+            this.deadlineTick = deadlineTick;
+        }
+
+        /**
+         *
+         * @return
+         */
+        public T getPayload() {
+            return payload;
+        }
+
+        /**
+         *
+         * @return true while the timeout is scheduled
+         */
+        public boolean isPending() {
+            return prev != null;
+        }
+
+        private void unlink() {
+            prev.next = next;
+            next.prev = prev;
+            prev = null;
+            next = null;
+        }
+    }
+
+    private final long tickMillis;
+    private final long startMillis;
+    private final Timeout<T>[][] wheels;
+    private long currentTick;
+    private int size;
+
+    /**
+     *
+     * @param tickMillis resolution of the wheel
+     * @param startMillis time of tick 0
+     */
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMillis, long startMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("Tick duration must be positive.");
+        }
+        this.tickMillis = tickMillis;
+        this.startMillis = startMillis;
+        wheels = new Timeout[LEVELS][SLOTS];
+        for (Timeout<T>[] wheel : wheels) {
+            for (int i = 0; i < SLOTS; i++) {
+                Timeout<T> head = new Timeout<>(null, 0);
+                head.prev = head;
+                head.next = head;
+                wheel[i] = head;
+            }
+        }
+    }
+
+    /**
+     * Schedules the payload to expire on the first tick at or after the
+     * deadline.
+     *
+     * @param payload
+     * @param deadlineMillis
+     * @return handle to cancel the timeout
+     */
+    public synchronized Timeout<T> schedule(T payload, long deadlineMillis) {
+        long deadlineTick = Math.max(currentTick + 1, ceilDiv(deadlineMillis - startMillis, tickMillis));
+        Timeout<T> timeout = new Timeout<>(payload, deadlineTick);
+        insert(timeout);
+        size++;
+        return timeout;
+    }
+
+    /**
+     *
+     * @param timeout
+     * @return true if the timeout was still pending
+     */
+    public synchronized boolean cancel(Timeout<T> timeout) {
+        if (!timeout.isPending()) {
+            return false;
+        }
+        timeout.unlink();
+        size--;
+        return true;
+    }
+
+    /**
+     * Moves the wheel up to the given time and hands every timeout that is due
+     * to the consumer, tick by tick. The consumer runs while the wheel is
+     * locked and must not block.
+     *
+     * @param nowMillis
+     * @param expired
+     * @return number of expired timeouts
+     */
+    public synchronized int advance(long nowMillis, Consumer<T> expired) {
+        long targetTick = Math.floorDiv(nowMillis - startMillis, tickMillis);
+        int count = 0;
+        while (currentTick < targetTick) {
+            if (size == 0) {
+                currentTick = targetTick;
+                break;
+            }
+            currentTick++;
+            for (int level = LEVELS - 1; level > 0; level--) {
+                if ((currentTick & ((1L << (BITS * level)) - 1)) == 0) {
+                    cascade(wheels[level][(int) (currentTick >>> (BITS * level)) & MASK]);
+                }
+            }
+            Timeout<T> head = wheels[0][(int) currentTick & MASK];
+            while (head.next != head) {
+                Timeout<T> timeout = head.next;
+                timeout.unlink();
+                if (timeout.deadlineTick <= currentTick) {
+                    size--;
+                    count++;
+                    expired.accept(timeout.payload);
+                } else {
+                    insert(timeout);
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     *
+     * @return number of pending timeouts
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    private void cascade(Timeout<T> head) {
+        List<Timeout<T>> pending = new ArrayList<>();
+        while (head.next != head) {
+            Timeout<T> timeout = head.next;
+            timeout.unlink();
+            pending.add(timeout);
+        }
+        pending.forEach(this::insert);
+    }
+
+    private void insert(Timeout<T> timeout) {
+        long delta = timeout.deadlineTick - currentTick;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << (BITS * (level + 1))) {
+            level++;
+        }
+        long tick = level == LEVELS - 1 ? Math.min(timeout.deadlineTick, currentTick + (1L << (BITS * LEVELS)) - 1)
+                : timeout.deadlineTick;
+        Timeout<T> head = wheels[level][(int) (tick >>> (BITS * level)) & MASK];
+        timeout.prev = head.prev;
+        timeout.next = head;
+        head.prev.next = timeout;
+        head.prev = timeout;
+    }
+
+    private static long ceilDiv(long x, long y) {
+        return -Math.floorDiv(-x, y);
+    }
+}
@@ -0,0 +1,193 @@
+package com.packtpub.mmj.booking.domain.service;
+
+import com.packtpub.mmj.booking.domain.model.entity.Booking;
+import com.packtpub.mmj.booking.domain.valueobject.BookingSlot;
+import com.packtpub.mmj.booking.domain.valueobject.WaitlistEntry;
+import com.packtpub.mmj.booking.domain.valueobject.WaitlistPromotion;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.springframework.stereotype.Component;
+
+/**
+ * Customers waiting for a booked slot, kept in one priority queue per
+ * (restaurant, date, time). When a booking of a slot is removed the head of its
+ * queue is promoted to a booking and the promotion is pushed to the
+ * subscribers, so waiting customers do not have to poll.
+ * <p>
+ * All operations hold the monitor of the waitlist; a caller that must free the
+ * slot and promote atomically does both while synchronized on it, and
+ * publishes the promotion once it let go of the monitor, so that a slow
+ * subscriber never holds up the waitlist.
+ *
+ * @author Sourabh Sharma
+ */
+@Component
+public class Waitlist {
+
+    private static final Logger logger = Logger.getLogger(Waitlist.class.getName());
+
+    private static final Comparator<Position> SERVICE_ORDER = Comparator
+            .comparingInt((Position p) -> -p.entry.getPriority())
+            .thenComparingLong((Position p) -> p.sequence);
+
+    private static class Position {
+
+        final WaitlistEntry entry;
+        final long sequence;
+
+        Position(WaitlistEntry entry, long sequence) {
+            this.entry = entry;
+            this.sequence = sequence;
+        }
+    }
+
+    private final Map<BookingSlot, PriorityQueue<Position>> queues = new HashMap<>();
+    private final Map<String, BookingSlot> slotsByEntryId = new HashMap<>();
+    private final List<Consumer<WaitlistPromotion>> subscribers = new CopyOnWriteArrayList<>();
+    private long lastSequence;
+
+    /**
+     * Queues the entry at the default priority. The id and priority it came
+     * with are replaced, so a customer can neither jump the queue nor take
+     * over the entry of another one.
+     *
+     * @param entry
+     * @return id assigned to the entry
+     */
+    public String join(WaitlistEntry entry) {
+        return join(entry, 0);
+    }
+
+    /**
+     * Queues the entry at the given priority. Only for callers that decided
+     * the priority themselves, never with one sent by the customer.
+     *
+     * @param entry
+     * @param priority higher priorities are served first
+     * @return id assigned to the entry
+     */
+    public synchronized String join(WaitlistEntry entry, int priority) {
+        entry.setId(UUID.randomUUID().toString());
+        entry.setPriority(priority);
+        BookingSlot slot = entry.slot();
+        queues.computeIfAbsent(slot, (key) -> new PriorityQueue<>(SERVICE_ORDER)).add(new Position(entry, ++lastSequence));
+        slotsByEntryId.put(entry.getId(), slot);
+        return entry.getId();
+    }
+
+    /**
+     *
+     * @param entryId
+     * @return true if the entry was waiting
+     */
+    public synchronized boolean leave(String entryId) {
+        BookingSlot slot = slotsByEntryId.remove(entryId);
+        if (slot == null) {
+            return false;
+        }
+        PriorityQueue<Position> queue = queues.get(slot);
+        queue.removeIf((position) -> position.entry.getId().equals(entryId));
+        if (queue.isEmpty()) {
+            queues.remove(slot);
+        }
+        return true;
+    }
+
+    /**
+     *
+     * @param slot
+     * @return entries waiting for the slot, next to be served first
+     */
+    public synchronized List<WaitlistEntry> entries(BookingSlot slot) {
+        PriorityQueue<Position> queue = queues.get(slot);
+        if (queue == null) {
+            return Collections.emptyList();
+        }
+        List<Position> positions = new ArrayList<>(queue);
+        positions.sort(SERVICE_ORDER);
+        List<WaitlistEntry> entries = new ArrayList<>(positions.size());
+        positions.forEach((position) -> entries.add(position.entry));
+        return entries;
+    }
+
+    /**
+     * Hands the slot to the head of its queue. The head is removed only if the
+     * booker succeeds. The promotion is not pushed to the subscribers; the
+     * caller does so through {@link #publish(WaitlistPromotion)} after it
+     * released its locks.
+     *
+     * @param slot
+     * @param tableId table freed in the slot
+     * @param booker stores the booking made for the promoted entry, under an
+     * id of its own
+     * @return the promotion, null if nobody waits for the slot
+     */
+    public synchronized WaitlistPromotion promote(BookingSlot slot, String tableId, Function<WaitlistEntry, Booking> booker) {
+        PriorityQueue<Position> queue = queues.get(slot);
+        if (queue == null) {
+            return null;
+        }
+        WaitlistEntry entry = queue.peek().entry;
+        Booking booking = booker.apply(entry);
+        queue.poll();
+        if (queue.isEmpty()) {
+            queues.remove(slot);
+        }
+        slotsByEntryId.remove(entry.getId());
+        return new WaitlistPromotion(entry, booking.getId(), tableId, System.currentTimeMillis());
+    }
+
+    /**
+     * Pushes the promotion to the subscribers. Must not be called while
+     * holding the monitor of the waitlist.
+     *
+     * @param promotion
+     */
+    public void publish(WaitlistPromotion promotion) {
+        subscribers.forEach((subscriber) -> notify(subscriber, promotion));
+    }
+
+    /**
+     *
+     * @param subscriber receives every promotion
+     */
+    public void subscribe(Consumer<WaitlistPromotion> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    /**
+     *
+     * @param subscriber
+     */
+    public void unsubscribe(Consumer<WaitlistPromotion> subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    /**
+     *
+     * @return number of waiting entries
+     */
+    public synchronized int size() {
+        return slotsByEntryId.size();
+    }
+
+    private void notify(Consumer<WaitlistPromotion> subscriber, WaitlistPromotion promotion) {
+        try {
+            subscriber.accept(promotion);
+        } catch (RuntimeException ex) {
+            logger.log(Level.FINE, "Dropping waitlist subscriber {0}", ex);
+            subscribers.remove(subscriber);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.packtpub.mmj.booking.domain.valueobject;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Tentative reservation of a table in a slot, released automatically unless
+ * it is confirmed before it expires.
+ *
+ * @author Sourabh Sharma
+ */
+public class BookingHold {
+
+    private String id;
+    private String restaurantId;
+    private String tableId;
+    private String userId;
+    private LocalDate date;
+    private LocalTime time;
+    private long expiresAt;
+
+    /**
+     * Default Constructor
+     */
+    public BookingHold() {
+    }
+
+    /**
+     * Custom Constructor
+     *
+     * @param id
+     * @param restaurantId
+     * @param tableId
+     * @param userId
+     * @param date
+     * @param time
+     */
+    public BookingHold(String id, String restaurantId, String tableId, String userId, LocalDate date, LocalTime time) {
+        this.id = id;
+        this.restaurantId = restaurantId;
+        this.tableId = tableId;
+        this.userId = userId;
+        this.date = date;
+        this.time = time;
+    }
+
+    /**
+     *
+     * @return the slot the table is held in
+     */
+    public BookingSlot slot() {
+        return new BookingSlot(restaurantId, date, time);
+    }
+
+    /**
+     *
+     * @return
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     *
+     * @param id
+     */
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    /**
+     *
+     * @return
+     */
+    public String getRestaurantId() {
+        return restaurantId;
+    }
+
+    /**
+     *
+     * @param restaurantId
+     */
+    public void setRestaurantId(String restaurantId) {
+        this.restaurantId = restaurantId;
+    }
+
+    /**
+     *
+     * @return
+     */
+    public String getTableId() {
+        return tableId;
+    }
+
+    /**
+     *
+     * @param tableId
+     */
+    public void setTableId(String tableId) {
+        this.tableId = tableId;
+    }
+
+    /**
+     *
+     * @return
+     */
+    public String getUserId() {
+        return userId;
+    }
+
+    /**
+     *
+     * @param userId
+     */
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    /**
+     *
+     * @return
+     */
+    public LocalDate getDate() {
+        return date;
+    }
+
+    /**
+     *
+     * @param date
+     */
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+
+    /**
+     *
+     * @return
+     */
+    public LocalTime getTime() {
+        return time;
+    }
+
+    /**
+     *
+     * @param time
+     */
+    public void setTime(LocalTime time) {
+        this.time = time;
+    }
+
+    /**
+     *
+     * @return expiry time in milliseconds since the epoch
+     */
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    /**
+     *
+     * @param expiresAt
+     */
+    public void setExpiresAt(long expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * Overridden toString() method that return String presentation of the
+     * Object
+     *
+     * @return
+     */
+    @Override
+    public String toString() {
+        return new StringBuilder("{id: ").append(id).append(", userId: ").append(userId)
+                .append(", restaurantId: ").append(restaurantId)
+                .append(", tableId: ").append(tableId)
+                .append(", date: ").append(date).append(", time: ").append(time)
+                .append(", expiresAt: ").append(expiresAt).append("}").toString();
+    }
+}
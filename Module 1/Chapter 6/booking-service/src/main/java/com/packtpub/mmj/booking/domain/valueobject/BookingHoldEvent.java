@@ -0,0 +1,84 @@
+package com.packtpub.mmj.booking.domain.valueobject;
+
+/**
+ * Change of state of a hold.
+ *
+ * @author Sourabh Sharma
+ */
+public class BookingHoldEvent {
+
+    /**
+     * What happened to the hold
+     */
+    public enum Type {
+
+        /**
+         * the hold was placed
+         */
+        HELD,
+        /**
+         * the hold was turned into a booking
+         */
+        CONFIRMED,
+        /**
+         * the hold was released by its owner
+         */
+        CANCELLED,
+        /**
+         * the hold timed out and its table is available again
+         */
+        EXPIRED
+    }
+
+    private final Type type;
+    private final BookingHold hold;
+    private final long timestamp;
+
+    /**
+     *
+     * @param type
+     * @param hold
+     * @param timestamp
+     */
+    public BookingHoldEvent(Type type, BookingHold hold, long timestamp) {
+        this.type = type;
+        this.hold = hold;
+        this.timestamp = timestamp;
+    }
+
+    /**
+     *
+     * @return
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     *
+     * @return
+     */
+    public BookingHold getHold() {
+        return hold;
+    }
+
+    /**
+     *
+     * @return
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Overridden toString() method that return String presentation of the
+     * Object
+     *
+     * @return
+     */
+    @Override
+    public String toString() {
+        return new StringBuilder("{type: ").append(type).append(", hold: ").append(hold)
+                .append(", timestamp: ").append(timestamp).append("}").toString();
+    }
+}
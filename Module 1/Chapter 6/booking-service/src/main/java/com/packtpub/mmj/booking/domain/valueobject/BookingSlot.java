@@ -0,0 +1,93 @@
+package com.packtpub.mmj.booking.domain.valueobject;
+
+import com.packtpub.mmj.booking.domain.model.entity.Booking;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Objects;
+
+/**
+ * Restaurant, date and time a booking is made for.
+ *
+ * @author Sourabh Sharma
+ */
+public final class BookingSlot {
+
+    private final String restaurantId;
+    private final LocalDate date;
+    private final LocalTime time;
+
+    /**
+     *
+     * @param restaurantId
+     * @param date
+     * @param time
+     */
+    public BookingSlot(String restaurantId, LocalDate date, LocalTime time) {
+        this.restaurantId = restaurantId;
+        this.date = date;
+        this.time = time;
+    }
+
+    /**
+     *
+     * @param booking
+     * @return the slot taken by the booking
+     */
+    public static BookingSlot of(Booking booking) {
+        return new BookingSlot(booking.getRestaurantId(), booking.getDate(), booking.getTime());
+    }
+
+    /**
+     *
+     * @return
+     */
+    public String getRestaurantId() {
+        return restaurantId;
+    }
+
+    /**
+     *
+     * @return
+     */
+    public LocalDate getDate() {
+        return date;
+    }
+
+    /**
+     *
+     * @return
+     */
+    public LocalTime getTime() {
+        return time;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof BookingSlot)) {
+            return false;
+        }
+        BookingSlot other = (BookingSlot) obj;
+        return Objects.equals(restaurantId, other.restaurantId) && Objects.equals(date, other.date)
+                && Objects.equals(time, other.time);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(restaurantId, date, time);
+    }
+
+    /**
+     * Overridden toString() method that return String presentation of the
+     * Object
+     *
+     * @return
+     */
+    @Override
+    public String toString() {
+        return new StringBuilder("{restaurantId: ").append(restaurantId)
+                .append(", date: ").append(date).append(", time: ").append(time).append("}").toString();
+    }
+}
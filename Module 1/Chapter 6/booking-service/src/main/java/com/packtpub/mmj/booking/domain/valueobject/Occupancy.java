@@ -0,0 +1,74 @@
+package com.packtpub.mmj.booking.domain.valueobject;
+
+import java.time.LocalDate;
+
+/**
+ * Number of bookings of a restaurant on one day, in total and per hour.
+ *
+ * @author Sourabh Sharma
+ */
+public class Occupancy {
+
+    private final String restaurantId;
+    private final LocalDate date;
+    private final int total;
+    private final int[] hourly;
+
+    /**
+     *
+     * @param restaurantId
+     * @param date
+     * @param total
+     * @param hourly bookings starting in each hour of the day
+     */
+    public Occupancy(String restaurantId, LocalDate date, int total, int[] hourly) {
+        this.restaurantId = restaurantId;
+        this.date = date;
+        this.total = total;
+        this.hourly = hourly;
+    }
+
+    /**
+     *
+     * @return
+     */
+    public String getRestaurantId() {
+        return restaurantId;
+    }
+
+    /**
+     *
+     * @return
+     */
+    public LocalDate getDate() {
+        return date;
+    }
+
+    /**
+     *
+     * @return
+     */
+    public int getTotal() {
+        return total;
+    }
+
+    /**
+     *
+     * @return bookings starting in each hour of the day, index 0 to 23
+     */
+    public int[] getHourly() {
+        return hourly;
+    }
+
+    /**
+     * Overridden toString() method that return String presentation of the
+     * Object
+     *
+     * @return
+     */
+    @Override
+    public String toString() {
+        return new StringBuilder("{restaurantId: ").append(restaurantId).append(", date: ").append(date)
+                .append(", total: ").append(total).append("}").toString();
+    }
+}
@@ -0,0 +1,183 @@
+package com.packtpub.mmj.booking.domain.valueobject;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Customer waiting for a slot to free up. Entries with a higher priority are
+ * served first, entries of equal priority in arrival order.
+ *
+ * @author Sourabh Sharma
+ */
+public class WaitlistEntry {
+
+    private String id;
+    private String name;
+    private String restaurantId;
+    private String userId;
+    private LocalDate date;
+    private LocalTime time;
+    private int priority;
+
+    /**
+     * Default Constructor
+     */
+    public WaitlistEntry() {
+    }
+
+    /**
+     * Custom Constructor
+     *
+     * @param id
+     * @param name
+     * @param restaurantId
+     * @param userId
+     * @param date
+     * @param time
+     * @param priority
+     */
+    public WaitlistEntry(String id, String name, String restaurantId, String userId, LocalDate date, LocalTime time, int priority) {
+        this.id = id;
+        this.name = name;
+        this.restaurantId = restaurantId;
+        this.userId = userId;
+        this.date = date;
+        this.time = time;
+        this.priority = priority;
+    }
+
+    /**
+     *
+     * @return the slot the customer waits for
+     */
+    public BookingSlot slot() {
+        return new BookingSlot(restaurantId, date, time);
+    }
+
+    /**
+     *
+     * @return
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     *
+     * @param id
+     */
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    /**
+     *
+     * @return
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     *
+     * @param name
+     */
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    /**
+     *
+     * @return
+     */
+    public String getRestaurantId() {
+        return restaurantId;
+    }
+
+    /**
+     *
+     * @param restaurantId
+     */
+    public void setRestaurantId(String restaurantId) {
+        this.restaurantId = restaurantId;
+    }
+
+    /**
+     *
+     * @return
+     */
+    public String getUserId() {
+        return userId;
+    }
+
+    /**
+     *
+     * @param userId
+     */
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    /**
+     *
+     * @return
+     */
+    public LocalDate getDate() {
+        return date;
+    }
+
+    /**
+     *
+     * @param date
+     */
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+
+    /**
+     *
+     * @return
+     */
+    public LocalTime getTime() {
+        return time;
+    }
+
+    /**
+     *
+     * @param time
+     */
+    public void setTime(LocalTime time) {
+        this.time = time;
+    }
+
+    /**
+     *
+     * @return
+     */
+    public int getPriority() {
+        return priority;
+    }
+
+    /**
+     *
+     * @param priority
+     */
+    public void setPriority(int priority) {
+        this.priority = priority;
+    }
+
+    /**
+     * Overridden toString() method that return String presentation of the
+     * Object
+     *
+     * @return
+     */
+    @Override
+    public String toString() {
+        return new StringBuilder("{id: ").append(id).append(", name: ")
+                .append(name).append(", userId: ").append(userId)
+                .append(", restaurantId: ").append(restaurantId)
+                .append(", date: ").append(date).append(", time: ").append(time)
+                .append(", priority: ").append(priority).append("}").toString();
+    }
+}
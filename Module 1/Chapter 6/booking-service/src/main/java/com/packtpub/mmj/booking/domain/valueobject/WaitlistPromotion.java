@@ -0,0 +1,72 @@
+package com.packtpub.mmj.booking.domain.valueobject;
+
+/**
+ * Event pushed when a waiting customer is given a freed slot.
+ *
+ * @author Sourabh Sharma
+ */
+public class WaitlistPromotion {
+
+    private final WaitlistEntry entry;
+    private final String bookingId;
+    private final String tableId;
+    private final long timestamp;
+
+    /**
+     *
+     * @param entry
+     * @param bookingId
+     * @param tableId
+     * @param timestamp
+     */
+    public WaitlistPromotion(WaitlistEntry entry, String bookingId, String tableId, long timestamp) {
+        this.entry = entry;
+        this.bookingId = bookingId;
+        this.tableId = tableId;
+        this.timestamp = timestamp;
+    }
+
+    /**
+     *
+     * @return
+     */
+    public WaitlistEntry getEntry() {
+        return entry;
+    }
+
+    /**
+     *
+     * @return id of the booking created for the customer
+     */
+    public String getBookingId() {
+        return bookingId;
+    }
+
+    /**
+     *
+     * @return
+     */
+    public String getTableId() {
+        return tableId;
+    }
+
+    /**
+     *
+     * @return
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Overridden toString() method that return String presentation of the
+     * Object
+     *
+     * @return
+     */
+    @Override
+    public String toString() {
+        return new StringBuilder("{bookingId: ").append(bookingId).append(", tableId: ").append(tableId)
+                .append(", entry: ").append(entry).append(", timestamp: ").append(timestamp).append("}").toString();
+    }
+}
@@ -1,9 +1,11 @@
 package com.packtpub.mmj.booking.resources;
 
 import com.packtpub.mmj.booking.domain.model.entity.Booking;
+import com.packtpub.mmj.booking.domain.model.entity.BaseEntity;
 import com.packtpub.mmj.booking.domain.model.entity.Entity;
 import com.packtpub.mmj.booking.domain.service.BookingService;
 import com.packtpub.mmj.booking.domain.valueobject.BookingVO;
+import com.packtpub.mmj.common.EntityTags;
 import java.util.Collection;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -13,6 +15,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -72,12 +75,17 @@ public class BookingController {
      * Fetch bookings with the given id.
      * <code>http://.../v1/bookings/{id}</code> will return booking with given
      * id.
+     * The answer carries an ETag derived from the entity version, and a
+     * request whose <code>If-None-Match</code> header holds that tag gets a
+     * <code>304 Not Modified</code> without a body.
      *
      * @param id
+     * @param ifNoneMatch entity tags already held by the caller
      * @return A non-null, non-empty collection of bookings.
      */
     @RequestMapping(value = "/{id}", method = RequestMethod.GET)
-    public ResponseEntity<Entity> findById(@PathVariable("id") String id) {
+    public ResponseEntity<Entity> findById(@PathVariable("id") String id,
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
         logger.info(String.format("booking-service findById() invoked:{} for {} ", bookingService.getClass().getName(), id));
         id = id.trim();
         Entity booking;
@@ -87,8 +95,10 @@ public class BookingController {
             logger.log(Level.WARNING, "Exception raised findById REST Call {0}", ex);
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
         }
-        return booking != null ? new ResponseEntity<>(booking, HttpStatus.OK)
-                : new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        if (booking == null) {
+            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        }
+        return EntityTags.conditionalGet(booking, ((BaseEntity<?>) booking).getVersion(), ifNoneMatch);
     }
 
     /**
@@ -0,0 +1,155 @@
+package com.packtpub.mmj.booking.resources;
+
+import com.packtpub.mmj.booking.domain.model.entity.Booking;
+import com.packtpub.mmj.booking.domain.service.BookingHolds;
+import com.packtpub.mmj.booking.domain.service.BookingService;
+import com.packtpub.mmj.booking.domain.valueobject.BookingHold;
+import com.packtpub.mmj.booking.domain.valueobject.BookingHoldEvent;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Tentative holds placed before a booking is confirmed. A hold keeps the table
+ * for <code>ttl</code> seconds (10 minutes by default); unless it is confirmed
+ * through <code>http://.../v1/booking/holds/{id}/confirm</code> it is released
+ * automatically and an <code>EXPIRED</code> event is pushed on
+ * <code>http://.../v1/booking/holds/events</code>.
+ *
+ * @author Sourabh Sharma
+ */
+@RestController
+@RequestMapping("/v1/booking/holds")
+public class BookingHoldController {
+
+    /**
+     *
+     */
+    protected static final Logger logger = Logger.getLogger(BookingHoldController.class.getName());
+
+    /**
+     *
+     */
+    protected BookingHolds holds;
+
+    /**
+     *
+     */
+    protected BookingService bookingService;
+
+    @Value("${app.holds.ttl-seconds:600}")
+    private long defaultTtlSeconds;
+
+    /**
+     *
+     * @param holds
+     * @param bookingService
+     */
+    @Autowired
+    public BookingHoldController(BookingHolds holds, BookingService bookingService) {
+        this.holds = holds;
+        this.bookingService = bookingService;
+    }
+
+    /**
+     * Hold a table.
+     *
+     * @param hold
+     * @param ttl seconds before the hold expires
+     * @return the hold, with its id and expiry time
+     */
+    @RequestMapping(method = RequestMethod.POST)
+    public ResponseEntity<BookingHold> hold(@RequestBody BookingHold hold,
+            @RequestParam(value = "ttl", required = false) Long ttl) {
+        logger.info(String.format("booking-service hold() invoked: %s", hold));
+        if (hold.getRestaurantId() == null || hold.getTableId() == null || hold.getDate() == null || hold.getTime() == null) {
+            return new ResponseEntity<>(HttpStatus.UNPROCESSABLE_ENTITY);
+        }
+        long ttlSeconds = ttl != null && ttl > 0 ? ttl : defaultTtlSeconds;
+        try {
+            return new ResponseEntity<>(bookingService.hold(hold, TimeUnit.SECONDS.toMillis(ttlSeconds)), HttpStatus.CREATED);
+        } catch (IllegalStateException ex) {
+            logger.log(Level.INFO, "Hold rejected: {0}", ex.getMessage());
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
+        }
+    }
+
+    /**
+     * Fetch a live hold.
+     *
+     * @param id
+     * @return
+     */
+    @RequestMapping(value = "/{id}", method = RequestMethod.GET)
+    public ResponseEntity<BookingHold> findById(@PathVariable("id") String id) {
+        BookingHold hold = holds.get(id.trim());
+        return hold != null ? new ResponseEntity<>(hold, HttpStatus.OK)
+                : new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
+
+    /**
+     * Turn a hold into a booking.
+     *
+     * @param id
+     * @param name name of the booking
+     * @return the booking
+     */
+    @RequestMapping(value = "/{id}/confirm", method = RequestMethod.POST)
+    public ResponseEntity<Booking> confirm(@PathVariable("id") String id, @RequestParam("name") String name) {
+        try {
+            return new ResponseEntity<>(bookingService.confirmHold(id.trim(), name), HttpStatus.CREATED);
+        } catch (Exception ex) {
+            logger.log(Level.WARNING, "Exception raised confirm Hold REST Call {0}", ex);
+            return new ResponseEntity<>(HttpStatus.UNPROCESSABLE_ENTITY);
+        }
+    }
+
+    /**
+     * Release a hold.
+     *
+     * @param id
+     * @return
+     */
+    @RequestMapping(value = "/{id}", method = RequestMethod.DELETE)
+    public ResponseEntity<Void> cancel(@PathVariable("id") String id) {
+        return holds.cancel(id.trim()) ? new ResponseEntity<>(HttpStatus.OK)
+                : new ResponseEntity<>(HttpStatus.NOT_FOUND);
+    }
+
+    /**
+     * Stream the hold events as server-sent events.
+     *
+     * @return
+     */
+    @RequestMapping(value = "/events", method = RequestMethod.GET, produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter events() {
+        SseEmitter emitter = new SseEmitter(0L);
+        Consumer<BookingHoldEvent> subscriber = (event) -> {
+            try {
+                emitter.send(SseEmitter.event().id(event.getHold().getId())
+                        .name(event.getType().name()).data(event, MediaType.APPLICATION_JSON));
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        };
+        emitter.onCompletion(() -> holds.unsubscribe(subscriber));
+        emitter.onTimeout(() -> holds.unsubscribe(subscriber));
+        holds.subscribe(subscriber);
+        return emitter;
+    }
+}
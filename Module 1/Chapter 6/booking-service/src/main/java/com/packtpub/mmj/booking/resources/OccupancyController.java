@@ -0,0 +1,79 @@
+package com.packtpub.mmj.booking.resources;
+
+import com.packtpub.mmj.booking.domain.service.BookingService;
+import com.packtpub.mmj.booking.domain.valueobject.Occupancy;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Read-only occupancy analytics for restaurant owners.
+ * <code>http://.../v1/booking/occupancy?restaurantId=1&amp;from=2016-06-01&amp;to=2016-06-07</code>
+ * returns the number of bookings of each day of the range, in total and per
+ * hour. The counters are maintained on every booking write, so a request
+ * costs the same whatever the number of bookings.
+ *
+ * @author Sourabh Sharma
+ */
+@RestController
+@RequestMapping("/v1/booking/occupancy")
+public class OccupancyController {
+
+    /**
+     * Longest range served by one request, in days
+     */
+    protected static final int MAX_DAYS = 92;
+
+    /**
+     *
+     */
+    protected static final Logger logger = Logger.getLogger(OccupancyController.class.getName());
+
+    /**
+     *
+     */
+    protected BookingService bookingService;
+
+    /**
+     *
+     * @param bookingService
+     */
+    @Autowired
+    public OccupancyController(BookingService bookingService) {
+        this.bookingService = bookingService;
+    }
+
+    /**
+     * Fetch the occupancy of a restaurant.
+     *
+     * @param restaurantId
+     * @param from first day, inclusive
+     * @param to last day, inclusive; same as from when omitted
+     * @return occupancy of each day of the range
+     */
+    @RequestMapping(method = RequestMethod.GET)
+    public ResponseEntity<List<Occupancy>> getOccupancy(@RequestParam("restaurantId") String restaurantId,
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate last = to == null ? from : to;
+        if (last.isBefore(from) || ChronoUnit.DAYS.between(from, last) >= MAX_DAYS) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        try {
+            return new ResponseEntity<>(bookingService.getOccupancy(restaurantId.trim(), from, last), HttpStatus.OK);
+        } catch (Exception ex) {
+            logger.log(Level.SEVERE, "Exception raised getOccupancy REST Call", ex);
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.packtpub.mmj.booking.resources;
+
+import com.packtpub.mmj.booking.domain.service.Waitlist;
+import com.packtpub.mmj.booking.domain.valueobject.BookingSlot;
+import com.packtpub.mmj.booking.domain.valueobject.WaitlistEntry;
+import com.packtpub.mmj.booking.domain.valueobject.WaitlistPromotion;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Waitlist of fully booked slots. Instead of retrying a booking in a loop, a
+ * customer joins the waitlist and listens on
+ * <code>http://.../v1/booking/waitlist/events?userId={userId}</code>; a
+ * <code>PROMOTED</code> event carrying the new booking id is pushed as soon as
+ * a booking of the slot is removed.
+ *
+ * @author Sourabh Sharma
+ */
+@RestController
+@RequestMapping("/v1/booking/waitlist")
+public class WaitlistController {
+
+    /**
+     *
+     */
+    protected static final Logger logger = Logger.getLogger(WaitlistController.class.getName());
+
+    /**
+     *
+     */
+    protected Waitlist waitlist;
+
+    /**
+     *
+     * @param waitlist
+     */
+    @Autowired
+    public WaitlistController(Waitlist waitlist) {
+        this.waitlist = waitlist;
+    }
+
+    /**
+     * Join the waitlist of a slot. The id and priority of the posted entry
+     * are ignored: the id is assigned here and every customer waits at the
+     * default priority.
+     *
+     * @param entry
+     * @return the queued entry, with its id
+     */
+    @RequestMapping(method = RequestMethod.POST)
+    public ResponseEntity<WaitlistEntry> join(@RequestBody WaitlistEntry entry) {
+        logger.info(String.format("booking-service join() invoked: %s", entry));
+        if (entry.getRestaurantId() == null || entry.getDate() == null || entry.getTime() == null) {
+            return new ResponseEntity<>(HttpStatus.UNPROCESSABLE_ENTITY);
+        }
+        waitlist.join(entry);
+        return new ResponseEntity<>(entry, HttpStatus.CREATED);
+    }
+
+    /**
+     * Leave the waitlist.
+     *
+     * @param id
+     * @return
+     */
+    @RequestMapping(value = "/{id}", method = RequestMethod.DELETE)
+    public ResponseEntity<Void> leave(@PathVariable("id") String id) {
+        return waitlist.leave(id.trim()) ? new ResponseEntity<>(HttpStatus.OK)
+                : new ResponseEntity<>(HttpStatus.NOT_FOUND);
+    }
+
+    /**
+     * Fetch the customers waiting for a slot, next to be served first.
+     *
+     * @param restaurantId
+     * @param date
+     * @param time
+     * @return
+     */
+    @RequestMapping(method = RequestMethod.GET)
+    public ResponseEntity<List<WaitlistEntry>> entries(@RequestParam("restaurantId") String restaurantId,
+            @RequestParam("date") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam("time") @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime time) {
+        List<WaitlistEntry> entries = waitlist.entries(new BookingSlot(restaurantId, date, time));
+        return entries.size() > 0 ? new ResponseEntity<>(entries, HttpStatus.OK)
+                : new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
+
+    /**
+     * Stream the promotions as server-sent events, optionally only those of
+     * one user.
+     *
+     * @param userId
+     * @return
+     */
+    @RequestMapping(value = "/events", method = RequestMethod.GET, produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter events(@RequestParam(value = "userId", required = false) String userId) {
+        SseEmitter emitter = new SseEmitter(0L);
+        Consumer<WaitlistPromotion> subscriber = (promotion) -> {
+            if (userId != null && !userId.equals(promotion.getEntry().getUserId())) {
+                return;
+            }
+            try {
+                emitter.send(SseEmitter.event().id(promotion.getEntry().getId())
+                        .name("PROMOTED").data(promotion, MediaType.APPLICATION_JSON));
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        };
+        emitter.onCompletion(() -> waitlist.unsubscribe(subscriber));
+        emitter.onTimeout(() -> waitlist.unsubscribe(subscriber));
+        waitlist.subscribe(subscriber);
+        return emitter;
+    }
+}
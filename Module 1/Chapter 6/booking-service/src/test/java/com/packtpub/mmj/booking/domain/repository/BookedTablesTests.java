@@ -0,0 +1,79 @@
+package com.packtpub.mmj.booking.domain.repository;
+
+import com.packtpub.mmj.booking.domain.model.entity.Booking;
+import com.packtpub.mmj.booking.domain.valueobject.BookingSlot;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Sourabh Sharma
+ */
+public class BookedTablesTests {
+
+    private static final LocalDate DATE = LocalDate.of(2016, 6, 1);
+    private static final LocalTime TIME = LocalTime.of(20, 0);
+    private static final BookingSlot SLOT = new BookingSlot("1", DATE, TIME);
+
+    /**
+     * Adds, updates and removals are reflected in the index
+     */
+    @Test
+    public void incrementalUpdates() {
+        InMemBookingRepository repository = new InMemBookingRepository();
+        repository.add(new Booking("10", "Dinner", "1", "T1", "u1", DATE, TIME));
+        repository.add(new Booking("11", "Dinner", "1", "T2", "u2", DATE, TIME));
+        Assert.assertTrue(repository.isBooked(SLOT, "T1"));
+        Assert.assertFalse(repository.isBooked(SLOT, "T3"));
+        Assert.assertFalse(repository.isBooked(new BookingSlot("1", DATE.plusDays(1), TIME), "T1"));
+
+        // modified in place, then updated
+        Booking booking = (Booking) repository.get("11");
+        booking.setTableId("T3");
+        repository.update(booking);
+        Assert.assertFalse(repository.isBooked(SLOT, "T2"));
+        Assert.assertTrue(repository.isBooked(SLOT, "T3"));
+
+        repository.remove("10");
+        repository.remove("10");
+        Assert.assertFalse(repository.isBooked(SLOT, "T1"));
+    }
+
+    /**
+     * Randomized comparison with a scan of all bookings
+     */
+    @Test
+    public void matchesFullScan() {
+        Random random = new Random(11);
+        InMemBookingRepository repository = new InMemBookingRepository();
+        for (int i = 0; i < 5000; i++) {
+            String id = "b" + random.nextInt(300);
+            Booking booking = new Booking(id, id, "1", "T" + random.nextInt(5), "u",
+                    DATE.plusDays(random.nextInt(3)), LocalTime.of(18 + random.nextInt(4), 0));
+            switch (random.nextInt(3)) {
+                case 0:
+                    repository.add(booking);
+                    break;
+                case 1:
+                    repository.update(booking);
+                    break;
+                default:
+                    repository.remove(id);
+            }
+        }
+        for (int d = 0; d < 3; d++) {
+            for (int hour = 18; hour < 22; hour++) {
+                BookingSlot slot = new BookingSlot("1", DATE.plusDays(d), LocalTime.of(hour, 0));
+                for (int table = 0; table < 5; table++) {
+                    String tableId = "T" + table;
+                    boolean expected = repository.getAll().stream()
+                            .anyMatch((b) -> slot.equals(BookingSlot.of(b)) && tableId.equals(b.getTableId()));
+                    Assert.assertEquals(expected, repository.isBooked(slot, tableId));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.packtpub.mmj.booking.domain.repository;
+
+import com.packtpub.mmj.booking.domain.model.entity.Booking;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Sourabh Sharma
+ */
+public class OccupancyCountersTests {
+
+    private static final LocalDate DATE = LocalDate.of(2016, 6, 1);
+
+    /**
+     * Adds, updates and removals are reflected in the hourly and daily
+     * counters
+     */
+    @Test
+    public void incrementalUpdates() {
+        InMemBookingRepository repository = new InMemBookingRepository();
+        repository.add(new Booking("10", "Lunch", "1", "T1", "u1", DATE, LocalTime.of(12, 30)));
+        repository.add(new Booking("11", "Dinner", "1", "T2", "u2", DATE, LocalTime.of(20, 0)));
+        repository.add(new Booking("12", "Dinner", "1", "T3", "u3", DATE, LocalTime.of(20, 15)));
+        int[] day = repository.getOccupancy("1", DATE);
+        Assert.assertEquals(3, day[OccupancyCounters.DAY]);
+        Assert.assertEquals(1, day[12]);
+        Assert.assertEquals(2, day[20]);
+
+        // modified in place, then updated
+        Booking booking = (Booking) repository.get("11");
+        booking.setTime(LocalTime.of(21, 0));
+        repository.update(booking);
+        day = repository.getOccupancy("1", DATE);
+        Assert.assertEquals(1, day[20]);
+        Assert.assertEquals(1, day[21]);
+
+        repository.remove("10");
+        repository.remove("10");
+        day = repository.getOccupancy("1", DATE);
+        Assert.assertEquals(0, day[12]);
+        Assert.assertEquals(2, day[OccupancyCounters.DAY]);
+        Assert.assertEquals(0, repository.getOccupancy("1", DATE.plusDays(1))[OccupancyCounters.DAY]);
+    }
+
+    /**
+     * Randomized comparison with an aggregation of all bookings
+     */
+    @Test
+    public void matchesFullAggregation() {
+        Random random = new Random(7);
+        InMemBookingRepository repository = new InMemBookingRepository();
+        for (int i = 0; i < 5000; i++) {
+            String id = "b" + random.nextInt(300);
+            Booking booking = new Booking(id, id, String.valueOf(random.nextInt(3)), "T", "u",
+                    DATE.plusDays(random.nextInt(3)), LocalTime.of(random.nextInt(24), 0));
+            switch (random.nextInt(3)) {
+                case 0:
+                    repository.add(booking);
+                    break;
+                case 1:
+                    repository.update(booking);
+                    break;
+                default:
+                    repository.remove(id);
+            }
+        }
+        for (int restaurant = 0; restaurant < 3; restaurant++) {
+            for (int d = 0; d < 3; d++) {
+                String restaurantId = String.valueOf(restaurant);
+                LocalDate date = DATE.plusDays(d);
+                int[] expected = new int[OccupancyCounters.DAY + 1];
+                repository.getAll().stream()
+                        .filter((b) -> restaurantId.equals(b.getRestaurantId()) && date.equals(b.getDate()))
+                        .forEach((b) -> {
+                            expected[b.getTime().getHour()]++;
+                            expected[OccupancyCounters.DAY]++;
+                        });
+                int[] actual = repository.getOccupancy(restaurantId, date);
+                for (int i = 0; i < expected.length; i++) {
+                    Assert.assertEquals(expected[i], actual[i]);
+                }
+            }
+        }
+    }
+}
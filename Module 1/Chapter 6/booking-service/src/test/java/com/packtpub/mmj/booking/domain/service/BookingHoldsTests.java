@@ -0,0 +1,177 @@
+package com.packtpub.mmj.booking.domain.service;
+
+import com.packtpub.mmj.booking.domain.model.entity.Booking;
+import com.packtpub.mmj.booking.domain.repository.InMemBookingRepository;
+import com.packtpub.mmj.booking.domain.valueobject.BookingHold;
+import com.packtpub.mmj.booking.domain.valueobject.BookingHoldEvent;
+import com.packtpub.mmj.booking.domain.valueobject.BookingSlot;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ * @author Sourabh Sharma
+ */
+public class BookingHoldsTests {
+
+    private static final LocalDate DATE = LocalDate.of(2016, 6, 1);
+    private static final LocalTime TIME = LocalTime.of(20, 0);
+    private static final BookingSlot SLOT = new BookingSlot("1", DATE, TIME);
+    private static final long TTL = 600000;
+
+    private final long[] now = {1000000};
+    private BookingHolds holds;
+    private InMemBookingRepository repository;
+    private BookingService bookingService;
+    private final List<BookingHoldEvent> events = new ArrayList<>();
+
+    /**
+     * Setup method
+     */
+    @Before
+    public void setup() {
+        holds = new BookingHolds(1000, () -> now[0]);
+        holds.subscribe(events::add);
+        repository = new InMemBookingRepository();
+        bookingService = new BookingServiceImpl(repository, new Waitlist(), holds);
+    }
+
+    private BookingHold hold(String id, String tableId) {
+        return bookingService.hold(new BookingHold(id, "1", tableId, "u" + id, DATE, TIME), TTL);
+    }
+
+    /**
+     * A held table cannot be held or booked by someone else
+     */
+    @Test
+    public void heldTableIsTaken() {
+        hold("h1", "T1");
+        Assert.assertTrue(holds.isHeld(SLOT, "T1"));
+        Assert.assertFalse(holds.isHeld(SLOT, "T2"));
+        try {
+            hold("h2", "T1");
+            Assert.fail("table held twice");
+        } catch (IllegalStateException ex) {
+            // expected
+        }
+        try {
+            bookingService.add(new Booking("5", "Dinner", "1", "T1", "u5", DATE, TIME));
+            Assert.fail("held table booked");
+        } catch (Exception ex) {
+            // expected
+        }
+    }
+
+    /**
+     * Expired holds release their table and publish an event
+     *
+     * @throws Exception
+     */
+    @Test
+    public void expiry() throws Exception {
+        hold("h1", "T1");
+        now[0] += TTL - 1;
+        Assert.assertEquals(0, holds.advance(now[0]));
+        now[0] += 1;
+        Assert.assertEquals(1, holds.advance(now[0]));
+        Assert.assertFalse(holds.isHeld(SLOT, "T1"));
+        Assert.assertNull(holds.get("h1"));
+        Assert.assertEquals(BookingHoldEvent.Type.EXPIRED, events.get(events.size() - 1).getType());
+
+        bookingService.add(new Booking("5", "Dinner", "1", "T1", "u5", DATE, TIME));
+        Assert.assertNotNull(repository.get("5"));
+    }
+
+    /**
+     * Confirmed holds become bookings and no longer expire
+     *
+     * @throws Exception
+     */
+    @Test
+    public void confirm() throws Exception {
+        hold("h1", "T1");
+        Booking booking = bookingService.confirmHold("h1", "Dinner");
+        Assert.assertEquals("T1", booking.getTableId());
+        Assert.assertEquals("uh1", booking.getUserId());
+        Assert.assertNotEquals("h1", booking.getId());
+        Assert.assertSame(booking, repository.get(booking.getId()));
+        Assert.assertNull(repository.get("h1"));
+        Assert.assertEquals(BookingHoldEvent.Type.CONFIRMED, events.get(events.size() - 1).getType());
+
+        now[0] += 2 * TTL;
+        Assert.assertEquals(0, holds.advance(now[0]));
+        Assert.assertEquals(0, holds.size());
+        try {
+            bookingService.confirmHold("h1", "Dinner again");
+            Assert.fail("hold confirmed twice");
+        } catch (Exception ex) {
+            // expected
+        }
+    }
+
+    /**
+     * A booked table cannot be held, nor booked twice
+     *
+     * @throws Exception
+     */
+    @Test
+    public void bookedTableIsTaken() throws Exception {
+        bookingService.add(new Booking("5", "Dinner", "1", "T1", "u5", DATE, TIME));
+        try {
+            hold("h1", "T1");
+            Assert.fail("booked table held");
+        } catch (IllegalStateException ex) {
+            // expected
+        }
+        Assert.assertEquals(0, holds.size());
+        try {
+            bookingService.add(new Booking("6", "Supper", "1", "T1", "u6", DATE, TIME));
+            Assert.fail("table booked twice");
+        } catch (Exception ex) {
+            // expected
+        }
+        Assert.assertNull(repository.get("6"));
+    }
+
+    /**
+     * A hold whose booking cannot be written is kept, and nothing is published
+     *
+     * @throws Exception
+     */
+    @Test
+    public void failedConfirmKeepsHold() throws Exception {
+        bookingService.add(new Booking("5", "Dinner", "1", "T2", "u5", DATE, TIME));
+        hold("h1", "T1");
+        try {
+            bookingService.confirmHold("h1", "Dinner");
+            Assert.fail("duplicate booking name accepted");
+        } catch (Exception ex) {
+            // expected
+        }
+        Assert.assertNotNull(holds.get("h1"));
+        Assert.assertTrue(holds.isHeld(SLOT, "T1"));
+        Assert.assertEquals(BookingHoldEvent.Type.HELD, events.get(events.size() - 1).getType());
+
+        Booking booking = bookingService.confirmHold("h1", "Supper");
+        Assert.assertEquals("T1", booking.getTableId());
+        Assert.assertEquals(0, holds.size());
+    }
+
+    /**
+     * Cancelled holds release their table at once
+     */
+    @Test
+    public void cancel() {
+        hold("h1", "T1");
+        Assert.assertTrue(holds.cancel("h1"));
+        Assert.assertFalse(holds.cancel("h1"));
+        Assert.assertFalse(holds.isHeld(SLOT, "T1"));
+        hold("h2", "T1");
+        Assert.assertEquals(1, holds.size());
+    }
+}
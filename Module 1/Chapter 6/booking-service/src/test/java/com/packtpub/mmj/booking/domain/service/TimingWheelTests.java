@@ -0,0 +1,84 @@
+package com.packtpub.mmj.booking.domain.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Sourabh Sharma
+ */
+public class TimingWheelTests {
+
+    /**
+     * Timeouts expire on the first tick at or after their deadline
+     */
+    @Test
+    public void expiresOnDeadline() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 0);
+        wheel.schedule("a", 20);
+        wheel.schedule("b", 25);
+        List<String> expired = new ArrayList<>();
+        Assert.assertEquals(0, wheel.advance(19, expired::add));
+        Assert.assertEquals(1, wheel.advance(20, expired::add));
+        Assert.assertEquals("a", expired.get(0));
+        Assert.assertEquals(0, wheel.advance(29, expired::add));
+        Assert.assertEquals(1, wheel.advance(30, expired::add));
+        Assert.assertEquals(0, wheel.size());
+    }
+
+    /**
+     * Cancelled timeouts never expire
+     */
+    @Test
+    public void cancel() {
+        TimingWheel<String> wheel = new TimingWheel<>(1, 0);
+        TimingWheel.Timeout<String> timeout = wheel.schedule("a", 5000);
+        Assert.assertTrue(wheel.cancel(timeout));
+        Assert.assertFalse(wheel.cancel(timeout));
+        Assert.assertEquals(0, wheel.advance(10000, (payload) -> Assert.fail(payload)));
+    }
+
+    /**
+     * Randomized comparison with the expected expiry tick, across all levels
+     * and beyond the span of the wheel
+     */
+    @Test
+    public void cascadesAcrossLevels() {
+        Random random = new Random(42);
+        TimingWheel<Long> wheel = new TimingWheel<>(1, 0);
+        Map<Long, TimingWheel.Timeout<Long>> pending = new HashMap<>();
+        long now = 0;
+        long id = 0;
+        for (int round = 0; round < 2000; round++) {
+            int bound = random.nextInt(4) == 0 ? 1 << 26 : 1 << (6 * (1 + random.nextInt(3)));
+            long deadline = now + 1 + random.nextInt(bound);
+            // payload encodes the deadline so the expiry can be checked
+            long payload = deadline * 10000 + id++ % 10000;
+            pending.put(payload, wheel.schedule(payload, deadline));
+            if (random.nextInt(5) == 0) {
+                TimingWheel.Timeout<Long> cancelled = pending.remove(pending.keySet().iterator().next());
+                Assert.assertTrue(wheel.cancel(cancelled));
+            }
+            long target = now + random.nextInt(1 << 14);
+            long[] last = {Long.MIN_VALUE};
+            final long from = now;
+            wheel.advance(target, (expired) -> {
+                long expiredDeadline = expired / 10000;
+                Assert.assertTrue(expiredDeadline > from && expiredDeadline <= target);
+                Assert.assertTrue(expiredDeadline >= last[0]);
+                last[0] = expiredDeadline;
+                Assert.assertNotNull(pending.remove(expired));
+            });
+            now = target;
+            pending.keySet().forEach((payload1) -> Assert.assertTrue(payload1 / 10000 > target));
+        }
+        Assert.assertEquals(pending.size(), wheel.size());
+        wheel.advance(Long.MAX_VALUE / 2, (expired) -> pending.remove(expired));
+        Assert.assertTrue(pending.isEmpty());
+    }
+}
@@ -0,0 +1,158 @@
+package com.packtpub.mmj.booking.domain.service;
+
+import com.packtpub.mmj.booking.domain.model.entity.Booking;
+import com.packtpub.mmj.booking.domain.repository.InMemBookingRepository;
+import com.packtpub.mmj.booking.domain.valueobject.BookingSlot;
+import com.packtpub.mmj.booking.domain.valueobject.WaitlistEntry;
+import com.packtpub.mmj.booking.domain.valueobject.WaitlistPromotion;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ * @author Sourabh Sharma
+ */
+public class WaitlistTests {
+
+    private static final LocalDate DATE = LocalDate.of(2016, 6, 1);
+    private static final LocalTime TIME = LocalTime.of(20, 0);
+    private static final BookingSlot SLOT = new BookingSlot("1", DATE, TIME);
+
+    private InMemBookingRepository repository;
+    private Waitlist waitlist;
+    private BookingService bookingService;
+    private final List<WaitlistPromotion> promotions = new ArrayList<>();
+
+    /**
+     * Setup method
+     *
+     * @throws Exception
+     */
+    @Before
+    public void setup() throws Exception {
+        repository = new InMemBookingRepository();
+        waitlist = new Waitlist();
+        waitlist.subscribe(promotions::add);
+        bookingService = new BookingServiceImpl(repository, waitlist);
+        bookingService.add(new Booking("10", "Dinner 10", "1", "T1", "u10", DATE, TIME));
+        bookingService.add(new Booking("11", "Dinner 11", "1", "T2", "u11", DATE, TIME));
+    }
+
+    private WaitlistEntry entry(String user, int priority) {
+        return new WaitlistEntry(user, "Waiting " + user, "1", "u" + user, DATE, TIME, priority);
+    }
+
+    private String join(String user, int priority) {
+        return waitlist.join(entry(user, 0), priority);
+    }
+
+    /**
+     * Higher priority first, then arrival order
+     */
+    @Test
+    public void serviceOrder() {
+        join("a", 0);
+        join("b", 5);
+        join("c", 0);
+        join("d", 5);
+        String[] order = waitlist.entries(SLOT).stream().map(WaitlistEntry::getUserId).toArray(String[]::new);
+        Assert.assertArrayEquals(new String[]{"ub", "ud", "ua", "uc"}, order);
+        Assert.assertTrue(waitlist.entries(new BookingSlot("2", DATE, TIME)).isEmpty());
+    }
+
+    /**
+     * Removing a booking hands its table to the head of the waitlist
+     *
+     * @throws Exception
+     */
+    @Test
+    public void deletePromotesHead() throws Exception {
+        join("a", 0);
+        join("b", 1);
+
+        bookingService.delete("10");
+        Assert.assertNull(repository.get("10"));
+        Assert.assertEquals(1, promotions.size());
+        Booking promoted = (Booking) repository.get(promotions.get(0).getBookingId());
+        Assert.assertNotNull(promoted);
+        Assert.assertEquals("T1", promoted.getTableId());
+        Assert.assertEquals("ub", promoted.getUserId());
+        Assert.assertEquals(1, waitlist.size());
+
+        bookingService.delete("11");
+        Assert.assertEquals("T2", ((Booking) repository.get(promotions.get(1).getBookingId())).getTableId());
+        Assert.assertEquals(0, waitlist.size());
+
+        // nobody left to promote
+        bookingService.delete(promoted.getId());
+        Assert.assertEquals(2, promotions.size());
+    }
+
+    /**
+     * Entries that left are not promoted
+     *
+     * @throws Exception
+     */
+    @Test
+    public void leave() throws Exception {
+        String id = join("a", 0);
+        Assert.assertTrue(waitlist.leave(id));
+        Assert.assertFalse(waitlist.leave(id));
+        bookingService.delete("10");
+        Assert.assertTrue(promotions.isEmpty());
+    }
+
+    /**
+     * Promoted bookings get ids of their own, so an entry id cannot replace an
+     * existing booking
+     *
+     * @throws Exception
+     */
+    @Test
+    public void promotionKeepsOtherBookings() throws Exception {
+        join("11", 0);
+        bookingService.delete("10");
+        Assert.assertEquals(1, promotions.size());
+        Assert.assertNotEquals("11", promotions.get(0).getBookingId());
+        Assert.assertEquals("T2", ((Booking) repository.get("11")).getTableId());
+        Assert.assertEquals("T1", ((Booking) repository.get(promotions.get(0).getBookingId())).getTableId());
+    }
+
+    /**
+     * Subscribers are called once the waitlist is free again
+     *
+     * @throws Exception
+     */
+    @Test
+    public void publishesOutsideTheLock() throws Exception {
+        List<Boolean> locked = new ArrayList<>();
+        waitlist.subscribe((promotion) -> locked.add(Thread.holdsLock(waitlist)));
+        join("a", 0);
+        bookingService.delete("10");
+        Assert.assertEquals(1, locked.size());
+        Assert.assertFalse(locked.get(0));
+    }
+
+    /**
+     * Customers joining get an id of their own and the default priority,
+     * whatever they sent
+     */
+    @Test
+    public void ignoresClientIdAndPriority() {
+        String first = join("a", 0);
+        WaitlistEntry sneaky = entry("b", Integer.MAX_VALUE);
+        sneaky.setId(first);
+        String second = waitlist.join(sneaky);
+
+        Assert.assertNotEquals(first, second);
+        Assert.assertEquals(second, sneaky.getId());
+        Assert.assertEquals(0, sneaky.getPriority());
+        Assert.assertEquals(2, waitlist.size());
+        Assert.assertEquals("ua", waitlist.entries(SLOT).get(0).getUserId());
+    }
+}
@@ -0,0 +1,28 @@
+package com.packtpub.mmj.common;
+
+import java.util.List;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurerAdapter;
+
+/**
+ * Registers the Smile converter behind the default converters. JSON stays the
+ * default for callers that do not ask for anything specific, while internal
+ * clients sending <code>Accept: application/x-jackson-smile</code> get the
+ * binary encoding.
+ * <p>
+ * Services that scan this package (restaurant-service and user-service) answer
+ * in Smile. booking-service is only called by external clients through the
+ * edge server, which forwards the <code>Accept</code> header and the body
+ * untouched, so neither of them registers the converter.
+ *
+ * @author Sourabh Sharma
+ */
+@Configuration
+public class BinaryCodecConfiguration extends WebMvcConfigurerAdapter {
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new SmileHttpMessageConverter());
+    }
+}
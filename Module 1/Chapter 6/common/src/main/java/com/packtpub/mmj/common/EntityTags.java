@@ -0,0 +1,80 @@
+package com.packtpub.mmj.common;
+
+import java.security.SecureRandom;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Entity tags for conditional GETs of versioned entities.
+ * <p>
+ * Tags are weak: the JSON and Smile encodings of one version are equivalent
+ * but not byte for byte equal, and every answer carries
+ * <code>Vary: Accept</code> for the caches in between. Each process adds a
+ * random token to its tags, since two instances, or two runs of one instance,
+ * may hold different entities under the same version.
+ *
+ * @author Sourabh Sharma
+ */
+public final class EntityTags {
+
+    private static final String INSTANCE = Long.toString(new SecureRandom().nextLong() & Long.MAX_VALUE, 36);
+
+    private EntityTags() {
+    }
+
+    /**
+     * Weak entity tag of the given entity version
+     *
+     * @param version
+     * @return
+     */
+    public static String eTag(long version) {
+        return "W/\"" + INSTANCE + "-" + version + "\"";
+    }
+
+    /**
+     * Weak comparison of the If-None-Match header against the current tag, as
+     * required for conditional GETs.
+     *
+     * @param ifNoneMatch
+     * @param eTag
+     * @return true if the caller already holds the current representation
+     */
+    public static boolean matches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String opaque = opaque(eTag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if ("*".equals(candidate) || opaque.equals(opaque(candidate))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String opaque(String eTag) {
+        return eTag.startsWith("W/") ? eTag.substring(2) : eTag;
+    }
+
+    /**
+     * Answers a GET of the entity: <code>304 Not Modified</code> without a
+     * body if the caller holds the current version, the entity otherwise.
+     *
+     * @param <T>
+     * @param entity
+     * @param version current version of the entity
+     * @param ifNoneMatch entity tags already held by the caller
+     * @return
+     */
+    public static <T> ResponseEntity<T> conditionalGet(T entity, long version, String ifNoneMatch) {
+        String eTag = eTag(version);
+        if (matches(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag)
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT).build();
+        }
+        return ResponseEntity.ok().eTag(eTag).header(HttpHeaders.VARY, HttpHeaders.ACCEPT).body(entity);
+    }
+}
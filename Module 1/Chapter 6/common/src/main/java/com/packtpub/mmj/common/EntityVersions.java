@@ -0,0 +1,25 @@
+package com.packtpub.mmj.common;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Source of entity versions for a repository. Versions are shared by all the
+ * entities of the repository, so a version is never reused even after a
+ * removal. The counter starts from the clock in microseconds, so a restarted
+ * repository does not hand out the versions of its previous run.
+ *
+ * @author Sourabh Sharma
+ */
+public class EntityVersions {
+
+    private final AtomicLong versions = new AtomicLong(TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis()));
+
+    /**
+     *
+     * @return a version greater than any returned before
+     */
+    public long next() {
+        return versions.incrementAndGet();
+    }
+}
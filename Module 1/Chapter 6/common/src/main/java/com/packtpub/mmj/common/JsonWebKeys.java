@@ -0,0 +1,89 @@
+package com.packtpub.mmj.common;
+
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.RSAPublicKeySpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Public signing keys of the security service in the JSON Web Key Set format,
+ * <code>{"keys": [{"kid": ..., "kty": "RSA", "alg": "RS256", "n": ..., "e": ...}]}</code>.
+ *
+ * @author Sourabh Sharma
+ */
+public final class JsonWebKeys {
+
+    private JsonWebKeys() {
+    }
+
+    /**
+     *
+     * @param keys public keys by key id
+     * @return the key set, ready to be rendered as JSON
+     */
+    public static Map<String, Object> toKeySet(Map<String, RSAPublicKey> keys) {
+        List<Map<String, Object>> list = new ArrayList<>();
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        keys.forEach((kid, key) -> {
+            Map<String, Object> jwk = new LinkedHashMap<>();
+            jwk.put("kid", kid);
+            jwk.put("kty", "RSA");
+            jwk.put("alg", JsonWebToken.ALGORITHM);
+            jwk.put("use", "sig");
+            jwk.put("n", encoder.encodeToString(unsigned(key.getModulus())));
+            jwk.put("e", encoder.encodeToString(unsigned(key.getPublicExponent())));
+            list.add(jwk);
+        });
+        return Collections.singletonMap("keys", list);
+    }
+
+    /**
+     *
+     * @param keySet key set as parsed from JSON
+     * @return public keys by key id; keys of other types are skipped
+     */
+    public static Map<String, PublicKey> fromKeySet(Map<?, ?> keySet) {
+        Map<String, PublicKey> keys = new HashMap<>();
+        Object list = keySet == null ? null : keySet.get("keys");
+        if (!(list instanceof List)) {
+            return keys;
+        }
+        Base64.Decoder decoder = Base64.getUrlDecoder();
+        for (Object item : (List<?>) list) {
+            if (!(item instanceof Map)) {
+                continue;
+            }
+            Map<?, ?> jwk = (Map<?, ?>) item;
+            if (!"RSA".equals(jwk.get("kty")) || jwk.get("kid") == null || jwk.get("n") == null || jwk.get("e") == null) {
+                continue;
+            }
+            try {
+                RSAPublicKeySpec spec = new RSAPublicKeySpec(new BigInteger(1, decoder.decode(jwk.get("n").toString())),
+                        new BigInteger(1, decoder.decode(jwk.get("e").toString())));
+                keys.put(jwk.get("kid").toString(), KeyFactory.getInstance("RSA").generatePublic(spec));
+            } catch (GeneralSecurityException | IllegalArgumentException ex) {
+                // unusable key, tokens signed with it will be rejected
+            }
+        }
+        return keys;
+    }
+
+    private static byte[] unsigned(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        if (bytes.length > 1 && bytes[0] == 0) {
+            byte[] trimmed = new byte[bytes.length - 1];
+            System.arraycopy(bytes, 1, trimmed, 0, trimmed.length);
+            return trimmed;
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,152 @@
+package com.packtpub.mmj.common;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Self-contained access token, signed with RS256 by the security service and
+ * verified locally by the resource servers. The header carries the id of the
+ * signing key (<code>kid</code>) so that keys can be rotated.
+ *
+ * @author Sourabh Sharma
+ */
+public final class JsonWebToken {
+
+    /**
+     * Only algorithm issued and accepted
+     */
+    public static final String ALGORITHM = "RS256";
+
+    private static final String SIGNATURE_ALGORITHM = "SHA256withRSA";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final TypeReference<Map<String, Object>> MAP = new TypeReference<Map<String, Object>>() {
+    };
+
+    private final Map<String, Object> header;
+    private final Map<String, Object> claims;
+    private final byte[] signingInput;
+    private final byte[] signature;
+
+    private JsonWebToken(Map<String, Object> header, Map<String, Object> claims, byte[] signingInput, byte[] signature) {
+        this.header = header;
+        this.claims = claims;
+        this.signingInput = signingInput;
+        this.signature = signature;
+    }
+
+    /**
+     * Encodes and signs the claims.
+     *
+     * @param claims
+     * @param keyId id of the signing key, published with its public key
+     * @param key
+     * @return the encoded token
+     */
+    public static String sign(Map<String, ?> claims, String keyId, PrivateKey key) {
+        Map<String, Object> header = new LinkedHashMap<>();
+        header.put("alg", ALGORITHM);
+        header.put("typ", "JWT");
+        header.put("kid", keyId);
+        String signingInput = encode(header) + "." + encode(claims);
+        try {
+            Signature signer = Signature.getInstance(SIGNATURE_ALGORITHM);
+            signer.initSign(key);
+            signer.update(signingInput.getBytes(StandardCharsets.US_ASCII));
+            return signingInput + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(signer.sign());
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException("Cannot sign token", ex);
+        }
+    }
+
+    /**
+     * Decodes a token without verifying it.
+     *
+     * @param token
+     * @return
+     * @throws IllegalArgumentException if the token is not a well-formed JWT
+     */
+    public static JsonWebToken parse(String token) {
+        int first = token.indexOf('.');
+        int last = token.lastIndexOf('.');
+        if (first < 0 || first == last || token.indexOf('.', first + 1) != last) {
+            throw new IllegalArgumentException("Not a JWT");
+        }
+        try {
+            Base64.Decoder decoder = Base64.getUrlDecoder();
+            Map<String, Object> header = MAPPER.readValue(decoder.decode(token.substring(0, first)), MAP);
+            Map<String, Object> claims = MAPPER.readValue(decoder.decode(token.substring(first + 1, last)), MAP);
+            return new JsonWebToken(Collections.unmodifiableMap(header), Collections.unmodifiableMap(claims),
+                    token.substring(0, last).getBytes(StandardCharsets.US_ASCII), decoder.decode(token.substring(last + 1)));
+        } catch (IOException ex) {
+            throw new IllegalArgumentException("Malformed JWT", ex);
+        }
+    }
+
+    /**
+     *
+     * @param key public key matching {@link #getKeyId()}
+     * @return true if the token was signed with the key
+     */
+    public boolean verify(PublicKey key) {
+        if (!ALGORITHM.equals(header.get("alg"))) {
+            return false;
+        }
+        try {
+            Signature verifier = Signature.getInstance(SIGNATURE_ALGORITHM);
+            verifier.initVerify(key);
+            verifier.update(signingInput);
+            return verifier.verify(signature);
+        } catch (GeneralSecurityException ex) {
+            return false;
+        }
+    }
+
+    /**
+     *
+     * @return id of the signing key, null if absent
+     */
+    public String getKeyId() {
+        Object kid = header.get("kid");
+        return kid == null ? null : kid.toString();
+    }
+
+    /**
+     *
+     * @return
+     */
+    public Map<String, Object> getClaims() {
+        return claims;
+    }
+
+    /**
+     * Access tokens are always issued with an expiry, so a token without one
+     * is treated as already expired rather than valid forever.
+     *
+     * @return expiry time in milliseconds, 0 if the token has no expiry
+     */
+    public long getExpiresAt() {
+        Object exp = claims.get("exp");
+        return exp instanceof Number ? ((Number) exp).longValue() * 1000 : 0;
+    }
+
+    private static String encode(Map<String, ?> json) {
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(MAPPER.writeValueAsBytes(json));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
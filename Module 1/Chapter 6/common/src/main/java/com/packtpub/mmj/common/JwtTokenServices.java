@@ -0,0 +1,135 @@
+package com.packtpub.mmj.common;
+
+import java.security.PublicKey;
+import java.util.Collections;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.common.exceptions.InvalidTokenException;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.token.DefaultAccessTokenConverter;
+import org.springframework.security.oauth2.provider.token.ResourceServerTokenServices;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Resource server token services verifying the {@link JsonWebToken} access
+ * tokens of the security service locally, instead of calling its
+ * <code>/user</code> endpoint on every request. The public keys are fetched
+ * from the security service and fetched again when a token names an unknown
+ * key, i.e. after a key rotation. Verified tokens are kept in a
+ * {@link VerifiedTokenCache} until they expire.
+ *
+ * @author Sourabh Sharma
+ */
+public class JwtTokenServices implements ResourceServerTokenServices {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JwtTokenServices.class);
+
+    /**
+     * Minimum time between two key fetches, so that tokens with a bogus key id
+     * cannot hammer the security service
+     */
+    private static final long KEY_REFRESH_MILLIS = 30000;
+
+    private final DefaultAccessTokenConverter converter = new DefaultAccessTokenConverter();
+    private final Supplier<Map<String, PublicKey>> keyLoader;
+    private final VerifiedTokenCache<OAuth2Authentication> cache;
+    private final LongSupplier clock;
+    private volatile Map<String, PublicKey> keys = Collections.emptyMap();
+    private boolean keysLoaded;
+    private long keysLoadedAt;
+
+    /**
+     *
+     * @param keysUri key set endpoint of the security service
+     * @param cacheSize maximum number of cached tokens
+     */
+    public JwtTokenServices(String keysUri, int cacheSize) {
+        this(() -> JsonWebKeys.fromKeySet(new RestTemplate().getForObject(keysUri, Map.class)), cacheSize,
+                System::currentTimeMillis);
+    }
+
+    /**
+     *
+     * @param keyLoader fetches the public keys by key id
+     * @param cacheSize maximum number of cached tokens
+     * @param clock current time in milliseconds
+     */
+    public JwtTokenServices(Supplier<Map<String, PublicKey>> keyLoader, int cacheSize, LongSupplier clock) {
+        this.keyLoader = keyLoader;
+        this.cache = new VerifiedTokenCache<>(cacheSize);
+        this.clock = clock;
+    }
+
+    @Override
+    public OAuth2Authentication loadAuthentication(String accessToken) throws AuthenticationException, InvalidTokenException {
+        long now = clock.getAsLong();
+        OAuth2Authentication authentication = cache.get(accessToken, now);
+        if (authentication == null) {
+            JsonWebToken token = verify(accessToken, now);
+            authentication = converter.extractAuthentication(token.getClaims());
+            cache.put(accessToken, authentication, token.getExpiresAt(), now);
+        }
+        return authentication;
+    }
+
+    @Override
+    public OAuth2AccessToken readAccessToken(String accessToken) {
+        return converter.extractAccessToken(accessToken, verify(accessToken, clock.getAsLong()).getClaims());
+    }
+
+    /**
+     *
+     * @return
+     */
+    public VerifiedTokenCache<OAuth2Authentication> getCache() {
+        return cache;
+    }
+
+    private JsonWebToken verify(String accessToken, long now) {
+        JsonWebToken token;
+        try {
+            token = JsonWebToken.parse(accessToken);
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidTokenException("Malformed access token");
+        }
+        PublicKey key = key(token.getKeyId(), now);
+        if (key == null || !token.verify(key)) {
+            throw new InvalidTokenException("Invalid access token signature");
+        }
+        if (token.getExpiresAt() <= now) {
+            throw new InvalidTokenException("Access token expired");
+        }
+        return token;
+    }
+
+    private PublicKey key(String keyId, long now) {
+        if (keyId == null) {
+            return null;
+        }
+        PublicKey key = keys.get(keyId);
+        if (key == null) {
+            refreshKeys(now);
+            key = keys.get(keyId);
+        }
+        return key;
+    }
+
+    private synchronized void refreshKeys(long now) {
+        if (keysLoaded && now - keysLoadedAt < KEY_REFRESH_MILLIS) {
+            return;
+        }
+        keysLoaded = true;
+        keysLoadedAt = now;
+        try {
+            keys = keyLoader.get();
+            LOG.info("Loaded {} token signing keys", keys.size());
+        } catch (RuntimeException ex) {
+            LOG.warn("Failed to load token signing keys: {}", ex.getMessage());
+        }
+    }
+}
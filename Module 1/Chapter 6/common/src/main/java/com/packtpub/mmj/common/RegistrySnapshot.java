@@ -0,0 +1,310 @@
+package com.packtpub.mmj.common;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.client.discovery.event.HeartbeatEvent;
+import org.springframework.context.ApplicationListener;
+
+/**
+ * Last known content of the service registry, kept on local disk. The snapshot
+ * is rewritten after every successful registry fetch and loaded at startup, so
+ * that routing can go on in degraded mode when the registry is down, including
+ * right after a cold start.
+ *
+ * The file holds one <code>serviceId uri</code> line per instance, preceded by
+ * a <code># fetched epochMillis</code> header. It lives in a directory only
+ * the owner can access, and a file others can write is not loaded, since it
+ * decides where requests are routed. A snapshot older than its maximum age is
+ * not used at all, and the registry is copied at most once per capture
+ * interval however often the discovery client sends heartbeats.
+ *
+ * Not a component: applications routing through the snapshot register it
+ * with <code>@Import(RegistrySnapshot.class)</code>.
+ *
+ * @author Sourabh Sharma
+ */
+public class RegistrySnapshot implements ApplicationListener<HeartbeatEvent> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RegistrySnapshot.class);
+
+    private static final String HEADER = "# fetched ";
+
+    private static final String OWNER_ONLY = "rwx------";
+
+    private final Path file;
+    private final long maxAgeMillis;
+    private final long captureIntervalMillis;
+    private final LongSupplier clock;
+    private final Map<String, AtomicInteger> cursors = new ConcurrentHashMap<>();
+    private final AtomicLong capturedAt = new AtomicLong(Long.MIN_VALUE);
+    private volatile Map<String, List<URI>> instances = Collections.emptyMap();
+    private volatile long fetchedAt;
+    private volatile boolean stale;
+
+    @Autowired(required = false)
+    private DiscoveryClient discoveryClient;
+
+    /**
+     *
+     * @param file location of the snapshot
+     * @param maxAgeSeconds age after which the snapshot is no longer used
+     * @param captureIntervalSeconds minimum time between two registry copies
+     */
+    @Autowired
+    public RegistrySnapshot(@Value("${app.registry.snapshot.file}") String file,
+            @Value("${app.registry.snapshot.max-age-seconds:86400}") long maxAgeSeconds,
+            @Value("${app.registry.snapshot.capture-interval-seconds:30}") long captureIntervalSeconds) {
+        this(Paths.get(file), TimeUnit.SECONDS.toMillis(maxAgeSeconds), TimeUnit.SECONDS.toMillis(captureIntervalSeconds),
+                System::currentTimeMillis);
+    }
+
+    /**
+     *
+     * @param file location of the snapshot
+     * @param maxAgeMillis age after which the snapshot is no longer used
+     * @param captureIntervalMillis minimum time between two registry copies
+     * @param clock current time in milliseconds
+     */
+    RegistrySnapshot(Path file, long maxAgeMillis, long captureIntervalMillis, LongSupplier clock) {
+        this.file = file;
+        this.maxAgeMillis = maxAgeMillis;
+        this.captureIntervalMillis = captureIntervalMillis;
+        this.clock = clock;
+        load();
+    }
+
+    /**
+     * Takes a new snapshot after a registry fetch, unless one was taken less
+     * than a capture interval ago.
+     *
+     * @param event
+     */
+    @Override
+    public void onApplicationEvent(HeartbeatEvent event) {
+        if (discoveryClient != null) {
+            capture(discoveryClient);
+        }
+    }
+
+    /**
+     * Copies the registry as seen by the discovery client, at most once per
+     * capture interval. An empty registry is ignored: it is what a client sees
+     * while the registry is unreachable, and it must not replace the last good
+     * snapshot.
+     *
+     * @param discoveryClient
+     * @return false if the registry was not copied because the previous copy
+     * is too recent
+     */
+    public boolean capture(DiscoveryClient discoveryClient) {
+        long now = clock.getAsLong();
+        long last = capturedAt.get();
+        if (last != Long.MIN_VALUE && now - last < captureIntervalMillis || !capturedAt.compareAndSet(last, now)) {
+            return false;
+        }
+        Map<String, List<URI>> registry = new LinkedHashMap<>();
+        try {
+            for (String serviceId : discoveryClient.getServices()) {
+                List<URI> uris = new ArrayList<>();
+                for (ServiceInstance instance : discoveryClient.getInstances(serviceId)) {
+                    uris.add(instance.getUri());
+                }
+                if (!uris.isEmpty()) {
+                    registry.put(serviceId.toLowerCase(), uris);
+                }
+            }
+        } catch (RuntimeException e) {
+            LOG.warn("Registry fetch failed, keeping the snapshot taken at {}: {}", fetchedAt, e.getMessage());
+            return true;
+        }
+        if (!registry.isEmpty()) {
+            update(registry, now);
+        }
+        return true;
+    }
+
+    /**
+     * Replaces the snapshot and writes it to disk.
+     *
+     * @param registry instances of each service
+     * @param fetchedAt time of the fetch, in milliseconds
+     */
+    public void update(Map<String, List<URI>> registry, long fetchedAt) {
+        Map<String, List<URI>> copy = new LinkedHashMap<>();
+        registry.forEach((serviceId, uris) -> copy.put(serviceId.toLowerCase(), Collections.unmodifiableList(new ArrayList<>(uris))));
+        if (copy.equals(instances)) {
+            // Unchanged registry: spare the disk, only the age is refreshed
+            this.fetchedAt = fetchedAt;
+            return;
+        }
+        this.instances = Collections.unmodifiableMap(copy);
+        this.fetchedAt = fetchedAt;
+        save();
+    }
+
+    /**
+     *
+     * @param serviceId
+     * @return last known instances of the service, empty if unknown or if the
+     * snapshot is older than its maximum age
+     */
+    public List<URI> getInstances(String serviceId) {
+        if (isStale()) {
+            return Collections.emptyList();
+        }
+        List<URI> uris = instances.get(serviceId.toLowerCase());
+        return uris == null ? Collections.emptyList() : uris;
+    }
+
+    /**
+     *
+     * @return true if the snapshot is older than its maximum age
+     */
+    public boolean isStale() {
+        boolean expired = clock.getAsLong() - fetchedAt > maxAgeMillis;
+        if (expired != stale) {
+            stale = expired;
+            if (expired && !instances.isEmpty()) {
+                LOG.warn("Registry snapshot fetched at {} is older than {} ms, no longer routing to it", fetchedAt, maxAgeMillis);
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * Picks the last known instances of the service in turn.
+     *
+     * @param serviceId
+     * @return null if the service is unknown
+     */
+    public URI choose(String serviceId) {
+        List<URI> uris = getInstances(serviceId);
+        if (uris.isEmpty()) {
+            return null;
+        }
+        int next = cursors.computeIfAbsent(serviceId.toLowerCase(), (id) -> new AtomicInteger()).getAndIncrement();
+        return uris.get(Math.floorMod(next, uris.size()));
+    }
+
+    /**
+     *
+     * @return time of the fetch the snapshot comes from, 0 if there is none
+     */
+    public long getFetchedAt() {
+        return fetchedAt;
+    }
+
+    /**
+     *
+     * @return
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    private void load() {
+        if (!Files.isReadable(file)) {
+            LOG.info("No registry snapshot at {}", file);
+            return;
+        }
+        if (!isPrivate(file) || !isPrivate(file.toAbsolutePath().getParent())) {
+            LOG.warn("Ignoring registry snapshot {}: it can be written by other users", file);
+            return;
+        }
+        Map<String, List<URI>> registry = new LinkedHashMap<>();
+        long loadedAt = 0;
+        try {
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                line = line.trim();
+                if (line.startsWith(HEADER)) {
+                    loadedAt = Long.parseLong(line.substring(HEADER.length()).trim());
+                } else if (!line.isEmpty() && !line.startsWith("#")) {
+                    String[] fields = line.split("\\s+", 2);
+                    registry.computeIfAbsent(fields[0], (id) -> new ArrayList<>()).add(URI.create(fields[1]));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Ignoring unreadable registry snapshot {}: {}", file, e.getMessage());
+            return;
+        }
+        registry.replaceAll((serviceId, uris) -> Collections.unmodifiableList(uris));
+        this.instances = Collections.unmodifiableMap(registry);
+        this.fetchedAt = loadedAt;
+        LOG.info("Loaded registry snapshot of {} services fetched at {}", registry.size(), loadedAt);
+    }
+
+    private synchronized void save() {
+        Map<String, List<URI>> registry = instances;
+        try {
+            Path dir = file.toAbsolutePath().getParent();
+            if (dir.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+                Files.createDirectories(dir, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString(OWNER_ONLY)));
+            } else {
+                Files.createDirectories(dir);
+            }
+            // created readable and writable by the owner only
+            Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+            try {
+                try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                    writer.write(HEADER + fetchedAt);
+                    writer.newLine();
+                    for (Map.Entry<String, List<URI>> entry : registry.entrySet()) {
+                        for (URI uri : entry.getValue()) {
+                            writer.write(entry.getKey() + " " + uri);
+                            writer.newLine();
+                        }
+                    }
+                }
+                try {
+                    Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        } catch (IOException e) {
+            LOG.warn("Failed to write registry snapshot {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static boolean isPrivate(Path path) {
+        PosixFileAttributeView view = Files.getFileAttributeView(path, PosixFileAttributeView.class);
+        if (view == null) {
+            return true;
+        }
+        try {
+            Set<PosixFilePermission> permissions = view.readAttributes().permissions();
+            return !permissions.contains(PosixFilePermission.GROUP_WRITE) && !permissions.contains(PosixFilePermission.OTHERS_WRITE);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
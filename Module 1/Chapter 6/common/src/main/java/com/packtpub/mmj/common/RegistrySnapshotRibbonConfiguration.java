@@ -0,0 +1,31 @@
+package com.packtpub.mmj.common;
+
+import com.netflix.client.config.IClientConfig;
+import com.netflix.loadbalancer.Server;
+import com.netflix.loadbalancer.ServerList;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Ribbon client configuration backing every client with a
+ * {@link SnapshotServerList}. Register it with
+ * <code>@RibbonClients(defaultConfiguration = RegistrySnapshotRibbonConfiguration.class)</code>;
+ * it is deliberately not a <code>@Configuration</code> so that component
+ * scanning does not pick it up into the main application context.
+ *
+ * @author Sourabh Sharma
+ */
+public class RegistrySnapshotRibbonConfiguration {
+
+    /**
+     *
+     * @param config
+     * @param discoveryClient
+     * @param snapshot
+     * @return
+     */
+    @Bean
+    public ServerList<Server> ribbonServerList(IClientConfig config, DiscoveryClient discoveryClient, RegistrySnapshot snapshot) {
+        return new SnapshotServerList(config.getClientName(), discoveryClient, snapshot);
+    }
+}
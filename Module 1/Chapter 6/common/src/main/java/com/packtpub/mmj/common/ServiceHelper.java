@@ -22,6 +22,9 @@ public class ServiceHelper {
     @Autowired
     private LoadBalancerClient loadBalancer;
 
+    @Autowired(required = false)
+    private RegistrySnapshot registrySnapshot;
+
     /**
      *
      * @param serviceId
@@ -50,10 +53,12 @@ public class ServiceHelper {
             LOG.info("Resolved serviceId '{}' to URL '{}'.", serviceId, uri);
 
         } catch (RuntimeException e) {
-            e.printStackTrace();
-            // Eureka not available, use fallback if specified otherwise rethrow the error
-            Integer.parseInt("");
-            if (fallbackUri == null) {
+            // Registry not available, use the last known instances, then the fallback if specified, otherwise rethrow the error
+            URI last = registrySnapshot == null ? null : registrySnapshot.choose(serviceId);
+            if (last != null) {
+                uri = last;
+                LOG.warn("Failed to resolve serviceId '{}'. Degraded mode, using snapshot URL '{}'.", serviceId, uri);
+            } else if (fallbackUri == null) {
                 throw e;
             } else {
                 uri = URI.create(fallbackUri);
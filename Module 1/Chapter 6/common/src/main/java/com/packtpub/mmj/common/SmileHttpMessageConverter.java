@@ -0,0 +1,63 @@
+package com.packtpub.mmj.common;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import java.lang.reflect.Type;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Jackson based converter for the binary Smile format. It reads and writes the
+ * same object model as the JSON converter, so it can be negotiated on internal
+ * calls through the <code>Accept</code> header without any change to the
+ * entities.
+ *
+ * @author Sourabh Sharma
+ */
+public class SmileHttpMessageConverter extends AbstractJackson2HttpMessageConverter {
+
+    /**
+     * Media type used by internal services to ask for Smile payloads
+     */
+    public static final MediaType APPLICATION_SMILE = new MediaType("application", "x-jackson-smile");
+
+    /**
+     * Constructor using the default Spring Jackson configuration (well known
+     * modules such as JSR-310 are registered when present).
+     */
+    public SmileHttpMessageConverter() {
+        this(Jackson2ObjectMapperBuilder.json().factory(new SmileFactory()).build());
+    }
+
+    /**
+     *
+     * @param objectMapper mapper that must be backed by a {@link SmileFactory}
+     */
+    public SmileHttpMessageConverter(ObjectMapper objectMapper) {
+        super(objectMapper, APPLICATION_SMILE);
+    }
+
+    /**
+     * Converter for clients that accept Smile responses but keep sending their
+     * request bodies as JSON. Placed ahead of the JSON converter of a
+     * <code>RestTemplate</code>, it puts Smile first in the
+     * <code>Accept</code> header without taking over the writing of requests.
+     *
+     * @return
+     */
+    public static SmileHttpMessageConverter forReading() {
+        return new SmileHttpMessageConverter() {
+
+            @Override
+            public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+                return false;
+            }
+
+            @Override
+            public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+                return false;
+            }
+        };
+    }
+}
@@ -0,0 +1,81 @@
+package com.packtpub.mmj.common;
+
+import com.netflix.loadbalancer.Server;
+import com.netflix.loadbalancer.ServerList;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+
+/**
+ * Ribbon server list of a service, read from the discovery client and falling
+ * back to the {@link RegistrySnapshot} when the registry does not know the
+ * service, i.e. when it is down or has not been reached yet.
+ *
+ * @author Sourabh Sharma
+ */
+public class SnapshotServerList implements ServerList<Server> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SnapshotServerList.class);
+
+    private final String serviceId;
+    private final DiscoveryClient discoveryClient;
+    private final RegistrySnapshot snapshot;
+    private volatile boolean degraded;
+
+    /**
+     *
+     * @param serviceId
+     * @param discoveryClient
+     * @param snapshot
+     */
+    public SnapshotServerList(String serviceId, DiscoveryClient discoveryClient, RegistrySnapshot snapshot) {
+        this.serviceId = serviceId;
+        this.discoveryClient = discoveryClient;
+        this.snapshot = snapshot;
+    }
+
+    @Override
+    public List<Server> getInitialListOfServers() {
+        return getUpdatedListOfServers();
+    }
+
+    @Override
+    public List<Server> getUpdatedListOfServers() {
+        List<Server> servers = new ArrayList<>();
+        try {
+            for (ServiceInstance instance : discoveryClient.getInstances(serviceId)) {
+                servers.add(new Server(instance.getHost(), instance.getPort()));
+            }
+        } catch (RuntimeException e) {
+            LOG.debug("Registry lookup of '{}' failed: {}", serviceId, e.getMessage());
+        }
+        if (!servers.isEmpty()) {
+            if (degraded) {
+                LOG.info("Registry knows '{}' again, leaving degraded mode", serviceId);
+                degraded = false;
+            }
+            return servers;
+        }
+        for (URI uri : snapshot.getInstances(serviceId)) {
+            servers.add(new Server(uri.getHost(), uri.getPort()));
+        }
+        if (!servers.isEmpty() && !degraded) {
+            LOG.warn("Registry does not know '{}', routing in degraded mode to {} instances of the snapshot fetched at {}",
+                    serviceId, servers.size(), snapshot.getFetchedAt());
+            degraded = true;
+        }
+        return servers;
+    }
+
+    /**
+     *
+     * @return true while the servers come from the snapshot
+     */
+    public boolean isDegraded() {
+        return degraded;
+    }
+}
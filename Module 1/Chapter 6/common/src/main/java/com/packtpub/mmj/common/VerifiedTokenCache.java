@@ -0,0 +1,140 @@
+package com.packtpub.mmj.common;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of verified tokens, so that a token presented again costs a
+ * lookup instead of a signature check. An entry never outlives its token. When
+ * the cache is full the expired tokens go first, then the least recently used
+ * one.
+ *
+ * @param <V> what a verified token resolves to
+ * @author Sourabh Sharma
+ */
+public class VerifiedTokenCache<V> {
+
+    private static class Entry<V> {
+
+        final V value;
+        final long expiresAt;
+
+        Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final int maxSize;
+    private final LinkedHashMap<String, Entry<V>> entries;
+    private long nextExpiry = Long.MAX_VALUE;
+    private long hits;
+    private long misses;
+
+    /**
+     *
+     * @param maxSize maximum number of cached tokens
+     */
+    public VerifiedTokenCache(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     *
+     * @param token
+     * @param now current time in milliseconds
+     * @return what the token was verified to, null if it is not cached or
+     * expired
+     */
+    public synchronized V get(String token, long now) {
+        Entry<V> entry = entries.get(token);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        if (entry.expiresAt <= now) {
+            entries.remove(token);
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.value;
+    }
+
+    /**
+     *
+     * @param token
+     * @param value what the token was verified to
+     * @param expiresAt expiry of the token, in milliseconds
+     * @param now current time in milliseconds
+     */
+    public synchronized void put(String token, V value, long expiresAt, long now) {
+        if (expiresAt <= now) {
+            return;
+        }
+        if (!entries.containsKey(token) && entries.size() >= maxSize) {
+            evict(now);
+        }
+        entries.put(token, new Entry<>(value, expiresAt));
+        nextExpiry = Math.min(nextExpiry, expiresAt);
+    }
+
+    /**
+     *
+     * @param token
+     */
+    public synchronized void invalidate(String token) {
+        entries.remove(token);
+    }
+
+    /**
+     *
+     * @return
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     *
+     * @return number of lookups answered from the cache
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     *
+     * @return number of lookups that needed a verification
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    private void evict(long now) {
+        // Only sweep when some token is known to have expired, so a full cache
+        // of live tokens evicts in constant time
+        if (nextExpiry <= now) {
+            long earliest = Long.MAX_VALUE;
+            for (Iterator<Entry<V>> it = entries.values().iterator(); it.hasNext();) {
+                long expiresAt = it.next().expiresAt;
+                if (expiresAt <= now) {
+                    it.remove();
+                } else {
+                    earliest = Math.min(earliest, expiresAt);
+                }
+            }
+            nextExpiry = earliest;
+        }
+        if (entries.size() >= maxSize) {
+            Iterator<Map.Entry<String, Entry<V>>> eldest = entries.entrySet().iterator();
+            eldest.next();
+            eldest.remove();
+        }
+    }
+}
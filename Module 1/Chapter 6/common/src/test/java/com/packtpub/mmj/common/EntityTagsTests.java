@@ -0,0 +1,58 @@
+package com.packtpub.mmj.common;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/**
+ *
+ * @author Sourabh Sharma
+ */
+public class EntityTagsTests {
+
+    /**
+     * The current tag, weak or strong, among other tags gets a 304; any other
+     * version gets the entity. Both answers vary on Accept.
+     */
+    @Test
+    public void conditionalGet() {
+        String eTag = EntityTags.eTag(42);
+        Assert.assertTrue(eTag.startsWith("W/\""));
+
+        ResponseEntity<String> response = EntityTags.conditionalGet("entity", 42, "\"stale\", " + eTag.substring(2));
+        Assert.assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        Assert.assertNull(response.getBody());
+        Assert.assertEquals(eTag, response.getHeaders().getETag());
+        Assert.assertEquals(HttpHeaders.ACCEPT, response.getHeaders().getFirst(HttpHeaders.VARY));
+
+        response = EntityTags.conditionalGet("entity", 43, eTag);
+        Assert.assertEquals(HttpStatus.OK, response.getStatusCode());
+        Assert.assertEquals("entity", response.getBody());
+        Assert.assertEquals(HttpHeaders.ACCEPT, response.getHeaders().getFirst(HttpHeaders.VARY));
+        Assert.assertEquals(HttpStatus.OK, EntityTags.conditionalGet("entity", 42, null).getStatusCode());
+    }
+
+    /**
+     * Tags of a version only match within the process that issued them
+     */
+    @Test
+    public void tagsAreNotBareVersions() {
+        Assert.assertFalse(EntityTags.matches("\"42\"", EntityTags.eTag(42)));
+        Assert.assertFalse(EntityTags.matches("W/\"42\"", EntityTags.eTag(42)));
+    }
+
+    /**
+     * A new repository does not start below the versions of an earlier one
+     */
+    @Test
+    public void versionsSurviveRestarts() {
+        EntityVersions previousRun = new EntityVersions();
+        long last = 0;
+        for (int i = 0; i < 1000; i++) {
+            last = previousRun.next();
+        }
+        Assert.assertTrue(new EntityVersions().next() > last - 1000);
+    }
+}
@@ -0,0 +1,70 @@
+package com.packtpub.mmj.common;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Sourabh Sharma
+ */
+public class JsonWebKeysTests {
+
+    /**
+     * Keys published as JSON verify the tokens signed with their private keys
+     *
+     * @throws Exception
+     */
+    @Test
+    public void roundTrip() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyPair k1 = generator.generateKeyPair();
+        KeyPair k2 = generator.generateKeyPair();
+        Map<String, RSAPublicKey> published = new LinkedHashMap<>();
+        published.put("k1", (RSAPublicKey) k1.getPublic());
+        published.put("k2", (RSAPublicKey) k2.getPublic());
+
+        ObjectMapper mapper = new ObjectMapper();
+        Map<?, ?> keySet = mapper.readValue(mapper.writeValueAsString(JsonWebKeys.toKeySet(published)), Map.class);
+        Map<String, PublicKey> keys = JsonWebKeys.fromKeySet(keySet);
+
+        Assert.assertEquals(2, keys.size());
+        Assert.assertEquals(k1.getPublic(), keys.get("k1"));
+        Assert.assertEquals(k2.getPublic(), keys.get("k2"));
+        String token = JsonWebToken.sign(Collections.singletonMap("exp", 2000000000L), "k2", k2.getPrivate());
+        Assert.assertTrue(JsonWebToken.parse(token).verify(keys.get("k2")));
+        Assert.assertFalse(JsonWebToken.parse(token).verify(keys.get("k1")));
+    }
+
+    /**
+     * Keys of other types, without id or with a broken encoding are skipped
+     */
+    @Test
+    public void unusableKeysSkipped() {
+        Map<String, Object> ec = new LinkedHashMap<>();
+        ec.put("kid", "ec");
+        ec.put("kty", "EC");
+        Map<String, Object> anonymous = new LinkedHashMap<>();
+        anonymous.put("kty", "RSA");
+        anonymous.put("n", "AQAB");
+        anonymous.put("e", "AQAB");
+        Map<String, Object> broken = new LinkedHashMap<>();
+        broken.put("kid", "broken");
+        broken.put("kty", "RSA");
+        broken.put("n", "not base64!");
+        broken.put("e", "AQAB");
+
+        Assert.assertTrue(JsonWebKeys.fromKeySet(Collections.singletonMap("keys", Arrays.asList(ec, anonymous, broken, "x"))).isEmpty());
+        Assert.assertTrue(JsonWebKeys.fromKeySet(Collections.singletonMap("keys", "x")).isEmpty());
+        Assert.assertTrue(JsonWebKeys.fromKeySet(null).isEmpty());
+    }
+}
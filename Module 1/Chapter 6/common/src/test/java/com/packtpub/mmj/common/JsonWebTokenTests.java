@@ -0,0 +1,108 @@
+package com.packtpub.mmj.common;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ *
+ * @author Sourabh Sharma
+ */
+public class JsonWebTokenTests {
+
+    private static KeyPair signing;
+    private static KeyPair other;
+
+    /**
+     * Key pairs shared by the tests, RSA key generation being slow
+     *
+     * @throws Exception
+     */
+    @BeforeClass
+    public static void keys() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        signing = generator.generateKeyPair();
+        other = generator.generateKeyPair();
+    }
+
+    private static Map<String, Object> claims(String user, Long exp) {
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put("user_name", user);
+        if (exp != null) {
+            claims.put("exp", exp);
+        }
+        return claims;
+    }
+
+    /**
+     * A token verifies against the key that signed it only
+     */
+    @Test
+    public void signatureVerification() {
+        String encoded = JsonWebToken.sign(claims("alice", 2000000000L), "k1", signing.getPrivate());
+        JsonWebToken token = JsonWebToken.parse(encoded);
+        Assert.assertEquals("k1", token.getKeyId());
+        Assert.assertEquals("alice", token.getClaims().get("user_name"));
+        Assert.assertEquals(2000000000000L, token.getExpiresAt());
+        Assert.assertTrue(token.verify(signing.getPublic()));
+        Assert.assertFalse(token.verify(other.getPublic()));
+    }
+
+    /**
+     * Changing the claims breaks the signature
+     */
+    @Test
+    public void tamperedClaimsRejected() {
+        String encoded = JsonWebToken.sign(claims("alice", 2000000000L), "k1", signing.getPrivate());
+        String[] parts = encoded.split("\\.");
+        String forged = parts[0] + "." + encode("{\"user_name\":\"mallory\",\"exp\":2000000000}") + "." + parts[2];
+        JsonWebToken token = JsonWebToken.parse(forged);
+        Assert.assertEquals("mallory", token.getClaims().get("user_name"));
+        Assert.assertFalse(token.verify(signing.getPublic()));
+    }
+
+    /**
+     * Only RS256 is accepted, whatever the signature
+     */
+    @Test
+    public void otherAlgorithmRejected() {
+        String encoded = JsonWebToken.sign(claims("alice", 2000000000L), "k1", signing.getPrivate());
+        String unsigned = encode("{\"alg\":\"none\",\"kid\":\"k1\"}") + encoded.substring(encoded.indexOf('.'));
+        Assert.assertFalse(JsonWebToken.parse(unsigned).verify(signing.getPublic()));
+    }
+
+    /**
+     * A token without expiry is already expired, not valid forever
+     */
+    @Test
+    public void missingExpiry() {
+        String encoded = JsonWebToken.sign(claims("alice", null), "k1", signing.getPrivate());
+        Assert.assertEquals(0, JsonWebToken.parse(encoded).getExpiresAt());
+    }
+
+    /**
+     * Anything but three dot separated JSON segments is malformed
+     */
+    @Test
+    public void malformed() {
+        for (String token : new String[]{"abc", "a.b", "a.b.c.d", encode("{}") + "." + encode("not json") + ".c"}) {
+            try {
+                JsonWebToken.parse(token);
+                Assert.fail(token);
+            } catch (IllegalArgumentException ex) {
+                // expected
+            }
+        }
+    }
+
+    private static String encode(String json) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
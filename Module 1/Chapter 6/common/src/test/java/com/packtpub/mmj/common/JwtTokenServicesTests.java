@@ -0,0 +1,161 @@
+package com.packtpub.mmj.common;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PublicKey;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.security.oauth2.common.exceptions.InvalidTokenException;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+
+/**
+ *
+ * @author Sourabh Sharma
+ */
+public class JwtTokenServicesTests {
+
+    private static KeyPair k1;
+    private static KeyPair k2;
+
+    private final long[] now = {1000000000000L};
+    private final Map<String, PublicKey> published = new HashMap<>();
+    private final AtomicInteger loads = new AtomicInteger();
+    private JwtTokenServices tokenServices;
+
+    /**
+     * Key pairs shared by the tests, RSA key generation being slow
+     *
+     * @throws Exception
+     */
+    @BeforeClass
+    public static void keys() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        k1 = generator.generateKeyPair();
+        k2 = generator.generateKeyPair();
+    }
+
+    /**
+     * Setup method
+     */
+    @Before
+    public void setup() {
+        published.put("k1", k1.getPublic());
+        tokenServices = new JwtTokenServices(() -> {
+            loads.incrementAndGet();
+            return new HashMap<>(published);
+        }, 100, () -> now[0]);
+    }
+
+    private String token(String keyId, KeyPair pair, Long validitySeconds) {
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put("user_name", "alice");
+        claims.put("client_id", "client");
+        if (validitySeconds != null) {
+            claims.put("exp", now[0] / 1000 + validitySeconds);
+        }
+        return JsonWebToken.sign(claims, keyId, pair.getPrivate());
+    }
+
+    private void assertRejected(String token) {
+        try {
+            tokenServices.loadAuthentication(token);
+            Assert.fail("token accepted");
+        } catch (InvalidTokenException ex) {
+            // expected
+        }
+    }
+
+    /**
+     * A valid token is verified once, then answered from the cache
+     */
+    @Test
+    public void verifiesAndCaches() {
+        String token = token("k1", k1, 3600L);
+        OAuth2Authentication authentication = tokenServices.loadAuthentication(token);
+        Assert.assertEquals("alice", authentication.getName());
+        Assert.assertEquals("client", authentication.getOAuth2Request().getClientId());
+        Assert.assertSame(authentication, tokenServices.loadAuthentication(token));
+        Assert.assertEquals(1, tokenServices.getCache().getHits());
+        Assert.assertEquals(1, loads.get());
+    }
+
+    /**
+     * A token signed with another key than the one it names is rejected, and
+     * never cached
+     */
+    @Test
+    public void wrongSignatureRejected() {
+        assertRejected(token("k1", k2, 3600L));
+        Assert.assertEquals(0, tokenServices.getCache().size());
+    }
+
+    /**
+     * Unknown key ids trigger a key fetch at most every 30 seconds; a key
+     * published by a rotation is picked up on the next fetch
+     */
+    @Test
+    public void unknownKeyIdRefetchesKeys() {
+        tokenServices.loadAuthentication(token("k1", k1, 3600L));
+        String rotated = token("k2", k2, 3600L);
+        assertRejected(rotated);
+        Assert.assertEquals(1, loads.get());
+
+        published.put("k2", k2.getPublic());
+        now[0] += 29999;
+        assertRejected(rotated);
+        Assert.assertEquals(1, loads.get());
+        now[0] += 1;
+        Assert.assertEquals("alice", tokenServices.loadAuthentication(rotated).getName());
+        Assert.assertEquals(2, loads.get());
+
+        assertRejected(token(null, k1, 3600L));
+        Assert.assertEquals(2, loads.get());
+    }
+
+    /**
+     * Expired tokens and tokens without expiry are rejected; a cached token
+     * stops being accepted when it expires
+     */
+    @Test
+    public void expiry() {
+        assertRejected(token("k1", k1, null));
+        assertRejected(token("k1", k1, 0L));
+
+        String token = token("k1", k1, 60L);
+        tokenServices.loadAuthentication(token);
+        now[0] += 59999;
+        tokenServices.loadAuthentication(token);
+        now[0] += 1;
+        assertRejected(token);
+        Assert.assertEquals(0, tokenServices.getCache().size());
+    }
+
+    /**
+     * An invalidated token is verified again, against the keys published now
+     */
+    @Test
+    public void cacheInvalidation() {
+        String token = token("k1", k1, 3600L);
+        tokenServices.loadAuthentication(token);
+        tokenServices.getCache().invalidate(token);
+        long misses = tokenServices.getCache().getMisses();
+        Assert.assertEquals("alice", tokenServices.loadAuthentication(token).getName());
+        Assert.assertEquals(misses + 1, tokenServices.getCache().getMisses());
+    }
+
+    /**
+     * Malformed tokens are rejected without fetching keys
+     */
+    @Test
+    public void malformedRejected() {
+        assertRejected("not-a-token");
+        Assert.assertEquals(0, loads.get());
+    }
+}
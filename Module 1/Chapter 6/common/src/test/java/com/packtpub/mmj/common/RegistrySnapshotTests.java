@@ -0,0 +1,177 @@
+package com.packtpub.mmj.common;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+
+/**
+ *
+ * @author Sourabh Sharma
+ */
+public class RegistrySnapshotTests {
+
+    private static final long MAX_AGE = 60000;
+    private static final long INTERVAL = 1000;
+
+    private final long[] now = {1000000};
+    private Path dir;
+    private Path file;
+
+    /**
+     * Setup method
+     *
+     * @throws IOException
+     */
+    @Before
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("registry-snapshot");
+        file = dir.resolve("otrs").resolve("registry.snapshot");
+    }
+
+    /**
+     * Removes the snapshot directory
+     *
+     * @throws IOException
+     */
+    @After
+    public void cleanup() throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach((path) -> path.toFile().delete());
+        }
+    }
+
+    private RegistrySnapshot snapshot() {
+        return new RegistrySnapshot(file, MAX_AGE, INTERVAL, () -> now[0]);
+    }
+
+    private static Map<String, List<URI>> registry(String serviceId, String... uris) {
+        Map<String, List<URI>> registry = new LinkedHashMap<>();
+        List<URI> instances = new ArrayList<>();
+        for (String uri : uris) {
+            instances.add(URI.create(uri));
+        }
+        registry.put(serviceId, instances);
+        return registry;
+    }
+
+    /**
+     * A snapshot is read back at startup from a directory only its owner can
+     * access
+     *
+     * @throws IOException
+     */
+    @Test
+    public void savedAndLoaded() throws IOException {
+        snapshot().update(registry("Restaurant-Service", "http://localhost:3402", "http://localhost:3403"), now[0]);
+        if (file.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            Assert.assertEquals("rwx------", PosixFilePermissions.toString(Files.getPosixFilePermissions(file.getParent())));
+            Assert.assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(file)));
+        }
+
+        RegistrySnapshot loaded = snapshot();
+        Assert.assertEquals(now[0], loaded.getFetchedAt());
+        Assert.assertEquals(Arrays.asList(URI.create("http://localhost:3402"), URI.create("http://localhost:3403")),
+                loaded.getInstances("restaurant-service"));
+        Assert.assertEquals(URI.create("http://localhost:3402"), loaded.choose("RESTAURANT-SERVICE"));
+        Assert.assertEquals(URI.create("http://localhost:3403"), loaded.choose("restaurant-service"));
+    }
+
+    /**
+     * A snapshot file other users can write is not trusted
+     *
+     * @throws IOException
+     */
+    @Test
+    public void sharedFileIgnored() throws IOException {
+        snapshot().update(registry("restaurant-service", "http://localhost:3402"), now[0]);
+        if (!file.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            return;
+        }
+        Set<PosixFilePermission> permissions = Files.getPosixFilePermissions(file);
+        permissions.add(PosixFilePermission.OTHERS_WRITE);
+        Files.setPosixFilePermissions(file, permissions);
+        Assert.assertTrue(snapshot().getInstances("restaurant-service").isEmpty());
+    }
+
+    /**
+     * Snapshots older than their maximum age are not routed to
+     */
+    @Test
+    public void staleSnapshotUnused() {
+        RegistrySnapshot snapshot = snapshot();
+        snapshot.update(registry("restaurant-service", "http://localhost:3402"), now[0]);
+        now[0] += MAX_AGE;
+        Assert.assertFalse(snapshot.isStale());
+        Assert.assertEquals(1, snapshot.getInstances("restaurant-service").size());
+        now[0] += 1;
+        Assert.assertTrue(snapshot.isStale());
+        Assert.assertTrue(snapshot.getInstances("restaurant-service").isEmpty());
+        Assert.assertNull(snapshot.choose("restaurant-service"));
+        Assert.assertTrue(snapshot().isStale());
+    }
+
+    /**
+     * The registry is walked at most once per capture interval, and an empty
+     * registry keeps the last good snapshot
+     */
+    @Test
+    public void captureThrottled() {
+        AtomicInteger walks = new AtomicInteger();
+        List<ServiceInstance> instances = new ArrayList<>();
+        instances.add(new DefaultServiceInstance("restaurant-service", "localhost", 3402, false));
+        DiscoveryClient discoveryClient = new DiscoveryClient() {
+            @Override
+            public String description() {
+                return "test";
+            }
+
+            @Override
+            public ServiceInstance getLocalServiceInstance() {
+                return null;
+            }
+
+            @Override
+            public List<ServiceInstance> getInstances(String serviceId) {
+                return instances;
+            }
+
+            @Override
+            public List<String> getServices() {
+                walks.incrementAndGet();
+                return instances.isEmpty() ? Collections.emptyList() : Collections.singletonList("restaurant-service");
+            }
+        };
+        RegistrySnapshot snapshot = snapshot();
+        Assert.assertTrue(snapshot.capture(discoveryClient));
+        Assert.assertEquals(now[0], snapshot.getFetchedAt());
+        now[0] += INTERVAL - 1;
+        Assert.assertFalse(snapshot.capture(discoveryClient));
+        Assert.assertEquals(1, walks.get());
+
+        instances.clear();
+        now[0] += 1;
+        Assert.assertTrue(snapshot.capture(discoveryClient));
+        Assert.assertEquals(2, walks.get());
+        Assert.assertEquals(URI.create("http://localhost:3402"), snapshot.choose("restaurant-service"));
+    }
+}
@@ -0,0 +1,78 @@
+package com.packtpub.mmj.common;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Sourabh Sharma
+ */
+public class VerifiedTokenCacheTests {
+
+    /**
+     * Entries never outlive their token, and an expired token is not cached
+     */
+    @Test
+    public void expiry() {
+        VerifiedTokenCache<String> cache = new VerifiedTokenCache<>(10);
+        cache.put("t1", "alice", 2000, 1000);
+        cache.put("t2", "bob", 1000, 1000);
+        Assert.assertEquals(1, cache.size());
+        Assert.assertEquals("alice", cache.get("t1", 1999));
+        Assert.assertNull(cache.get("t1", 2000));
+        Assert.assertEquals(0, cache.size());
+        Assert.assertEquals(1, cache.getHits());
+        Assert.assertEquals(1, cache.getMisses());
+    }
+
+    /**
+     * An invalidated token has to be verified again
+     */
+    @Test
+    public void invalidate() {
+        VerifiedTokenCache<String> cache = new VerifiedTokenCache<>(10);
+        cache.put("t1", "alice", 2000, 1000);
+        cache.invalidate("t1");
+        Assert.assertNull(cache.get("t1", 1000));
+        cache.invalidate("unknown");
+        Assert.assertEquals(0, cache.size());
+    }
+
+    /**
+     * A full cache evicts the least recently used live token
+     */
+    @Test
+    public void leastRecentlyUsedEvicted() {
+        VerifiedTokenCache<String> cache = new VerifiedTokenCache<>(2);
+        cache.put("t1", "alice", 5000, 1000);
+        cache.put("t2", "bob", 5000, 1000);
+        cache.get("t1", 1000);
+        cache.put("t3", "carol", 5000, 1000);
+        Assert.assertEquals(2, cache.size());
+        Assert.assertEquals("alice", cache.get("t1", 1000));
+        Assert.assertNull(cache.get("t2", 1000));
+        Assert.assertEquals("carol", cache.get("t3", 1000));
+    }
+
+    /**
+     * A full cache drops its expired tokens before any live one
+     */
+    @Test
+    public void expiredEvictedFirst() {
+        VerifiedTokenCache<String> cache = new VerifiedTokenCache<>(2);
+        cache.put("t1", "alice", 5000, 1000);
+        cache.put("t2", "bob", 2000, 1000);
+        cache.get("t2", 1000);
+        cache.put("t3", "carol", 5000, 3000);
+        Assert.assertEquals("alice", cache.get("t1", 3000));
+        Assert.assertEquals("carol", cache.get("t3", 3000));
+    }
+
+    /**
+     * The cache must hold at least one token
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void emptyCache() {
+        new VerifiedTokenCache<>(0);
+    }
+}
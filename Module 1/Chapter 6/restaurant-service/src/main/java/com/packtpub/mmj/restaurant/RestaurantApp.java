@@ -10,6 +10,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.client.circuitbreaker.EnableCircuitBreaker;
 import org.springframework.cloud.netflix.eureka.EnableEurekaClient;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
 
 /**
  *
@@ -18,6 +19,7 @@ import org.springframework.context.annotation.Bean;
 @SpringBootApplication
 @EnableEurekaClient
 @EnableCircuitBreaker
+@ComponentScan({"com.packtpub.mmj.restaurant", "com.packtpub.mmj.common"})
 public class RestaurantApp {
 
     private static final Logger LOG = LoggerFactory.getLogger(RestaurantApp.class);
@@ -0,0 +1,125 @@
+package com.packtpub.mmj.restaurant.domain.repository;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Burkhard-Keller tree over terms using the Levenshtein distance. A search
+ * with a bounded distance only descends into children whose edge distance can
+ * still contain a match, so it visits a small part of the vocabulary instead of
+ * computing the distance to every term.
+ *
+ * @author Sourabh Sharma
+ */
+public class BKTree {
+
+    private static class Node {
+
+        final String term;
+        final Map<Integer, Node> children = new HashMap<>(4);
+
+        Node(String term) {
+            this.term = term;
+        }
+    }
+
+    private Node root;
+    private int size;
+
+    /**
+     * Adds the term if it is not already present.
+     *
+     * @param term
+     * @return true if the term was added
+     */
+    public boolean add(String term) {
+        if (root == null) {
+            root = new Node(term);
+            size++;
+            return true;
+        }
+        Node node = root;
+        while (true) {
+            int distance = distance(node.term, term);
+            if (distance == 0) {
+                return false;
+            }
+            Node child = node.children.get(distance);
+            if (child == null) {
+                node.children.put(distance, new Node(term));
+                size++;
+                return true;
+            }
+            node = child;
+        }
+    }
+
+    /**
+     * Visits every term within maxDistance of the query together with its
+     * distance.
+     *
+     * @param query
+     * @param maxDistance
+     * @param visitor
+     */
+    public void search(String query, int maxDistance, ObjIntConsumer<String> visitor) {
+        if (root == null) {
+            return;
+        }
+        Deque<Node> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            int distance = distance(node.term, query);
+            if (distance <= maxDistance) {
+                visitor.accept(node.term, distance);
+            }
+            int low = distance - maxDistance;
+            int high = distance + maxDistance;
+            node.children.forEach((edge, child) -> {
+                if (edge >= low && edge <= high) {
+                    pending.push(child);
+                }
+            });
+        }
+    }
+
+    /**
+     *
+     * @return number of distinct terms in the tree
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Levenshtein distance computed with two rolling rows.
+     *
+     * @param a
+     * @param b
+     * @return
+     */
+    public static int distance(CharSequence a, CharSequence b) {
+        int n = b.length();
+        int[] previous = new int[n + 1];
+        int[] current = new int[n + 1];
+        for (int j = 0; j <= n; j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            char ca = a.charAt(i - 1);
+            for (int j = 1; j <= n; j++) {
+                int cost = ca == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[n];
+    }
+}
@@ -1,10 +1,14 @@
 package com.packtpub.mmj.restaurant.domain.repository;
 
+import com.packtpub.mmj.common.EntityVersions;
 import com.packtpub.mmj.restaurant.domain.model.entity.Entity;
 import com.packtpub.mmj.restaurant.domain.model.entity.Restaurant;
+import com.packtpub.mmj.restaurant.domain.valueobject.RestaurantSuggestion;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import org.springframework.stereotype.Repository;
 
@@ -17,47 +21,62 @@ public class InMemRestaurantRepository implements RestaurantRepository<Restauran
 
     private Map<String, Restaurant> entities;
 
+    private final EntityVersions versions = new EntityVersions();
+
+    private final RestaurantNameIndex nameIndex = new RestaurantNameIndex();
+
+    /**
+     * Folded name of each restaurant, computed once at write time
+     */
+    private final Map<String, String> searchKeys = new HashMap<>();
+
+    /**
+     * Restaurant id by folded name, drives name uniqueness
+     */
+    private final Map<String, String> idsBySearchKey = new HashMap<>();
+
+    /**
+     * Autocompletion index, also the owner of the popularity counters
+     */
+    private final RestaurantSuggestionIndex suggestionIndex = new RestaurantSuggestionIndex();
+
     /**
      * Initialize the in-memory Restaurant Repository with empty Map
      */
     public InMemRestaurantRepository() {
         entities = new HashMap();
         Restaurant restaurant = new Restaurant("Le Meurice", "1", "228 rue de Rivoli, 75001, Paris", null);
-        entities.put("1", restaurant);
+        add(restaurant);
         restaurant = new Restaurant("L'Ambroisie", "2", "9 place des Vosges, 75004, Paris", null);
-        entities.put("2", restaurant);
+        add(restaurant);
         restaurant = new Restaurant("Arpège", "3", "84, rue de Varenne, 75007, Paris", null);
-        entities.put("3", restaurant);
+        add(restaurant);
         restaurant = new Restaurant("Alain Ducasse au Plaza Athénée", "4", "25 avenue de Montaigne, 75008, Paris", null);
-        entities.put("4", restaurant);
+        add(restaurant);
         restaurant = new Restaurant("Pavillon LeDoyen", "5", "1, avenue Dutuit, 75008, Paris", null);
-        entities.put("5", restaurant);
+        add(restaurant);
         restaurant = new Restaurant("Pierre Gagnaire", "6", "6, rue Balzac, 75008, Paris", null);
-        entities.put("6", restaurant);
+        add(restaurant);
         restaurant = new Restaurant("L'Astrance", "7", "4, rue Beethoven, 75016, Paris", null);
-        entities.put("7", restaurant);
+        add(restaurant);
         restaurant = new Restaurant("Pré Catelan", "8", "Bois de Boulogne, 75016, Paris", null);
-        entities.put("8", restaurant);
+        add(restaurant);
         restaurant = new Restaurant("Guy Savoy", "9", "18 rue Troyon, 75017, Paris", null);
-        entities.put("9", restaurant);
+        add(restaurant);
         restaurant = new Restaurant("Le Bristol", "10", "112, rue du Faubourg St Honoré, 8th arrondissement, Paris", null);
-        entities.put("10", restaurant);
+        add(restaurant);
     }
 
     /**
-     * Check if given restaurant name already exist.
+     * Check if given restaurant name already exist. Names are compared on
+     * their folded search key, so "Arpege" clashes with "Arpège".
      *
      * @param name
      * @return true if already exist, else false
      */
     @Override
     public boolean containsName(String name) {
-        try {
-            return this.findByName(name).size() > 0;
-        } catch (Exception ex) {
-            //Exception Handler
-        }
-        return false;
+        return idsBySearchKey.containsKey(SearchKey.fold(name));
     }
 
     /**
@@ -66,7 +85,9 @@ public class InMemRestaurantRepository implements RestaurantRepository<Restauran
      */
     @Override
     public void add(Restaurant entity) {
+        entity.setVersion(versions.next());
         entities.put(entity.getId(), entity);
+        index(entity);
     }
 
     /**
@@ -77,6 +98,7 @@ public class InMemRestaurantRepository implements RestaurantRepository<Restauran
     public void remove(String id) {
         if (entities.containsKey(id)) {
             entities.remove(id);
+            unindex(id);
         }
     }
 
@@ -87,10 +109,30 @@ public class InMemRestaurantRepository implements RestaurantRepository<Restauran
     @Override
     public void update(Restaurant entity) {
         if (entities.containsKey(entity.getId())) {
+            entity.setVersion(versions.next());
             entities.put(entity.getId(), entity);
+            index(entity);
         }
     }
 
+    private void index(Restaurant entity) {
+        unindex(entity.getId());
+        String key = SearchKey.fold(entity.getName());
+        searchKeys.put(entity.getId(), key);
+        idsBySearchKey.put(key, entity.getId());
+        nameIndex.put(entity.getId(), entity.getName());
+        suggestionIndex.put(entity.getId(), entity.getName());
+    }
+
+    private void unindex(String id) {
+        String key = searchKeys.remove(id);
+        if (key != null) {
+            idsBySearchKey.remove(key, id);
+        }
+        nameIndex.remove(id);
+        suggestionIndex.remove(id);
+    }
+
     /**
      *
      * @param id
@@ -98,7 +140,7 @@ public class InMemRestaurantRepository implements RestaurantRepository<Restauran
      */
     @Override
     public boolean contains(String id) {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        return entities.containsKey(id);
     }
 
     /**
@@ -108,7 +150,31 @@ public class InMemRestaurantRepository implements RestaurantRepository<Restauran
      */
     @Override
     public Entity get(String id) {
-        return entities.get(id);
+        Restaurant restaurant = entities.get(id);
+        if (restaurant != null) {
+            suggestionIndex.recordLookup(id);
+        }
+        return restaurant;
+    }
+
+    /**
+     * Batch lookup; each found restaurant counts as one lookup, like
+     * {@link #get(String)}.
+     *
+     * @param ids
+     * @return the restaurants found, in the order of the given ids
+     */
+    @Override
+    public Collection<Restaurant> findByIds(Collection<String> ids) {
+        List<Restaurant> restaurants = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Restaurant restaurant = entities.get(id);
+            if (restaurant != null) {
+                restaurants.add(restaurant);
+                suggestionIndex.recordLookup(id);
+            }
+        }
+        return restaurants;
     }
 
     /**
@@ -121,6 +187,8 @@ public class InMemRestaurantRepository implements RestaurantRepository<Restauran
     }
 
     /**
+     * Accent and case insensitive substring search. Only the query is folded
+     * per request; restaurant keys are precomputed when they are written.
      *
      * @param name
      * @return
@@ -129,13 +197,57 @@ public class InMemRestaurantRepository implements RestaurantRepository<Restauran
     @Override
     public Collection<Restaurant> findByName(String name) throws Exception {
         Collection<Restaurant> restaurants = new ArrayList();
-        int noOfChars = name.length();
-        entities.forEach((k, v) -> {
-            if (v.getName().toLowerCase().contains(name.toLowerCase().subSequence(0, noOfChars))) {
-                restaurants.add(v);
+        String key = SearchKey.fold(name);
+        searchKeys.forEach((id, searchKey) -> {
+            if (searchKey.contains(key)) {
+                restaurants.add(entities.get(id));
             }
         });
         return restaurants;
     }
 
+    /**
+     * Typo-tolerant search over the name tokens, backed by a BK-tree so that
+     * only the tokens close to the query are compared.
+     *
+     * @param name
+     * @param maxDistance maximum number of edits allowed per query token
+     * @return matches ordered by edit distance, then by popularity
+     * @throws Exception
+     */
+    @Override
+    public Collection<Restaurant> findByNameFuzzy(String name, int maxDistance) throws Exception {
+        Map<String, Integer> matches = nameIndex.search(name, maxDistance);
+        List<Restaurant> restaurants = new ArrayList<>(matches.size());
+        matches.keySet().forEach((id) -> {
+            Restaurant restaurant = entities.get(id);
+            if (restaurant != null) {
+                restaurants.add(restaurant);
+            }
+        });
+        restaurants.sort(Comparator.<Restaurant>comparingInt((r) -> matches.get(r.getId()))
+                .thenComparing(Comparator.comparingLong((Restaurant r) -> suggestionIndex.popularityOf(r.getId())).reversed()));
+        return restaurants;
+    }
+
+    /**
+     * Most popular restaurants having a name word that starts with the prefix.
+     *
+     * @param prefix
+     * @param k
+     * @return
+     */
+    @Override
+    public List<RestaurantSuggestion> suggest(String prefix, int k) {
+        List<String> ids = suggestionIndex.suggest(prefix, k);
+        List<RestaurantSuggestion> suggestions = new ArrayList<>(ids.size());
+        ids.forEach((id) -> {
+            Restaurant restaurant = entities.get(id);
+            if (restaurant != null) {
+                suggestions.add(new RestaurantSuggestion(id, restaurant.getName()));
+            }
+        });
+        return suggestions;
+    }
+
 }
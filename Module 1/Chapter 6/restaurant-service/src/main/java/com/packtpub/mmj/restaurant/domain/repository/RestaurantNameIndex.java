@@ -0,0 +1,115 @@
+package com.packtpub.mmj.restaurant.domain.repository;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Typo-tolerant index over restaurant name tokens. Distinct tokens are kept in
+ * a {@link BKTree} and each token points to the ids of the restaurants whose
+ * name contains it.
+ *
+ * @author Sourabh Sharma
+ */
+public class RestaurantNameIndex {
+
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+
+    private final Map<String, Set<String>> postings = new HashMap<>();
+    private final Map<String, String[]> tokensById = new HashMap<>();
+    private BKTree tree = new BKTree();
+
+    /**
+     * Indexes (or re-indexes) the name of the given restaurant.
+     *
+     * @param id
+     * @param name
+     */
+    public synchronized void put(String id, String name) {
+        remove(id);
+        String[] tokens = tokenize(name);
+        tokensById.put(id, tokens);
+        for (String token : tokens) {
+            postings.computeIfAbsent(token, (key) -> {
+                tree.add(key);
+                return new HashSet<>(2);
+            }).add(id);
+        }
+    }
+
+    /**
+     *
+     * @param id
+     */
+    public synchronized void remove(String id) {
+        String[] tokens = tokensById.remove(id);
+        if (tokens == null) {
+            return;
+        }
+        for (String token : tokens) {
+            Set<String> ids = postings.get(token);
+            if (ids != null && ids.remove(id) && ids.isEmpty()) {
+                postings.remove(token);
+            }
+        }
+        // BK-trees do not support deletion; rebuild once dead terms dominate
+        if (tree.size() > 2 * postings.size() + 16) {
+            tree = new BKTree();
+            postings.keySet().forEach(tree::add);
+        }
+    }
+
+    /**
+     * Finds the restaurants having, for every token of the query, a name token
+     * within maxDistance edits.
+     *
+     * @param query
+     * @param maxDistance
+     * @return restaurant id mapped to the sum of the per-token distances
+     */
+    public synchronized Map<String, Integer> search(String query, int maxDistance) {
+        String[] tokens = tokenize(query);
+        if (tokens.length == 0) {
+            return Collections.emptyMap();
+        }
+        Map<String, Integer> result = null;
+        for (String token : tokens) {
+            Map<String, Integer> best = new HashMap<>();
+            tree.search(token, maxDistance, (term, distance) -> {
+                Set<String> ids = postings.get(term);
+                if (ids != null) {
+                    ids.forEach((id) -> best.merge(id, distance, Math::min));
+                }
+            });
+            if (result == null) {
+                result = best;
+            } else {
+                result.keySet().retainAll(best.keySet());
+                result.replaceAll((id, distance) -> distance + best.get(id));
+            }
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Splits a name into folded word tokens.
+     *
+     * @param name
+     * @return
+     */
+    static String[] tokenize(String name) {
+        if (name == null) {
+            return new String[0];
+        }
+        return TOKEN_SEPARATOR.splitAsStream(SearchKey.fold(name))
+                .filter((token) -> !token.isEmpty())
+                .distinct()
+                .toArray(String[]::new);
+    }
+}
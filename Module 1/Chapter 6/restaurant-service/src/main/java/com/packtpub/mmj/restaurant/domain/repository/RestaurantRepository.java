@@ -1,6 +1,8 @@
 package com.packtpub.mmj.restaurant.domain.repository;
 
+import com.packtpub.mmj.restaurant.domain.valueobject.RestaurantSuggestion;
 import java.util.Collection;
+import java.util.List;
 
 /**
  *
@@ -24,4 +26,29 @@ public interface RestaurantRepository<Restaurant, String> extends Repository<Res
      * @throws Exception
      */
     public Collection<Restaurant> findByName(String name) throws Exception;
+
+    /**
+     * Resolves many ids in a single pass over the repository.
+     *
+     * @param ids
+     * @return the restaurants found, in the order of the given ids
+     */
+    public Collection<Restaurant> findByIds(Collection<String> ids);
+
+    /**
+     *
+     * @param name
+     * @param maxDistance
+     * @return
+     * @throws Exception
+     */
+    public Collection<Restaurant> findByNameFuzzy(String name, int maxDistance) throws Exception;
+
+    /**
+     *
+     * @param prefix
+     * @param k
+     * @return
+     */
+    public List<RestaurantSuggestion> suggest(String prefix, int k);
 }
@@ -0,0 +1,231 @@
+package com.packtpub.mmj.restaurant.domain.repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Prefix tree over the folded restaurant names used for autocompletion. Every
+ * word of a name starts a path, so "duc" completes "Alain Ducasse au Plaza
+ * Athénée". Each node keeps the ids of its {@link #MAX_K} most popular
+ * restaurants, so a suggestion only walks the prefix and copies a precomputed
+ * list, whatever the size of the catalog.
+ *
+ * @author Sourabh Sharma
+ */
+public class RestaurantSuggestionIndex {
+
+    /**
+     * Number of suggestions kept at each node
+     */
+    public static final int MAX_K = 10;
+
+    private static final String[] EMPTY = new String[0];
+
+    private class Node {
+
+        final Map<Character, Node> children = new HashMap<>(4);
+        Set<String> terminals;
+        String[] top = EMPTY;
+
+        /**
+         * Places id in the top list if its popularity earns it a slot. Valid
+         * only when popularity never decreases while the id is indexed.
+         */
+        void offer(String id) {
+            int index = indexOf(top, id);
+            if (index < 0) {
+                if (top.length == MAX_K) {
+                    if (compare(id, top[MAX_K - 1]) >= 0) {
+                        return;
+                    }
+                    index = MAX_K - 1;
+                } else {
+                    top = Arrays.copyOf(top, top.length + 1);
+                    index = top.length - 1;
+                }
+                top[index] = id;
+            }
+            // bubble up towards the most popular end
+            while (index > 0 && compare(top[index], top[index - 1]) < 0) {
+                String swap = top[index - 1];
+                top[index - 1] = top[index];
+                top[index] = swap;
+                index--;
+            }
+        }
+
+        /**
+         * Rebuilds the top list from the terminal ids and the children lists.
+         */
+        void recompute() {
+            List<String> candidates = new ArrayList<>();
+            if (terminals != null) {
+                candidates.addAll(terminals);
+            }
+            children.values().forEach((child) -> candidates.addAll(Arrays.asList(child.top)));
+            String[] merged = candidates.stream().distinct().sorted(RestaurantSuggestionIndex.this::compare)
+                    .limit(MAX_K).toArray(String[]::new);
+            top = merged.length == 0 ? EMPTY : merged;
+        }
+    }
+
+    private final Node root = new Node();
+    private final Map<String, String[]> keysById = new HashMap<>();
+    private final Map<String, Long> popularity = new HashMap<>();
+
+    /**
+     * Indexes (or re-indexes) the name of the given restaurant.
+     *
+     * @param id
+     * @param name
+     */
+    public synchronized void put(String id, String name) {
+        remove(id, false);
+        String[] keys = wordStarts(SearchKey.fold(name));
+        keysById.put(id, keys);
+        for (String key : keys) {
+            Node node = root;
+            node.offer(id);
+            for (int i = 0; i < key.length(); i++) {
+                node = node.children.computeIfAbsent(key.charAt(i), (c) -> new Node());
+                node.offer(id);
+            }
+            if (node.terminals == null) {
+                node.terminals = new HashSet<>(2);
+            }
+            node.terminals.add(id);
+        }
+    }
+
+    /**
+     *
+     * @param id
+     */
+    public synchronized void remove(String id) {
+        remove(id, true);
+    }
+
+    private void remove(String id, boolean forgetPopularity) {
+        String[] keys = keysById.remove(id);
+        if (keys == null) {
+            return;
+        }
+        // collect every node on the paths once, children before parents
+        Map<Node, Node> parents = new IdentityHashMap<>();
+        Map<Node, Character> edges = new IdentityHashMap<>();
+        List<Node> nodes = new ArrayList<>();
+        nodes.add(root);
+        for (String key : keys) {
+            Node node = root;
+            for (int i = 0; i < key.length(); i++) {
+                Node child = node.children.get(key.charAt(i));
+                if (parents.put(child, node) == null) {
+                    edges.put(child, key.charAt(i));
+                    nodes.add(child);
+                }
+                node = child;
+            }
+            node.terminals.remove(id);
+        }
+        for (int i = nodes.size() - 1; i >= 0; i--) {
+            Node node = nodes.get(i);
+            if (indexOf(node.top, id) >= 0) {
+                node.recompute();
+            }
+            if (node != root && node.top.length == 0 && node.children.isEmpty()) {
+                parents.get(node).children.remove(edges.get(node));
+            }
+        }
+        if (forgetPopularity) {
+            popularity.remove(id);
+        }
+    }
+
+    /**
+     * Counts a lookup of the restaurant and promotes it in the top lists of
+     * all its prefixes.
+     *
+     * @param id
+     */
+    public synchronized void recordLookup(String id) {
+        String[] keys = keysById.get(id);
+        if (keys == null) {
+            return;
+        }
+        popularity.merge(id, 1L, Long::sum);
+        for (String key : keys) {
+            Node node = root;
+            node.offer(id);
+            for (int i = 0; i < key.length() && node != null; i++) {
+                node = node.children.get(key.charAt(i));
+                if (node != null) {
+                    node.offer(id);
+                }
+            }
+        }
+    }
+
+    /**
+     *
+     * @param id
+     * @return number of lookups recorded for the restaurant
+     */
+    public synchronized long popularityOf(String id) {
+        Long count = popularity.get(id);
+        return count == null ? 0 : count;
+    }
+
+    /**
+     *
+     * @param prefix
+     * @param k
+     * @return ids of the k most popular restaurants having a word starting
+     * with the prefix
+     */
+    public synchronized List<String> suggest(String prefix, int k) {
+        String key = SearchKey.fold(prefix);
+        Node node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.children.get(key.charAt(i));
+        }
+        if (node == null || k <= 0) {
+            return Collections.emptyList();
+        }
+        return Arrays.asList(Arrays.copyOf(node.top, Math.min(k, node.top.length)));
+    }
+
+    private int compare(String left, String right) {
+        int byPopularity = Long.compare(popularityOf(right), popularityOf(left));
+        return byPopularity != 0 ? byPopularity : left.compareTo(right);
+    }
+
+    private static int indexOf(String[] ids, String id) {
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i].equals(id)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Suffixes of the key starting at each word.
+     */
+    private static String[] wordStarts(String key) {
+        List<String> starts = new ArrayList<>();
+        for (int i = 0; i < key.length(); i++) {
+            boolean wordChar = Character.isLetterOrDigit(key.charAt(i));
+            if (wordChar && (i == 0 || !Character.isLetterOrDigit(key.charAt(i - 1)))) {
+                starts.add(key.substring(i));
+            }
+        }
+        return starts.stream().distinct().toArray(String[]::new);
+    }
+}
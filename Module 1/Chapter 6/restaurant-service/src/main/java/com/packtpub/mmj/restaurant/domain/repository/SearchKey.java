@@ -0,0 +1,33 @@
+package com.packtpub.mmj.restaurant.domain.repository;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Builds the normalized form of names used for searching: NFKD decomposition,
+ * combining marks (accents) removed and case folded. "Arpège" and "ARPEGE"
+ * share the key "arpege".
+ *
+ * @author Sourabh Sharma
+ */
+public final class SearchKey {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private SearchKey() {
+    }
+
+    /**
+     *
+     * @param value
+     * @return folded key, empty string for null
+     */
+    public static String fold(String value) {
+        if (value == null || value.isEmpty()) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(value, Normalizer.Form.NFKD);
+        return COMBINING_MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+}
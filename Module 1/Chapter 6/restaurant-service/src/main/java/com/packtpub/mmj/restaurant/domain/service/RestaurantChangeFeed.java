@@ -0,0 +1,296 @@
+package com.packtpub.mmj.restaurant.domain.service;
+
+import com.packtpub.mmj.restaurant.domain.model.entity.Restaurant;
+import com.packtpub.mmj.restaurant.domain.valueobject.RestaurantChange;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Versioned change feed of restaurant mutations. The most recent changes are
+ * retained in a fixed size ring so that consumers can tail the feed from any
+ * retained sequence number; a consumer that fell further behind has to reload
+ * its cache before tailing again.
+ * <p>
+ * A mutation and the sequence number of its change are taken under one lock,
+ * so the feed follows the order of the repository writes. Live listeners are
+ * called outside that lock, from a queue of their own drained on the delivery
+ * executor: a slow listener delays only itself, and one that falls a whole
+ * ring behind is dropped.
+ *
+ * @author Sourabh Sharma
+ */
+@Component
+public class RestaurantChangeFeed {
+
+    private static final Logger logger = Logger.getLogger(RestaurantChangeFeed.class.getName());
+
+    private static final int DEFAULT_CAPACITY = 4096;
+
+    /**
+     * Repository write recorded by the feed
+     */
+    @FunctionalInterface
+    public interface Mutation {
+
+        /**
+         *
+         * @return state after the mutation, null for DELETE
+         * @throws Exception
+         */
+        Restaurant apply() throws Exception;
+    }
+
+    private final RestaurantChange[] ring;
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final Executor delivery;
+    private long lastSequence;
+
+    /**
+     * Feed retaining the default number of changes
+     */
+    public RestaurantChangeFeed() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     *
+     * @param capacity number of changes retained for tailing consumers
+     */
+    @Autowired
+    public RestaurantChangeFeed(@Value("${app.changefeed.capacity:4096}") int capacity) {
+        this(capacity, deliveryExecutor());
+    }
+
+    /**
+     *
+     * @param capacity number of changes retained for tailing consumers
+     * @param delivery executor calling the live listeners
+     */
+    public RestaurantChangeFeed(int capacity, Executor delivery) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Change feed capacity must be positive.");
+        }
+        ring = new RestaurantChange[capacity];
+        this.delivery = delivery;
+    }
+
+    private static ExecutorService deliveryExecutor() {
+        AtomicInteger threads = new AtomicInteger();
+        return Executors.newCachedThreadPool((runnable) -> {
+            Thread thread = new Thread(runnable, "change-feed-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Applies a mutation and records its change, then pushes the change to the
+     * live listeners. Nothing is recorded if the mutation throws.
+     *
+     * @param type
+     * @param restaurantId
+     * @param mutation repository write
+     * @return the sequence number assigned to the change
+     * @throws Exception thrown by the mutation
+     */
+    public long publish(RestaurantChange.Type type, String restaurantId, Mutation mutation) throws Exception {
+        return publishIf(() -> true, type, restaurantId, mutation);
+    }
+
+    /**
+     * As {@link #publish(RestaurantChange.Type, String, Mutation)}, applying
+     * the mutation only if the condition holds. The condition is checked under
+     * the feed lock, so no other published mutation can falsify it before the
+     * mutation runs.
+     *
+     * @param condition e.g. that the restaurant still exists
+     * @param type
+     * @param restaurantId
+     * @param mutation repository write
+     * @return the sequence number assigned to the change, 0 if the condition
+     * did not hold and nothing was recorded
+     * @throws Exception thrown by the mutation
+     */
+    public long publishIf(BooleanSupplier condition, RestaurantChange.Type type, String restaurantId,
+            Mutation mutation) throws Exception {
+        RestaurantChange change;
+        synchronized (this) {
+            if (!condition.getAsBoolean()) {
+                return 0;
+            }
+            Restaurant restaurant = mutation.apply();
+            change = new RestaurantChange(++lastSequence, type, restaurantId, restaurant, System.currentTimeMillis());
+            ring[(int) (change.getSequence() % ring.length)] = change;
+            subscriptions.forEach((subscription) -> subscription.offer(change));
+        }
+        subscriptions.forEach(Subscription::schedule);
+        return change.getSequence();
+    }
+
+    /**
+     *
+     * @return sequence number of the latest change, 0 if nothing was published
+     */
+    public synchronized long getLastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     *
+     * @return oldest sequence number a consumer can still resume after
+     */
+    public synchronized long getOldestOffset() {
+        return Math.max(0, lastSequence - ring.length);
+    }
+
+    /**
+     * Returns the changes published after the given offset, oldest first.
+     *
+     * @param offset last sequence number already applied by the consumer
+     * @param max maximum number of changes to return
+     * @return changes with a sequence number greater than offset
+     * @throws IllegalArgumentException if the offset is no longer retained
+     */
+    public synchronized List<RestaurantChange> since(long offset, int max) {
+        if (offset < getOldestOffset() || offset > lastSequence) {
+            throw new IllegalArgumentException(String.format("Offset %d is outside the retained range [%d, %d]",
+                    offset, getOldestOffset(), lastSequence));
+        }
+        long end = Math.min(lastSequence, offset + Math.max(0, max));
+        List<RestaurantChange> changes = new ArrayList<>((int) (end - offset));
+        for (long sequence = offset + 1; sequence <= end; sequence++) {
+            changes.add(ring[(int) (sequence % ring.length)]);
+        }
+        return changes;
+    }
+
+    /**
+     * Queues the changes after the given offset for the listener and then
+     * registers it for live changes, without gaps or duplicates in between.
+     * The backlog is delivered like live changes, outside the feed lock.
+     *
+     * @param offset last sequence number already applied by the consumer
+     * @param listener
+     * @throws IllegalArgumentException if the offset is no longer retained
+     */
+    public void tail(long offset, Consumer<RestaurantChange> listener) {
+        tail(offset, listener, () -> {
+        });
+    }
+
+    /**
+     * As {@link #tail(long, Consumer)}, telling the consumer when it is
+     * dropped, so it can reconnect from the last change it applied.
+     *
+     * @param offset last sequence number already applied by the consumer
+     * @param listener
+     * @param dropped called once the listener failed or fell too far behind
+     * @throws IllegalArgumentException if the offset is no longer retained
+     */
+    public void tail(long offset, Consumer<RestaurantChange> listener, Runnable dropped) {
+        Subscription subscription = new Subscription(listener, dropped);
+        synchronized (this) {
+            since(offset, ring.length).forEach(subscription::offer);
+            subscriptions.add(subscription);
+        }
+        subscription.schedule();
+    }
+
+    /**
+     *
+     * @param listener
+     */
+    public void untail(Consumer<RestaurantChange> listener) {
+        subscriptions.removeIf((subscription) -> subscription.listener == listener);
+    }
+
+    /**
+     * Stops the delivery executor
+     */
+    @PreDestroy
+    public void close() {
+        if (delivery instanceof ExecutorService) {
+            ((ExecutorService) delivery).shutdownNow();
+        }
+    }
+
+    /**
+     * Listener with the changes it has not been given yet. At most one drain
+     * runs at a time, so the listener sees the changes in sequence order.
+     */
+    private class Subscription implements Runnable {
+
+        private final Consumer<RestaurantChange> listener;
+        private final Runnable dropped;
+        private final Queue<RestaurantChange> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        Subscription(Consumer<RestaurantChange> listener, Runnable dropped) {
+            this.listener = listener;
+            this.dropped = dropped;
+        }
+
+        /**
+         * Called under the feed lock; drops a listener a whole ring behind
+         */
+        void offer(RestaurantChange change) {
+            if (size.incrementAndGet() > ring.length) {
+                logger.log(Level.INFO, "Dropping change feed listener {0} changes behind", ring.length);
+                drop();
+                delivery.execute(dropped);
+                return;
+            }
+            pending.add(change);
+        }
+
+        private void drop() {
+            subscriptions.remove(this);
+            pending.clear();
+        }
+
+        void schedule() {
+            if (!pending.isEmpty() && draining.compareAndSet(false, true)) {
+                delivery.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                RestaurantChange change;
+                while ((change = pending.poll()) != null) {
+                    size.decrementAndGet();
+                    listener.accept(change);
+                }
+            } catch (RuntimeException ex) {
+                logger.log(Level.FINE, "Dropping change feed listener {0}", ex);
+                drop();
+                dropped.run();
+                return;
+            } finally {
+                draining.set(false);
+            }
+            // A change offered after the last poll found no drain running
+            if (subscriptions.contains(this)) {
+                schedule();
+            }
+        }
+    }
+}
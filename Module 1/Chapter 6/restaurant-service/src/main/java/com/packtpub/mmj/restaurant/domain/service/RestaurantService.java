@@ -2,8 +2,10 @@ package com.packtpub.mmj.restaurant.domain.service;
 
 import com.packtpub.mmj.restaurant.domain.model.entity.Entity;
 import com.packtpub.mmj.restaurant.domain.model.entity.Restaurant;
+import com.packtpub.mmj.restaurant.domain.valueobject.RestaurantSuggestion;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -41,6 +43,14 @@ public interface RestaurantService {
      */
     public Entity findById(String restaurantId) throws Exception;
 
+    /**
+     *
+     * @param restaurantIds
+     * @return
+     * @throws Exception
+     */
+    public Collection<Restaurant> findByIds(Collection<String> restaurantIds) throws Exception;
+
     /**
      *
      * @param name
@@ -49,6 +59,24 @@ public interface RestaurantService {
      */
     public Collection<Restaurant> findByName(String name) throws Exception;
 
+    /**
+     *
+     * @param name
+     * @param maxDistance
+     * @return
+     * @throws Exception
+     */
+    public Collection<Restaurant> findByNameFuzzy(String name, int maxDistance) throws Exception;
+
+    /**
+     *
+     * @param prefix
+     * @param k
+     * @return
+     * @throws Exception
+     */
+    public List<RestaurantSuggestion> suggest(String prefix, int k) throws Exception;
+
     /**
      *
      * @param name
@@ -3,8 +3,11 @@ package com.packtpub.mmj.restaurant.domain.service;
 import com.packtpub.mmj.restaurant.domain.model.entity.Entity;
 import com.packtpub.mmj.restaurant.domain.model.entity.Restaurant;
 import com.packtpub.mmj.restaurant.domain.repository.RestaurantRepository;
+import com.packtpub.mmj.restaurant.domain.valueobject.RestaurantChange;
+import com.packtpub.mmj.restaurant.domain.valueobject.RestaurantSuggestion;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -19,14 +22,26 @@ public class RestaurantServiceImpl extends BaseService<Restaurant, String>
 
     private RestaurantRepository<Restaurant, String> restaurantRepository;
 
+    private RestaurantChangeFeed changeFeed;
+
     /**
      *
      * @param restaurantRepository
      */
-    @Autowired
     public RestaurantServiceImpl(RestaurantRepository<Restaurant, String> restaurantRepository) {
+        this(restaurantRepository, new RestaurantChangeFeed());
+    }
+
+    /**
+     *
+     * @param restaurantRepository
+     * @param changeFeed
+     */
+    @Autowired
+    public RestaurantServiceImpl(RestaurantRepository<Restaurant, String> restaurantRepository, RestaurantChangeFeed changeFeed) {
         super(restaurantRepository);
         this.restaurantRepository = restaurantRepository;
+        this.changeFeed = changeFeed;
     }
 
     @Override
@@ -38,7 +53,10 @@ public class RestaurantServiceImpl extends BaseService<Restaurant, String>
         if (restaurant.getName() == null || "".equals(restaurant.getName())) {
             throw new Exception("Restaurant name cannot be null or empty string.");
         }
-        super.add(restaurant);
+        changeFeed.publish(RestaurantChange.Type.ADD, restaurant.getId(), () -> {
+            super.add(restaurant);
+            return restaurant;
+        });
     }
 
     /**
@@ -52,6 +70,41 @@ public class RestaurantServiceImpl extends BaseService<Restaurant, String>
         return restaurantRepository.findByName(name);
     }
 
+    /**
+     *
+     * @param restaurantIds
+     * @return
+     * @throws Exception
+     */
+    @Override
+    public Collection<Restaurant> findByIds(Collection<String> restaurantIds) throws Exception {
+        return restaurantRepository.findByIds(restaurantIds);
+    }
+
+    /**
+     *
+     * @param name
+     * @param maxDistance
+     * @return
+     * @throws Exception
+     */
+    @Override
+    public Collection<Restaurant> findByNameFuzzy(String name, int maxDistance) throws Exception {
+        return restaurantRepository.findByNameFuzzy(name, maxDistance);
+    }
+
+    /**
+     *
+     * @param prefix
+     * @param k
+     * @return
+     * @throws Exception
+     */
+    @Override
+    public List<RestaurantSuggestion> suggest(String prefix, int k) throws Exception {
+        return restaurantRepository.suggest(prefix, k);
+    }
+
     /**
      *
      * @param restaurant
@@ -59,7 +112,11 @@ public class RestaurantServiceImpl extends BaseService<Restaurant, String>
      */
     @Override
     public void update(Restaurant restaurant) throws Exception {
-        restaurantRepository.update(restaurant);
+        changeFeed.publishIf(() -> restaurantRepository.contains(restaurant.getId()),
+                RestaurantChange.Type.UPDATE, restaurant.getId(), () -> {
+                    restaurantRepository.update(restaurant);
+                    return restaurant;
+                });
     }
 
     /**
@@ -69,7 +126,10 @@ public class RestaurantServiceImpl extends BaseService<Restaurant, String>
      */
     @Override
     public void delete(String id) throws Exception {
-        restaurantRepository.remove(id);
+        changeFeed.publishIf(() -> restaurantRepository.contains(id), RestaurantChange.Type.DELETE, id, () -> {
+            restaurantRepository.remove(id);
+            return null;
+        });
     }
 
     /**
@@ -0,0 +1,111 @@
+package com.packtpub.mmj.restaurant.domain.valueobject;
+
+import com.packtpub.mmj.restaurant.domain.model.entity.Restaurant;
+import com.packtpub.mmj.restaurant.domain.model.entity.Table;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable entry of the restaurant change feed. Sequence numbers are
+ * monotonically increasing, so consumers can resume from the last one they
+ * have applied. The restaurant is a copy taken when the change is recorded,
+ * so later mutations of the repository entity do not rewrite the feed.
+ *
+ * @author Sourabh Sharma
+ */
+public class RestaurantChange {
+
+    /**
+     * Kind of mutation recorded by the feed
+     */
+    public enum Type {
+        ADD, UPDATE, DELETE
+    }
+
+    private final long sequence;
+    private final Type type;
+    private final String restaurantId;
+    private final Restaurant restaurant;
+    private final long timestamp;
+
+    /**
+     *
+     * @param sequence
+     * @param type
+     * @param restaurantId
+     * @param restaurant state after the mutation, null for DELETE; copied
+     * @param timestamp
+     */
+    public RestaurantChange(long sequence, Type type, String restaurantId, Restaurant restaurant, long timestamp) {
+        this.sequence = sequence;
+        this.type = type;
+        this.restaurantId = restaurantId;
+        this.restaurant = restaurant == null ? null : copyOf(restaurant);
+        this.timestamp = timestamp;
+    }
+
+    private static Restaurant copyOf(Restaurant restaurant) {
+        List<Table> tables = new ArrayList<>();
+        if (restaurant.getTables() != null) {
+            restaurant.getTables().forEach((table)
+                    -> tables.add(new Table(table.getName(), table.getId(), table.getCapacity())));
+        }
+        Restaurant copy = new Restaurant(restaurant.getName(), restaurant.getId(), restaurant.getAddress(),
+                Collections.unmodifiableList(tables));
+        copy.setVersion(restaurant.getVersion());
+        return copy;
+    }
+
+    /**
+     *
+     * @return
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     *
+     * @return
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     *
+     * @return
+     */
+    public String getRestaurantId() {
+        return restaurantId;
+    }
+
+    /**
+     *
+     * @return snapshot of the restaurant, must not be modified
+     */
+    public Restaurant getRestaurant() {
+        return restaurant;
+    }
+
+    /**
+     *
+     * @return
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Overridden toString() method that return String presentation of the
+     * Object
+     *
+     * @return
+     */
+    @Override
+    public String toString() {
+        return new StringBuilder("{sequence: ").append(sequence).append(", type: ")
+                .append(type).append(", restaurantId: ").append(restaurantId).append("}").toString();
+    }
+}
@@ -0,0 +1,136 @@
+package com.packtpub.mmj.restaurant.domain.valueobject;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.packtpub.mmj.restaurant.domain.model.entity.Restaurant;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Sparse fieldset view over restaurants. It serializes as a JSON array in
+ * which every restaurant only carries the requested properties, read straight
+ * from the entities while the response is written, so no trimmed copies of the
+ * restaurants are built.
+ *
+ * @author Sourabh Sharma
+ */
+@JsonSerialize(using = RestaurantProjection.Serializer.class)
+public class RestaurantProjection {
+
+    /**
+     * Restaurant properties that can be selected
+     */
+    public enum Field {
+
+        ID("id", Restaurant::getId),
+        NAME("name", Restaurant::getName),
+        ADDRESS("address", Restaurant::getAddress),
+        TABLES("tables", Restaurant::getTables);
+
+        private final String property;
+        private final Function<Restaurant, Object> accessor;
+
+        Field(String property, Function<Restaurant, Object> accessor) {
+            this.property = property;
+            this.accessor = accessor;
+        }
+
+        /**
+         *
+         * @return JSON property name
+         */
+        public String getProperty() {
+            return property;
+        }
+
+        /**
+         *
+         * @param property
+         * @return the field serialized under the given property name
+         * @throws IllegalArgumentException if the property is unknown
+         */
+        public static Field of(String property) {
+            for (Field field : values()) {
+                if (field.property.equalsIgnoreCase(property.trim())) {
+                    return field;
+                }
+            }
+            throw new IllegalArgumentException("Unknown restaurant field: " + property);
+        }
+    }
+
+    private final Collection<Restaurant> restaurants;
+    private final Set<Field> fields;
+
+    /**
+     *
+     * @param restaurants
+     * @param fields
+     */
+    public RestaurantProjection(Collection<Restaurant> restaurants, Set<Field> fields) {
+        this.restaurants = restaurants;
+        this.fields = Collections.unmodifiableSet(fields);
+    }
+
+    /**
+     * Parses a comma separated list of property names, such as "id,name".
+     *
+     * @param fields
+     * @return selected fields, in declaration order
+     * @throws IllegalArgumentException if a property is unknown or none is
+     * given
+     */
+    public static Set<Field> parseFields(String fields) {
+        Set<Field> selected = EnumSet.noneOf(Field.class);
+        for (String property : fields.split(",")) {
+            if (!property.trim().isEmpty()) {
+                selected.add(Field.of(property));
+            }
+        }
+        if (selected.isEmpty()) {
+            throw new IllegalArgumentException("No restaurant field selected.");
+        }
+        return selected;
+    }
+
+    /**
+     *
+     * @return
+     */
+    public Collection<Restaurant> getRestaurants() {
+        return restaurants;
+    }
+
+    /**
+     *
+     * @return
+     */
+    public Set<Field> getFields() {
+        return fields;
+    }
+
+    /**
+     * Writes the selected properties of each restaurant.
+     */
+    public static class Serializer extends JsonSerializer<RestaurantProjection> {
+
+        @Override
+        public void serialize(RestaurantProjection projection, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartArray();
+            for (Restaurant restaurant : projection.restaurants) {
+                gen.writeStartObject();
+                for (Field field : projection.fields) {
+                    provider.defaultSerializeField(field.property, field.accessor.apply(restaurant), gen);
+                }
+                gen.writeEndObject();
+            }
+            gen.writeEndArray();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.packtpub.mmj.restaurant.domain.valueobject;
+
+/**
+ * Autocompletion entry, carrying only what the search box displays.
+ *
+ * @author Sourabh Sharma
+ */
+public class RestaurantSuggestion {
+
+    private final String id;
+    private final String name;
+
+    /**
+     *
+     * @param id
+     * @param name
+     */
+    public RestaurantSuggestion(String id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+
+    /**
+     *
+     * @return
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     *
+     * @return
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Overridden toString() method that return String presentation of the
+     * Object
+     *
+     * @return
+     */
+    @Override
+    public String toString() {
+        return new StringBuilder("{id: ").append(id).append(", name: ").append(name).append("}").toString();
+    }
+}
@@ -0,0 +1,101 @@
+package com.packtpub.mmj.restaurant.resources;
+
+import com.packtpub.mmj.restaurant.domain.service.RestaurantChangeFeed;
+import com.packtpub.mmj.restaurant.domain.valueobject.RestaurantChange;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Exposes the restaurant change feed so downstream caches can invalidate or
+ * patch entries incrementally. Consumers poll
+ * <code>http://.../v1/restaurants/changes?from={sequence}</code> or tail
+ * <code>http://.../v1/restaurants/changes/stream?from={sequence}</code> as
+ * server-sent events. A <code>410 Gone</code> answer means the offset is no
+ * longer retained and the consumer must reload its cache.
+ *
+ * @author Sourabh Sharma
+ */
+@RestController
+@RequestMapping("/v1/restaurants/changes")
+public class RestaurantChangeController {
+
+    /**
+     * Logger
+     */
+    protected Logger logger = Logger.getLogger(RestaurantChangeController.class.getName());
+
+    /**
+     * restaurant change feed
+     */
+    protected RestaurantChangeFeed changeFeed;
+
+    /**
+     *
+     * @param changeFeed
+     */
+    @Autowired
+    public RestaurantChangeController(RestaurantChangeFeed changeFeed) {
+        this.changeFeed = changeFeed;
+    }
+
+    /**
+     * Fetch the changes published after the given sequence number.
+     *
+     * @param from last sequence number applied by the caller
+     * @param max maximum number of changes returned
+     * @return changes ordered by sequence number
+     */
+    @RequestMapping(method = RequestMethod.GET)
+    public ResponseEntity<List<RestaurantChange>> since(@RequestParam(value = "from", defaultValue = "0") long from,
+            @RequestParam(value = "max", defaultValue = "500") int max) {
+        try {
+            return new ResponseEntity<>(changeFeed.since(from, max), HttpStatus.OK);
+        } catch (IllegalArgumentException ex) {
+            logger.log(Level.INFO, "Change feed offset rejected: {0}", ex.getMessage());
+            return new ResponseEntity<>(HttpStatus.GONE);
+        }
+    }
+
+    /**
+     * Stream the changes published after the given sequence number as
+     * server-sent events, each one carrying its sequence number as event id.
+     *
+     * @param from last sequence number applied by the caller
+     * @return
+     */
+    @RequestMapping(value = "/stream", method = RequestMethod.GET, produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> stream(@RequestParam(value = "from", defaultValue = "0") long from) {
+        SseEmitter emitter = new SseEmitter(0L);
+        Consumer<RestaurantChange> listener = (change) -> {
+            try {
+                emitter.send(SseEmitter.event().id(String.valueOf(change.getSequence()))
+                        .name(change.getType().name()).data(change, MediaType.APPLICATION_JSON));
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        };
+        emitter.onCompletion(() -> changeFeed.untail(listener));
+        emitter.onTimeout(() -> changeFeed.untail(listener));
+        try {
+            // a dropped consumer reconnects with the id of the last event it got
+            changeFeed.tail(from, listener, emitter::complete);
+        } catch (IllegalArgumentException ex) {
+            logger.log(Level.INFO, "Change feed offset rejected: {0}", ex.getMessage());
+            return new ResponseEntity<>(HttpStatus.GONE);
+        }
+        return new ResponseEntity<>(emitter, HttpStatus.OK);
+    }
+}
@@ -1,12 +1,19 @@
 package com.packtpub.mmj.restaurant.resources;
 
 import com.netflix.hystrix.contrib.javanica.annotation.HystrixCommand;
+import com.packtpub.mmj.common.EntityTags;
+import com.packtpub.mmj.restaurant.domain.model.entity.BaseEntity;
 import com.packtpub.mmj.restaurant.domain.model.entity.Entity;
 import com.packtpub.mmj.restaurant.domain.model.entity.Restaurant;
+import com.packtpub.mmj.restaurant.domain.repository.RestaurantSuggestionIndex;
 import com.packtpub.mmj.restaurant.domain.service.RestaurantService;
+import com.packtpub.mmj.restaurant.domain.valueobject.RestaurantProjection;
+import com.packtpub.mmj.restaurant.domain.valueobject.RestaurantSuggestion;
 import com.packtpub.mmj.restaurant.domain.valueobject.RestaurantVO;
 import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.springframework.beans.BeanUtils;
@@ -16,6 +23,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -34,6 +42,16 @@ public class RestaurantController {
      */
     protected Logger logger = Logger.getLogger(RestaurantController.class.getName());
 
+    /**
+     * Upper bound of the edit distance accepted by the fuzzy search
+     */
+    protected static final int MAX_FUZZY_DISTANCE = 3;
+
+    /**
+     * Upper bound of the number of ids resolved by one batch request
+     */
+    protected static final int MAX_BATCH_IDS = 100;
+
     /**
      * restaurant service
      */
@@ -84,17 +102,72 @@ public class RestaurantController {
                 : new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
 
+    /**
+     * Fetch restaurants whose name is within a few typos of the given name.
+     * So <code>http://.../v1/restaurants?name=ducase&fuzzy=true</code> will
+     * find "Alain Ducasse au Plaza Athénée". Results are ranked by edit
+     * distance and then by popularity.
+     *
+     * @param name
+     * @param distance maximum number of edits per word, 2 when omitted
+     * @return A non-null, non-empty collection of restaurants.
+     */
+    @HystrixCommand(fallbackMethod = "defaultFuzzyRestaurants")
+    @RequestMapping(method = RequestMethod.GET, params = {"name", "fuzzy=true"})
+    public ResponseEntity<Collection<Restaurant>> findByNameFuzzy(@RequestParam("name") String name,
+            @RequestParam(value = "distance", defaultValue = "2") int distance) {
+        logger.info(String.format("restaurant-service findByNameFuzzy() invoked:%s for %s", restaurantService.getClass().getName(), name));
+        Collection<Restaurant> restaurants;
+        try {
+            restaurants = restaurantService.findByNameFuzzy(name.trim(), Math.max(0, Math.min(distance, MAX_FUZZY_DISTANCE)));
+        } catch (Exception ex) {
+            logger.log(Level.SEVERE, "Exception raised findByNameFuzzy REST Call", ex);
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+        return restaurants.size() > 0 ? new ResponseEntity<>(restaurants, HttpStatus.OK)
+                : new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
+
+    /**
+     * Autocomplete restaurant names.
+     * <code>http://.../v1/restaurants/suggest?prefix=duc&k=5</code> returns the
+     * id and name of the five most looked-up restaurants having a word that
+     * starts with 'duc'. The answer comes from lists precomputed per prefix,
+     * so its cost does not grow with the catalog.
+     *
+     * @param prefix
+     * @param k number of suggestions, at most 10
+     * @return A non-null list of suggestions, most popular first.
+     */
+    @RequestMapping(value = "/suggest", method = RequestMethod.GET)
+    public ResponseEntity<List<RestaurantSuggestion>> suggest(@RequestParam("prefix") String prefix,
+            @RequestParam(value = "k", defaultValue = "5") int k) {
+        List<RestaurantSuggestion> suggestions;
+        try {
+            suggestions = restaurantService.suggest(prefix.trim(), Math.min(k, RestaurantSuggestionIndex.MAX_K));
+        } catch (Exception ex) {
+            logger.log(Level.SEVERE, "Exception raised suggest REST Call", ex);
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+        return new ResponseEntity<>(suggestions, HttpStatus.OK);
+    }
+
     /**
      * Fetch restaurants with the given id.
      * <code>http://.../v1/restaurants/{restaurant_id}</code> will return
      * restaurant with given id.
+     * The answer carries an ETag derived from the entity version, and a
+     * request whose <code>If-None-Match</code> header holds that tag gets a
+     * <code>304 Not Modified</code> without a body.
      *
      * @param id
+     * @param ifNoneMatch entity tags already held by the caller
      * @return A non-null, non-empty collection of restaurants.
      */
     @HystrixCommand(fallbackMethod = "defaultRestaurant")
     @RequestMapping(value = "/{restaurant_id}", method = RequestMethod.GET)
-    public ResponseEntity<Entity> findById(@PathVariable("restaurant_id") String id) {
+    public ResponseEntity<Entity> findById(@PathVariable("restaurant_id") String id,
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
         logger.info(String.format("restaurant-service findById() invoked:{} for {} ", restaurantService.getClass().getName(), id));
         id = id.trim();
         Entity restaurant;
@@ -104,8 +177,57 @@ public class RestaurantController {
             logger.log(Level.WARNING, "Exception raised findById REST Call {0}", ex);
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
         }
-        return restaurant != null ? new ResponseEntity<>(restaurant, HttpStatus.OK)
-                : new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        if (restaurant == null) {
+            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        }
+        return EntityTags.conditionalGet(restaurant, ((BaseEntity<?>) restaurant).getVersion(), ifNoneMatch);
+    }
+
+    /**
+     * Fetch several restaurants in one call.
+     * <code>http://.../v1/restaurants?ids=1,2,3</code> returns the restaurants
+     * with the given ids in the requested order, skipping unknown ids, so a
+     * listing page is resolved with a single request and a single repository
+     * pass. <code>&amp;fields=id,name</code> limits each restaurant to the
+     * listed properties.
+     *
+     * @param ids comma separated restaurant ids, at most 100
+     * @param fields comma separated properties among id, name, address and
+     * tables; all properties when omitted
+     * @return A non-null, non-empty collection of restaurants.
+     */
+    @HystrixCommand(fallbackMethod = "defaultRestaurantsByIds")
+    @RequestMapping(method = RequestMethod.GET, params = "ids")
+    public ResponseEntity<?> findByIds(@RequestParam("ids") List<String> ids,
+            @RequestParam(value = "fields", required = false) String fields) {
+        logger.info(String.format("restaurant-service findByIds() invoked:%s for %s", restaurantService.getClass().getName(), ids));
+        Set<String> restaurantIds = new LinkedHashSet<>();
+        ids.forEach((id) -> restaurantIds.add(id.trim()));
+        if (restaurantIds.size() > MAX_BATCH_IDS) {
+            logger.log(Level.INFO, "Batch request rejected: {0} ids", restaurantIds.size());
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        Set<RestaurantProjection.Field> selected = null;
+        if (fields != null) {
+            try {
+                selected = RestaurantProjection.parseFields(fields);
+            } catch (IllegalArgumentException ex) {
+                logger.log(Level.INFO, "Batch request rejected: {0}", ex.getMessage());
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+        }
+        Collection<Restaurant> restaurants;
+        try {
+            restaurants = restaurantService.findByIds(restaurantIds);
+        } catch (Exception ex) {
+            logger.log(Level.SEVERE, "Exception raised findByIds REST Call", ex);
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+        if (restaurants.isEmpty()) {
+            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        }
+        return selected == null ? new ResponseEntity<>(restaurants, HttpStatus.OK)
+                : new ResponseEntity<>(new RestaurantProjection(restaurants, selected), HttpStatus.OK);
     }
 
     /**
@@ -133,9 +255,10 @@ public class RestaurantController {
      * Fallback method
      *
      * @param input
+     * @param ifNoneMatch
      * @return
      */
-    public ResponseEntity<Entity> defaultRestaurant(String input) {
+    public ResponseEntity<Entity> defaultRestaurant(String input, String ifNoneMatch) {
         logger.warning("Fallback method for restaurant-service is being used.");
         return new ResponseEntity<>(null, HttpStatus.NO_CONTENT);
     }
@@ -150,4 +273,28 @@ public class RestaurantController {
         logger.warning("Fallback method for user-service is being used.");
         return new ResponseEntity<>(null, HttpStatus.NO_CONTENT);
     }
+
+    /**
+     * Fallback method
+     *
+     * @param ids
+     * @param fields
+     * @return
+     */
+    public ResponseEntity<?> defaultRestaurantsByIds(List<String> ids, String fields) {
+        logger.warning("Fallback method for restaurant-service is being used.");
+        return new ResponseEntity<>(null, HttpStatus.NO_CONTENT);
+    }
+
+    /**
+     * Fallback method
+     *
+     * @param input
+     * @param distance
+     * @return
+     */
+    public ResponseEntity<Collection<Restaurant>> defaultFuzzyRestaurants(String input, int distance) {
+        logger.warning("Fallback method for restaurant-service is being used.");
+        return new ResponseEntity<>(null, HttpStatus.NO_CONTENT);
+    }
 }
@@ -0,0 +1,82 @@
+package com.packtpub.mmj.restaurant.domain.repository;
+
+import com.packtpub.mmj.restaurant.domain.model.entity.Restaurant;
+import java.util.Arrays;
+import java.util.Collection;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Sourabh Sharma
+ */
+public class InMemRestaurantRepositoryTests {
+
+    private final InMemRestaurantRepository repository = new InMemRestaurantRepository();
+
+    private String firstMatch(String name) throws Exception {
+        Collection<Restaurant> restaurants = repository.findByNameFuzzy(name, 2);
+        Assert.assertFalse(restaurants.isEmpty());
+        return restaurants.iterator().next().getId();
+    }
+
+    /**
+     * Misspelled names are found through the fuzzy index
+     *
+     * @throws Exception
+     */
+    @Test
+    public void fuzzyFindByName() throws Exception {
+        Assert.assertEquals("4", firstMatch("Ducase"));
+        Assert.assertEquals("6", firstMatch("Gagniare"));
+        Assert.assertEquals("7", firstMatch("Astrence"));
+        Assert.assertTrue(repository.findByNameFuzzy("Ducase", 0).isEmpty());
+    }
+
+    /**
+     * Ties on distance are broken by popularity and the index follows updates
+     *
+     * @throws Exception
+     */
+    @Test
+    public void fuzzyRankingAndUpdates() throws Exception {
+        repository.add(new Restaurant("Le Meurise", "11", "Somewhere, Paris", null));
+        repository.get("11");
+        Assert.assertEquals("11", firstMatch("le meurie"));
+        repository.remove("11");
+        Assert.assertEquals("1", firstMatch("le meurie"));
+
+        repository.update(new Restaurant("Guy Savoie", "9", "18 rue Troyon, 75017, Paris", null));
+        Assert.assertEquals("9", firstMatch("savoie"));
+        Assert.assertTrue(repository.findByNameFuzzy("savoy", 0).isEmpty());
+    }
+
+    /**
+     * Search and name uniqueness ignore accents and case
+     *
+     * @throws Exception
+     */
+    @Test
+    public void foldedSearchKeys() throws Exception {
+        Assert.assertEquals("3", repository.findByName("arpege").iterator().next().getId());
+        Assert.assertEquals("4", repository.findByName("PLAZA ATHENEE").iterator().next().getId());
+        Assert.assertEquals("8", firstMatch("pre catelan"));
+        Assert.assertTrue(repository.containsName("ARPEGE"));
+        Assert.assertFalse(repository.containsName("Arp"));
+
+        repository.remove("3");
+        Assert.assertFalse(repository.containsName("Arpège"));
+        Assert.assertTrue(repository.findByName("arpege").isEmpty());
+    }
+
+    /**
+     * Batch lookups keep the requested order and skip unknown ids
+     */
+    @Test
+    public void findByIds() {
+        Collection<Restaurant> restaurants = repository.findByIds(Arrays.asList("7", "42", "2"));
+        Assert.assertEquals(2, restaurants.size());
+        Assert.assertArrayEquals(new Object[]{"7", "2"}, restaurants.stream().map(Restaurant::getId).toArray());
+        Assert.assertEquals(1, repository.findByIds(Arrays.asList("7")).size());
+    }
+}
@@ -0,0 +1,73 @@
+package com.packtpub.mmj.restaurant.domain.repository;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Sourabh Sharma
+ */
+public class RestaurantSuggestionIndexTests {
+
+    /**
+     * Prefixes of any word are completed, most looked-up first
+     */
+    @Test
+    public void suggestByPopularity() {
+        RestaurantSuggestionIndex index = new RestaurantSuggestionIndex();
+        index.put("1", "Le Meurice");
+        index.put("2", "L'Ambroisie");
+        index.put("10", "Le Bristol");
+        index.put("4", "Alain Ducasse au Plaza Athénée");
+
+        Assert.assertEquals(Arrays.asList("1", "10"), index.suggest("le ", 5));
+        index.recordLookup("10");
+        Assert.assertEquals(Arrays.asList("10", "1"), index.suggest("Le", 5));
+        Assert.assertEquals(Arrays.asList("4"), index.suggest("athe", 5));
+        Assert.assertEquals(Arrays.asList("10"), index.suggest("l", 1));
+
+        index.remove("10");
+        Assert.assertEquals(Arrays.asList("1", "2"), index.suggest("l", 5));
+        Assert.assertTrue(index.suggest("bri", 5).isEmpty());
+    }
+
+    /**
+     * The precomputed lists match a brute force ranking after random updates
+     */
+    @Test
+    public void topListsStayExact() {
+        RestaurantSuggestionIndex index = new RestaurantSuggestionIndex();
+        Random random = new Random(7);
+        TreeMap<String, String> names = new TreeMap<>();
+        for (int i = 0; i < 3000; i++) {
+            String id = String.valueOf(random.nextInt(200));
+            int action = random.nextInt(10);
+            if (action == 0) {
+                index.remove(id);
+                names.remove(id);
+            } else if (action < 3 || !names.containsKey(id)) {
+                String name = "r" + (char) ('a' + random.nextInt(3)) + (char) ('a' + random.nextInt(3)) + " x" + random.nextInt(5);
+                index.put(id, name);
+                names.put(id, name);
+            } else {
+                index.recordLookup(id);
+            }
+        }
+        for (String prefix : Arrays.asList("r", "ra", "rab", "x", "x1", "")) {
+            List<String> expected = names.keySet().stream()
+                    .filter((id) -> prefix.isEmpty() || names.get(id).startsWith(prefix) || names.get(id).contains(" " + prefix))
+                    .sorted((a, b) -> {
+                        int c = Long.compare(index.popularityOf(b), index.popularityOf(a));
+                        return c != 0 ? c : a.compareTo(b);
+                    })
+                    .limit(RestaurantSuggestionIndex.MAX_K)
+                    .collect(Collectors.toList());
+            Assert.assertEquals(prefix, expected, index.suggest(prefix, RestaurantSuggestionIndex.MAX_K));
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.packtpub.mmj.restaurant.domain.service;
+
+import com.packtpub.mmj.restaurant.domain.model.entity.Restaurant;
+import com.packtpub.mmj.restaurant.domain.repository.InMemRestaurantRepository;
+import com.packtpub.mmj.restaurant.domain.valueobject.RestaurantChange;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Sourabh Sharma
+ */
+public class RestaurantChangeFeedTests {
+
+    /**
+     * Tailing consumers get the backlog followed by live changes, in order
+     *
+     * @throws Exception
+     */
+    @Test
+    public void tailFromOffset() throws Exception {
+        RestaurantChangeFeed feed = new RestaurantChangeFeed(8, Runnable::run);
+        Restaurant restaurant = new Restaurant("Le Meurice", "1", "228 rue de Rivoli, 75001, Paris", null);
+        feed.publish(RestaurantChange.Type.ADD, "1", () -> restaurant);
+        feed.publish(RestaurantChange.Type.UPDATE, "1", () -> restaurant);
+
+        List<Long> received = new ArrayList<>();
+        feed.tail(1, (change) -> received.add(change.getSequence()));
+        feed.publish(RestaurantChange.Type.DELETE, "1", () -> null);
+
+        Assert.assertEquals(3, feed.getLastSequence());
+        Assert.assertEquals(2, received.size());
+        Assert.assertEquals(Long.valueOf(2), received.get(0));
+        Assert.assertEquals(Long.valueOf(3), received.get(1));
+    }
+
+    /**
+     * Offsets that fell out of the ring are rejected
+     *
+     * @throws Exception
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void evictedOffset() throws Exception {
+        RestaurantChangeFeed feed = new RestaurantChangeFeed(2, Runnable::run);
+        for (int i = 0; i < 5; i++) {
+            feed.publish(RestaurantChange.Type.DELETE, String.valueOf(i), () -> null);
+        }
+        Assert.assertEquals(2, feed.since(3, 10).size());
+        feed.since(1, 10);
+    }
+
+    /**
+     * Changes keep the state of the restaurant at the time of the mutation, and
+     * a failed mutation records nothing
+     *
+     * @throws Exception
+     */
+    @Test
+    public void recordsCopies() throws Exception {
+        RestaurantChangeFeed feed = new RestaurantChangeFeed(8, Runnable::run);
+        Restaurant restaurant = new Restaurant("Le Meurice", "1", "228 rue de Rivoli, 75001, Paris", null);
+        feed.publish(RestaurantChange.Type.ADD, "1", () -> restaurant);
+        restaurant.setName("Le Dali");
+        Assert.assertEquals("Le Meurice", feed.since(0, 1).get(0).getRestaurant().getName());
+
+        try {
+            feed.publish(RestaurantChange.Type.UPDATE, "1", () -> {
+                throw new Exception("write failed");
+            });
+            Assert.fail();
+        } catch (Exception ex) {
+            Assert.assertEquals("write failed", ex.getMessage());
+        }
+        Assert.assertEquals(1, feed.getLastSequence());
+    }
+
+    /**
+     * Updates and deletes of a restaurant that is gone record nothing, even
+     * when racing with each other
+     *
+     * @throws Exception
+     */
+    @Test
+    public void racingDeletesPublishOnce() throws Exception {
+        RestaurantChangeFeed feed = new RestaurantChangeFeed(64, Runnable::run);
+        RestaurantServiceImpl service = new RestaurantServiceImpl(new InMemRestaurantRepository(), feed);
+        ExecutorService writers = Executors.newFixedThreadPool(8);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> deletes = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                deletes.add(writers.submit(() -> {
+                    start.await();
+                    service.delete("1");
+                    service.update(new Restaurant("Le Meurice", "1", "228 rue de Rivoli, 75001, Paris", null));
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> delete : deletes) {
+                delete.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            writers.shutdownNow();
+        }
+        Assert.assertEquals(1, feed.getLastSequence());
+        Assert.assertEquals(RestaurantChange.Type.DELETE, feed.since(0, 1).get(0).getType());
+        Assert.assertEquals(0, feed.publishIf(() -> false, RestaurantChange.Type.DELETE, "1", () -> null));
+    }
+
+    /**
+     * A blocked listener holds up neither the writers nor the other listeners,
+     * and is dropped once it is a whole ring behind
+     *
+     * @throws Exception
+     */
+    @Test
+    public void slowListenerDoesNotBlockWriters() throws Exception {
+        ExecutorService delivery = Executors.newCachedThreadPool();
+        try {
+            RestaurantChangeFeed feed = new RestaurantChangeFeed(4, delivery);
+            CountDownLatch release = new CountDownLatch(1);
+            AtomicBoolean dropped = new AtomicBoolean();
+            feed.tail(0, (change) -> {
+                try {
+                    release.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }, () -> dropped.set(true));
+            Semaphore received = new Semaphore(0);
+            feed.tail(0, (change) -> received.release());
+
+            // The other listener keeps up, so only the blocked one falls behind
+            for (int i = 0; i < 10; i++) {
+                feed.publish(RestaurantChange.Type.DELETE, String.valueOf(i), () -> null);
+                Assert.assertTrue(received.tryAcquire(5, TimeUnit.SECONDS));
+            }
+            Assert.assertEquals(10, feed.getLastSequence());
+            release.countDown();
+            delivery.shutdown();
+            Assert.assertTrue(delivery.awaitTermination(5, TimeUnit.SECONDS));
+            Assert.assertTrue(dropped.get());
+        } finally {
+            delivery.shutdownNow();
+        }
+    }
+}
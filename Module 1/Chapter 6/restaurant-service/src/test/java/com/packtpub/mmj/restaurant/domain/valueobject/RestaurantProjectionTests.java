@@ -0,0 +1,68 @@
+package com.packtpub.mmj.restaurant.domain.valueobject;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.packtpub.mmj.restaurant.domain.model.entity.Restaurant;
+import com.packtpub.mmj.restaurant.domain.model.entity.Table;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Sourabh Sharma
+ */
+public class RestaurantProjectionTests {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private final List<Restaurant> restaurants = Arrays.asList(
+            new Restaurant("Le Meurice", "1", "228 rue de Rivoli, 75001, Paris",
+                    Arrays.asList(new Table("Table 1", BigInteger.ONE, 4))),
+            new Restaurant("L'Ambroisie", "2", "9 place des Vosges, 75004, Paris", new ArrayList<>()));
+
+    private static List<String> keys(JsonNode node) {
+        List<String> keys = new ArrayList<>();
+        for (Iterator<String> names = node.fieldNames(); names.hasNext();) {
+            keys.add(names.next());
+        }
+        return keys;
+    }
+
+    /**
+     * Only the selected properties are written, in declaration order
+     *
+     * @throws Exception
+     */
+    @Test
+    public void writesSelectedProperties() throws Exception {
+        RestaurantProjection projection = new RestaurantProjection(restaurants,
+                RestaurantProjection.parseFields("name, id"));
+
+        Assert.assertEquals("[{\"id\":\"1\",\"name\":\"Le Meurice\"},{\"id\":\"2\",\"name\":\"L'Ambroisie\"}]",
+                mapper.writeValueAsString(projection));
+    }
+
+    /**
+     * Nested values are written with their regular serializers
+     *
+     * @throws Exception
+     */
+    @Test
+    public void writesNestedTables() throws Exception {
+        RestaurantProjection projection = new RestaurantProjection(restaurants,
+                RestaurantProjection.parseFields("tables,address"));
+        JsonNode json = mapper.readTree(mapper.writeValueAsString(projection));
+
+        Assert.assertEquals(2, json.size());
+        Assert.assertEquals(Arrays.asList("address", "tables"), keys(json.get(0)));
+        Assert.assertEquals("228 rue de Rivoli, 75001, Paris", json.get(0).get("address").asText());
+        Assert.assertEquals(1, json.get(0).get("tables").size());
+        Assert.assertEquals(4, json.get(0).get("tables").get(0).get("capacity").asInt());
+        Assert.assertEquals(0, json.get(1).get("tables").size());
+    }
+}
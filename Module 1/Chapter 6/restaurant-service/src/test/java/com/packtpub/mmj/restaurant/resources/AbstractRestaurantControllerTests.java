@@ -2,8 +2,11 @@ package com.packtpub.mmj.restaurant.resources;
 
 import com.packtpub.mmj.restaurant.domain.model.entity.Entity;
 import com.packtpub.mmj.restaurant.domain.model.entity.Restaurant;
+import com.packtpub.mmj.restaurant.domain.valueobject.RestaurantProjection;
 import com.packtpub.mmj.restaurant.domain.valueobject.RestaurantVO;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.EnumSet;
 import java.util.logging.Logger;
 import org.junit.Assert;
 import org.junit.Test;
@@ -41,7 +44,7 @@ public abstract class AbstractRestaurantControllerTests {
     @Test
     public void validResturantById() {
         Logger.getGlobal().info("Start validResturantById test");
-        ResponseEntity<Entity> restaurant = restaurantController.findById(RESTAURANT);
+        ResponseEntity<Entity> restaurant = restaurantController.findById(RESTAURANT, null);
 
         Assert.assertEquals(HttpStatus.OK, restaurant.getStatusCode());
         Assert.assertTrue(restaurant.hasBody());
@@ -51,6 +54,26 @@ public abstract class AbstractRestaurantControllerTests {
         Logger.getGlobal().info("End validResturantById test");
     }
 
+    /**
+     * Test method for the conditional findById method
+     */
+    @Test
+    public void validResturantByIdNotModified() {
+        Logger.getGlobal().info("Start validResturantByIdNotModified test");
+        ResponseEntity<Entity> restaurant = restaurantController.findById(RESTAURANT, null);
+        String eTag = restaurant.getHeaders().getETag();
+        Assert.assertNotNull(eTag);
+
+        restaurant = restaurantController.findById(RESTAURANT, "\"stale\", " + eTag);
+        Assert.assertEquals(HttpStatus.NOT_MODIFIED, restaurant.getStatusCode());
+        Assert.assertFalse(restaurant.hasBody());
+        Assert.assertEquals(eTag, restaurant.getHeaders().getETag());
+
+        restaurant = restaurantController.findById(RESTAURANT, "\"stale\"");
+        Assert.assertEquals(HttpStatus.OK, restaurant.getStatusCode());
+        Logger.getGlobal().info("End validResturantByIdNotModified test");
+    }
+
     /**
      * Test method for findByName method
      */
@@ -70,6 +93,30 @@ public abstract class AbstractRestaurantControllerTests {
         Logger.getGlobal().info("End validResturantByName test");
     }
 
+    /**
+     * Test method for findByIds method
+     */
+    @Test
+    public void validResturantsByIds() {
+        Logger.getGlobal().info("Start validResturantsByIds test");
+        ResponseEntity<?> restaurants = restaurantController.findByIds(Arrays.asList(RESTAURANT, "unknown", RESTAURANT), null);
+
+        Assert.assertEquals(HttpStatus.OK, restaurants.getStatusCode());
+        Collection<?> body = (Collection<?>) restaurants.getBody();
+        Assert.assertEquals(1, body.size());
+        Assert.assertEquals(RESTAURANT_NAME, ((Restaurant) body.iterator().next()).getName());
+
+        restaurants = restaurantController.findByIds(Arrays.asList(RESTAURANT), "id, name");
+        Assert.assertEquals(HttpStatus.OK, restaurants.getStatusCode());
+        RestaurantProjection projection = (RestaurantProjection) restaurants.getBody();
+        Assert.assertEquals(EnumSet.of(RestaurantProjection.Field.ID, RestaurantProjection.Field.NAME), projection.getFields());
+        Assert.assertEquals(1, projection.getRestaurants().size());
+
+        Assert.assertEquals(HttpStatus.BAD_REQUEST, restaurantController.findByIds(Arrays.asList(RESTAURANT), "id,rating").getStatusCode());
+        Assert.assertEquals(HttpStatus.NO_CONTENT, restaurantController.findByIds(Arrays.asList("unknown"), null).getStatusCode());
+        Logger.getGlobal().info("End validResturantsByIds test");
+    }
+
     /**
      * Test method for add method
      */
@@ -0,0 +1,60 @@
+package com.packtpub.mmj.restaurant.resources;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.packtpub.mmj.restaurant.domain.model.entity.Restaurant;
+import java.util.Collection;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compares serialization cost of JSON and Smile for the seed restaurant
+ * catalog. Not part of the unit tests; run with <code>mvn test -Pbenchmark</code>.
+ *
+ * @author Sourabh Sharma
+ */
+public class RestaurantCodecBenchmark {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RestaurantCodecBenchmark.class);
+    private static final int ITERATIONS = 20000;
+
+    private final ObjectMapper jsonMapper = new ObjectMapper();
+    private final ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+
+    private long encode(ObjectMapper mapper, Object value) throws Exception {
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            mapper.writeValueAsBytes(value);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private long decode(ObjectMapper mapper, byte[] payload) throws Exception {
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            mapper.readTree(payload);
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     *
+     * @throws Exception
+     */
+    @Test
+    public void compareJsonAndSmile() throws Exception {
+        Collection<Restaurant> restaurants = RestaurantCodecTests.catalog();
+        byte[] json = jsonMapper.writeValueAsBytes(restaurants);
+        byte[] smile = smileMapper.writeValueAsBytes(restaurants);
+
+        // warm up both code paths before measuring
+        encode(jsonMapper, restaurants);
+        encode(smileMapper, restaurants);
+
+        LOG.info("JSON : {} bytes, encode {} ms, decode {} ms",
+                json.length, encode(jsonMapper, restaurants) / 1000000, decode(jsonMapper, json) / 1000000);
+        LOG.info("Smile: {} bytes, encode {} ms, decode {} ms",
+                smile.length, encode(smileMapper, restaurants) / 1000000, decode(smileMapper, smile) / 1000000);
+    }
+}
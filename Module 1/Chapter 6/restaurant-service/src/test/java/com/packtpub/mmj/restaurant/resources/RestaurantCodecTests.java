@@ -0,0 +1,57 @@
+package com.packtpub.mmj.restaurant.resources;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.packtpub.mmj.restaurant.domain.model.entity.Restaurant;
+import com.packtpub.mmj.restaurant.domain.model.entity.Table;
+import com.packtpub.mmj.restaurant.domain.repository.InMemRestaurantRepository;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Sourabh Sharma
+ */
+public class RestaurantCodecTests {
+
+    private final ObjectMapper jsonMapper = new ObjectMapper();
+    private final ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+
+    /**
+     * Seed restaurant catalog, each restaurant with eight tables
+     *
+     * @return
+     */
+    static Collection<Restaurant> catalog() {
+        Collection<Restaurant> restaurants = new InMemRestaurantRepository().getAll();
+        restaurants.forEach((restaurant) -> {
+            List<Table> tables = new ArrayList<>();
+            for (int i = 1; i <= 8; i++) {
+                tables.add(new Table("Table " + i, BigInteger.valueOf(i), 2 + (i % 4)));
+            }
+            restaurant.setTables(tables);
+        });
+        return restaurants;
+    }
+
+    /**
+     * Smile payloads must be smaller than JSON and carry the same document
+     *
+     * @throws Exception
+     */
+    @Test
+    public void smileIsSmallerAndEquivalent() throws Exception {
+        Collection<Restaurant> restaurants = catalog();
+        byte[] json = jsonMapper.writeValueAsBytes(restaurants);
+        byte[] smile = smileMapper.writeValueAsBytes(restaurants);
+
+        Assert.assertTrue(smile.length < json.length);
+        Assert.assertEquals(new String(json, StandardCharsets.UTF_8),
+                jsonMapper.writeValueAsString(smileMapper.readTree(smile)));
+    }
+}
@@ -86,6 +86,25 @@ public class RestaurantControllerIntegrationTests extends
         assertEquals(HttpStatus.NO_CONTENT, responseE.getStatusCode());
     }
 
+    /**
+     * Test the conditional GET /v1/restaurants/{id} API
+     */
+    @Test
+    public void testGetById_NotModified() {
+        ResponseEntity<Map> responseE = restTemplate.getForEntity("http://localhost:" + port + "/v1/restaurants/1", Map.class);
+        String eTag = responseE.getHeaders().getETag();
+        assertNotNull(eTag);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(eTag);
+        HttpEntity<Object> entity = new HttpEntity<>(headers);
+        responseE = restTemplate.exchange("http://localhost:" + port + "/v1/restaurants/1", HttpMethod.GET, entity, Map.class);
+
+        // Should return not modified as the restaurant did not change since the first call
+        assertEquals(HttpStatus.NOT_MODIFIED, responseE.getStatusCode());
+        assertEquals(eTag, responseE.getHeaders().getETag());
+    }
+
     /**
      * Test the GET /v1/restaurants API
      */
@@ -2,14 +2,18 @@ package com.packtpub.mmj.restaurant.resources;
 
 import com.packtpub.mmj.restaurant.domain.model.entity.Entity;
 import com.packtpub.mmj.restaurant.domain.model.entity.Restaurant;
+import com.packtpub.mmj.restaurant.domain.repository.BKTree;
 import com.packtpub.mmj.restaurant.domain.repository.RestaurantRepository;
 import com.packtpub.mmj.restaurant.domain.service.RestaurantService;
 import com.packtpub.mmj.restaurant.domain.service.RestaurantServiceImpl;
+import com.packtpub.mmj.restaurant.domain.valueobject.RestaurantSuggestion;
 import static com.packtpub.mmj.restaurant.resources.AbstractRestaurantControllerTests.RESTAURANT;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 import org.junit.Before;
 
 /**
@@ -106,6 +110,49 @@ public class RestaurantControllerTests extends AbstractRestaurantControllerTests
             return restaurants;
         }
 
+        /**
+         *
+         * @param name
+         * @param maxDistance
+         * @return
+         * @throws Exception
+         */
+        @Override
+        public Collection<Restaurant> findByNameFuzzy(String name, int maxDistance) throws Exception {
+            Collection<Restaurant> restaurants = new ArrayList();
+            entities.forEach((k, v) -> {
+                if (BKTree.distance(v.getName().toLowerCase(), name.toLowerCase()) <= maxDistance) {
+                    restaurants.add(v);
+                }
+            });
+            return restaurants;
+        }
+
+        /**
+         *
+         * @param ids
+         * @return
+         */
+        @Override
+        public Collection<Restaurant> findByIds(Collection<String> ids) {
+            return ids.stream().filter(entities::containsKey).map(entities::get).collect(Collectors.toList());
+        }
+
+        /**
+         *
+         * @param prefix
+         * @param k
+         * @return
+         */
+        @Override
+        public List<RestaurantSuggestion> suggest(String prefix, int k) {
+            return entities.values().stream()
+                    .filter((v) -> v.getName().toLowerCase().startsWith(prefix.toLowerCase()))
+                    .limit(k)
+                    .map((v) -> new RestaurantSuggestion(v.getId(), v.getName()))
+                    .collect(Collectors.toList());
+        }
+
         /**
          *
          * @param id
@@ -113,7 +160,7 @@ public class RestaurantControllerTests extends AbstractRestaurantControllerTests
          */
         @Override
         public boolean contains(String id) {
-            throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+            return entities.containsKey(id);
         }
 
         /**
@@ -0,0 +1,50 @@
+package com.packtpub.mmj.security.service;
+
+import com.packtpub.mmj.common.JsonWebToken;
+import java.security.PublicKey;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.common.exceptions.InvalidTokenException;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.token.store.JwtAccessTokenConverter;
+
+/**
+ * JWT converter signing the access tokens with the current {@link SigningKeys}
+ * key and naming the key in the token header, so that the resource servers can
+ * pick the right public key across rotations.
+ *
+ * @author Sourabh Sharma
+ */
+public class RotatingJwtAccessTokenConverter extends JwtAccessTokenConverter {
+
+    private final SigningKeys signingKeys;
+
+    /**
+     *
+     * @param signingKeys
+     */
+    public RotatingJwtAccessTokenConverter(SigningKeys signingKeys) {
+        this.signingKeys = signingKeys;
+    }
+
+    @Override
+    protected String encode(OAuth2AccessToken accessToken, OAuth2Authentication authentication) {
+        return signingKeys.sign(getAccessTokenConverter().convertAccessToken(accessToken, authentication));
+    }
+
+    @Override
+    protected Map<String, Object> decode(String token) {
+        JsonWebToken jwt;
+        try {
+            jwt = JsonWebToken.parse(token);
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidTokenException("Cannot convert access token to JSON");
+        }
+        PublicKey key = signingKeys.publicKey(jwt.getKeyId());
+        if (key == null || !jwt.verify(key)) {
+            throw new InvalidTokenException("Invalid access token signature");
+        }
+        return new LinkedHashMap<>(jwt.getClaims());
+    }
+}
@@ -1,15 +1,22 @@
 package com.packtpub.mmj.security.service;
 
+import com.packtpub.mmj.common.JsonWebKeys;
 import java.security.Principal;
+import java.util.Map;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.oauth2.config.annotation.configurers.ClientDetailsServiceConfigurer;
 import org.springframework.security.oauth2.config.annotation.web.configuration.AuthorizationServerConfigurerAdapter;
 import org.springframework.security.oauth2.config.annotation.web.configuration.EnableAuthorizationServer;
 import org.springframework.security.oauth2.config.annotation.web.configuration.EnableResourceServer;
+import org.springframework.security.oauth2.config.annotation.web.configuration.ResourceServerConfigurerAdapter;
 import org.springframework.security.oauth2.config.annotation.web.configurers.AuthorizationServerEndpointsConfigurer;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
@@ -17,13 +24,33 @@ import org.springframework.web.bind.annotation.RestController;
 @SpringBootApplication
 @RestController
 @EnableResourceServer
+@EnableScheduling
 public class SecurityApp {
 
+    @Autowired
+    private SigningKeys signingKeys;
+
     @RequestMapping("/user")
     public Principal user(Principal user) {
         return user;
     }
 
+    /**
+     * Public keys of the access tokens, fetched by the resource servers to
+     * verify the tokens locally.
+     *
+     * @return
+     */
+    @RequestMapping("/keys")
+    public Map<String, Object> keys() {
+        return JsonWebKeys.toKeySet(signingKeys.publicKeys());
+    }
+
+    @Bean
+    public RotatingJwtAccessTokenConverter accessTokenConverter() {
+        return new RotatingJwtAccessTokenConverter(signingKeys);
+    }
+
     public static void main(String[] args) {
         SpringApplication.run(SecurityApp.class, args);
     }
@@ -35,9 +62,25 @@ public class SecurityApp {
         @Autowired
         private AuthenticationManager authenticationManager;
 
+        @Autowired
+        private RotatingJwtAccessTokenConverter accessTokenConverter;
+
+        @Autowired
+        private ShardedTokenStore tokenStore;
+
+        @Value("${app.security.jwt.token-validity-seconds:3600}")
+        private int tokenValiditySeconds;
+
+        @Value("${app.security.jwt.refresh-token-validity-seconds:2592000}")
+        private int refreshTokenValiditySeconds;
+
         @Override
         public void configure(AuthorizationServerEndpointsConfigurer endpointsConfigurer) throws Exception {
-            endpointsConfigurer.authenticationManager(authenticationManager);
+            // Self-contained tokens, verified by the resource servers without calling back,
+            // and kept in a durable store so that they survive a restart
+            endpointsConfigurer.authenticationManager(authenticationManager)
+                    .tokenStore(tokenStore)
+                    .accessTokenConverter(accessTokenConverter);
         }
 
         @Override
@@ -47,7 +90,20 @@ public class SecurityApp {
                     .withClient("client")
                     .secret("clientsecret")
                     .authorizedGrantTypes("authorization_code", "refresh_token", "implicit", "password", "client_credentials")
-                    .scopes("apiAccess");
+                    .scopes("apiAccess")
+                    .accessTokenValiditySeconds(tokenValiditySeconds)
+                    .refreshTokenValiditySeconds(refreshTokenValiditySeconds);
+        }
+    }
+
+    @Configuration
+    protected static class KeysResourceConfig extends ResourceServerConfigurerAdapter {
+
+        @Override
+        public void configure(HttpSecurity http) throws Exception {
+            http.authorizeRequests()
+                    .antMatchers("/keys").permitAll()
+                    .anyRequest().authenticated();
         }
     }
 }
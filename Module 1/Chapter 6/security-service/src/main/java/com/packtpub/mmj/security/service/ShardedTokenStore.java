@@ -0,0 +1,483 @@
+package com.packtpub.mmj.security.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.oauth2.common.ExpiringOAuth2RefreshToken;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.common.OAuth2RefreshToken;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.token.AuthenticationKeyGenerator;
+import org.springframework.security.oauth2.provider.token.DefaultAuthenticationKeyGenerator;
+import org.springframework.security.oauth2.provider.token.TokenStore;
+import org.springframework.stereotype.Component;
+
+/**
+ * Token store of the authorization server, sharded by token hash and persisted
+ * in an append-only {@link TokenLog} per shard. Issuing or reading a token only
+ * locks its shard, so concurrent requests rarely contend. The tokens survive a
+ * restart, and the expired ones are purged in the background.
+ *
+ * The lookups by authentication, client and user go through indexes that are
+ * rebuilt from the shards at startup rather than logged.
+ *
+ * Tokens are kept under the SHA-256 hash of their value, and the logs hold the
+ * hashes only (see {@link TokenCodec}). A token replayed after a restart is
+ * found again when its value is presented, but not by authentication, client
+ * or user until then: a client asking for a token gets a new one.
+ *
+ * @author Sourabh Sharma
+ */
+@Component
+public class ShardedTokenStore implements TokenStore {
+
+    private static final Logger logger = Logger.getLogger(ShardedTokenStore.class.getName());
+
+    private static class Stored<T> {
+
+        /**
+         * Token, without value until presented if it was replayed
+         */
+        T token;
+        boolean known;
+        final OAuth2Authentication authentication;
+        final String refreshKey;
+
+        Stored(T token, boolean known, OAuth2Authentication authentication, String refreshKey) {
+            this.token = token;
+            this.known = known;
+            this.authentication = authentication;
+            this.refreshKey = refreshKey;
+        }
+    }
+
+    private static class Shard {
+
+        final Map<String, Stored<OAuth2AccessToken>> accessTokens = new HashMap<>();
+        final Map<String, Stored<OAuth2RefreshToken>> refreshTokens = new HashMap<>();
+        final TokenLog log;
+        int deadRecords;
+
+        Shard(TokenLog log) {
+            this.log = log;
+        }
+    }
+
+    private final Shard[] shards;
+    private final LongSupplier clock;
+    private final AuthenticationKeyGenerator authenticationKeyGenerator = new DefaultAuthenticationKeyGenerator();
+    private final Map<String, String> accessTokenByAuthentication = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> accessTokensByClient = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> accessTokensByUser = new ConcurrentHashMap<>();
+    private final Map<String, String> accessTokenByRefreshToken = new ConcurrentHashMap<>();
+
+    /**
+     *
+     * @param directory where the shard logs are kept, readable by the service
+     * only
+     * @param shardCount rounded up to a power of two
+     * @param sync true to force every change to the disk
+     */
+    @Autowired
+    public ShardedTokenStore(@Value("${app.security.token-store.dir}") String directory,
+            @Value("${app.security.token-store.shards:16}") int shardCount,
+            @Value("${app.security.token-store.sync:false}") boolean sync) {
+        this(Paths.get(directory), shardCount, sync, System::currentTimeMillis);
+    }
+
+    /**
+     *
+     * @param directory where the shard logs are kept
+     * @param shardCount rounded up to a power of two
+     * @param sync true to force every change to the disk
+     * @param clock current time in milliseconds
+     */
+    ShardedTokenStore(Path directory, int shardCount, boolean sync, LongSupplier clock) {
+        this.clock = clock;
+        this.shards = new Shard[shardCount <= 1 ? 1 : Integer.highestOneBit(shardCount - 1) << 1];
+        int replayed = 0;
+        for (int i = 0; i < shards.length; i++) {
+            Shard shard = new Shard(new TokenLog(directory.resolve("tokens-" + i + ".log"), sync));
+            shards[i] = shard;
+            try {
+                replayed += shard.log.open((record) -> replay(shard, record));
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+        logger.info(String.format("Token store replayed %d records from %d shards in %s", replayed, shards.length, directory));
+    }
+
+    @Override
+    public OAuth2Authentication readAuthentication(OAuth2AccessToken token) {
+        return readAuthentication(token.getValue());
+    }
+
+    @Override
+    public OAuth2Authentication readAuthentication(String token) {
+        String key = TokenCodec.key(token);
+        Shard shard = shard(key);
+        synchronized (shard) {
+            Stored<OAuth2AccessToken> stored = shard.accessTokens.get(key);
+            return stored == null ? null : stored.authentication;
+        }
+    }
+
+    @Override
+    public void storeAccessToken(OAuth2AccessToken token, OAuth2Authentication authentication) {
+        // Hashed and encoded outside the shard lock, which only covers the map and the append
+        String key = TokenCodec.key(token.getValue());
+        String refreshKey = token.getRefreshToken() == null ? null : TokenCodec.key(token.getRefreshToken().getValue());
+        TokenLog.Record record = new TokenLog.Record(TokenLog.Type.STORE_ACCESS, key,
+                TokenCodec.encodeAccessToken(token, refreshKey, authentication));
+        Shard shard = shard(key);
+        synchronized (shard) {
+            putAccessToken(shard, key, new Stored<>(token, true, authentication, refreshKey));
+            shard.log.append(record);
+        }
+    }
+
+    @Override
+    public OAuth2AccessToken readAccessToken(String tokenValue) {
+        String key = TokenCodec.key(tokenValue);
+        Shard shard = shard(key);
+        Stored<OAuth2AccessToken> stored;
+        synchronized (shard) {
+            stored = shard.accessTokens.get(key);
+            if (stored == null || stored.known) {
+                return stored == null ? null : stored.token;
+            }
+        }
+        // A replayed token gets its value back; its refresh token lives in another shard
+        OAuth2RefreshToken refreshToken = stored.refreshKey == null ? null : readKnownRefreshToken(stored.refreshKey);
+        synchronized (shard) {
+            if (!stored.known) {
+                stored.token = TokenCodec.withValue(stored.token, tokenValue, refreshToken);
+                stored.known = true;
+            }
+            return stored.token;
+        }
+    }
+
+    @Override
+    public void removeAccessToken(OAuth2AccessToken token) {
+        removeAccessToken(TokenCodec.key(token.getValue()));
+    }
+
+    @Override
+    public void storeRefreshToken(OAuth2RefreshToken refreshToken, OAuth2Authentication authentication) {
+        String key = TokenCodec.key(refreshToken.getValue());
+        TokenLog.Record record = new TokenLog.Record(TokenLog.Type.STORE_REFRESH, key,
+                TokenCodec.encodeRefreshToken(refreshToken, authentication));
+        Shard shard = shard(key);
+        synchronized (shard) {
+            if (shard.refreshTokens.put(key, new Stored<>(refreshToken, true, authentication, null)) != null) {
+                shard.deadRecords++;
+            }
+            shard.log.append(record);
+        }
+    }
+
+    @Override
+    public OAuth2RefreshToken readRefreshToken(String tokenValue) {
+        String key = TokenCodec.key(tokenValue);
+        Shard shard = shard(key);
+        synchronized (shard) {
+            Stored<OAuth2RefreshToken> stored = shard.refreshTokens.get(key);
+            if (stored == null) {
+                return null;
+            }
+            if (!stored.known) {
+                stored.token = TokenCodec.withValue(stored.token, tokenValue);
+                stored.known = true;
+            }
+            return stored.token;
+        }
+    }
+
+    @Override
+    public OAuth2Authentication readAuthenticationForRefreshToken(OAuth2RefreshToken token) {
+        String key = TokenCodec.key(token.getValue());
+        Shard shard = shard(key);
+        synchronized (shard) {
+            Stored<OAuth2RefreshToken> stored = shard.refreshTokens.get(key);
+            return stored == null ? null : stored.authentication;
+        }
+    }
+
+    @Override
+    public void removeRefreshToken(OAuth2RefreshToken token) {
+        removeRefreshToken(TokenCodec.key(token.getValue()));
+    }
+
+    @Override
+    public void removeAccessTokenUsingRefreshToken(OAuth2RefreshToken refreshToken) {
+        String accessToken = accessTokenByRefreshToken.remove(TokenCodec.key(refreshToken.getValue()));
+        if (accessToken != null) {
+            removeAccessToken(accessToken);
+        }
+    }
+
+    @Override
+    public OAuth2AccessToken getAccessToken(OAuth2Authentication authentication) {
+        String accessToken = accessTokenByAuthentication.get(authenticationKeyGenerator.extractKey(authentication));
+        return accessToken == null ? null : readKnownAccessToken(accessToken);
+    }
+
+    @Override
+    public Collection<OAuth2AccessToken> findTokensByClientIdAndUserName(String clientId, String userName) {
+        return readKnownAccessTokens(accessTokensByUser.get(userKey(clientId, userName)));
+    }
+
+    @Override
+    public Collection<OAuth2AccessToken> findTokensByClientId(String clientId) {
+        return readKnownAccessTokens(accessTokensByClient.get(clientId));
+    }
+
+    /**
+     * Purges the expired tokens and compacts the logs that hold mostly dead
+     * records.
+     */
+    @Scheduled(fixedDelayString = "${app.security.token-store.sweep-ms:60000}")
+    public void sweep() {
+        int purged = purgeExpired();
+        if (purged > 0) {
+            logger.log(Level.INFO, "Token store purged {0} expired tokens", purged);
+        }
+    }
+
+    /**
+     *
+     * @return number of expired tokens removed
+     */
+    public int purgeExpired() {
+        long now = clock.getAsLong();
+        int purged = 0;
+        for (Shard shard : shards) {
+            List<String> expiredAccess = new ArrayList<>();
+            List<String> expiredRefresh = new ArrayList<>();
+            synchronized (shard) {
+                shard.accessTokens.forEach((key, stored) -> {
+                    if (isExpired(stored.token, now)) {
+                        expiredAccess.add(key);
+                    }
+                });
+                shard.refreshTokens.forEach((key, stored) -> {
+                    if (isExpired(stored.token, now)) {
+                        expiredRefresh.add(key);
+                    }
+                });
+            }
+            expiredAccess.forEach(this::removeAccessToken);
+            expiredRefresh.forEach(this::removeRefreshToken);
+            purged += expiredAccess.size() + expiredRefresh.size();
+            synchronized (shard) {
+                if (shard.deadRecords > 0 && shard.deadRecords >= shard.accessTokens.size() + shard.refreshTokens.size()) {
+                    compact(shard);
+                }
+            }
+        }
+        return purged;
+    }
+
+    /**
+     *
+     * @return number of live access tokens
+     */
+    public int size() {
+        int size = 0;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                size += shard.accessTokens.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Closes the shard logs.
+     */
+    @PreDestroy
+    public void close() {
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                try {
+                    shard.log.close();
+                } catch (IOException ex) {
+                    logger.log(Level.WARNING, "Failed to close token log", ex);
+                }
+            }
+        }
+    }
+
+    private Shard shard(String key) {
+        int hash = key.hashCode();
+        return shards[(hash ^ (hash >>> 16)) & (shards.length - 1)];
+    }
+
+    private void removeAccessToken(String key) {
+        Shard shard = shard(key);
+        synchronized (shard) {
+            Stored<OAuth2AccessToken> stored = shard.accessTokens.remove(key);
+            if (stored != null) {
+                unindex(key, stored);
+                shard.deadRecords += 2;
+                shard.log.append(new TokenLog.Record(TokenLog.Type.REMOVE_ACCESS, key, null));
+            }
+        }
+    }
+
+    private void removeRefreshToken(String key) {
+        Shard shard = shard(key);
+        synchronized (shard) {
+            if (shard.refreshTokens.remove(key) != null) {
+                accessTokenByRefreshToken.remove(key);
+                shard.deadRecords += 2;
+                shard.log.append(new TokenLog.Record(TokenLog.Type.REMOVE_REFRESH, key, null));
+            }
+        }
+    }
+
+    private OAuth2AccessToken readKnownAccessToken(String key) {
+        Shard shard = shard(key);
+        synchronized (shard) {
+            Stored<OAuth2AccessToken> stored = shard.accessTokens.get(key);
+            return stored == null || !stored.known ? null : stored.token;
+        }
+    }
+
+    private OAuth2RefreshToken readKnownRefreshToken(String key) {
+        Shard shard = shard(key);
+        synchronized (shard) {
+            Stored<OAuth2RefreshToken> stored = shard.refreshTokens.get(key);
+            return stored == null || !stored.known ? null : stored.token;
+        }
+    }
+
+    private void putAccessToken(Shard shard, String key, Stored<OAuth2AccessToken> stored) {
+        Stored<OAuth2AccessToken> previous = shard.accessTokens.put(key, stored);
+        if (previous != null) {
+            unindex(key, previous);
+            shard.deadRecords++;
+        }
+        accessTokenByAuthentication.put(authenticationKeyGenerator.extractKey(stored.authentication), key);
+        String clientId = stored.authentication.getOAuth2Request().getClientId();
+        add(accessTokensByClient, clientId, key);
+        if (!stored.authentication.isClientOnly()) {
+            add(accessTokensByUser, userKey(clientId, stored.authentication.getName()), key);
+        }
+        if (stored.refreshKey != null) {
+            accessTokenByRefreshToken.put(stored.refreshKey, key);
+        }
+    }
+
+    private void unindex(String key, Stored<OAuth2AccessToken> stored) {
+        accessTokenByAuthentication.remove(authenticationKeyGenerator.extractKey(stored.authentication), key);
+        String clientId = stored.authentication.getOAuth2Request().getClientId();
+        remove(accessTokensByClient, clientId, key);
+        if (!stored.authentication.isClientOnly()) {
+            remove(accessTokensByUser, userKey(clientId, stored.authentication.getName()), key);
+        }
+        if (stored.refreshKey != null) {
+            accessTokenByRefreshToken.remove(stored.refreshKey, key);
+        }
+    }
+
+    private void replay(Shard shard, TokenLog.Record record) {
+        switch (record.getType()) {
+            case STORE_ACCESS:
+                TokenCodec.Decoded<OAuth2AccessToken> access = TokenCodec.decodeAccessToken(record.getData());
+                putAccessToken(shard, record.getKey(), new Stored<>(access.token, false, access.authentication, access.refreshKey));
+                break;
+            case STORE_REFRESH:
+                TokenCodec.Decoded<OAuth2RefreshToken> refresh = TokenCodec.decodeRefreshToken(record.getData());
+                if (shard.refreshTokens.put(record.getKey(), new Stored<>(refresh.token, false, refresh.authentication, null)) != null) {
+                    shard.deadRecords++;
+                }
+                break;
+            case REMOVE_ACCESS:
+                Stored<OAuth2AccessToken> stored = shard.accessTokens.remove(record.getKey());
+                if (stored != null) {
+                    unindex(record.getKey(), stored);
+                }
+                shard.deadRecords += 2;
+                break;
+            case REMOVE_REFRESH:
+                shard.refreshTokens.remove(record.getKey());
+                accessTokenByRefreshToken.remove(record.getKey());
+                shard.deadRecords += 2;
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void compact(Shard shard) {
+        List<TokenLog.Record> live = new ArrayList<>();
+        shard.accessTokens.forEach((key, stored) -> live.add(new TokenLog.Record(TokenLog.Type.STORE_ACCESS, key,
+                TokenCodec.encodeAccessToken(stored.token, stored.refreshKey, stored.authentication))));
+        shard.refreshTokens.forEach((key, stored) -> live.add(new TokenLog.Record(TokenLog.Type.STORE_REFRESH, key,
+                TokenCodec.encodeRefreshToken(stored.token, stored.authentication))));
+        shard.log.rewrite(live);
+        shard.deadRecords = 0;
+    }
+
+    private Collection<OAuth2AccessToken> readKnownAccessTokens(Set<String> keys) {
+        if (keys == null) {
+            return Collections.emptyList();
+        }
+        List<OAuth2AccessToken> tokens = new ArrayList<>();
+        for (String key : keys) {
+            OAuth2AccessToken token = readKnownAccessToken(key);
+            if (token != null) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static boolean isExpired(OAuth2AccessToken token, long now) {
+        return token.getExpiration() != null && token.getExpiration().getTime() <= now;
+    }
+
+    private static boolean isExpired(OAuth2RefreshToken token, long now) {
+        return token instanceof ExpiringOAuth2RefreshToken && ((ExpiringOAuth2RefreshToken) token).getExpiration() != null
+                && ((ExpiringOAuth2RefreshToken) token).getExpiration().getTime() <= now;
+    }
+
+    private static String userKey(String clientId, String userName) {
+        return clientId + ":" + userName;
+    }
+
+    private static void add(Map<String, Set<String>> index, String key, String tokenKey) {
+        // compute keeps the set from being dropped by a concurrent remove
+        index.compute(key, (k, keys) -> {
+            Set<String> set = keys == null ? ConcurrentHashMap.newKeySet() : keys;
+            set.add(tokenKey);
+            return set;
+        });
+    }
+
+    private static void remove(Map<String, Set<String>> index, String key, String tokenKey) {
+        index.computeIfPresent(key, (k, keys) -> {
+            keys.remove(tokenKey);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+}
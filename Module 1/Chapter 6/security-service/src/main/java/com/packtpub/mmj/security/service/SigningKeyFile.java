@@ -0,0 +1,163 @@
+package com.packtpub.mmj.security.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * File holding the keys of the {@link SigningKeys}, so that the tokens signed
+ * before a restart, or by another instance sharing the file, can still be
+ * verified. The keys are stored as JSON, the private keys PKCS#8 and the
+ * public keys X.509 encoded. Like the token logs, the file and its directory
+ * are created readable by their owner only; a file that cannot be read is
+ * moved aside.
+ *
+ * @author Sourabh Sharma
+ */
+public class SigningKeyFile {
+
+    private static final Logger logger = Logger.getLogger(SigningKeyFile.class.getName());
+
+    private static final String OWNER_ONLY_DIRECTORY = "rwx------";
+
+    private static final String OWNER_ONLY_FILE = "rw-------";
+
+    private final Path file;
+    private final Path lockFile;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    /**
+     *
+     * @param file
+     */
+    public SigningKeyFile(Path file) {
+        this.file = file.toAbsolutePath();
+        this.lockFile = this.file.resolveSibling(this.file.getFileName() + ".lock");
+    }
+
+    /**
+     * Runs the action holding an exclusive lock on the file, so that the
+     * instances sharing it read and write it in turn.
+     *
+     * @param <T>
+     * @param action
+     * @return the result of the action
+     */
+    public <T> T locked(Supplier<T> action) {
+        try {
+            createDirectory();
+            try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                    FileLock lock = channel.lock()) {
+                return action.get();
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     *
+     * @return the stored keys, empty if there is no file yet
+     */
+    public List<SigningKeys.SigningKey> read() {
+        if (!Files.exists(file)) {
+            return Collections.emptyList();
+        }
+        try {
+            List<SigningKeys.SigningKey> keys = new ArrayList<>();
+            KeyFactory factory = KeyFactory.getInstance("RSA");
+            Base64.Decoder decoder = Base64.getDecoder();
+            for (JsonNode node : mapper.readTree(file.toFile()).path("keys")) {
+                KeyPair pair = new KeyPair(
+                        factory.generatePublic(new X509EncodedKeySpec(decoder.decode(node.get("public").asText()))),
+                        factory.generatePrivate(new PKCS8EncodedKeySpec(decoder.decode(node.get("private").asText()))));
+                SigningKeys.SigningKey key = new SigningKeys.SigningKey(node.get("kid").asText(), pair, node.get("createdAt").asLong());
+                key.retiredAt = node.path("retiredAt").asLong();
+                keys.add(key);
+            }
+            return keys;
+        } catch (IOException | GeneralSecurityException | RuntimeException ex) {
+            Path aside = file.resolveSibling(file.getFileName() + ".unreadable");
+            logger.log(Level.WARNING, String.format("Signing key file %s cannot be read, moved to %s", file, aside), ex);
+            try {
+                Files.move(file, aside, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException moveEx) {
+                throw new UncheckedIOException(moveEx);
+            }
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Replaces the stored keys, atomically.
+     *
+     * @param keys
+     */
+    public void write(Collection<SigningKeys.SigningKey> keys) {
+        ObjectNode root = mapper.createObjectNode();
+        ArrayNode array = root.putArray("keys");
+        Base64.Encoder encoder = Base64.getEncoder();
+        for (SigningKeys.SigningKey key : keys) {
+            array.addObject()
+                    .put("kid", key.id)
+                    .put("createdAt", key.createdAt)
+                    .put("retiredAt", key.retiredAt)
+                    .put("public", encoder.encodeToString(key.pair.getPublic().getEncoded()))
+                    .put("private", encoder.encodeToString(key.pair.getPrivate().getEncoded()));
+        }
+        try {
+            createDirectory();
+            // created readable by the owner only
+            Path tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            try {
+                mapper.writeValue(tmp.toFile(), root);
+                try {
+                    Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException ex) {
+                    Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private void createDirectory() throws IOException {
+        Path directory = file.getParent();
+        if (file.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            Files.createDirectories(directory, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString(OWNER_ONLY_DIRECTORY)));
+            Files.setPosixFilePermissions(directory, PosixFilePermissions.fromString(OWNER_ONLY_DIRECTORY));
+            if (Files.exists(file)) {
+                Files.setPosixFilePermissions(file, PosixFilePermissions.fromString(OWNER_ONLY_FILE));
+            }
+        } else {
+            Files.createDirectories(directory);
+        }
+    }
+}
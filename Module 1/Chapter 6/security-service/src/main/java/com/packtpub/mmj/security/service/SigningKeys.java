@@ -0,0 +1,315 @@
+package com.packtpub.mmj.security.service;
+
+import com.packtpub.mmj.common.JsonWebToken;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.logging.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Rotating RSA keys signing the access and refresh tokens. New tokens are
+ * always signed with the current key; a retired key is still published, so
+ * that the tokens it signed can be verified, until the last of them has
+ * expired, i.e. for the longer of the access and refresh token lifetimes.
+ * <p>
+ * The keys are kept in a {@link SigningKeyFile}, next to the token logs by
+ * default, so that the tokens replayed by the {@link ShardedTokenStore} after
+ * a restart still verify. Instances sharing the file sign with the newest key
+ * in it: a rotation finding that another instance has already rotated adopts
+ * its key, and an unknown key id reloads the file.
+ *
+ * @author Sourabh Sharma
+ */
+@Component
+public class SigningKeys {
+
+    private static final Logger logger = Logger.getLogger(SigningKeys.class.getName());
+
+    private static final int KEY_SIZE = 2048;
+
+    private static final long DEFAULT_TOKEN_VALIDITY_SECONDS = 3600;
+
+    private static final long DEFAULT_REFRESH_TOKEN_VALIDITY_SECONDS = 2592000;
+
+    /**
+     * Least time between two reloads of the key file, whatever the key ids
+     * asked for
+     */
+    private static final long RELOAD_INTERVAL_MILLIS = 10000;
+
+    static class SigningKey {
+
+        final String id;
+        final KeyPair pair;
+        final long createdAt;
+        long retiredAt;
+
+        SigningKey(String id, KeyPair pair, long createdAt) {
+            this.id = id;
+            this.pair = pair;
+            this.createdAt = createdAt;
+        }
+    }
+
+    private final long retentionMillis;
+    private final LongSupplier clock;
+    private final SigningKeyFile keyFile;
+    private final KeyPairGenerator generator;
+    private final List<SigningKey> retired = new ArrayList<>();
+    private volatile SigningKey current;
+    private long reloadedAt;
+    private long rotatedAt;
+
+    /**
+     * Keys for access tokens valid one hour and refresh tokens valid 30 days,
+     * kept in memory only
+     */
+    public SigningKeys() {
+        this(DEFAULT_TOKEN_VALIDITY_SECONDS, DEFAULT_REFRESH_TOKEN_VALIDITY_SECONDS, System::currentTimeMillis);
+    }
+
+    /**
+     *
+     * @param tokenValiditySeconds lifetime of the access tokens
+     * @param refreshTokenValiditySeconds lifetime of the refresh tokens
+     * @param keyFile file keeping the keys across restarts
+     */
+    @Autowired
+    public SigningKeys(@Value("${app.security.jwt.token-validity-seconds:3600}") long tokenValiditySeconds,
+            @Value("${app.security.jwt.refresh-token-validity-seconds:2592000}") long refreshTokenValiditySeconds,
+            @Value("${app.security.jwt.keys-file:${app.security.token-store.dir}/signing-keys.json}") String keyFile) {
+        this(tokenValiditySeconds, refreshTokenValiditySeconds, Paths.get(keyFile), System::currentTimeMillis);
+    }
+
+    /**
+     * Keys kept in memory only
+     *
+     * @param tokenValiditySeconds lifetime of the access tokens
+     * @param refreshTokenValiditySeconds lifetime of the refresh tokens
+     * @param clock current time in milliseconds
+     */
+    SigningKeys(long tokenValiditySeconds, long refreshTokenValiditySeconds, LongSupplier clock) {
+        this(tokenValiditySeconds, refreshTokenValiditySeconds, null, clock);
+    }
+
+    /**
+     *
+     * @param tokenValiditySeconds lifetime of the access tokens
+     * @param refreshTokenValiditySeconds lifetime of the refresh tokens
+     * @param keyFile file keeping the keys across restarts, null to keep them
+     * in memory only
+     * @param clock current time in milliseconds
+     */
+    SigningKeys(long tokenValiditySeconds, long refreshTokenValiditySeconds, Path keyFile, LongSupplier clock) {
+        this.retentionMillis = TimeUnit.SECONDS.toMillis(Math.max(tokenValiditySeconds, refreshTokenValiditySeconds));
+        this.clock = clock;
+        this.keyFile = keyFile == null ? null : new SigningKeyFile(keyFile);
+        try {
+            this.generator = KeyPairGenerator.getInstance("RSA");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+        this.generator.initialize(KEY_SIZE);
+        if (this.keyFile == null) {
+            this.current = newKey();
+            return;
+        }
+        this.keyFile.locked(() -> {
+            synchronized (this) {
+                reloadedAt = clock.getAsLong();
+                rotatedAt = reloadedAt;
+                adopt(this.keyFile.read(), reloadedAt);
+                if (current == null) {
+                    current = newKey();
+                    logger.info(String.format("No stored token signing key, created %s", current.id));
+                }
+                this.keyFile.write(liveKeys(reloadedAt));
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Signs new tokens with a fresh key and forgets the retired keys whose
+     * tokens have all expired. If another instance sharing the key file has
+     * rotated in the meantime, its key is adopted instead.
+     */
+    @Scheduled(initialDelayString = "${app.security.jwt.rotation-ms:86400000}",
+            fixedDelayString = "${app.security.jwt.rotation-ms:86400000}")
+    public void rotate() {
+        SigningKey generated = newKey();
+        SigningKey next = generated;
+        if (keyFile == null) {
+            synchronized (this) {
+                replace(generated, clock.getAsLong());
+            }
+        } else {
+            next = keyFile.locked(() -> {
+                synchronized (this) {
+                    long now = clock.getAsLong();
+                    reloadedAt = now;
+                    adopt(keyFile.read(), now);
+                    // a key created since this instance last rotated comes from another one
+                    if (current.createdAt <= rotatedAt) {
+                        replace(generated, now);
+                    }
+                    rotatedAt = now;
+                    keyFile.write(liveKeys(now));
+                    return current;
+                }
+            });
+        }
+        logger.info(String.format("Token signing key rotated, now %s", next.id));
+    }
+
+    /**
+     * Signs the claims with the current key.
+     *
+     * @param claims
+     * @return the encoded token
+     */
+    public String sign(Map<String, ?> claims) {
+        SigningKey key = current;
+        return JsonWebToken.sign(claims, key.id, key.pair.getPrivate());
+    }
+
+    /**
+     *
+     * @param keyId
+     * @return the public key, null if unknown or no longer valid
+     */
+    public synchronized PublicKey publicKey(String keyId) {
+        if (keyId == null) {
+            return null;
+        }
+        long now = clock.getAsLong();
+        SigningKey key = find(keyId, now);
+        if (key == null && reload(now)) {
+            key = find(keyId, now);
+        }
+        return key == null ? null : key.pair.getPublic();
+    }
+
+    /**
+     *
+     * @return the public keys still valid, current first
+     */
+    public synchronized Map<String, RSAPublicKey> publicKeys() {
+        long now = clock.getAsLong();
+        reload(now);
+        Map<String, RSAPublicKey> keys = new LinkedHashMap<>();
+        for (SigningKey key : liveKeys(now)) {
+            keys.put(key.id, (RSAPublicKey) key.pair.getPublic());
+        }
+        return keys;
+    }
+
+    /**
+     *
+     * @return id of the key signing new tokens
+     */
+    public String getCurrentKeyId() {
+        return current.id;
+    }
+
+    private SigningKey find(String keyId, long now) {
+        for (SigningKey key : liveKeys(now)) {
+            if (key.id.equals(keyId)) {
+                return key;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the current key, then the retired keys still valid, newest
+     * first
+     */
+    private List<SigningKey> liveKeys(long now) {
+        List<SigningKey> keys = new ArrayList<>();
+        keys.add(current);
+        for (SigningKey key : retired) {
+            if (!isExpired(key, now)) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+
+    private boolean isExpired(SigningKey key, long now) {
+        return key.retiredAt > 0 && key.retiredAt + retentionMillis <= now;
+    }
+
+    private void replace(SigningKey next, long now) {
+        current.retiredAt = now;
+        retired.add(0, current);
+        current = next;
+        retired.removeIf(key -> isExpired(key, now));
+    }
+
+    /**
+     * Adds the stored keys not known yet. A key not retired and newer than the
+     * current one becomes current.
+     */
+    private void adopt(List<SigningKey> stored, long now) {
+        List<SigningKey> keys = new ArrayList<>(stored);
+        keys.sort(Comparator.comparingLong(key -> key.createdAt));
+        for (SigningKey key : keys) {
+            if (isExpired(key, now) || (current != null && current.id.equals(key.id))
+                    || retired.stream().anyMatch(known -> known.id.equals(key.id))) {
+                continue;
+            }
+            if (key.retiredAt == 0 && (current == null || key.createdAt > current.createdAt)) {
+                if (current != null) {
+                    replace(key, now);
+                } else {
+                    current = key;
+                }
+            } else {
+                if (key.retiredAt == 0) {
+                    key.retiredAt = now;
+                }
+                retired.add(key);
+            }
+        }
+        retired.sort(Comparator.comparingLong((SigningKey key) -> key.retiredAt).reversed());
+    }
+
+    /**
+     * Reloads the key file, at most once per {@link #RELOAD_INTERVAL_MILLIS}.
+     *
+     * @return true if the file was reloaded
+     */
+    private boolean reload(long now) {
+        if (keyFile == null || now - reloadedAt < RELOAD_INTERVAL_MILLIS) {
+            return false;
+        }
+        reloadedAt = now;
+        adopt(keyFile.read(), now);
+        return true;
+    }
+
+    private SigningKey newKey() {
+        KeyPair pair;
+        synchronized (generator) {
+            pair = generator.generateKeyPair();
+        }
+        return new SigningKey(UUID.randomUUID().toString(), pair, clock.getAsLong());
+    }
+}
@@ -0,0 +1,267 @@
+package com.packtpub.mmj.security.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.oauth2.common.DefaultExpiringOAuth2RefreshToken;
+import org.springframework.security.oauth2.common.DefaultOAuth2AccessToken;
+import org.springframework.security.oauth2.common.DefaultOAuth2RefreshToken;
+import org.springframework.security.oauth2.common.ExpiringOAuth2RefreshToken;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.common.OAuth2RefreshToken;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.OAuth2Request;
+
+/**
+ * JSON encoding of the tokens kept in a {@link TokenLog}. Tokens are named by
+ * the SHA-256 hash of their value, which is never written: a token read back
+ * from the log has no value until it is presented again. Only the request
+ * fields needed to rebuild the authentication are kept, without credentials.
+ *
+ * @author Sourabh Sharma
+ */
+final class TokenCodec {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final TypeReference<Map<String, Object>> MAP = new TypeReference<Map<String, Object>>() {
+    };
+
+    /**
+     * Request parameters never written to the log
+     */
+    private static final Set<String> CREDENTIALS = Collections.unmodifiableSet(
+            new LinkedHashSet<>(Arrays.asList("password", "client_secret")));
+
+    /**
+     * Token and authentication decoded from a record
+     *
+     * @param <T>
+     */
+    static class Decoded<T> {
+
+        final T token;
+        final OAuth2Authentication authentication;
+        final String refreshKey;
+
+        Decoded(T token, OAuth2Authentication authentication, String refreshKey) {
+            this.token = token;
+            this.authentication = authentication;
+            this.refreshKey = refreshKey;
+        }
+    }
+
+    private TokenCodec() {
+    }
+
+    /**
+     *
+     * @param tokenValue
+     * @return hex SHA-256 hash of the value
+     */
+    static String key(String tokenValue) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(tokenValue.getBytes(StandardCharsets.UTF_8));
+            StringBuilder key = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                key.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return key.toString();
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 unavailable", ex);
+        }
+    }
+
+    /**
+     *
+     * @param token
+     * @param refreshKey hash of the refresh token, null if none
+     * @param authentication
+     * @return
+     */
+    static byte[] encodeAccessToken(OAuth2AccessToken token, String refreshKey, OAuth2Authentication authentication) {
+        Map<String, Object> encoded = new LinkedHashMap<>();
+        encoded.put("expiration", token.getExpiration() == null ? null : token.getExpiration().getTime());
+        encoded.put("tokenType", token.getTokenType());
+        encoded.put("scope", token.getScope());
+        encoded.put("additionalInformation", token.getAdditionalInformation());
+        encoded.put("refresh", refreshKey);
+        encoded.put("authentication", encode(authentication));
+        return write(encoded);
+    }
+
+    /**
+     *
+     * @param token
+     * @param authentication
+     * @return
+     */
+    static byte[] encodeRefreshToken(OAuth2RefreshToken token, OAuth2Authentication authentication) {
+        Map<String, Object> encoded = new LinkedHashMap<>();
+        encoded.put("expiration", token instanceof ExpiringOAuth2RefreshToken && ((ExpiringOAuth2RefreshToken) token).getExpiration() != null
+                ? ((ExpiringOAuth2RefreshToken) token).getExpiration().getTime() : null);
+        encoded.put("authentication", encode(authentication));
+        return write(encoded);
+    }
+
+    /**
+     *
+     * @param data
+     * @return the token, without value
+     * @throws IllegalArgumentException if the data is not an access token
+     */
+    @SuppressWarnings("unchecked")
+    static Decoded<OAuth2AccessToken> decodeAccessToken(byte[] data) {
+        Map<String, Object> encoded = read(data);
+        DefaultOAuth2AccessToken token = new DefaultOAuth2AccessToken((String) null);
+        token.setExpiration(date(encoded.get("expiration")));
+        token.setTokenType((String) encoded.get("tokenType"));
+        token.setScope(strings(encoded.get("scope")));
+        Object additionalInformation = encoded.get("additionalInformation");
+        token.setAdditionalInformation(additionalInformation == null
+                ? Collections.<String, Object>emptyMap() : (Map<String, Object>) additionalInformation);
+        return new Decoded<>(token, decode(encoded.get("authentication")), (String) encoded.get("refresh"));
+    }
+
+    /**
+     *
+     * @param data
+     * @return the token, without value
+     * @throws IllegalArgumentException if the data is not a refresh token
+     */
+    static Decoded<OAuth2RefreshToken> decodeRefreshToken(byte[] data) {
+        Map<String, Object> encoded = read(data);
+        return new Decoded<>(withValue(null, date(encoded.get("expiration"))), decode(encoded.get("authentication")), null);
+    }
+
+    /**
+     *
+     * @param token decoded access token
+     * @param value value presented
+     * @param refreshToken refresh token, if its value is known
+     * @return a copy of the token with the value
+     */
+    static OAuth2AccessToken withValue(OAuth2AccessToken token, String value, OAuth2RefreshToken refreshToken) {
+        DefaultOAuth2AccessToken copy = new DefaultOAuth2AccessToken(token);
+        copy.setValue(value);
+        copy.setRefreshToken(refreshToken);
+        return copy;
+    }
+
+    /**
+     *
+     * @param token decoded refresh token
+     * @param value value presented
+     * @return a copy of the token with the value
+     */
+    static OAuth2RefreshToken withValue(OAuth2RefreshToken token, String value) {
+        return withValue(value, token instanceof ExpiringOAuth2RefreshToken ? ((ExpiringOAuth2RefreshToken) token).getExpiration() : null);
+    }
+
+    private static OAuth2RefreshToken withValue(String value, Date expiration) {
+        return expiration == null ? new DefaultOAuth2RefreshToken(value) : new DefaultExpiringOAuth2RefreshToken(value, expiration);
+    }
+
+    private static Map<String, Object> encode(OAuth2Authentication authentication) {
+        OAuth2Request request = authentication.getOAuth2Request();
+        Map<String, String> parameters = new LinkedHashMap<>(request.getRequestParameters());
+        parameters.keySet().removeAll(CREDENTIALS);
+        Map<String, Object> client = new LinkedHashMap<>();
+        client.put("clientId", request.getClientId());
+        client.put("scope", request.getScope());
+        client.put("resourceIds", request.getResourceIds());
+        client.put("approved", request.isApproved());
+        client.put("authorities", AuthorityUtils.authorityListToSet(request.getAuthorities()));
+        client.put("redirectUri", request.getRedirectUri());
+        client.put("responseTypes", request.getResponseTypes());
+        client.put("requestParameters", parameters);
+        Map<String, Object> encoded = new LinkedHashMap<>();
+        encoded.put("client", client);
+        Authentication user = authentication.getUserAuthentication();
+        if (user != null) {
+            Map<String, Object> userAuthentication = new LinkedHashMap<>();
+            userAuthentication.put("name", user.getName());
+            userAuthentication.put("authorities", AuthorityUtils.authorityListToSet(user.getAuthorities()));
+            encoded.put("user", userAuthentication);
+        }
+        return encoded;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static OAuth2Authentication decode(Object value) {
+        if (!(value instanceof Map)) {
+            throw new IllegalArgumentException("Missing authentication");
+        }
+        Map<String, Object> encoded = (Map<String, Object>) value;
+        Map<String, Object> client = (Map<String, Object>) encoded.get("client");
+        if (client == null || client.get("clientId") == null) {
+            throw new IllegalArgumentException("Missing client");
+        }
+        Object parameters = client.get("requestParameters");
+        OAuth2Request request = new OAuth2Request(
+                parameters == null ? Collections.<String, String>emptyMap() : (Map<String, String>) parameters,
+                (String) client.get("clientId"), authorities(client.get("authorities")),
+                Boolean.TRUE.equals(client.get("approved")), strings(client.get("scope")),
+                strings(client.get("resourceIds")), (String) client.get("redirectUri"),
+                strings(client.get("responseTypes")), Collections.<String, Serializable>emptyMap());
+        Map<String, Object> user = (Map<String, Object>) encoded.get("user");
+        return new OAuth2Authentication(request, user == null ? null
+                : new UsernamePasswordAuthenticationToken(user.get("name"), null, authorities(user.get("authorities"))));
+    }
+
+    private static Collection<? extends GrantedAuthority> authorities(Object value) {
+        Set<String> authorities = strings(value);
+        return AuthorityUtils.createAuthorityList(authorities.toArray(new String[authorities.size()]));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Set<String> strings(Object value) {
+        if (value == null) {
+            return Collections.emptySet();
+        }
+        List<String> strings = new ArrayList<>();
+        for (Object item : (Collection<Object>) value) {
+            strings.add((String) item);
+        }
+        return new LinkedHashSet<>(strings);
+    }
+
+    private static Date date(Object value) {
+        return value == null ? null : new Date(((Number) value).longValue());
+    }
+
+    private static byte[] write(Map<String, Object> encoded) {
+        try {
+            return MAPPER.writeValueAsBytes(encoded);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static Map<String, Object> read(byte[] data) {
+        try {
+            return MAPPER.readValue(data, MAP);
+        } catch (IOException ex) {
+            throw new IllegalArgumentException("Unreadable token record", ex);
+        }
+    }
+}
@@ -0,0 +1,357 @@
+package com.packtpub.mmj.security.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of one shard of the {@link ShardedTokenStore}. Every change
+ * of the shard is appended as a record; replaying the log at startup rebuilds
+ * the shard. The log is rewritten from the live tokens once it holds mostly
+ * dead records.
+ * <p>
+ * The log starts with a format marker and holds one
+ * <code>length, CRC32, record</code> frame per change. A frame failing its
+ * checksum, or a record that cannot be decoded, is skipped; a frame torn by a
+ * crash ends the replay and is cut off. A file without the marker is moved
+ * aside rather than replayed. Logs and their directory are created readable
+ * by their owner only.
+ *
+ * @author Sourabh Sharma
+ */
+public class TokenLog implements Closeable {
+
+    private static final Logger logger = Logger.getLogger(TokenLog.class.getName());
+
+    /**
+     * Format marker heading every log
+     */
+    private static final int MAGIC = 0x4F544B32;
+
+    private static final int HEADER_BYTES = 4;
+
+    private static final int FRAME_BYTES = 8;
+
+    /**
+     * Larger lengths can only come from a torn frame
+     */
+    private static final int MAX_RECORD_BYTES = 1 << 20;
+
+    private static final String OWNER_ONLY_DIRECTORY = "rwx------";
+
+    private static final String OWNER_ONLY_FILE = "rw-------";
+
+    /**
+     * Kind of change recorded
+     */
+    public enum Type {
+
+        /**
+         *
+         */
+        STORE_ACCESS,
+        /**
+         *
+         */
+        STORE_REFRESH,
+        /**
+         *
+         */
+        REMOVE_ACCESS,
+        /**
+         *
+         */
+        REMOVE_REFRESH
+    }
+
+    /**
+     * One change of the shard, naming the token by its hash. Store records
+     * carry the encoded token and authentication.
+     */
+    public static class Record {
+
+        private final Type type;
+        private final String key;
+        private final byte[] data;
+
+        /**
+         *
+         * @param type
+         * @param key hash of the token value
+         * @param data encoded token and authentication, null for removals
+         */
+        public Record(Type type, String key, byte[] data) {
+            this.type = type;
+            this.key = key;
+            this.data = data;
+        }
+
+        /**
+         *
+         * @return
+         */
+        public Type getType() {
+            return type;
+        }
+
+        /**
+         *
+         * @return hash of the token value
+         */
+        public String getKey() {
+            return key;
+        }
+
+        /**
+         *
+         * @return
+         */
+        public byte[] getData() {
+            return data;
+        }
+
+        private boolean isStore() {
+            return type == Type.STORE_ACCESS || type == Type.STORE_REFRESH;
+        }
+    }
+
+    private final Path file;
+    private final boolean sync;
+    private FileOutputStream stream;
+    private DataOutputStream out;
+
+    /**
+     *
+     * @param file
+     * @param sync true to force every record to the disk before returning
+     */
+    public TokenLog(Path file, boolean sync) {
+        this.file = file;
+        this.sync = sync;
+    }
+
+    /**
+     * Replays the records of the log, then opens it for appending. A record
+     * the consumer fails on is skipped like a corrupt one.
+     *
+     * @param consumer receives the records in order
+     * @return number of records replayed
+     * @throws IOException
+     */
+    public int open(Consumer<Record> consumer) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        if (isPosix()) {
+            Files.createDirectories(directory, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString(OWNER_ONLY_DIRECTORY)));
+            // A directory or log left by an earlier version may be shared
+            Files.setPosixFilePermissions(directory, PosixFilePermissions.fromString(OWNER_ONLY_DIRECTORY));
+            if (Files.exists(file)) {
+                Files.setPosixFilePermissions(file, PosixFilePermissions.fromString(OWNER_ONLY_FILE));
+            }
+        } else {
+            Files.createDirectories(directory);
+        }
+        int records = 0;
+        int skipped = 0;
+        if (Files.exists(file) && Files.size(file) > 0 && !hasHeader()) {
+            Path aside = file.resolveSibling(file.getFileName() + ".unreadable");
+            logger.log(Level.WARNING, "Token log {0} has an unknown format, moved to {1}", new Object[]{file, aside});
+            Files.move(file, aside, StandardCopyOption.REPLACE_EXISTING);
+        }
+        if (Files.exists(file) && Files.size(file) > 0) {
+            long valid = HEADER_BYTES;
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                in.readInt();
+                while (true) {
+                    byte[][] frame = readFrame(in);
+                    if (frame == null) {
+                        break;
+                    }
+                    valid += FRAME_BYTES + frame[0].length;
+                    Record record = frame[1] == null ? null : decode(frame[1]);
+                    if (record == null) {
+                        skipped++;
+                        continue;
+                    }
+                    try {
+                        consumer.accept(record);
+                        records++;
+                    } catch (RuntimeException ex) {
+                        logger.log(Level.WARNING, "Skipping unreadable token record", ex);
+                        skipped++;
+                    }
+                }
+            }
+            if (skipped > 0) {
+                logger.log(Level.WARNING, "Skipped {0} corrupt records of token log {1}", new Object[]{skipped, file});
+            }
+            if (valid < Files.size(file)) {
+                logger.log(Level.WARNING, "Cutting off the torn end of token log {0}", file);
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                    channel.truncate(valid);
+                }
+            }
+        } else {
+            Files.deleteIfExists(file);
+            if (isPosix()) {
+                Files.createFile(file, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString(OWNER_ONLY_FILE)));
+            } else {
+                Files.createFile(file);
+            }
+            try (DataOutputStream header = new DataOutputStream(Files.newOutputStream(file))) {
+                header.writeInt(MAGIC);
+            }
+        }
+        openForAppend();
+        return records;
+    }
+
+    /**
+     *
+     * @param record
+     */
+    public synchronized void append(Record record) {
+        try {
+            write(out, record);
+            out.flush();
+            if (sync) {
+                stream.getFD().sync();
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Replaces the log with the given records, atomically.
+     *
+     * @param records live records
+     */
+    public synchronized void rewrite(Iterable<Record> records) {
+        try {
+            // created readable by the owner only
+            Path tmp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+            try {
+                try (DataOutputStream rewritten = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                    rewritten.writeInt(MAGIC);
+                    for (Record record : records) {
+                        write(rewritten, record);
+                    }
+                }
+                out.close();
+                try {
+                    Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException ex) {
+                    Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(tmp);
+                openForAppend();
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (out != null) {
+            out.close();
+            out = null;
+        }
+    }
+
+    private boolean isPosix() {
+        return file.getFileSystem().supportedFileAttributeViews().contains("posix");
+    }
+
+    private boolean hasHeader() throws IOException {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+            return in.readInt() == MAGIC;
+        } catch (EOFException ex) {
+            return false;
+        }
+    }
+
+    private void openForAppend() throws IOException {
+        stream = new FileOutputStream(file.toFile(), true);
+        out = new DataOutputStream(new BufferedOutputStream(stream));
+    }
+
+    private static void write(DataOutputStream out, Record record) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream body = new DataOutputStream(bytes)) {
+            body.writeByte(record.type.ordinal());
+            body.writeUTF(record.key);
+            if (record.isStore()) {
+                body.write(record.data);
+            }
+        }
+        byte[] frame = bytes.toByteArray();
+        out.writeInt(frame.length);
+        out.writeInt(checksum(frame));
+        out.write(frame);
+    }
+
+    private static int checksum(byte[] frame) {
+        CRC32 crc = new CRC32();
+        crc.update(frame, 0, frame.length);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * @return the next frame and, if it passes its checksum, its record bytes;
+     * null at the end of the log or on a torn frame
+     */
+    private static byte[][] readFrame(DataInputStream in) throws IOException {
+        try {
+            int length = in.readInt();
+            if (length <= 0 || length > MAX_RECORD_BYTES) {
+                return null;
+            }
+            int checksum = in.readInt();
+            byte[] frame = new byte[length];
+            in.readFully(frame);
+            return new byte[][]{frame, checksum(frame) == checksum ? frame : null};
+        } catch (EOFException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the record, null if the frame does not hold one
+     */
+    private static Record decode(byte[] frame) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(frame))) {
+            int type = in.read();
+            if (type < 0 || type >= Type.values().length) {
+                return null;
+            }
+            String key = in.readUTF();
+            byte[] data = new byte[in.available()];
+            in.readFully(data);
+            Record record = new Record(Type.values()[type], key, null);
+            return record.isStore() ? new Record(record.type, key, data) : record;
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+}
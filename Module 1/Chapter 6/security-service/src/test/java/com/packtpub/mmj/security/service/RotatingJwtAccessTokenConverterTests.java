@@ -0,0 +1,77 @@
+package com.packtpub.mmj.security.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.security.oauth2.common.exceptions.InvalidTokenException;
+
+/**
+ *
+ * @author Sourabh Sharma
+ */
+public class RotatingJwtAccessTokenConverterTests {
+
+    private final long[] now = {1000000000000L};
+    private SigningKeys signingKeys;
+    private RotatingJwtAccessTokenConverter converter;
+
+    /**
+     * Setup method
+     */
+    @Before
+    public void setup() {
+        signingKeys = new SigningKeys(3600, 86400, () -> now[0]);
+        converter = new RotatingJwtAccessTokenConverter(signingKeys);
+    }
+
+    private static Map<String, Object> claims() {
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put("user_name", "alice");
+        claims.put("exp", 2000000000L);
+        return claims;
+    }
+
+    private void assertRejected(String token) {
+        try {
+            converter.decode(token);
+            Assert.fail("token accepted");
+        } catch (InvalidTokenException ex) {
+            // expected
+        }
+    }
+
+    /**
+     * Tokens of the current and the retired keys decode to their claims
+     */
+    @Test
+    public void decodesAcrossRotations() {
+        String token = signingKeys.sign(claims());
+        Assert.assertEquals("alice", converter.decode(token).get("user_name"));
+        signingKeys.rotate();
+        Assert.assertEquals("alice", converter.decode(token).get("user_name"));
+        Assert.assertEquals("alice", converter.decode(signingKeys.sign(claims())).get("user_name"));
+    }
+
+    /**
+     * Tokens of an unknown or forgotten key are rejected
+     */
+    @Test
+    public void unknownKeyRejected() {
+        assertRejected(new SigningKeys(3600, 86400, () -> now[0]).sign(claims()));
+
+        String token = signingKeys.sign(claims());
+        signingKeys.rotate();
+        now[0] += 86400000;
+        assertRejected(token);
+    }
+
+    /**
+     * Malformed tokens are rejected
+     */
+    @Test
+    public void malformedRejected() {
+        assertRejected("not-a-token");
+    }
+}
@@ -0,0 +1,84 @@
+package com.packtpub.mmj.security.service;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.security.oauth2.provider.token.TokenStore;
+import org.springframework.security.oauth2.provider.token.store.InMemoryTokenStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compares concurrent token issue and lookup of the sharded store with the
+ * default in-memory store. Not part of the unit tests; run with
+ * <code>mvn test -Pbenchmark</code>.
+ *
+ * @author Sourabh Sharma
+ */
+public class ShardedTokenStoreBenchmark {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ShardedTokenStoreBenchmark.class);
+    private static final long HOUR = 3600000;
+    private static final int THREADS = 8;
+    private static final int TOKENS_PER_THREAD = 5000;
+    private static final int LOOKUPS_PER_TOKEN = 10;
+
+    private long run(TokenStore tokenStore) throws Exception {
+        long expiresAt = System.currentTimeMillis() + HOUR;
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                String prefix = "t" + t + "-";
+                tasks.add(() -> {
+                    for (int i = 0; i < TOKENS_PER_THREAD; i++) {
+                        String value = prefix + i;
+                        tokenStore.storeAccessToken(ShardedTokenStoreTests.accessToken(value, expiresAt, null),
+                                ShardedTokenStoreTests.authentication("user" + i % 100));
+                        for (int l = 0; l < LOOKUPS_PER_TOKEN; l++) {
+                            Assert.assertNotNull(tokenStore.readAuthentication(value));
+                        }
+                    }
+                    return null;
+                });
+            }
+            long started = System.nanoTime();
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+            return (System.nanoTime() - started) / 1000000;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     *
+     * @throws Exception
+     */
+    @Test
+    public void concurrentThroughput() throws Exception {
+        Path directory = Files.createTempDirectory("tokens");
+        ShardedTokenStore store = new ShardedTokenStore(directory, 16, false, System::currentTimeMillis);
+        try {
+            long sharded = run(store);
+            long inMemory = run(new InMemoryTokenStore());
+
+            Assert.assertEquals(THREADS * TOKENS_PER_THREAD, store.size());
+            long operations = (long) THREADS * TOKENS_PER_THREAD * (1 + LOOKUPS_PER_TOKEN);
+            LOG.info("{} issues + lookups on {} threads: sharded {} ms ({} ops/s), in-memory {} ms ({} ops/s)",
+                    operations, THREADS, sharded, operations * 1000 / Math.max(1, sharded), inMemory,
+                    operations * 1000 / Math.max(1, inMemory));
+        } finally {
+            store.close();
+            ShardedTokenStoreTests.delete(directory);
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.packtpub.mmj.security.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.oauth2.common.DefaultExpiringOAuth2RefreshToken;
+import org.springframework.security.oauth2.common.DefaultOAuth2AccessToken;
+import org.springframework.security.oauth2.common.OAuth2RefreshToken;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.OAuth2Request;
+
+/**
+ *
+ * @author Sourabh Sharma
+ */
+public class ShardedTokenStoreTests {
+
+    private static final long HOUR = 3600000;
+
+    private Path directory;
+    private AtomicLong now;
+    private ShardedTokenStore store;
+
+    /**
+     *
+     * @throws Exception
+     */
+    @Before
+    public void setup() throws Exception {
+        directory = Files.createTempDirectory("tokens");
+        now = new AtomicLong(System.currentTimeMillis());
+        store = new ShardedTokenStore(directory, 4, false, now::get);
+    }
+
+    /**
+     *
+     * @throws Exception
+     */
+    @After
+    public void close() throws Exception {
+        store.close();
+        delete(directory);
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void storesAndReadsTokens() {
+        OAuth2Authentication authentication = authentication("alice");
+        DefaultOAuth2AccessToken token = accessToken("a1", now.get() + HOUR, null);
+        store.storeAccessToken(token, authentication);
+
+        Assert.assertEquals(token, store.readAccessToken("a1"));
+        Assert.assertEquals("alice", store.readAuthentication("a1").getName());
+        Assert.assertEquals(token, store.getAccessToken(authentication));
+        Assert.assertEquals(1, store.findTokensByClientIdAndUserName("client", "alice").size());
+        Assert.assertEquals(1, store.findTokensByClientId("client").size());
+        Assert.assertNull(store.readAccessToken("unknown"));
+
+        store.removeAccessToken(token);
+        Assert.assertNull(store.readAccessToken("a1"));
+        Assert.assertTrue(store.findTokensByClientId("client").isEmpty());
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void survivesRestart() {
+        OAuth2RefreshToken refresh = new DefaultExpiringOAuth2RefreshToken("r1", new Date(now.get() + 24 * HOUR));
+        store.storeRefreshToken(refresh, authentication("alice"));
+        store.storeAccessToken(accessToken("a1", now.get() + HOUR, refresh), authentication("alice"));
+        store.storeAccessToken(accessToken("a2", now.get() + HOUR, null), authentication("bob"));
+        store.storeAccessToken(accessToken("a3", now.get() + HOUR, null), authentication("carol"));
+        store.removeAccessToken(store.readAccessToken("a3"));
+        store.close();
+
+        store = new ShardedTokenStore(directory, 4, false, now::get);
+        Assert.assertEquals(2, store.size());
+        Assert.assertEquals("bob", store.readAuthentication("a2").getName());
+        Assert.assertEquals("a2", store.readAccessToken("a2").getValue());
+        Assert.assertEquals(now.get() + HOUR, store.readAccessToken("a2").getExpiration().getTime());
+        Assert.assertNull(store.readAccessToken("a3"));
+        Assert.assertEquals("r1", store.readRefreshToken("r1").getValue());
+        Assert.assertEquals("alice", store.readAuthenticationForRefreshToken(store.readRefreshToken("r1")).getName());
+        Assert.assertEquals("client", store.readAuthentication("a1").getOAuth2Request().getClientId());
+        Assert.assertEquals(refresh, store.readAccessToken("a1").getRefreshToken());
+
+        store.removeAccessTokenUsingRefreshToken(refresh);
+        Assert.assertNull(store.readAccessToken("a1"));
+    }
+
+    /**
+     * Replayed tokens are only found by value: a client asking for its token
+     * gets a new one
+     */
+    @Test
+    public void replayedTokensFoundByValue() {
+        OAuth2Authentication authentication = authentication("alice");
+        store.storeAccessToken(accessToken("a1", now.get() + HOUR, null), authentication);
+        store.close();
+
+        store = new ShardedTokenStore(directory, 4, false, now::get);
+        Assert.assertNull(store.getAccessToken(authentication));
+        Assert.assertTrue(store.findTokensByClientId("client").isEmpty());
+        store.readAccessToken("a1");
+        Assert.assertEquals("a1", store.getAccessToken(authentication).getValue());
+        Assert.assertEquals(1, store.findTokensByClientIdAndUserName("client", "alice").size());
+    }
+
+    /**
+     * The logs hold neither the token values nor serialized Java objects,
+     * and are readable by their owner only
+     *
+     * @throws Exception
+     */
+    @Test
+    public void logsHoldHashesOnly() throws Exception {
+        store.storeRefreshToken(new DefaultExpiringOAuth2RefreshToken("refresh-secret", new Date(now.get() + HOUR)), authentication("alice"));
+        store.storeAccessToken(accessToken("access-secret", now.get() + HOUR, null), authentication("alice"));
+        store.close();
+
+        try (DirectoryStream<Path> logs = Files.newDirectoryStream(directory, "*.log")) {
+            for (Path log : logs) {
+                String content = new String(Files.readAllBytes(log), StandardCharsets.ISO_8859_1);
+                Assert.assertFalse(content.contains("secret"));
+                Assert.assertFalse(content.contains("\u00ac\u00ed"));
+                if (directory.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+                    Assert.assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(log)));
+                }
+            }
+        }
+        if (directory.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            Assert.assertEquals("rwx------", PosixFilePermissions.toString(Files.getPosixFilePermissions(directory)));
+        }
+    }
+
+    /**
+     * A corrupt record is skipped, the others are replayed
+     *
+     * @throws Exception
+     */
+    @Test
+    public void corruptRecordSkipped() throws Exception {
+        store.close();
+        store = new ShardedTokenStore(directory, 1, false, now::get);
+        store.storeAccessToken(accessToken("a1", now.get() + HOUR, null), authentication("alice"));
+        store.storeAccessToken(accessToken("a2", now.get() + HOUR, null), authentication("bob"));
+        store.close();
+
+        Path log = directory.resolve("tokens-0.log");
+        byte[] content = Files.readAllBytes(log);
+        // inside the first record, after the header, frame and key
+        content[4 + 8 + 80] ^= 0x55;
+        Files.write(log, content);
+
+        store = new ShardedTokenStore(directory, 1, false, now::get);
+        Assert.assertEquals(1, store.size());
+        Assert.assertNull(store.readAccessToken("a1"));
+        Assert.assertEquals("bob", store.readAuthentication("a2").getName());
+    }
+
+    /**
+     * A log of an unknown format is moved aside instead of replayed
+     *
+     * @throws Exception
+     */
+    @Test
+    public void unknownFormatMovedAside() throws Exception {
+        store.close();
+        Path log = directory.resolve("tokens-0.log");
+        Files.write(log, new byte[]{(byte) 0xAC, (byte) 0xED, 0, 5});
+
+        store = new ShardedTokenStore(directory, 1, false, now::get);
+        Assert.assertEquals(0, store.size());
+        Assert.assertTrue(Files.exists(directory.resolve("tokens-0.log.unreadable")));
+        store.storeAccessToken(accessToken("a1", now.get() + HOUR, null), authentication("alice"));
+        store.close();
+
+        store = new ShardedTokenStore(directory, 1, false, now::get);
+        Assert.assertEquals(1, store.size());
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void purgesExpiredTokens() {
+        for (int i = 0; i < 100; i++) {
+            store.storeAccessToken(accessToken("a" + i, now.get() + (i < 90 ? HOUR : 3 * HOUR), null), authentication("user" + i));
+        }
+        store.storeRefreshToken(new DefaultExpiringOAuth2RefreshToken("r1", new Date(now.get() + HOUR)), authentication("alice"));
+
+        now.addAndGet(2 * HOUR);
+        Assert.assertEquals(91, store.purgeExpired());
+        Assert.assertEquals(10, store.size());
+        Assert.assertNull(store.readRefreshToken("r1"));
+        store.close();
+
+        store = new ShardedTokenStore(directory, 4, false, now::get);
+        Assert.assertEquals(10, store.size());
+        Assert.assertEquals("user95", store.readAuthentication("a95").getName());
+    }
+
+    static DefaultOAuth2AccessToken accessToken(String value, long expiresAt, OAuth2RefreshToken refresh) {
+        DefaultOAuth2AccessToken token = new DefaultOAuth2AccessToken(value);
+        token.setExpiration(new Date(expiresAt));
+        token.setRefreshToken(refresh);
+        return token;
+    }
+
+    static OAuth2Authentication authentication(String userName) {
+        OAuth2Request request = new OAuth2Request(Collections.emptyMap(), "client", AuthorityUtils.createAuthorityList("ROLE_USER"),
+                true, Collections.singleton("apiAccess"), null, null, null, null);
+        return new OAuth2Authentication(request, new UsernamePasswordAuthenticationToken(userName, "N/A",
+                AuthorityUtils.createAuthorityList("ROLE_USER")));
+    }
+
+    static void delete(Path directory) throws IOException {
+        if (Files.exists(directory)) {
+            try (Stream<Path> paths = Files.walk(directory)) {
+                for (Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                    Files.delete(path);
+                }
+            }
+        }
+    }
+}
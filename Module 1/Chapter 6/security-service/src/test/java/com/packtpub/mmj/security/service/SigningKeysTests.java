@@ -0,0 +1,194 @@
+package com.packtpub.mmj.security.service;
+
+import com.packtpub.mmj.common.JsonWebKeys;
+import com.packtpub.mmj.common.JsonWebToken;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.PublicKey;
+import java.util.Collections;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ * @author Sourabh Sharma
+ */
+public class SigningKeysTests {
+
+    private static final long ACCESS_SECONDS = 3600;
+    private static final long REFRESH_SECONDS = 86400;
+
+    private final long[] now = {1000000000000L};
+    private SigningKeys signingKeys;
+    private Path directory;
+
+    /**
+     * Setup method
+     *
+     * @throws Exception
+     */
+    @Before
+    public void setup() throws Exception {
+        signingKeys = new SigningKeys(ACCESS_SECONDS, REFRESH_SECONDS, () -> now[0]);
+        directory = Files.createTempDirectory("keys");
+    }
+
+    /**
+     *
+     * @throws Exception
+     */
+    @After
+    public void cleanup() throws Exception {
+        ShardedTokenStoreTests.delete(directory);
+    }
+
+    /**
+     * New tokens are signed with the current key, named in their header
+     */
+    @Test
+    public void signsWithCurrentKey() {
+        String kid = signingKeys.getCurrentKeyId();
+        JsonWebToken token = JsonWebToken.parse(signingKeys.sign(Collections.singletonMap("user_name", "alice")));
+        Assert.assertEquals(kid, token.getKeyId());
+        Assert.assertTrue(token.verify(signingKeys.publicKey(kid)));
+
+        signingKeys.rotate();
+        Assert.assertNotEquals(kid, signingKeys.getCurrentKeyId());
+        token = JsonWebToken.parse(signingKeys.sign(Collections.singletonMap("user_name", "alice")));
+        Assert.assertEquals(signingKeys.getCurrentKeyId(), token.getKeyId());
+    }
+
+    /**
+     * A retired key stays published as long as a refresh token it signed can
+     * still be valid, the longer of the two lifetimes
+     */
+    @Test
+    public void retiredKeyKeptForLongestValidity() {
+        String retired = signingKeys.getCurrentKeyId();
+        signingKeys.rotate();
+        Assert.assertEquals(2, signingKeys.publicKeys().size());
+
+        now[0] += ACCESS_SECONDS * 1000;
+        Assert.assertNotNull(signingKeys.publicKey(retired));
+        Assert.assertTrue(signingKeys.publicKeys().containsKey(retired));
+
+        now[0] += (REFRESH_SECONDS - ACCESS_SECONDS) * 1000 - 1;
+        Assert.assertNotNull(signingKeys.publicKey(retired));
+        now[0] += 1;
+        Assert.assertNull(signingKeys.publicKey(retired));
+        Assert.assertFalse(signingKeys.publicKeys().containsKey(retired));
+        Assert.assertEquals(1, signingKeys.publicKeys().size());
+    }
+
+    /**
+     * Rotation forgets the keys whose tokens have all expired
+     */
+    @Test
+    public void rotationForgetsExpiredKeys() {
+        String first = signingKeys.getCurrentKeyId();
+        signingKeys.rotate();
+        String second = signingKeys.getCurrentKeyId();
+        now[0] += REFRESH_SECONDS * 1000;
+        signingKeys.rotate();
+
+        Assert.assertNull(signingKeys.publicKey(first));
+        Assert.assertNotNull(signingKeys.publicKey(second));
+        Assert.assertEquals(2, signingKeys.publicKeys().size());
+        Assert.assertNull(signingKeys.publicKey("unknown"));
+        Assert.assertNull(signingKeys.publicKey(null));
+    }
+
+    /**
+     * A token issued and stored before a restart is replayed by the token
+     * store and still verifies against the published keys, also once its key
+     * has been retired
+     */
+    @Test
+    public void tokenIssuedBeforeRestartVerifies() {
+        Path keyFile = directory.resolve("signing-keys.json");
+        signingKeys = new SigningKeys(ACCESS_SECONDS, REFRESH_SECONDS, keyFile, () -> now[0]);
+        ShardedTokenStore store = new ShardedTokenStore(directory, 4, false, () -> now[0]);
+        String value = signingKeys.sign(Collections.singletonMap("user_name", "alice"));
+        store.storeAccessToken(ShardedTokenStoreTests.accessToken(value, now[0] + ACCESS_SECONDS * 1000, null),
+                ShardedTokenStoreTests.authentication("alice"));
+        store.close();
+
+        signingKeys = new SigningKeys(ACCESS_SECONDS, REFRESH_SECONDS, keyFile, () -> now[0]);
+        store = new ShardedTokenStore(directory, 4, false, () -> now[0]);
+        try {
+            Assert.assertEquals(value, store.readAccessToken(value).getValue());
+            JsonWebToken token = JsonWebToken.parse(value);
+            Assert.assertTrue(token.verify(published().get(token.getKeyId())));
+
+            signingKeys.rotate();
+            signingKeys = new SigningKeys(ACCESS_SECONDS, REFRESH_SECONDS, keyFile, () -> now[0]);
+            Assert.assertNotEquals(token.getKeyId(), signingKeys.getCurrentKeyId());
+            Assert.assertTrue(token.verify(published().get(token.getKeyId())));
+        } finally {
+            store.close();
+        }
+    }
+
+    /**
+     * The key file is readable by its owner only
+     *
+     * @throws Exception
+     */
+    @Test
+    public void keyFileOwnerOnly() throws Exception {
+        Path keyFile = directory.resolve("keys").resolve("signing-keys.json");
+        signingKeys = new SigningKeys(ACCESS_SECONDS, REFRESH_SECONDS, keyFile, () -> now[0]);
+        Assert.assertTrue(Files.exists(keyFile));
+        if (directory.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            Assert.assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(keyFile)));
+            Assert.assertEquals("rwx------", PosixFilePermissions.toString(Files.getPosixFilePermissions(keyFile.getParent())));
+        }
+    }
+
+    /**
+     * Instances sharing the key file sign with the same key: a rotation
+     * finding another instance's newer key adopts it, and an instance learns
+     * a key it does not know from the file
+     */
+    @Test
+    public void instancesShareKeyFile() {
+        Path keyFile = directory.resolve("signing-keys.json");
+        SigningKeys first = new SigningKeys(ACCESS_SECONDS, REFRESH_SECONDS, keyFile, () -> now[0]);
+        SigningKeys second = new SigningKeys(ACCESS_SECONDS, REFRESH_SECONDS, keyFile, () -> now[0]);
+        Assert.assertEquals(first.getCurrentKeyId(), second.getCurrentKeyId());
+
+        now[0] += 1000;
+        first.rotate();
+        String rotated = first.getCurrentKeyId();
+        now[0] += 60000;
+        Assert.assertNotNull(second.publicKey(rotated));
+        second.rotate();
+        Assert.assertEquals(rotated, second.getCurrentKeyId());
+        Assert.assertEquals(2, second.publicKeys().size());
+    }
+
+    /**
+     * A key file that cannot be read is moved aside and new keys created
+     *
+     * @throws Exception
+     */
+    @Test
+    public void unreadableKeyFileMovedAside() throws Exception {
+        Path keyFile = directory.resolve("signing-keys.json");
+        Files.write(keyFile, "not json".getBytes("UTF-8"));
+        signingKeys = new SigningKeys(ACCESS_SECONDS, REFRESH_SECONDS, keyFile, () -> now[0]);
+        Assert.assertTrue(Files.exists(directory.resolve("signing-keys.json.unreadable")));
+        Assert.assertNotNull(signingKeys.publicKey(signingKeys.getCurrentKeyId()));
+    }
+
+    /**
+     * The keys as a resource server sees them, through the key set
+     */
+    private Map<String, PublicKey> published() {
+        return JsonWebKeys.fromKeySet(JsonWebKeys.toKeySet(signingKeys.publicKeys()));
+    }
+}
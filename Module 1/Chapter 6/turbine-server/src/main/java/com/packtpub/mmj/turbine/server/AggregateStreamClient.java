@@ -0,0 +1,25 @@
+package com.packtpub.mmj.turbine.server;
+
+import org.springframework.cloud.stream.annotation.Input;
+import org.springframework.messaging.SubscribableChannel;
+
+/**
+ * Second subscription to the Hystrix metric stream, feeding the
+ * {@link MetricsAggregator} alongside Turbine's own input.
+ *
+ * @author Sourabh Sharma
+ */
+public interface AggregateStreamClient {
+
+    /**
+     *
+     */
+    String INPUT = "hystrixAggregateInput";
+
+    /**
+     *
+     * @return
+     */
+    @Input(INPUT)
+    SubscribableChannel input();
+}
@@ -0,0 +1,72 @@
+package com.packtpub.mmj.turbine.server;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Down-sampled cluster stream. <code>http://.../aggregate.stream</code> can be
+ * opened in the Hystrix dashboard in place of the Turbine stream: it carries one
+ * message per changed command every interval instead of one per instance
+ * report.
+ *
+ * @author Sourabh Sharma
+ */
+@RestController
+public class AggregateStreamController {
+
+    private final MetricsAggregator aggregator;
+
+    /**
+     *
+     * @param aggregator
+     */
+    @Autowired
+    public AggregateStreamController(MetricsAggregator aggregator) {
+        this.aggregator = aggregator;
+    }
+
+    /**
+     *
+     * @return
+     */
+    @RequestMapping(value = "/aggregate.stream", method = RequestMethod.GET, produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream() {
+        SseEmitter emitter = new SseEmitter(0L);
+        Consumer<List<Map<String, Object>>> subscriber = (metrics) -> {
+            try {
+                for (Map<String, Object> data : metrics) {
+                    emitter.send(data, MediaType.APPLICATION_JSON);
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        };
+        emitter.onCompletion(() -> aggregator.unsubscribe(subscriber));
+        emitter.onTimeout(() -> aggregator.unsubscribe(subscriber));
+        aggregator.subscribe(subscriber);
+        return emitter;
+    }
+
+    /**
+     *
+     * @return messages merged and published so far
+     */
+    @RequestMapping(value = "/aggregate/stats", method = RequestMethod.GET)
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("commands", aggregator.size());
+        stats.put("received", aggregator.getReceived());
+        stats.put("published", aggregator.getPublished());
+        return stats;
+    }
+}
@@ -0,0 +1,222 @@
+package com.packtpub.mmj.turbine.server;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Cluster-wide metrics of one Hystrix command or thread pool, merged
+ * incrementally from the latest report of every instance. When an instance
+ * reports again its previous contribution is taken back and the new one added,
+ * so the cost of a report does not depend on the number of instances.
+ *
+ * Counters are summed. Latencies are merged in HdrHistogram windows: the
+ * percentiles reported by an instance are spread over its request count, which
+ * is what makes the cluster percentiles mergeable at all.
+ *
+ * @author Sourabh Sharma
+ */
+public class CommandMetrics {
+
+    /**
+     * Percentiles of the Hystrix latency maps
+     */
+    static final String[] PERCENTILES = {"0", "25", "50", "75", "90", "95", "99", "99.5", "100"};
+
+    private static final String[] LATENCIES = {"latencyExecute", "latencyTotal"};
+
+    private static final long HIGHEST_LATENCY = TimeUnit.MINUTES.toMillis(10);
+
+    private static class Sample {
+
+        final Map<String, Long> counters = new HashMap<>();
+        final long[][] latencyCounts = new long[LATENCIES.length][];
+        final long[][] latencyValues = new long[LATENCIES.length][];
+        boolean circuitOpen;
+        long reportedAt;
+    }
+
+    private final String type;
+    private final String name;
+    private final Map<String, Sample> samples = new HashMap<>();
+    private final Map<String, Long> counters = new HashMap<>();
+    private final Map<String, Object> properties = new HashMap<>();
+    private final Histogram[] latencies = new Histogram[LATENCIES.length];
+    private final Histogram scratch = new Histogram(HIGHEST_LATENCY, 2);
+    private int openCircuits;
+    private boolean dirty;
+
+    /**
+     *
+     * @param type HystrixCommand or HystrixThreadPool
+     * @param name
+     */
+    public CommandMetrics(String type, String name) {
+        this.type = type;
+        this.name = name;
+        for (int i = 0; i < LATENCIES.length; i++) {
+            latencies[i] = new Histogram(HIGHEST_LATENCY, 2);
+        }
+    }
+
+    /**
+     * Replaces the contribution of the instance with its new report.
+     *
+     * @param instance
+     * @param data the <code>data</code> part of a Hystrix stream message
+     * @param now
+     */
+    public synchronized void update(String instance, Map<String, Object> data, long now) {
+        Sample sample = new Sample();
+        sample.reportedAt = now;
+        long requests = 0;
+        for (Map.Entry<String, Object> entry : data.entrySet()) {
+            String key = entry.getKey();
+            Object value = entry.getValue();
+            if (key.startsWith("propertyValue_") || value instanceof String) {
+                properties.put(key, value);
+            } else if (value instanceof Number && isCounter(key)) {
+                sample.counters.put(key, ((Number) value).longValue());
+            }
+        }
+        Object open = data.get("isCircuitBreakerOpen");
+        sample.circuitOpen = Boolean.TRUE.equals(open) || "true".equals(open);
+        Long requestCount = sample.counters.get("requestCount");
+        if (requestCount != null) {
+            requests = requestCount;
+        }
+        for (int i = 0; i < LATENCIES.length; i++) {
+            Object percentiles = data.get(LATENCIES[i]);
+            if (percentiles instanceof Map && requests > 0) {
+                spread((Map<?, ?>) percentiles, requests, sample, i);
+            }
+        }
+        Sample previous = samples.put(instance, sample);
+        if (previous != null) {
+            apply(previous, -1);
+        }
+        apply(sample, 1);
+        dirty = true;
+    }
+
+    /**
+     * Takes back the contribution of the instances that stopped reporting.
+     *
+     * @param reportedBefore
+     * @return number of instances removed
+     */
+    public synchronized int expire(long reportedBefore) {
+        int expired = 0;
+        for (Iterator<Sample> it = samples.values().iterator(); it.hasNext();) {
+            Sample sample = it.next();
+            if (sample.reportedAt < reportedBefore) {
+                it.remove();
+                apply(sample, -1);
+                expired++;
+            }
+        }
+        dirty |= expired > 0;
+        return expired;
+    }
+
+    /**
+     *
+     * @return true if no instance reports the command any more
+     */
+    public synchronized boolean isEmpty() {
+        return samples.isEmpty();
+    }
+
+    /**
+     *
+     * @return true if the metrics changed since the last {@link #drain(long)}
+     */
+    public synchronized boolean isDirty() {
+        return dirty;
+    }
+
+    /**
+     * Renders the merged metrics in the Hystrix stream format and clears the
+     * dirty flag.
+     *
+     * @param now
+     * @return
+     */
+    public synchronized Map<String, Object> drain(long now) {
+        dirty = false;
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("type", type);
+        data.put("name", name);
+        data.put("currentTime", now);
+        data.put("reportingHosts", samples.size());
+        data.put("isCircuitBreakerOpen", openCircuits > 0);
+        data.putAll(counters);
+        Long errors = counters.get("errorCount");
+        Long requests = counters.get("requestCount");
+        if (errors != null && requests != null) {
+            data.put("errorPercentage", requests == 0 ? 0 : (int) (errors * 100 / requests));
+        }
+        for (int i = 0; i < LATENCIES.length; i++) {
+            if (latencies[i].getTotalCount() == 0) {
+                continue;
+            }
+            Map<String, Long> percentiles = new LinkedHashMap<>();
+            for (String percentile : PERCENTILES) {
+                percentiles.put(percentile, latencies[i].getValueAtPercentile(Double.parseDouble(percentile)));
+            }
+            data.put(LATENCIES[i], percentiles);
+            data.put(LATENCIES[i] + "_mean", Math.round(latencies[i].getMean()));
+        }
+        data.putAll(properties);
+        return data;
+    }
+
+    private static boolean isCounter(String key) {
+        return !key.equals("currentTime") && !key.equals("reportingHosts") && !key.equals("errorPercentage")
+                && !key.endsWith("_mean");
+    }
+
+    /**
+     * Turns the percentiles of an instance into (value, count) pairs: the
+     * requests between two percentiles are counted at the upper one.
+     */
+    private static void spread(Map<?, ?> percentiles, long requests, Sample sample, int latency) {
+        long[] values = new long[PERCENTILES.length];
+        long[] counts = new long[PERCENTILES.length];
+        long below = 0;
+        for (int i = 0; i < PERCENTILES.length; i++) {
+            Object value = percentiles.get(PERCENTILES[i]);
+            values[i] = value instanceof Number ? Math.min(Math.max(((Number) value).longValue(), 0), HIGHEST_LATENCY) : 0;
+            long upTo = Math.round(requests * Double.parseDouble(PERCENTILES[i]) / 100);
+            counts[i] = upTo - below;
+            below = upTo;
+        }
+        sample.latencyValues[latency] = values;
+        sample.latencyCounts[latency] = counts;
+    }
+
+    private void apply(Sample sample, int sign) {
+        sample.counters.forEach((key, value) -> counters.merge(key, sign * value, Long::sum));
+        openCircuits += sample.circuitOpen ? sign : 0;
+        for (int i = 0; i < LATENCIES.length; i++) {
+            long[] values = sample.latencyValues[i];
+            if (values == null) {
+                continue;
+            }
+            scratch.reset();
+            for (int j = 0; j < values.length; j++) {
+                if (sample.latencyCounts[i][j] > 0) {
+                    scratch.recordValueWithCount(values[j], sample.latencyCounts[i][j]);
+                }
+            }
+            if (sign > 0) {
+                latencies[i].add(scratch);
+            } else {
+                latencies[i].subtract(scratch);
+            }
+        }
+    }
+}
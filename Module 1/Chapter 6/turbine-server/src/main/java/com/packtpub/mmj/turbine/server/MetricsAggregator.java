@@ -0,0 +1,189 @@
+package com.packtpub.mmj.turbine.server;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.integration.annotation.ServiceActivator;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Pre-aggregates the Hystrix metric streams of every instance. Each message
+ * updates the {@link CommandMetrics} of its command in place; every interval
+ * only the commands that changed are published, once each, whatever the number
+ * of instances reporting them.
+ *
+ * @author Sourabh Sharma
+ */
+@Component
+public class MetricsAggregator {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MetricsAggregator.class);
+
+    private static final long DEFAULT_INSTANCE_TIMEOUT_MILLIS = 30000;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Map<String, CommandMetrics> commands = new ConcurrentHashMap<>();
+    private final List<Consumer<List<Map<String, Object>>>> subscribers = new CopyOnWriteArrayList<>();
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong published = new AtomicLong();
+    private final long instanceTimeoutMillis;
+    private final LongSupplier clock;
+
+    /**
+     * Instances forgotten after 30 seconds of silence
+     */
+    public MetricsAggregator() {
+        this(DEFAULT_INSTANCE_TIMEOUT_MILLIS);
+    }
+
+    /**
+     *
+     * @param instanceTimeoutMillis silence after which an instance is forgotten
+     */
+    @Autowired
+    public MetricsAggregator(@Value("${app.turbine.aggregate.instance-timeout-ms:30000}") long instanceTimeoutMillis) {
+        this(instanceTimeoutMillis, System::currentTimeMillis);
+    }
+
+    /**
+     *
+     * @param instanceTimeoutMillis silence after which an instance is forgotten
+     * @param clock current time in milliseconds
+     */
+    MetricsAggregator(long instanceTimeoutMillis, LongSupplier clock) {
+        this.instanceTimeoutMillis = instanceTimeoutMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * Receives a message of the Hystrix stream.
+     *
+     * @param payload
+     */
+    @ServiceActivator(inputChannel = AggregateStreamClient.INPUT)
+    @SuppressWarnings("unchecked")
+    public void receive(String payload) {
+        try {
+            accept(mapper.readValue(payload, Map.class));
+        } catch (IOException ex) {
+            LOG.debug("Ignoring unreadable metrics message: {}", ex.getMessage());
+        }
+    }
+
+    /**
+     *
+     * @param message Hystrix stream message, with its <code>origin</code> and
+     * <code>data</code>
+     */
+    @SuppressWarnings("unchecked")
+    public void accept(Map<String, Object> message) {
+        Object origin = message.get("origin");
+        Object data = message.get("data");
+        if (!(origin instanceof Map) || !(data instanceof Map)) {
+            return;
+        }
+        Map<String, Object> from = (Map<String, Object>) origin;
+        Map<String, Object> metrics = (Map<String, Object>) data;
+        Object type = metrics.get("type");
+        Object name = metrics.get("name");
+        if (type == null || name == null) {
+            return;
+        }
+        received.incrementAndGet();
+        String instance = from.get("serviceId") + "@" + from.get("host") + ":" + from.get("port");
+        commands.computeIfAbsent(type + ":" + name, (key) -> new CommandMetrics(type.toString(), name.toString()))
+                .update(instance, metrics, clock.getAsLong());
+    }
+
+    /**
+     * Publishes the commands that changed. Runs every interval.
+     */
+    @Scheduled(fixedDelayString = "${app.turbine.aggregate.interval-ms:2000}")
+    public void publish() {
+        flush();
+    }
+
+    /**
+     * Forgets the silent instances and publishes the commands that changed.
+     *
+     * @return the published metrics
+     */
+    public List<Map<String, Object>> flush() {
+        long now = clock.getAsLong();
+        List<Map<String, Object>> changed = new ArrayList<>();
+        for (Iterator<CommandMetrics> it = commands.values().iterator(); it.hasNext();) {
+            CommandMetrics command = it.next();
+            command.expire(now - instanceTimeoutMillis);
+            if (command.isEmpty()) {
+                it.remove();
+            } else if (command.isDirty()) {
+                changed.add(command.drain(now));
+            }
+        }
+        if (!changed.isEmpty()) {
+            published.addAndGet(changed.size());
+            subscribers.forEach((subscriber) -> {
+                try {
+                    subscriber.accept(changed);
+                } catch (RuntimeException ex) {
+                    LOG.debug("Dropping aggregate stream subscriber: {}", ex.getMessage());
+                    subscribers.remove(subscriber);
+                }
+            });
+        }
+        return changed;
+    }
+
+    /**
+     *
+     * @param subscriber receives the metrics published every interval
+     */
+    public void subscribe(Consumer<List<Map<String, Object>>> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    /**
+     *
+     * @param subscriber
+     */
+    public void unsubscribe(Consumer<List<Map<String, Object>>> subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    /**
+     *
+     * @return number of instance messages merged so far
+     */
+    public long getReceived() {
+        return received.get();
+    }
+
+    /**
+     *
+     * @return number of aggregated messages published so far
+     */
+    public long getPublished() {
+        return published.get();
+    }
+
+    /**
+     *
+     * @return number of commands currently reported
+     */
+    public int size() {
+        return commands.size();
+    }
+}
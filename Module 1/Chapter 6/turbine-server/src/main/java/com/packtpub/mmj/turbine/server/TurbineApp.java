@@ -7,11 +7,15 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.netflix.eureka.EnableEurekaClient;
 import org.springframework.cloud.netflix.turbine.stream.EnableTurbineStream;
+import org.springframework.cloud.stream.annotation.EnableBinding;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableTurbineStream
 @EnableEurekaClient
+@EnableBinding(AggregateStreamClient.class)
+@EnableScheduling
 public class TurbineApp {
 
     //private static final Logger LOG = LoggerFactory.getLogger(TurbineApp.class);
@@ -0,0 +1,44 @@
+package com.packtpub.mmj.turbine.server;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.SpringApplicationConfiguration;
+import org.springframework.cloud.stream.config.ChannelBindingServiceProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+/**
+ * Binding of the aggregator input, read from the configuration Spring Boot
+ * loads for the Turbine server, without connecting to the broker.
+ *
+ * @author Sourabh Sharma
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringApplicationConfiguration(classes = AggregateStreamBindingTests.BindingConfiguration.class)
+public class AggregateStreamBindingTests {
+
+    /**
+     * Binding properties only
+     */
+    @Configuration
+    @EnableConfigurationProperties(ChannelBindingServiceProperties.class)
+    static class BindingConfiguration {
+    }
+
+    @Autowired
+    private ChannelBindingServiceProperties bindings;
+
+    /**
+     * The aggregator reads the stream Turbine reads, in a durable group of its
+     * own
+     */
+    @Test
+    public void aggregateInputBinding() {
+        Assert.assertEquals("springCloudHystrixStream", bindings.getBindingDestination(AggregateStreamClient.INPUT));
+        Assert.assertEquals("turbine-aggregate", bindings.getBindingProperties(AggregateStreamClient.INPUT).getGroup());
+        Assert.assertEquals("application/json", bindings.getBindingProperties(AggregateStreamClient.INPUT).getContentType());
+    }
+}
@@ -0,0 +1,167 @@
+package com.packtpub.mmj.turbine.server;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ * @author Sourabh Sharma
+ */
+public class MetricsAggregatorTests {
+
+    private AtomicLong now;
+    private MetricsAggregator aggregator;
+
+    /**
+     *
+     */
+    @Before
+    public void setup() {
+        now = new AtomicLong(1000);
+        aggregator = new MetricsAggregator(10000, now::get);
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void mergesInstances() {
+        aggregator.accept(message("a", "getRestaurant", 10, 1, false, 20));
+        aggregator.accept(message("b", "getRestaurant", 30, 3, true, 40));
+
+        List<Map<String, Object>> published = aggregator.flush();
+        Assert.assertEquals(1, published.size());
+        Map<String, Object> data = published.get(0);
+        Assert.assertEquals(2, data.get("reportingHosts"));
+        Assert.assertEquals(40L, data.get("requestCount"));
+        Assert.assertEquals(4L, data.get("errorCount"));
+        Assert.assertEquals(10, data.get("errorPercentage"));
+        Assert.assertEquals(true, data.get("isCircuitBreakerOpen"));
+        Map<?, ?> latency = (Map<?, ?>) data.get("latencyExecute");
+        Assert.assertEquals(20L, latency.get("0"));
+        Assert.assertEquals(40L, latency.get("100"));
+        Assert.assertEquals(35L, data.get("latencyExecute_mean"));
+
+        // nothing changed, nothing published
+        Assert.assertTrue(aggregator.flush().isEmpty());
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void replacesPreviousReport() {
+        aggregator.accept(message("a", "getRestaurant", 10, 5, true, 20));
+        aggregator.accept(message("a", "getRestaurant", 12, 0, false, 30));
+
+        Map<String, Object> data = aggregator.flush().get(0);
+        Assert.assertEquals(1, data.get("reportingHosts"));
+        Assert.assertEquals(12L, data.get("requestCount"));
+        Assert.assertEquals(0L, data.get("errorCount"));
+        Assert.assertEquals(false, data.get("isCircuitBreakerOpen"));
+        Assert.assertEquals(30L, ((Map<?, ?>) data.get("latencyExecute")).get("0"));
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void forgetsSilentInstances() {
+        aggregator.accept(message("a", "getRestaurant", 10, 0, false, 20));
+        now.addAndGet(6000);
+        aggregator.accept(message("b", "getRestaurant", 30, 0, false, 40));
+        aggregator.flush();
+
+        now.addAndGet(6000);
+        Map<String, Object> data = aggregator.flush().get(0);
+        Assert.assertEquals(1, data.get("reportingHosts"));
+        Assert.assertEquals(30L, data.get("requestCount"));
+        Assert.assertEquals(40L, ((Map<?, ?>) data.get("latencyExecute")).get("0"));
+
+        now.addAndGet(6000);
+        Assert.assertTrue(aggregator.flush().isEmpty());
+        Assert.assertEquals(0, aggregator.size());
+    }
+
+    /**
+     * Hundreds of instances reporting every command twice per interval: the
+     * aggregated stream carries one message per command and interval.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void aggregatesSimulatedInstances() throws Exception {
+        int instances = 300;
+        int commands = 20;
+        int intervals = 10;
+        int reportsPerInterval = 2;
+        ObjectMapper mapper = new ObjectMapper();
+        List<String> payloads = new ArrayList<>();
+        long bytesIn = 0;
+        for (int i = 0; i < instances; i++) {
+            for (int c = 0; c < commands; c++) {
+                String payload = mapper.writeValueAsString(message("i" + i, "command" + c, 100, i % 10, false, 10 + i % 50));
+                payloads.add(payload);
+                bytesIn += payload.length();
+            }
+        }
+
+        long bytesOut = 0;
+        for (int interval = 0; interval < intervals; interval++) {
+            for (int report = 0; report < reportsPerInterval; report++) {
+                payloads.forEach(aggregator::receive);
+            }
+            now.addAndGet(1000);
+            for (Map<String, Object> data : aggregator.flush()) {
+                bytesOut += mapper.writeValueAsString(data).length();
+            }
+        }
+        long messagesIn = (long) instances * commands * intervals * reportsPerInterval;
+        bytesIn *= intervals * reportsPerInterval;
+        Assert.assertEquals(messagesIn, aggregator.getReceived());
+        Assert.assertEquals(commands * intervals, aggregator.getPublished());
+        Assert.assertTrue(bytesOut * instances < bytesIn);
+    }
+
+    private static Map<String, Object> message(String instance, String command, int requests, int errors,
+            boolean open, int latency) {
+        Map<String, Object> origin = new HashMap<>();
+        origin.put("serviceId", "restaurant-service");
+        origin.put("host", instance);
+        origin.put("port", 8080);
+        Map<String, Object> percentiles = new LinkedHashMap<>();
+        for (String percentile : CommandMetrics.PERCENTILES) {
+            percentiles.put(percentile, latency);
+        }
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("type", "HystrixCommand");
+        data.put("name", command);
+        data.put("group", "RestaurantController");
+        data.put("currentTime", 1000);
+        data.put("isCircuitBreakerOpen", open);
+        data.put("errorPercentage", requests == 0 ? 0 : errors * 100 / requests);
+        data.put("errorCount", errors);
+        data.put("requestCount", requests);
+        data.put("rollingCountSuccess", requests - errors);
+        data.put("rollingCountFailure", errors);
+        data.put("latencyExecute_mean", latency);
+        data.put("latencyExecute", percentiles);
+        data.put("latencyTotal_mean", latency);
+        data.put("latencyTotal", percentiles);
+        data.put("propertyValue_executionIsolationStrategy", "THREAD");
+        data.put("propertyValue_circuitBreakerRequestVolumeThreshold", 2);
+        data.put("reportingHosts", 1);
+        Map<String, Object> message = new HashMap<>();
+        message.put("origin", origin);
+        message.put("data", data);
+        return message;
+    }
+}
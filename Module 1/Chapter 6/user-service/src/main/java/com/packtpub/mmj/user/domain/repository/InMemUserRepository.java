@@ -1,5 +1,6 @@
 package com.packtpub.mmj.user.domain.repository;
 
+import com.packtpub.mmj.common.EntityVersions;
 import com.packtpub.mmj.user.domain.model.entity.Entity;
 import com.packtpub.mmj.user.domain.model.entity.User;
 import java.util.ArrayList;
@@ -17,15 +18,17 @@ public class InMemUserRepository implements UserRepository<User, String> {
 
     private Map<String, User> entities;
 
+    private final EntityVersions versions = new EntityVersions();
+
     /**
      * Initialize the in-memory Restaurant Repository with empty Map
      */
     public InMemUserRepository() {
         entities = new HashMap();
         User user = new User("1", "User Name 1", "Address 1", "City 1", "9999911111");
-        entities.put("1", user);
-        User user2 = new User("1", "User Name 2", "Address 2", "City 2", "9999922222");
-        entities.put("2", user2);
+        add(user);
+        User user2 = new User("2", "User Name 2", "Address 2", "City 2", "9999922222");
+        add(user2);
     }
 
     /**
@@ -50,6 +53,7 @@ public class InMemUserRepository implements UserRepository<User, String> {
      */
     @Override
     public void add(User entity) {
+        entity.setVersion(versions.next());
         entities.put(entity.getId(), entity);
     }
 
@@ -71,6 +75,7 @@ public class InMemUserRepository implements UserRepository<User, String> {
     @Override
     public void update(User entity) {
         if (entities.containsKey(entity.getId())) {
+            entity.setVersion(versions.next());
             entities.put(entity.getId(), entity);
         }
     }
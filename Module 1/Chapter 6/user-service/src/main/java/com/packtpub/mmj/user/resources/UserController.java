@@ -1,6 +1,8 @@
 package com.packtpub.mmj.user.resources;
 
 import com.netflix.hystrix.contrib.javanica.annotation.HystrixCommand;
+import com.packtpub.mmj.common.EntityTags;
+import com.packtpub.mmj.user.domain.model.entity.BaseEntity;
 import com.packtpub.mmj.user.domain.model.entity.Entity;
 import com.packtpub.mmj.user.domain.model.entity.User;
 import com.packtpub.mmj.user.domain.service.UserService;
@@ -14,6 +16,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -73,13 +76,18 @@ public class UserController {
     /**
      * Fetch users with the given id. <code>http://.../v1/users/{id}</code> will
      * return user with given id.
+     * The answer carries an ETag derived from the entity version, and a
+     * request whose <code>If-None-Match</code> header holds that tag gets a
+     * <code>304 Not Modified</code> without a body.
      *
      * @param id
+     * @param ifNoneMatch entity tags already held by the caller
      * @return A non-null, non-empty collection of users.
      */
     @RequestMapping(value = "/{id}", method = RequestMethod.GET)
     @HystrixCommand(fallbackMethod = "defaultUser")
-    public ResponseEntity<Entity> findById(@PathVariable("id") String id) {
+    public ResponseEntity<Entity> findById(@PathVariable("id") String id,
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
         logger.info(String.format("user-service findById() invoked:{} for {} ", userService.getClass().getName(), id));
         id = id.trim();
         Entity user;
@@ -89,8 +97,10 @@ public class UserController {
             logger.log(Level.WARNING, "Exception raised findById REST Call {0}", ex);
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
         }
-        return user != null ? new ResponseEntity<>(user, HttpStatus.OK)
-                : new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        if (user == null) {
+            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        }
+        return EntityTags.conditionalGet(user, ((BaseEntity<?>) user).getVersion(), ifNoneMatch);
     }
 
     /**
@@ -118,9 +128,10 @@ public class UserController {
      * Fallback method
      *
      * @param input
+     * @param ifNoneMatch
      * @return
      */
-    public ResponseEntity<Entity> defaultUser(String input) {
+    public ResponseEntity<Entity> defaultUser(String input, String ifNoneMatch) {
         logger.warning("Fallback method for user-service is being used.");
         return new ResponseEntity<>(null, HttpStatus.NO_CONTENT);
     }
@@ -135,5 +146,4 @@ public class UserController {
         logger.warning("Fallback method for user-service is being used.");
         return new ResponseEntity<>(null, HttpStatus.NO_CONTENT);
     }
-
 }
@@ -78,6 +78,25 @@ public class UserControllerIntegrationTests {
         assertEquals(HttpStatus.NO_CONTENT, responseE.getStatusCode());
     }
 
+    /**
+     * Test the conditional GET /v1/user/{id} API
+     */
+    @Test
+    public void testGetById_NotModified() {
+        ResponseEntity<Map> responseE = restTemplate.getForEntity("http://localhost:" + port + "/v1/user/1", Map.class);
+        String eTag = responseE.getHeaders().getETag();
+        assertNotNull(eTag);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(eTag);
+        HttpEntity<Object> entity = new HttpEntity<>(headers);
+        responseE = restTemplate.exchange("http://localhost:" + port + "/v1/user/1", HttpMethod.GET, entity, Map.class);
+
+        // Should return not modified as the user did not change since the first call
+        assertEquals(HttpStatus.NOT_MODIFIED, responseE.getStatusCode());
+        assertEquals(eTag, responseE.getHeaders().getETag());
+    }
+
     /**
      * Test the GET /v1/user API
      */
@@ -1,5 +1,8 @@
 package com.packtpub.mmj.zuul.server;
 
+import com.packtpub.mmj.common.JwtTokenServices;
+import com.packtpub.mmj.common.RegistrySnapshot;
+import com.packtpub.mmj.common.RegistrySnapshotRibbonConfiguration;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -20,13 +23,16 @@ import org.springframework.cloud.client.loadbalancer.LoadBalanced;
 import org.springframework.cloud.netflix.eureka.EnableEurekaClient;
 import org.springframework.cloud.netflix.feign.EnableFeignClients;
 import org.springframework.cloud.netflix.feign.FeignClient;
+import org.springframework.cloud.netflix.ribbon.RibbonClients;
 import org.springframework.cloud.netflix.zuul.EnableZuulProxy;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.oauth2.config.annotation.web.configuration.EnableResourceServer;
+import org.springframework.security.oauth2.provider.token.ResourceServerTokenServices;
 import org.springframework.stereotype.Component;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
@@ -44,6 +50,8 @@ import org.springframework.web.client.RestTemplate;
 @EnableResourceServer
 @Configuration
 @EnableFeignClients
+@Import(RegistrySnapshot.class)
+@RibbonClients(defaultConfiguration = RegistrySnapshotRibbonConfiguration.class)
 public class EdgeApp {
 
     @LoadBalanced
@@ -64,6 +72,23 @@ public class EdgeApp {
         return connectionFactory;
     }
 
+    @Value("${app.security.jwt.keys-uri}")
+    String tokenKeysUri;
+
+    @Value("${app.security.jwt.cache-size:10000}")
+    int tokenCacheSize;
+
+    /**
+     * Access tokens are verified locally against the keys of the security
+     * service instead of calling its /user endpoint on every request.
+     *
+     * @return
+     */
+    @Bean
+    public ResourceServerTokenServices tokenServices() {
+        return new JwtTokenServices(tokenKeysUri, tokenCacheSize);
+    }
+
     public static void main(String[] args) {
         SpringApplication.run(EdgeApp.class, args);
     }
@@ -1,5 +1,6 @@
 package com.brownfield.pss.book;
 
+import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.HashSet;
@@ -11,7 +12,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.orm.jpa.EntityScan;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
+import org.springframework.data.jpa.convert.threeten.Jsr310JpaConverters;
 
 import com.brownfield.pss.book.component.BookingComponent;
 import com.brownfield.pss.book.entity.BookingRecord;
@@ -23,6 +26,7 @@ import springfox.documentation.swagger2.annotations.EnableSwagger2;
 @EnableDiscoveryClient 
 @SpringBootApplication
 @EnableSwagger2
+@EntityScan(basePackageClasses = { Application.class, Jsr310JpaConverters.class })
 public class Application implements CommandLineRunner{
 	private static final Logger logger = LoggerFactory.getLogger(Application.class);
  	
@@ -39,14 +43,15 @@ public class Application implements CommandLineRunner{
 	@Override
 	public void run(String... strings) throws Exception {
 		
+		LocalDate date = LocalDate.of(2016, 1, 22);
 		Inventory[] invs = { 
-					new Inventory("BF100", "22-JAN-16", 100),
-					new Inventory("BF101", "22-JAN-16", 100),
-					new Inventory("BF102", "22-JAN-16", 100),
-					new Inventory("BF103", "22-JAN-16", 100),
-					new Inventory("BF104", "22-JAN-16", 100),
-					new Inventory("BF105", "22-JAN-16", 100),
-					new Inventory("BF106", "22-JAN-16", 100)};
+					new Inventory("BF100", date, 100),
+					new Inventory("BF101", date, 100),
+					new Inventory("BF102", date, 100),
+					new Inventory("BF103", date, 100),
+					new Inventory("BF104", date, 100),
+					new Inventory("BF105", date, 100),
+					new Inventory("BF106", date, 100)};
 		Arrays.asList(invs).forEach(inventory -> inventoryRepository.save(inventory));
 				
 		 
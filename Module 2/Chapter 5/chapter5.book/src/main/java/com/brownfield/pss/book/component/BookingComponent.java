@@ -1,5 +1,7 @@
 package com.brownfield.pss.book.component;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
@@ -11,9 +13,11 @@ import org.springframework.beans.factory.annotation.Autowired;
  
 import org.springframework.cloud.context.config.annotation.RefreshScope;
 import org.springframework.cloud.netflix.feign.EnableFeignClients;
+import org.springframework.dao.OptimisticLockingFailureException;
  
 import org.springframework.stereotype.Component;
  
+import com.brownfield.pss.common.FlightDates;
 import com.brownfield.pss.book.entity.BookingRecord;
 import com.brownfield.pss.book.entity.Inventory;
 import com.brownfield.pss.book.entity.Passenger;
@@ -25,6 +29,7 @@ import com.brownfield.pss.book.repository.InventoryRepository;
 @Component
 public class BookingComponent {
 	private static final Logger logger = LoggerFactory.getLogger(BookingComponent.class);
+	private static final int INVENTORY_ATTEMPTS = 3;
    
 	BookingRepository bookingRepository;
 	InventoryRepository inventoryRepository;
@@ -55,19 +60,14 @@ public class BookingComponent {
 		
 		logger.info("calling fares to get fare "+ fare);
 		//check fare
-		if (!record.getFare().equals(fare.getFare()))
+		if (!sameFare(record.getFare(), fare.getFare()))
 			throw new BookingException("fare is tampered");
 		logger.info("calling inventory to get inventory");
 		//check inventory
-		Inventory inventory = inventoryRepository.findByFlightNumberAndFlightDate(record.getFlightNumber(),record.getFlightDate());
-		if(!inventory.isAvailable(record.getPassengers().size())){
-			throw new BookingException("No more seats avaialble");
-		}
-		logger.info("successfully checked inventory" + inventory);
-		logger.info("calling inventory to update inventory");
-		//update inventory
-		inventory.setAvailable(inventory.getAvailable() - record.getPassengers().size());
-		inventoryRepository.saveAndFlush(inventory);
+		LocalDate flightDate = FlightDates.parseDate(record.getFlightDate());
+		if (flightDate == null)
+			throw new BookingException("invalid flight date " + record.getFlightDate());
+		Inventory inventory = reserveSeats(record.getFlightNumber(), flightDate, record.getPassengers().size());
 		logger.info("sucessfully updated inventory");
 		//save booking
 		record.setStatus(BookingStatus.BOOKING_CONFIRMED); 
@@ -82,11 +82,51 @@ public class BookingComponent {
 		bookingDetails.put("FLIGHT_NUMBER", record.getFlightNumber());
 		bookingDetails.put("FLIGHT_DATE", record.getFlightDate());
 		bookingDetails.put("NEW_INVENTORY", inventory.getBookableInventory());
+		bookingDetails.put("SEQUENCE", inventory.getVersion());
 		sender.send(bookingDetails);
 		logger.info("booking event successfully delivered "+ bookingDetails);
 		return id;
 	}
 
+	/**
+	 * Checks and takes the seats off the inventory of the flight. A concurrent
+	 * booking of the flight that wrote first bumps the inventory version, and
+	 * the seats are checked again against its inventory.
+	 */
+	private Inventory reserveSeats(String flightNumber, LocalDate flightDate, int seats) {
+		for (int attempt = 1;; attempt++) {
+			Inventory inventory = inventoryRepository.findByFlightNumberAndFlightDate(flightNumber, flightDate);
+			if (inventory == null || !inventory.isAvailable(seats)) {
+				throw new BookingException("No more seats avaialble");
+			}
+			logger.info("successfully checked inventory" + inventory);
+			logger.info("calling inventory to update inventory");
+			inventory.setAvailable(inventory.getAvailable() - seats);
+			try {
+				return inventoryRepository.saveAndFlush(inventory);
+			} catch (OptimisticLockingFailureException ex) {
+				if (attempt >= INVENTORY_ATTEMPTS) {
+					throw new BookingException("inventory of " + flightNumber + " is busy, please retry");
+				}
+				logger.info("inventory of " + flightNumber + " changed by another booking, checking again");
+			}
+		}
+	}
+
+	/**
+	 * Compares by value, so "101" and "101.00" are the same fare.
+	 */
+	private static boolean sameFare(String booked, BigDecimal quoted) {
+		if (booked == null || quoted == null) {
+			return false;
+		}
+		try {
+			return new BigDecimal(booked.trim()).compareTo(quoted) == 0;
+		} catch (NumberFormatException ex) {
+			return false;
+		}
+	}
+
 	public BookingRecord getBooking(long id) {
 		return bookingRepository.findOne(id);
 	}
@@ -1,9 +1,11 @@
 package com.brownfield.pss.book.component;
 
+import java.math.BigDecimal;
+
 public class Fare {
 	String flightNumber;
 	String flightDate;
-	String fare;
+	BigDecimal fare;
 	public String getFlightNumber() {
 		return flightNumber;
 	}
@@ -16,10 +18,10 @@ public class Fare {
 	public void setFlightDate(String flightDate) {
 		this.flightDate = flightDate;
 	}
-	public String getFare() {
+	public BigDecimal getFare() {
 		return fare;
 	}
-	public void setFare(String fare) {
+	public void setFare(BigDecimal fare) {
 		this.fare = fare;
 	}
 	@Override
@@ -1,10 +1,16 @@
 package com.brownfield.pss.book.entity;
 
+import java.time.LocalDate;
+
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import javax.persistence.Version;
 @Entity
+@Table(indexes = @Index(name = "inventory_flight_number_date", columnList = "flight_number,flight_date"))
 public class Inventory {
 
     @Id
@@ -12,10 +18,16 @@ public class Inventory {
 	long id;
     
     String flightNumber;
-    String flightDate;
+    LocalDate flightDate;
     int available;
+
+    /**
+     * Bumped on every change; sent with the inventory events as their sequence
+     */
+    @Version
+    long version;
     
-    public Inventory(String flightNumber, String flightDate, int available) {
+    public Inventory(String flightNumber, LocalDate flightDate, int available) {
 		super();
 		this.flightNumber = flightNumber;
 		this.flightDate = flightDate;
@@ -54,12 +66,12 @@ public class Inventory {
 	}
 
 
-	public String getFlightDate() {
+	public LocalDate getFlightDate() {
 		return flightDate;
 	}
 
 
-	public void setFlightDate(String flightDate) {
+	public void setFlightDate(LocalDate flightDate) {
 		this.flightDate = flightDate;
 	}
 
@@ -74,10 +86,20 @@ public class Inventory {
 	}
 
 
+	public long getVersion() {
+		return version;
+	}
+
+
+	public void setVersion(long version) {
+		this.version = version;
+	}
+
+
 	@Override
 	public String toString() {
 		return "Inventory [id=" + id + ", flightNumber=" + flightNumber + ", flightDate=" + flightDate + ", available="
-				+ available + "]";
+				+ available + ", version=" + version + "]";
 	}
     
     
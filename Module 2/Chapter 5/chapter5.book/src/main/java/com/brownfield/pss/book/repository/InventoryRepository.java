@@ -1,5 +1,6 @@
 package com.brownfield.pss.book.repository;
 
+import java.time.LocalDate;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 
@@ -7,6 +8,6 @@ import com.brownfield.pss.book.entity.Inventory;
 
 public interface InventoryRepository extends JpaRepository<Inventory, Long> {
 
-	Inventory findByFlightNumberAndFlightDate(String flightNumber, String flightDate);
+	Inventory findByFlightNumberAndFlightDate(String flightNumber, LocalDate flightDate);
 	
 }
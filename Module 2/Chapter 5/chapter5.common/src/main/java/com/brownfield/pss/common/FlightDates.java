@@ -0,0 +1,67 @@
+package com.brownfield.pss.common;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+/**
+ * Flight dates as exchanged between the BrownField services ("22-JAN-16")
+ * and flight times ("08:30").
+ */
+public final class FlightDates {
+	static final DateTimeFormatter DATE = new DateTimeFormatterBuilder().parseCaseInsensitive()
+			.appendPattern("dd-MMM-yy").toFormatter(Locale.ENGLISH);
+
+	private FlightDates() {
+	}
+
+	/**
+	 * @return the date, null if missing or malformed
+	 */
+	public static LocalDate parseDate(String date) {
+		if (date == null) {
+			return null;
+		}
+		try {
+			return LocalDate.parse(date.trim(), DATE);
+		} catch (DateTimeParseException ex) {
+			return null;
+		}
+	}
+
+	public static String formatDate(LocalDate date) {
+		return date == null ? null : DATE.format(date).toUpperCase(Locale.ENGLISH);
+	}
+
+	/**
+	 * @return minutes since midnight, -1 if missing or malformed
+	 */
+	public static int parseTime(String time) {
+		if (time == null) {
+			return -1;
+		}
+		try {
+			return LocalTime.parse(time.trim()).toSecondOfDay() / 60;
+		} catch (DateTimeParseException ex) {
+			return -1;
+		}
+	}
+
+	/**
+	 * Writes dates in the exchanged format.
+	 */
+	public static class Serializer extends JsonSerializer<LocalDate> {
+		@Override
+		public void serialize(LocalDate value, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+			gen.writeString(formatDate(value));
+		}
+	}
+}
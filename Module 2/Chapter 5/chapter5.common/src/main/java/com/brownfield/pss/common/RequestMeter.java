@@ -0,0 +1,205 @@
+package com.brownfield.pss.common;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Request rate and latency over a sliding window, for any controller of a
+ * service; publishing the figures is left to the service. The window is a ring of time buckets, each with a striped request
+ * count and a latency histogram. A bucket is replaced, never reset, when its
+ * slot comes round again, so recording takes no lock and loses no counts.
+ * Reads cover the completed buckets of the last window, so they lag by one
+ * bucket at most.
+ * <p>
+ * Latencies are kept in log-linear bins of eight per power of two, so a
+ * percentile is within 12.5% of the exact value.
+ */
+public final class RequestMeter {
+	private static final int LINEAR_BINS = 16;
+	private static final int SUB_BINS = 8;
+	private static final int SUB_BIN_BITS = 3;
+
+	/**
+	 * Up to 2^36 microseconds, about 19 hours; slower requests share one last bin
+	 */
+	private static final int MAX_EXPONENT = 36;
+	static final int BINS = LINEAR_BINS + (MAX_EXPONENT - 4) * SUB_BINS + 1;
+
+	private final LongSupplier nanoClock;
+	private final long bucketNanos;
+	private final int buckets;
+	private final AtomicReferenceArray<Bucket> ring;
+
+	/**
+	 * One minute in buckets of a second
+	 */
+	public RequestMeter() {
+		this(TimeUnit.MINUTES.toMillis(1), 60, System::nanoTime);
+	}
+
+	public RequestMeter(long windowMillis, int buckets) {
+		this(windowMillis, buckets, System::nanoTime);
+	}
+
+	RequestMeter(long windowMillis, int buckets, LongSupplier nanoClock) {
+		if (buckets <= 0 || windowMillis < buckets) {
+			throw new IllegalArgumentException("Cannot split " + windowMillis + " ms into " + buckets + " buckets");
+		}
+		this.nanoClock = nanoClock;
+		this.bucketNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis) / buckets;
+		this.buckets = buckets;
+		// One more slot than the window, for the bucket being filled
+		this.ring = new AtomicReferenceArray<>(buckets + 1);
+	}
+
+	/**
+	 * @return start time of a request, to pass to {@link #stop(long)}
+	 */
+	public long start() {
+		return nanoClock.getAsLong();
+	}
+
+	public void stop(long started) {
+		long now = nanoClock.getAsLong();
+		record(now, now - started);
+	}
+
+	/**
+	 * Counts a request that has just completed.
+	 */
+	public void record(long latencyNanos) {
+		record(nanoClock.getAsLong(), latencyNanos);
+	}
+
+	private void record(long now, long latencyNanos) {
+		Bucket bucket = bucket(epoch(now));
+		if (bucket != null) {
+			bucket.count.increment();
+			bucket.latencies.getAndIncrement(bin(TimeUnit.NANOSECONDS.toMicros(latencyNanos)));
+		}
+	}
+
+	/**
+	 * @return requests in the last window, or the part of it since the meter
+	 *         was created
+	 */
+	public long getCount() {
+		long count = 0;
+		long current = epoch(nanoClock.getAsLong());
+		for (long epoch = current - buckets; epoch < current; epoch++) {
+			Bucket bucket = completed(epoch);
+			if (bucket != null) {
+				count += bucket.count.sum();
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * @return requests of the last window, per minute. Until a window has
+	 *         passed this is the count so far, never extrapolated from the
+	 *         first few buckets.
+	 */
+	public double getRequestsPerMinute() {
+		return getCount() * (double) TimeUnit.MINUTES.toNanos(1) / (buckets * bucketNanos);
+	}
+
+	/**
+	 * @param percentile in (0, 100]
+	 * @return latency in milliseconds that the given share of the requests of
+	 *         the last window did not exceed, 0 without requests
+	 */
+	public double getLatencyPercentile(double percentile) {
+		long[] histogram = new long[BINS];
+		long total = 0;
+		long current = epoch(nanoClock.getAsLong());
+		for (long epoch = current - buckets; epoch < current; epoch++) {
+			Bucket bucket = completed(epoch);
+			if (bucket == null) {
+				continue;
+			}
+			for (int i = 0; i < BINS; i++) {
+				long count = bucket.latencies.get(i);
+				histogram[i] += count;
+				total += count;
+			}
+		}
+		long rank = (long) Math.ceil(total * Math.min(Math.max(percentile, 0), 100) / 100);
+		long seen = 0;
+		for (int i = 0; i < BINS && total > 0; i++) {
+			seen += histogram[i];
+			if (seen >= Math.max(rank, 1)) {
+				return upperBound(i) / 1000.0;
+			}
+		}
+		return 0;
+	}
+
+	private long epoch(long nanos) {
+		return Math.floorDiv(nanos, bucketNanos);
+	}
+
+	private int slot(long epoch) {
+		return (int) Math.floorMod(epoch, (long) ring.length());
+	}
+
+	/**
+	 * @return the bucket of the epoch, replacing the one of an earlier turn
+	 *         of the ring; null if the slot already moved past the epoch
+	 */
+	private Bucket bucket(long epoch) {
+		int slot = slot(epoch);
+		while (true) {
+			Bucket bucket = ring.get(slot);
+			if (bucket != null && bucket.epoch >= epoch) {
+				return bucket.epoch == epoch ? bucket : null;
+			}
+			Bucket next = new Bucket(epoch);
+			if (ring.compareAndSet(slot, bucket, next)) {
+				return next;
+			}
+		}
+	}
+
+	private Bucket completed(long epoch) {
+		Bucket bucket = ring.get(slot(epoch));
+		return bucket != null && bucket.epoch == epoch ? bucket : null;
+	}
+
+	static int bin(long micros) {
+		if (micros < LINEAR_BINS) {
+			return (int) Math.max(micros, 0);
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(micros);
+		if (exponent >= MAX_EXPONENT) {
+			return BINS - 1;
+		}
+		return LINEAR_BINS + (exponent - 4) * SUB_BINS
+				+ (int) ((micros >>> (exponent - SUB_BIN_BITS)) & (SUB_BINS - 1));
+	}
+
+	/**
+	 * @return highest latency in microseconds counted in the bin
+	 */
+	static long upperBound(int bin) {
+		if (bin < LINEAR_BINS) {
+			return bin;
+		}
+		int exponent = 4 + (bin - LINEAR_BINS) / SUB_BINS;
+		long lower = (long) (SUB_BINS + (bin - LINEAR_BINS) % SUB_BINS) << (exponent - SUB_BIN_BITS);
+		return lower + (1L << (exponent - SUB_BIN_BITS)) - 1;
+	}
+
+	private static final class Bucket {
+		final long epoch;
+		final LongAdder count = new LongAdder();
+		final AtomicLongArray latencies = new AtomicLongArray(BINS);
+
+		Bucket(long epoch) {
+			this.epoch = epoch;
+		}
+	}
+}
@@ -0,0 +1,116 @@
+package com.brownfield.pss.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class RequestMeterTest {
+	private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+	private static final long MILLISECOND = TimeUnit.MILLISECONDS.toNanos(1);
+
+	private AtomicLong now;
+	private RequestMeter meter;
+
+	@Before
+	public void setup() {
+		now = new AtomicLong(1000 * SECOND);
+		meter = new RequestMeter(60000, 60, now::get);
+	}
+
+	@Test
+	public void reportsRequestsPerMinuteOverTheSlidingWindow() {
+		for (int second = 0; second < 90; second++) {
+			for (int i = 0; i < 10; i++) {
+				meter.record(MILLISECOND);
+			}
+			now.addAndGet(SECOND);
+		}
+		assertEquals(600, meter.getCount());
+		assertEquals(600, meter.getRequestsPerMinute(), 0.001);
+
+		now.addAndGet(30 * SECOND);
+		assertEquals(300, meter.getCount());
+		now.addAndGet(30 * SECOND);
+		assertEquals(0, meter.getCount());
+	}
+
+	@Test
+	public void reportsTheCountSoFarUntilAWindowHasPassed() {
+		assertEquals(0, meter.getRequestsPerMinute(), 0.001);
+		meter.record(MILLISECOND);
+		now.addAndGet(SECOND);
+		assertEquals(1, meter.getRequestsPerMinute(), 0.001);
+		for (int second = 1; second < 10; second++) {
+			meter.record(MILLISECOND);
+			meter.record(MILLISECOND);
+			now.addAndGet(SECOND);
+		}
+		assertEquals(19, meter.getRequestsPerMinute(), 0.001);
+	}
+
+	@Test
+	public void scalesOtherWindowsToAMinute() {
+		meter = new RequestMeter(10000, 10, now::get);
+		for (int second = 0; second < 20; second++) {
+			meter.record(MILLISECOND);
+			now.addAndGet(SECOND);
+		}
+		assertEquals(60, meter.getRequestsPerMinute(), 0.001);
+	}
+
+	@Test
+	public void reportsLatencyPercentiles() {
+		for (int ms = 1; ms <= 100; ms++) {
+			meter.record(ms * MILLISECOND);
+		}
+		assertEquals(0, meter.getLatencyPercentile(50), 0.001);
+		now.addAndGet(SECOND);
+		assertEquals(50, meter.getLatencyPercentile(50), 50 * 0.125);
+		assertEquals(99, meter.getLatencyPercentile(99), 99 * 0.125);
+		assertEquals(100, meter.getLatencyPercentile(100), 100 * 0.125);
+	}
+
+	@Test
+	public void binsLatenciesWithinTheirPrecision() {
+		for (long micros = 0; micros < 10000000; micros = micros * 9 / 8 + 1) {
+			long upper = RequestMeter.upperBound(RequestMeter.bin(micros));
+			assertTrue(micros + " in bin up to " + upper, upper >= micros && upper <= micros * 1.125 + 1);
+		}
+		assertEquals(RequestMeter.BINS - 1, RequestMeter.bin(Long.MAX_VALUE));
+	}
+
+	@Test
+	public void losesNoCountsWhileBucketsRotate() throws InterruptedException {
+		int threads = 8;
+		int requests = 200000;
+		List<Thread> writers = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			writers.add(new Thread(() -> {
+				for (int i = 0; i < requests; i++) {
+					meter.record(MILLISECOND);
+				}
+			}));
+		}
+		writers.forEach(Thread::start);
+		Thread clock = new Thread(() -> {
+			for (int second = 0; second < 30; second++) {
+				now.addAndGet(SECOND);
+				Thread.yield();
+			}
+		});
+		clock.start();
+		for (Thread writer : writers) {
+			writer.join();
+		}
+		clock.join();
+		now.addAndGet(SECOND);
+		assertEquals(threads * requests, meter.getCount());
+	}
+}
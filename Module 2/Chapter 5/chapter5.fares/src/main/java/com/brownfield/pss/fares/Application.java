@@ -1,5 +1,7 @@
 package com.brownfield.pss.fares;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -10,7 +12,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.orm.jpa.EntityScan;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
+import org.springframework.data.jpa.convert.threeten.Jsr310JpaConverters;
 
 import com.brownfield.pss.fares.entity.Fare;
 import com.brownfield.pss.fares.repository.FaresRepository;
@@ -20,6 +24,7 @@ import springfox.documentation.swagger2.annotations.EnableSwagger2;
 @SpringBootApplication
 @EnableDiscoveryClient 
 @EnableSwagger2 
+@EntityScan(basePackageClasses = { Application.class, Jsr310JpaConverters.class })
 public class Application implements CommandLineRunner {
 	private static final Logger logger = LoggerFactory.getLogger(Application.class);
 
@@ -33,18 +38,19 @@ public class Application implements CommandLineRunner {
 	
 	@Override
 	public void run(String... strings) throws Exception {
+		LocalDate date = LocalDate.of(2016, 1, 22);
 		Fare[] fares = {
-		new Fare("BF100","22-JAN-16", "101"),
-		new Fare("BF101","22-JAN-16", "101"),
-		new Fare("BF102","22-JAN-16", "102"),
-		new Fare("BF103","22-JAN-16", "103"),
-		new Fare("BF104","22-JAN-16", "104"),
-		new Fare("BF105","22-JAN-16", "105"),
-		new Fare("BF106","22-JAN-16", "106")};
+		new Fare("BF100", date, new BigDecimal("101")),
+		new Fare("BF101", date, new BigDecimal("101")),
+		new Fare("BF102", date, new BigDecimal("102")),
+		new Fare("BF103", date, new BigDecimal("103")),
+		new Fare("BF104", date, new BigDecimal("104")),
+		new Fare("BF105", date, new BigDecimal("105")),
+		new Fare("BF106", date, new BigDecimal("106"))};
 		List<Fare> list = Arrays.stream(fares).collect(Collectors.toList());
 		list.forEach(fare -> faresRepository.save(fare)); 
 			
- 		logger.info("Result: " + faresRepository.getFareByFlightNumberAndFlightDate("BF101","22-JAN-16"));
+ 		logger.info("Result: " + faresRepository.getFareByFlightNumberAndFlightDate("BF101", date));
  
 	}
 	
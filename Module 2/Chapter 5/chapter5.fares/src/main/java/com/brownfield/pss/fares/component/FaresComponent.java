@@ -1,10 +1,13 @@
 package com.brownfield.pss.fares.component;
 
+import java.time.LocalDate;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import com.brownfield.pss.common.FlightDates;
 import com.brownfield.pss.fares.entity.Fare;
 import com.brownfield.pss.fares.repository.FaresRepository;
 
@@ -24,6 +27,10 @@ public class FaresComponent {
 
 	public Fare getFare(String flightNumber, String flightDate){ 
 		logger.info("Looking for fares flightNumber "+ flightNumber + " flightDate "+ flightDate);
-		return faresRepository.getFareByFlightNumberAndFlightDate(flightNumber, flightDate);
+		LocalDate date = FlightDates.parseDate(flightDate);
+		if (date == null) {
+			return null;
+		}
+		return faresRepository.getFareByFlightNumberAndFlightDate(flightNumber, date);
 	}
 }
@@ -1,19 +1,31 @@
 package com.brownfield.pss.fares.entity;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+import com.brownfield.pss.common.FlightDates;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
 
 @Entity
+@Table(indexes = @Index(name = "fare_flight_number_date", columnList = "flight_number,flight_date"))
 public class Fare {
 	@Id
 	@GeneratedValue(strategy=GenerationType.AUTO)
 	long id;
 	
 	String flightNumber;
-	String flightDate;
-	String fare;
+	LocalDate flightDate;
+	@Column(precision = 10, scale = 2)
+	BigDecimal fare;
 	
 	
 	public Fare() {
@@ -21,7 +33,7 @@ public class Fare {
 	}
 
 
-	public Fare(String flightNumber, String flightDate, String fare) {
+	public Fare(String flightNumber, LocalDate flightDate, BigDecimal fare) {
 		super();
 		this.flightNumber = flightNumber;
 		this.flightDate = flightDate;
@@ -49,22 +61,24 @@ public class Fare {
 	}
 
 
-	public String getFlightDate() {
+	@JsonSerialize(using = FlightDates.Serializer.class)
+	public LocalDate getFlightDate() {
 		return flightDate;
 	}
 
 
-	public void setFlightDate(String flightDate) {
+	public void setFlightDate(LocalDate flightDate) {
 		this.flightDate = flightDate;
 	}
 
 
-	public String getFare() {
+	@JsonSerialize(using = ToStringSerializer.class)
+	public BigDecimal getFare() {
 		return fare;
 	}
 
 
-	public void setFare(String fare) {
+	public void setFare(BigDecimal fare) {
 		this.fare = fare;
 	}
 
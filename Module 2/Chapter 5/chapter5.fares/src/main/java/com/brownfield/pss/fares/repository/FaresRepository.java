@@ -1,9 +1,11 @@
 package com.brownfield.pss.fares.repository;
 
+import java.time.LocalDate;
+
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import com.brownfield.pss.fares.entity.Fare;
 
 public interface FaresRepository extends JpaRepository<Fare,Long> {
-	Fare getFareByFlightNumberAndFlightDate(String flightNumber, String flightDate);
+	Fare getFareByFlightNumberAndFlightDate(String flightNumber, LocalDate flightDate);
 }
@@ -0,0 +1,73 @@
+package com.brownfield.pss.fares.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.context.PropertyPlaceholderAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.orm.jpa.EntityScan;
+import org.springframework.boot.test.SpringApplicationConfiguration;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.convert.threeten.Jsr310JpaConverters;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import com.brownfield.pss.fares.entity.Fare;
+
+/**
+ * Stores fares in an embedded H2 database, with only the JPA configuration of
+ * the service, and reads them back by flight and date.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringApplicationConfiguration(classes = FaresRepositoryTest.JpaConfiguration.class)
+public class FaresRepositoryTest {
+	static final LocalDate JAN_22 = LocalDate.of(2016, 1, 22);
+
+	@Configuration
+	@ImportAutoConfiguration({ DataSourceAutoConfiguration.class, HibernateJpaAutoConfiguration.class,
+			PropertyPlaceholderAutoConfiguration.class })
+	@EntityScan(basePackageClasses = { Fare.class, Jsr310JpaConverters.class })
+	@EnableJpaRepositories(basePackageClasses = FaresRepository.class)
+	static class JpaConfiguration {
+	}
+
+	@Autowired
+	private FaresRepository faresRepository;
+
+	@Before
+	public void setup() {
+		faresRepository.deleteAll();
+		faresRepository.save(Arrays.asList(
+				new Fare("BF101", JAN_22, new BigDecimal("101")),
+				new Fare("BF101", JAN_22.plusDays(1), new BigDecimal("99.50")),
+				new Fare("BF102", JAN_22, new BigDecimal("102.25"))));
+	}
+
+	@Test
+	public void findsFareOfFlightAndDate() {
+		Fare fare = faresRepository.getFareByFlightNumberAndFlightDate("BF101", JAN_22.plusDays(1));
+		assertEquals(JAN_22.plusDays(1), fare.getFlightDate());
+		assertEquals(0, new BigDecimal("99.5").compareTo(fare.getFare()));
+	}
+
+	@Test
+	public void keepsFareCents() {
+		Fare fare = faresRepository.getFareByFlightNumberAndFlightDate("BF102", JAN_22);
+		assertEquals(new BigDecimal("102.25"), fare.getFare());
+	}
+
+	@Test
+	public void noFareOfOtherDays() {
+		assertNull(faresRepository.getFareByFlightNumberAndFlightDate("BF102", JAN_22.plusDays(1)));
+	}
+}
@@ -1,5 +1,7 @@
 package com.brownfield.pss.search;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -9,7 +11,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.orm.jpa.EntityScan;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
+import org.springframework.data.jpa.convert.threeten.Jsr310JpaConverters;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 import com.brownfield.pss.search.entity.Fares;
 import com.brownfield.pss.search.entity.Flight;
@@ -21,6 +26,8 @@ import springfox.documentation.swagger2.annotations.EnableSwagger2;
 @SpringBootApplication
 @EnableDiscoveryClient 
 @EnableSwagger2 
+@EnableScheduling
+@EntityScan(basePackageClasses = { Application.class, Jsr310JpaConverters.class })
 public class Application implements CommandLineRunner {
 	private static final Logger logger = LoggerFactory.getLogger(Application.class);
 	
@@ -32,19 +39,21 @@ public class Application implements CommandLineRunner {
 	}
 	@Override
 	public void run(String... strings) throws Exception {
+		LocalDate date = LocalDate.of(2016, 1, 22);
 		List<Flight> flights = new ArrayList<>();
-		flights.add(new Flight("BF100", "SEA","SFO","22-JAN-16",new Fares("100", "USD"),new Inventory(100)));
-		flights.add(new Flight("BF101", "NYC","SFO","22-JAN-16",new Fares("101", "USD"),new Inventory(100)));
-		flights.add(new Flight("BF105", "NYC","SFO","22-JAN-16",new Fares("105", "USD"),new Inventory(100)));
-		flights.add(new Flight("BF106", "NYC","SFO","22-JAN-16",new Fares("106", "USD"),new Inventory(100)));
-		flights.add(new Flight("BF102", "CHI","SFO","22-JAN-16",new Fares("102", "USD"),new Inventory(100)));
-		flights.add(new Flight("BF103", "HOU","SFO","22-JAN-16",new Fares("103", "USD"),new Inventory(100)));
-		flights.add(new Flight("BF104", "LAX","SFO","22-JAN-16",new Fares("104", "USD"),new Inventory(100)));
+		flights.add(new Flight("BF100", "SEA","SFO",date,"07:00","09:10",new Fares(new BigDecimal("100"), "USD"),new Inventory(100)));
+		flights.add(new Flight("BF101", "NYC","SFO",date,"08:00","11:30",new Fares(new BigDecimal("101"), "USD"),new Inventory(100)));
+		flights.add(new Flight("BF105", "NYC","SFO",date,"13:00","16:30",new Fares(new BigDecimal("105"), "USD"),new Inventory(100)));
+		flights.add(new Flight("BF106", "NYC","SFO",date,"19:00","22:30",new Fares(new BigDecimal("106"), "USD"),new Inventory(100)));
+		flights.add(new Flight("BF102", "CHI","SFO",date,"11:00","13:40",new Fares(new BigDecimal("102"), "USD"),new Inventory(100)));
+		flights.add(new Flight("BF103", "HOU","SFO",date,"09:00","11:30",new Fares(new BigDecimal("103"), "USD"),new Inventory(100)));
+		flights.add(new Flight("BF104", "LAX","SFO",date,"10:00","11:25",new Fares(new BigDecimal("104"), "USD"),new Inventory(100)));
+		flights.add(new Flight("BF107", "NYC","CHI",date,"06:00","07:50",new Fares(new BigDecimal("60"), "USD"),new Inventory(100)));
 	    
 		flightRepository.save(flights);
 		
 		logger.info("Looking to load flights...");
-		for (Flight flight : flightRepository.findByOriginAndDestinationAndFlightDate("NYC", "SFO", "22-JAN-16")) {
+		for (Flight flight : flightRepository.findByOriginAndDestinationAndFlightDate("NYC", "SFO", date)) {
 	        logger.info(flight.toString());
 	    }
 	}
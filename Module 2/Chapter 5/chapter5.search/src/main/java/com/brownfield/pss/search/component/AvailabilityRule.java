@@ -0,0 +1,82 @@
+package com.brownfield.pss.search.component;
+
+import java.time.LocalDate;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A shutdown: no flights where all of its conditions hold. A condition left
+ * out (null) holds for any value.
+ */
+public final class AvailabilityRule {
+	private final String name;
+	private final String origin;
+	private final String destination;
+	private final String carrier;
+	private final LocalDate from;
+	private final LocalDate to;
+
+	/**
+	 * Window as epoch days, inclusive
+	 */
+	private final long fromDay;
+	private final long toDay;
+	private final LongAdder hits = new LongAdder();
+
+	public AvailabilityRule(String name, String origin, String destination, String carrier, LocalDate from,
+			LocalDate to) {
+		this.name = name;
+		this.origin = origin;
+		this.destination = destination;
+		this.carrier = carrier;
+		this.from = from;
+		this.to = to;
+		this.fromDay = from == null ? Long.MIN_VALUE : from.toEpochDay();
+		this.toDay = to == null ? Long.MAX_VALUE : to.toEpochDay();
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getOrigin() {
+		return origin;
+	}
+
+	public String getDestination() {
+		return destination;
+	}
+
+	public String getCarrier() {
+		return carrier;
+	}
+
+	public LocalDate getFrom() {
+		return from;
+	}
+
+	public LocalDate getTo() {
+		return to;
+	}
+
+	public boolean hasWindow() {
+		return from != null || to != null;
+	}
+
+	public long getHits() {
+		return hits.sum();
+	}
+
+	boolean covers(long epochDay) {
+		return epochDay >= fromDay && epochDay <= toDay;
+	}
+
+	void hit() {
+		hits.increment();
+	}
+
+	@Override
+	public String toString() {
+		return "AvailabilityRule [name=" + name + ", origin=" + origin + ", destination=" + destination
+				+ ", carrier=" + carrier + ", from=" + from + ", to=" + to + "]";
+	}
+}
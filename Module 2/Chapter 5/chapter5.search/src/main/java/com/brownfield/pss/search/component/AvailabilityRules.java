@@ -0,0 +1,230 @@
+package com.brownfield.pss.search.component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.cloud.context.config.annotation.RefreshScope;
+import org.springframework.stereotype.Component;
+
+import com.brownfield.pss.common.FlightDates;
+import com.brownfield.pss.search.model.FlightSnapshot;
+
+/**
+ * Route shutdowns, compiled into nested hash tables by origin, destination
+ * and carrier, with "*" standing for any. A lookup is at most eight hash
+ * probes plus the few rules of the matching cells, and allocates nothing.
+ * Being refresh scoped, the rules are compiled again whenever the
+ * configuration is refreshed.
+ * <p>
+ * Rules are read from {@code app.search.shutdown.rules}, separated by ";",
+ * for example
+ * {@code storm: origin=NYC from=22-JAN-16 to=24-JAN-16; grounded: carrier=XX}.
+ * Every origin listed in {@code orginairports.shutdown} is shut down as well.
+ */
+@RefreshScope
+@Component
+public class AvailabilityRules implements PublicMetrics {
+	private static final Logger logger = LoggerFactory.getLogger(AvailabilityRules.class);
+	private static final String ANY = "*";
+
+	private final List<AvailabilityRule> rules;
+	private final Map<String, Map<String, Map<String, AvailabilityRule[]>>> byOrigin;
+	private final boolean windows;
+
+	@Autowired
+	public AvailabilityRules(@Value("${orginairports.shutdown:}") String shutdownOrigins,
+			@Value("${app.search.shutdown.rules:}") String rules) {
+		List<AvailabilityRule> compiled = new ArrayList<>();
+		for (String origin : shutdownOrigins.split(",")) {
+			if (!origin.trim().isEmpty()) {
+				String code = origin.trim().toUpperCase(Locale.ROOT);
+				compiled.add(new AvailabilityRule("origin-" + code, code, null, null, null, null));
+			}
+		}
+		for (String rule : rules.split(";")) {
+			if (!rule.trim().isEmpty()) {
+				AvailabilityRule parsed = parse(rule.trim(), compiled.size());
+				if (parsed != null) {
+					compiled.add(parsed);
+				}
+			}
+		}
+		this.rules = Collections.unmodifiableList(compiled);
+		this.byOrigin = compile(compiled);
+		this.windows = compiled.stream().anyMatch(AvailabilityRule::hasWindow);
+		logger.info("Compiled " + compiled.size() + " availability rules");
+	}
+
+	public List<AvailabilityRule> getRules() {
+		return rules;
+	}
+
+	/**
+	 * @return the rule shutting down the whole route that day, null if open
+	 */
+	public AvailabilityRule closedRoute(String origin, String destination, long epochDay) {
+		return hit(match(origin, destination, null, epochDay));
+	}
+
+	/**
+	 * As {@link #closedRoute(String, String, long)}, reading the date only if
+	 * a rule has a window.
+	 */
+	public AvailabilityRule closedRoute(String origin, String destination, String flightDate) {
+		long epochDay = 0;
+		if (windows) {
+			LocalDate date = FlightDates.parseDate(flightDate);
+			if (date == null) {
+				// No flights on a date that cannot be read; nothing to shut down
+				return null;
+			}
+			epochDay = date.toEpochDay();
+		}
+		return closedRoute(origin, destination, epochDay);
+	}
+
+	/**
+	 * @return true if a rule shuts down the flight, including carrier rules
+	 */
+	public boolean isClosed(FlightSnapshot flight) {
+		long epochDay = flight.getFlightDate() == null ? 0 : flight.getFlightDate().toEpochDay();
+		return hit(match(flight.getOrigin(), flight.getDestination(), flight.getCarrier(), epochDay)) != null;
+	}
+
+	public boolean isClosed(Itinerary itinerary) {
+		for (FlightSnapshot leg : itinerary.getLegs()) {
+			if (isClosed(leg)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public Collection<Metric<?>> metrics() {
+		List<Metric<?>> metrics = new ArrayList<>(rules.size() + 1);
+		metrics.add(new Metric<>("search.rules.count", rules.size()));
+		for (AvailabilityRule rule : rules) {
+			metrics.add(new Metric<>("search.rules." + rule.getName() + ".hits", rule.getHits()));
+		}
+		return metrics;
+	}
+
+	private static AvailabilityRule hit(AvailabilityRule rule) {
+		if (rule != null) {
+			rule.hit();
+		}
+		return rule;
+	}
+
+	/**
+	 * @param carrier null to match only the rules for any carrier
+	 */
+	private AvailabilityRule match(String origin, String destination, String carrier, long epochDay) {
+		AvailabilityRule rule = origin == null ? null : match(byOrigin.get(origin), destination, carrier, epochDay);
+		return rule != null ? rule : match(byOrigin.get(ANY), destination, carrier, epochDay);
+	}
+
+	private static AvailabilityRule match(Map<String, Map<String, AvailabilityRule[]>> byDestination,
+			String destination, String carrier, long epochDay) {
+		if (byDestination == null) {
+			return null;
+		}
+		AvailabilityRule rule = destination == null ? null
+				: match(byDestination.get(destination), carrier, epochDay);
+		return rule != null ? rule : match(byDestination.get(ANY), carrier, epochDay);
+	}
+
+	private static AvailabilityRule match(Map<String, AvailabilityRule[]> byCarrier, String carrier,
+			long epochDay) {
+		if (byCarrier == null) {
+			return null;
+		}
+		AvailabilityRule rule = carrier == null ? null : match(byCarrier.get(carrier), epochDay);
+		return rule != null ? rule : match(byCarrier.get(ANY), epochDay);
+	}
+
+	private static AvailabilityRule match(AvailabilityRule[] rules, long epochDay) {
+		if (rules != null) {
+			for (AvailabilityRule rule : rules) {
+				if (rule.covers(epochDay)) {
+					return rule;
+				}
+			}
+		}
+		return null;
+	}
+
+	private static Map<String, Map<String, Map<String, AvailabilityRule[]>>> compile(List<AvailabilityRule> rules) {
+		Map<String, Map<String, Map<String, List<AvailabilityRule>>>> cells = new HashMap<>();
+		for (AvailabilityRule rule : rules) {
+			cells.computeIfAbsent(orAny(rule.getOrigin()), key -> new HashMap<>())
+					.computeIfAbsent(orAny(rule.getDestination()), key -> new HashMap<>())
+					.computeIfAbsent(orAny(rule.getCarrier()), key -> new ArrayList<>()).add(rule);
+		}
+		Map<String, Map<String, Map<String, AvailabilityRule[]>>> byOrigin = new HashMap<>();
+		cells.forEach((origin, byDestination) -> {
+			Map<String, Map<String, AvailabilityRule[]>> destinations = new HashMap<>();
+			byDestination.forEach((destination, byCarrier) -> {
+				Map<String, AvailabilityRule[]> carriers = new HashMap<>();
+				byCarrier.forEach((carrier, list) -> carriers.put(carrier,
+						list.toArray(new AvailabilityRule[list.size()])));
+				destinations.put(destination, carriers);
+			});
+			byOrigin.put(origin, destinations);
+		});
+		return byOrigin;
+	}
+
+	private static String orAny(String code) {
+		return code == null ? ANY : code;
+	}
+
+	/**
+	 * @return the rule, null if malformed
+	 */
+	static AvailabilityRule parse(String text, int index) {
+		String name = "rule" + index;
+		String conditions = text;
+		int colon = text.indexOf(':');
+		if (colon >= 0) {
+			name = text.substring(0, colon).trim();
+			conditions = text.substring(colon + 1);
+		}
+		Map<String, String> values = new HashMap<>();
+		for (String condition : conditions.trim().split("\\s+")) {
+			int equals = condition.indexOf('=');
+			if (equals <= 0 || equals == condition.length() - 1) {
+				logger.warn("Ignoring availability rule '" + text + "': cannot read '" + condition + "'");
+				return null;
+			}
+			values.put(condition.substring(0, equals).toLowerCase(Locale.ROOT),
+					condition.substring(equals + 1).toUpperCase(Locale.ROOT));
+		}
+		String fromText = values.remove("from");
+		String toText = values.remove("to");
+		LocalDate from = FlightDates.parseDate(fromText);
+		LocalDate to = FlightDates.parseDate(toText);
+		String origin = values.remove("origin");
+		String destination = values.remove("destination");
+		String carrier = values.remove("carrier");
+		if (!values.isEmpty() || name.isEmpty() || from == null && fromText != null || to == null && toText != null
+				|| from != null && to != null && to.isBefore(from)) {
+			logger.warn("Ignoring availability rule '" + text + "'");
+			return null;
+		}
+		return new AvailabilityRule(name, origin, destination, carrier, from, to);
+	}
+}
@@ -0,0 +1,407 @@
+package com.brownfield.pss.search.component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.brownfield.pss.common.FlightDates;
+import com.brownfield.pss.search.model.FlightSnapshot;
+
+/**
+ * Time-expanded graph of the flights, for itineraries with connections. Every
+ * flight is a node; it connects to the flights leaving its destination no
+ * sooner than the minimum connection time of that airport and no later than
+ * the maximum layover. The departures of every airport are kept sorted, so
+ * the connections of a flight are found by binary search.
+ *
+ * Searches keep, per flight, only the partial itineraries not beaten on fare,
+ * duration and number of legs together, and return the itineraries no other
+ * one beats on all three.
+ */
+@Component
+public class ConnectionGraph {
+	private static final Comparator<Node> BY_DEPARTURE = Comparator.comparingLong(node -> node.departs);
+	private static final Comparator<Label> BY_FARE = Comparator.<Label> comparingLong(label -> label.fare)
+			.thenComparingLong(Label::duration).thenComparingInt(label -> label.legs);
+
+	private final int minConnectionMinutes;
+	private final Map<String, Integer> airportMinConnectionMinutes;
+	private final int maxLayoverMinutes;
+	private final int maxLegs;
+
+	/**
+	 * Departures by airport, sorted by time; replaced, never changed
+	 */
+	private volatile Map<String, Node[]> departures = Collections.emptyMap();
+	private final ConcurrentHashMap<Long, Node> nodes = new ConcurrentHashMap<>();
+
+	public ConnectionGraph() {
+		this(45, "", 360, 3);
+	}
+
+	/**
+	 * @param airportMinConnectionMinutes per airport overrides, as in
+	 *            "SFO:60,ORD:75"
+	 */
+	@Autowired
+	public ConnectionGraph(@Value("${app.search.connections.min-connection-minutes:45}") int minConnectionMinutes,
+			@Value("${app.search.connections.airport-min-connection-minutes:}") String airportMinConnectionMinutes,
+			@Value("${app.search.connections.max-layover-minutes:360}") int maxLayoverMinutes,
+			@Value("${app.search.connections.max-legs:3}") int maxLegs) {
+		this.minConnectionMinutes = minConnectionMinutes;
+		this.airportMinConnectionMinutes = new HashMap<>();
+		for (String rule : airportMinConnectionMinutes.split(",")) {
+			String[] parts = rule.split(":");
+			if (parts.length == 2) {
+				this.airportMinConnectionMinutes.put(parts[0].trim(), Integer.valueOf(parts[1].trim()));
+			}
+		}
+		this.maxLayoverMinutes = maxLayoverMinutes;
+		this.maxLegs = maxLegs;
+	}
+
+	public synchronized void load(Collection<FlightSnapshot> flights) {
+		Map<String, List<Node>> built = new HashMap<>();
+		nodes.clear();
+		for (FlightSnapshot flight : flights) {
+			Node node = Node.of(flight);
+			if (node != null) {
+				nodes.put(node.id, node);
+				built.computeIfAbsent(node.origin, airport -> new ArrayList<>()).add(node);
+			}
+		}
+		Map<String, Node[]> next = new HashMap<>();
+		built.forEach((airport, list) -> {
+			Node[] sorted = list.toArray(new Node[list.size()]);
+			Arrays.sort(sorted, BY_DEPARTURE);
+			next.put(airport, sorted);
+		});
+		departures = next;
+	}
+
+	/**
+	 * Applies a changed flight. Seat and fare changes only swap the offer of
+	 * the node; a new flight, or one moved in time, is inserted into a copy of
+	 * the departures of its airport.
+	 */
+	public void update(FlightSnapshot flight) {
+		Node current = nodes.get(flight.getId());
+		Node changed = Node.of(flight);
+		if (current != null && changed != null && current.sameSlot(changed)) {
+			current.offer = changed.offer;
+			return;
+		}
+		synchronized (this) {
+			Map<String, Node[]> next = new HashMap<>(departures);
+			if (current != null) {
+				nodes.remove(current.id);
+				Node[] from = next.get(current.origin);
+				List<Node> remaining = new ArrayList<>(Arrays.asList(from));
+				remaining.remove(current);
+				next.put(current.origin, remaining.toArray(new Node[remaining.size()]));
+			}
+			if (changed != null) {
+				nodes.put(changed.id, changed);
+				Node[] from = next.getOrDefault(changed.origin, new Node[0]);
+				Node[] to = Arrays.copyOf(from, from.length + 1);
+				int i = lowerBound(from, changed.departs);
+				System.arraycopy(from, i, to, i + 1, from.length - i);
+				to[i] = changed;
+				next.put(changed.origin, to);
+			}
+			departures = next;
+		}
+	}
+
+	public int size() {
+		return nodes.size();
+	}
+
+	int minConnectionMinutes(String airport) {
+		Integer minutes = airportMinConnectionMinutes.get(airport);
+		return minutes == null ? minConnectionMinutes : minutes;
+	}
+
+	/**
+	 * @param flightDate departure date from the origin
+	 * @param maxLegs flights per itinerary, capped by the configured maximum
+	 * @param limit itineraries to return at most
+	 * @return itineraries no other one beats on fare, duration and legs, the
+	 *         cheapest first
+	 */
+	public List<Itinerary> search(String origin, String destination, LocalDate flightDate, int maxLegs, int limit) {
+		return search(origin, destination, flightDate, maxLegs, limit, flight -> false);
+	}
+
+	/**
+	 * As {@link #search(String, String, LocalDate, int, int)}, never taking
+	 * an excluded flight, so the limit counts only itineraries that can be
+	 * sold.
+	 *
+	 * @param excluded flights closed to sale, e.g. by an availability rule
+	 */
+	public List<Itinerary> search(String origin, String destination, LocalDate flightDate, int maxLegs, int limit,
+			Predicate<FlightSnapshot> excluded) {
+		Map<String, Node[]> departures = this.departures;
+		Node[] first = departures.get(origin);
+		if (flightDate == null || first == null || origin.equals(destination)) {
+			return Collections.emptyList();
+		}
+		int legs = Math.min(Math.max(maxLegs, 1), this.maxLegs);
+		long dayStart = flightDate.toEpochDay() * Node.MINUTES_PER_DAY;
+
+		Map<Node, List<Label>> labels = new HashMap<>();
+		List<Label> results = new ArrayList<>();
+		ArrayDeque<Label> queue = new ArrayDeque<>();
+		for (int i = lowerBound(first, dayStart); i < first.length && first[i].departs < dayStart
+				+ Node.MINUTES_PER_DAY; i++) {
+			Node node = first[i];
+			Offer offer = node.offer;
+			if (offer.isBookable() && (legs > 1 || node.destination.equals(destination))
+					&& !excluded.test(offer.flight)) {
+				enqueue(new Label(node, offer, null), labels, results, queue);
+			}
+		}
+		while (!queue.isEmpty()) {
+			Label label = queue.poll();
+			if (label.dominated || dominates(results, label)) {
+				continue;
+			}
+			Node node = label.node;
+			if (node.destination.equals(destination)) {
+				addResult(results, label);
+				continue;
+			}
+			if (label.legs == legs) {
+				continue;
+			}
+			Node[] next = departures.get(node.destination);
+			if (next == null) {
+				continue;
+			}
+			boolean lastLeg = label.legs + 1 == legs;
+			long earliest = node.arrives + minConnectionMinutes(node.destination);
+			long latest = node.arrives + maxLayoverMinutes;
+			for (int i = lowerBound(next, earliest); i < next.length && next[i].departs <= latest; i++) {
+				Node connection = next[i];
+				if (lastLeg && !connection.destination.equals(destination)) {
+					continue;
+				}
+				Offer offer = connection.offer;
+				if (!offer.isBookable() || !offer.flight.getCurrency().equals(label.currency())
+						|| label.visits(connection.destination) || excluded.test(offer.flight)) {
+					continue;
+				}
+				enqueue(new Label(connection, offer, label), labels, results, queue);
+			}
+		}
+
+		results.sort(BY_FARE);
+		List<Itinerary> itineraries = new ArrayList<>(Math.min(limit, results.size()));
+		for (Label result : results) {
+			if (itineraries.size() == limit) {
+				break;
+			}
+			itineraries.add(result.toItinerary());
+		}
+		return itineraries;
+	}
+
+	private static void enqueue(Label label, Map<Node, List<Label>> labels, List<Label> results,
+			ArrayDeque<Label> queue) {
+		if (dominates(results, label)) {
+			return;
+		}
+		List<Label> atNode = labels.computeIfAbsent(label.node, node -> new ArrayList<>(2));
+		for (Iterator<Label> it = atNode.iterator(); it.hasNext();) {
+			Label other = it.next();
+			if (other.fare <= label.fare && other.departs >= label.departs && other.legs <= label.legs) {
+				return;
+			}
+			if (label.fare <= other.fare && label.departs >= other.departs && label.legs <= other.legs) {
+				other.dominated = true;
+				it.remove();
+			}
+		}
+		atNode.add(label);
+		queue.add(label);
+	}
+
+	/**
+	 * @return true if a result is no worse than anything the label can still
+	 *         become; fare, duration and legs only grow along an itinerary
+	 */
+	private static boolean dominates(List<Label> results, Label label) {
+		long duration = label.duration();
+		for (Label result : results) {
+			if (result.fare <= label.fare && result.duration() <= duration && result.legs <= label.legs) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static void addResult(List<Label> results, Label label) {
+		long duration = label.duration();
+		results.removeIf(result -> label.fare <= result.fare && duration <= result.duration()
+				&& label.legs <= result.legs);
+		results.add(label);
+	}
+
+	/**
+	 * @return index of the first departure at or after the time
+	 */
+	private static int lowerBound(Node[] departures, long time) {
+		int low = 0;
+		int high = departures.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (departures[mid].departs < time) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Bookable state of a flight, swapped as a whole on inventory changes.
+	 */
+	static final class Offer {
+		final FlightSnapshot flight;
+
+		/**
+		 * In cents, -1 if the fare cannot be read
+		 */
+		final long fare;
+
+		Offer(FlightSnapshot flight) {
+			this.flight = flight;
+			this.fare = cents(flight.getFare());
+		}
+
+		boolean isBookable() {
+			return fare >= 0 && flight.getCurrency() != null && flight.isAvailable();
+		}
+
+		private static long cents(BigDecimal fare) {
+			try {
+				return fare == null ? -1 : fare.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+			} catch (ArithmeticException ex) {
+				return -1;
+			}
+		}
+	}
+
+	static final class Node {
+		static final long MINUTES_PER_DAY = 24 * 60;
+
+		final long id;
+		final String origin;
+		final String destination;
+
+		/**
+		 * Minutes since the epoch
+		 */
+		final long departs;
+		final long arrives;
+		volatile Offer offer;
+
+		private Node(FlightSnapshot flight, long departs, long arrives) {
+			this.id = flight.getId();
+			this.origin = flight.getOrigin();
+			this.destination = flight.getDestination();
+			this.departs = departs;
+			this.arrives = arrives;
+			this.offer = new Offer(flight);
+		}
+
+		/**
+		 * @return the node, null if the flight has no usable date or times
+		 */
+		static Node of(FlightSnapshot flight) {
+			LocalDate date = flight.getFlightDate();
+			int departure = FlightDates.parseTime(flight.getDepartureTime());
+			int arrival = FlightDates.parseTime(flight.getArrivalTime());
+			if (date == null || departure < 0 || arrival < 0 || flight.getOrigin() == null
+					|| flight.getDestination() == null) {
+				return null;
+			}
+			long departs = date.toEpochDay() * MINUTES_PER_DAY + departure;
+			// Arrival times are local to the day of departure; an earlier one is the next day
+			long arrives = date.toEpochDay() * MINUTES_PER_DAY + arrival
+					+ (arrival <= departure ? MINUTES_PER_DAY : 0);
+			return new Node(flight, departs, arrives);
+		}
+
+		boolean sameSlot(Node other) {
+			return origin.equals(other.origin) && destination.equals(other.destination) && departs == other.departs
+					&& arrives == other.arrives;
+		}
+	}
+
+	/**
+	 * Partial itinerary ending with the flight of the node.
+	 */
+	static final class Label {
+		final Node node;
+		final Offer offer;
+		final Label previous;
+		final long fare;
+		final long departs;
+		final int legs;
+		boolean dominated;
+
+		Label(Node node, Offer offer, Label previous) {
+			this.node = node;
+			this.offer = offer;
+			this.previous = previous;
+			this.fare = offer.fare + (previous == null ? 0 : previous.fare);
+			this.departs = previous == null ? node.departs : previous.departs;
+			this.legs = previous == null ? 1 : previous.legs + 1;
+		}
+
+		long duration() {
+			return node.arrives - departs;
+		}
+
+		String currency() {
+			return previous == null ? offer.flight.getCurrency() : previous.currency();
+		}
+
+		boolean visits(String airport) {
+			for (Label label = this; label != null; label = label.previous) {
+				if (label.node.origin.equals(airport)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		Itinerary toItinerary() {
+			FlightSnapshot[] flights = new FlightSnapshot[legs];
+			for (Label label = this; label != null; label = label.previous) {
+				flights[label.legs - 1] = label.offer.flight;
+			}
+			return new Itinerary(Arrays.asList(flights), BigDecimal.valueOf(fare, 2), offer.flight.getCurrency(),
+					duration());
+		}
+	}
+}
@@ -0,0 +1,194 @@
+package com.brownfield.pss.search.component;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Predicate;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.brownfield.pss.search.model.FlightSnapshot;
+
+/**
+ * Lowest bookable fare of every route on every day, sorted by day, so that
+ * the fares of a date range are a single sub-map view. A day is recomputed
+ * from the {@link RouteIndex} whenever one of its flights changes.
+ */
+@Component
+public class FareCalendar {
+	private final RouteIndex routeIndex;
+	private volatile ConcurrentHashMap<String, ConcurrentSkipListMap<LocalDate, LowestFare>> routes =
+			new ConcurrentHashMap<>();
+
+	@Autowired
+	public FareCalendar(RouteIndex routeIndex) {
+		this.routeIndex = routeIndex;
+	}
+
+	public void load(Collection<FlightSnapshot> flights) {
+		Map<String, Map<LocalDate, List<FlightSnapshot>>> days = new HashMap<>();
+		for (FlightSnapshot flight : flights) {
+			days.computeIfAbsent(routeKey(flight.getOrigin(), flight.getDestination()), key -> new HashMap<>())
+					.computeIfAbsent(flight.getFlightDate(), key -> new ArrayList<>()).add(flight);
+		}
+		ConcurrentHashMap<String, ConcurrentSkipListMap<LocalDate, LowestFare>> next = new ConcurrentHashMap<>();
+		days.forEach((route, byDate) -> {
+			ConcurrentSkipListMap<LocalDate, LowestFare> fares = new ConcurrentSkipListMap<>();
+			byDate.forEach((date, list) -> {
+				LowestFare lowest = lowest(list, null);
+				if (lowest != null) {
+					fares.put(date, lowest);
+				}
+			});
+			next.put(route, fares);
+		});
+		routes = next;
+	}
+
+	/**
+	 * Recomputes the day of the flight, once the route index holds its change.
+	 */
+	public void refresh(String origin, String destination, LocalDate flightDate) {
+		ConcurrentSkipListMap<LocalDate, LowestFare> fares = routes.computeIfAbsent(routeKey(origin, destination),
+				key -> new ConcurrentSkipListMap<>());
+		// The index is read under the lock, so the last refresh sees every change before it
+		synchronized (fares) {
+			LowestFare lowest = lowest(routeIndex.find(origin, destination, flightDate), null);
+			if (lowest == null) {
+				fares.remove(flightDate);
+			} else {
+				fares.put(flightDate, lowest);
+			}
+		}
+	}
+
+	/**
+	 * @return lowest fares of the days in [from, to], days without bookable
+	 *         flights left out
+	 */
+	public List<LowestFare> find(String origin, String destination, LocalDate from, LocalDate to) {
+		return find(origin, destination, from, to, null);
+	}
+
+	/**
+	 * Days whose flights might be excluded are recomputed from the route
+	 * index; without exclusions the days are read as stored.
+	 *
+	 * @param excluded flights no fare may come from, e.g. of a grounded
+	 *            carrier; null for none
+	 * @return lowest fares of the days in [from, to], days without bookable
+	 *         flights left out
+	 */
+	public List<LowestFare> find(String origin, String destination, LocalDate from, LocalDate to,
+			Predicate<FlightSnapshot> excluded) {
+		ConcurrentSkipListMap<LocalDate, LowestFare> fares = routes.get(routeKey(origin, destination));
+		if (fares == null || to.isBefore(from)) {
+			return Collections.emptyList();
+		}
+		NavigableMap<LocalDate, LowestFare> days = fares.subMap(from, true, to, true);
+		if (excluded == null) {
+			return new ArrayList<>(days.values());
+		}
+		List<LowestFare> open = new ArrayList<>(days.size());
+		for (LocalDate day : days.keySet()) {
+			LowestFare lowest = lowest(routeIndex.find(origin, destination, day), excluded);
+			if (lowest != null) {
+				open.add(lowest);
+			}
+		}
+		return open;
+	}
+
+	/**
+	 * @return the cheapest day in [from, to], on a tie the one nearest to
+	 *         {@code preferred}; null if no day has bookable flights
+	 */
+	public LowestFare cheapest(String origin, String destination, LocalDate from, LocalDate to, LocalDate preferred) {
+		return cheapest(origin, destination, from, to, preferred, null);
+	}
+
+	/**
+	 * @param excluded flights no fare may come from; null for none
+	 * @return the cheapest day in [from, to] with flights left, on a tie the
+	 *         one nearest to {@code preferred}; null if there is none
+	 */
+	public LowestFare cheapest(String origin, String destination, LocalDate from, LocalDate to, LocalDate preferred,
+			Predicate<FlightSnapshot> excluded) {
+		return cheapest(find(origin, destination, from, to, excluded), preferred);
+	}
+
+	/**
+	 * Lowest fares of flights read elsewhere than off the route index, e.g.
+	 * from the database while the index is loading.
+	 *
+	 * @param excluded flights no fare may come from; null for none
+	 * @return lowest fare of every day of the flights, by day; days without
+	 *         bookable flights left out
+	 */
+	public static List<LowestFare> byDay(Collection<FlightSnapshot> flights, Predicate<FlightSnapshot> excluded) {
+		TreeMap<LocalDate, List<FlightSnapshot>> days = new TreeMap<>();
+		for (FlightSnapshot flight : flights) {
+			days.computeIfAbsent(flight.getFlightDate(), key -> new ArrayList<>()).add(flight);
+		}
+		List<LowestFare> fares = new ArrayList<>(days.size());
+		for (List<FlightSnapshot> day : days.values()) {
+			LowestFare lowest = lowest(day, excluded);
+			if (lowest != null) {
+				fares.add(lowest);
+			}
+		}
+		return fares;
+	}
+
+	/**
+	 * @return the cheapest of the days, on a tie the one nearest to
+	 *         {@code preferred}; null if there is none
+	 */
+	public static LowestFare cheapest(Collection<LowestFare> days, LocalDate preferred) {
+		LowestFare cheapest = null;
+		long cheapestDistance = 0;
+		for (LowestFare day : days) {
+			long distance = Math.abs(day.getFlightDate().toEpochDay() - preferred.toEpochDay());
+			int compared = cheapest == null ? -1 : day.getFare().compareTo(cheapest.getFare());
+			if (compared < 0 || compared == 0 && distance < cheapestDistance) {
+				cheapest = day;
+				cheapestDistance = distance;
+			}
+		}
+		return cheapest;
+	}
+
+	private static LowestFare lowest(List<FlightSnapshot> flights, Predicate<FlightSnapshot> excluded) {
+		FlightSnapshot lowest = null;
+		BigDecimal lowestFare = null;
+		int bookable = 0;
+		for (FlightSnapshot flight : flights) {
+			BigDecimal fare = flight.getFare();
+			if (!flight.isAvailable() || fare == null || excluded != null && excluded.test(flight)) {
+				continue;
+			}
+			bookable++;
+			if (lowestFare == null || fare.compareTo(lowestFare) < 0) {
+				lowest = flight;
+				lowestFare = fare;
+			}
+		}
+		return lowest == null ? null
+				: new LowestFare(lowest.getFlightDate(), lowestFare, lowest.getCurrency(), lowest.getFlightNumber(),
+						bookable);
+	}
+
+	private static String routeKey(String origin, String destination) {
+		return origin + '|' + destination;
+	}
+}
@@ -0,0 +1,54 @@
+package com.brownfield.pss.search.component;
+
+import java.math.BigDecimal;
+
+import com.brownfield.pss.search.model.FlightSnapshot;
+
+/**
+ * Fare and seat limits of a flight search, and the shutdowns it honours.
+ */
+public final class FlightFilter {
+	/**
+	 * Bookable flights at any fare
+	 */
+	public static final FlightFilter AVAILABLE = new FlightFilter(null, 0, null);
+
+	private final BigDecimal maxFare;
+	private final int minSeats;
+	private final AvailabilityRules rules;
+
+	/**
+	 * @param maxFare highest fare, null for any
+	 * @param minSeats seats left at least; 0 for any bookable flight
+	 * @param rules shutdowns leaving flights out, null for none
+	 */
+	public FlightFilter(BigDecimal maxFare, int minSeats, AvailabilityRules rules) {
+		this.maxFare = maxFare;
+		this.minSeats = Math.max(minSeats, 0);
+		this.rules = rules;
+	}
+
+	public BigDecimal getMaxFare() {
+		return maxFare;
+	}
+
+	public int getMinSeats() {
+		return minSeats;
+	}
+
+	public boolean matches(FlightSnapshot flight) {
+		return flight.getSeats() >= minSeats && !aboveMaxFare(flight) && (rules == null || !rules.isClosed(flight));
+	}
+
+	/**
+	 * @return true if the fare is above the limit, or unknown while there is one
+	 */
+	boolean aboveMaxFare(FlightSnapshot flight) {
+		return maxFare != null && (flight.getFare() == null || flight.getFare().compareTo(maxFare) > 0);
+	}
+
+	@Override
+	public String toString() {
+		return "FlightFilter [maxFare=" + maxFare + ", minSeats=" + minSeats + "]";
+	}
+}
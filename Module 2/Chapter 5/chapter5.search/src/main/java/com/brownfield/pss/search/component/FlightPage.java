@@ -0,0 +1,92 @@
+package com.brownfield.pss.search.component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import com.brownfield.pss.search.model.FlightSnapshot;
+
+/**
+ * One page of the flights of a route, with the cursor of the next page.
+ */
+public final class FlightPage {
+	private static final FlightPage EMPTY = new FlightPage(Collections.emptyList(), null);
+
+	private final List<FlightSnapshot> flights;
+	private final String next;
+
+	private FlightPage(List<FlightSnapshot> flights, String next) {
+		this.flights = flights;
+		this.next = next;
+	}
+
+	public static FlightPage empty() {
+		return EMPTY;
+	}
+
+	/**
+	 * Sorts a copy of the flights, then reads the page from it.
+	 */
+	public static FlightPage of(Collection<FlightSnapshot> flights, FlightSort sort, FlightFilter filter,
+			String after, int limit) {
+		FlightSnapshot[] sorted = flights.toArray(new FlightSnapshot[flights.size()]);
+		Arrays.sort(sorted, sort.comparator());
+		return of(sorted, sort, filter, after, limit);
+	}
+
+	/**
+	 * Reads the page from flights already in the given order, starting after
+	 * the cursor and stopping at the first flight past the page.
+	 *
+	 * @param after cursor of the previous page, null for the first one
+	 * @return the page, empty if the cursor is malformed
+	 */
+	static FlightPage of(FlightSnapshot[] sorted, FlightSort sort, FlightFilter filter, String after, int limit) {
+		int from = 0;
+		if (after != null) {
+			FlightSnapshot probe = FlightSort.probe(after);
+			if (probe == null) {
+				return EMPTY;
+			}
+			int i = Arrays.binarySearch(sorted, probe, sort.comparator());
+			from = i >= 0 ? i + 1 : -(i + 1);
+		}
+		List<FlightSnapshot> page = new ArrayList<>(Math.max(Math.min(limit, sorted.length - from), 0));
+		String next = null;
+		for (int i = from; i < sorted.length && limit > 0; i++) {
+			FlightSnapshot flight = sorted[i];
+			if (sort == FlightSort.FARE && filter.aboveMaxFare(flight)) {
+				// Every later flight costs at least as much
+				break;
+			}
+			if (!filter.matches(flight)) {
+				continue;
+			}
+			if (page.size() == limit) {
+				next = FlightSort.cursor(page.get(limit - 1));
+				break;
+			}
+			page.add(flight);
+		}
+		return new FlightPage(Collections.unmodifiableList(page), next);
+	}
+
+	public List<FlightSnapshot> getFlights() {
+		return flights;
+	}
+
+	/**
+	 * @return cursor to pass as {@code after} for the next page, null if
+	 *         this is the last one
+	 */
+	public String getNext() {
+		return next;
+	}
+
+	@Override
+	public String toString() {
+		return "FlightPage [flights=" + flights.size() + ", next=" + next + "]";
+	}
+}
@@ -0,0 +1,78 @@
+package com.brownfield.pss.search.component;
+
+import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.Locale;
+
+import com.brownfield.pss.common.FlightDates;
+import com.brownfield.pss.search.model.FlightSnapshot;
+
+/**
+ * Orders of a page of flights. Every order ends with the flight id, so it is
+ * total and a page can resume right after the last flight of the previous one.
+ */
+public enum FlightSort {
+	FARE(Comparator.comparing(FlightSnapshot::getFare, Comparator.nullsLast(Comparator.<BigDecimal> naturalOrder()))
+			.thenComparingInt(FlightSort::departure)),
+	DEPARTURE(Comparator.comparingInt(FlightSort::departure)
+			.thenComparing(FlightSnapshot::getFare, Comparator.nullsLast(Comparator.<BigDecimal> naturalOrder())));
+
+	private static final char SEPARATOR = '_';
+
+	private final Comparator<FlightSnapshot> order;
+
+	private FlightSort(Comparator<FlightSnapshot> order) {
+		this.order = order.thenComparingLong(FlightSnapshot::getId);
+	}
+
+	public Comparator<FlightSnapshot> comparator() {
+		return order;
+	}
+
+	/**
+	 * @return the order named, case-insensitive; null if unknown
+	 */
+	public static FlightSort of(String name) {
+		try {
+			return name == null ? null : valueOf(name.trim().toUpperCase(Locale.ROOT));
+		} catch (IllegalArgumentException ex) {
+			return null;
+		}
+	}
+
+	/**
+	 * @return position of the flight in any order, as "fare_departure_id"
+	 */
+	static String cursor(FlightSnapshot flight) {
+		return (flight.getFare() == null ? "" : flight.getFare().toPlainString()) + SEPARATOR
+				+ (flight.getDepartureTime() == null ? "" : flight.getDepartureTime()) + SEPARATOR + flight.getId();
+	}
+
+	/**
+	 * @return a flight with the sort keys of the cursor, null if malformed
+	 */
+	static FlightSnapshot probe(String cursor) {
+		int first = cursor.indexOf(SEPARATOR);
+		int last = cursor.lastIndexOf(SEPARATOR);
+		if (first < 0 || first == last) {
+			return null;
+		}
+		try {
+			String fare = cursor.substring(0, first);
+			String departure = cursor.substring(first + 1, last);
+			return new FlightSnapshot(Long.parseLong(cursor.substring(last + 1)), null, null, null, null,
+					departure.isEmpty() ? null : departure, null, 0, fare.isEmpty() ? null : new BigDecimal(fare),
+					null, 0, 0);
+		} catch (NumberFormatException ex) {
+			return null;
+		}
+	}
+
+	/**
+	 * Minutes since midnight; flights without a time last
+	 */
+	private static int departure(FlightSnapshot flight) {
+		int minutes = FlightDates.parseTime(flight.getDepartureTime());
+		return minutes < 0 ? Integer.MAX_VALUE : minutes;
+	}
+}
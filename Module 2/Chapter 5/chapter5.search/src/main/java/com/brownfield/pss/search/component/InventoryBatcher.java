@@ -0,0 +1,193 @@
+package com.brownfield.pss.search.component;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.brownfield.pss.search.model.InventoryUpdate;
+
+/**
+ * Collects inventory updates and applies them in micro-batches. Updates for
+ * the same flight coalesce into the newest one while pending, and an update
+ * with a sequence not above the last one applied for its flight is dropped,
+ * so late or redelivered messages cannot roll the inventory back.
+ * <p>
+ * Delivery is at-most-once: a message is acknowledged once offered, before
+ * its batch is written, so updates still pending when the service stops are
+ * lost. Messages carry the absolute seat count, so the next update of the
+ * flight corrects a lost one. A failed batch is retried with the next ones,
+ * and an update failing {@code max-attempts} times is dropped and logged.
+ * The last sequence applied is kept until the flight has departed.
+ */
+@Component
+public class InventoryBatcher implements PublicMetrics {
+	private static final Logger logger = LoggerFactory.getLogger(InventoryBatcher.class);
+
+	private final Consumer<List<InventoryUpdate>> sink;
+	private final int maxBatch;
+	private final int maxAttempts;
+	private final Clock clock;
+
+	private final ConcurrentHashMap<String, InventoryUpdate> pending = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<String, InventoryUpdate> applied = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<String, Integer> attempts = new ConcurrentHashMap<>();
+
+	private final AtomicLong received = new AtomicLong();
+	private final AtomicLong coalesced = new AtomicLong();
+	private final AtomicLong stale = new AtomicLong();
+	private final AtomicLong batches = new AtomicLong();
+	private final AtomicLong written = new AtomicLong();
+	private final AtomicLong dropped = new AtomicLong();
+
+	@Autowired
+	public InventoryBatcher(SearchComponent searchComponent,
+			@Value("${app.search.inventory.max-batch:500}") int maxBatch,
+			@Value("${app.search.inventory.max-attempts:5}") int maxAttempts) {
+		this(searchComponent::applyInventory, maxBatch, maxAttempts, Clock.systemDefaultZone());
+	}
+
+	InventoryBatcher(Consumer<List<InventoryUpdate>> sink, int maxBatch, int maxAttempts, Clock clock) {
+		this.sink = sink;
+		this.maxBatch = maxBatch;
+		this.maxAttempts = maxAttempts;
+		this.clock = clock;
+	}
+
+	public void offer(InventoryUpdate update) {
+		received.incrementAndGet();
+		if (isStale(update)) {
+			stale.incrementAndGet();
+			return;
+		}
+		pending.merge(update.key(), update, (current, next) -> {
+			coalesced.incrementAndGet();
+			if (next.supersedes(current)) {
+				return next;
+			}
+			stale.incrementAndGet();
+			return current;
+		});
+		if (pending.size() >= maxBatch) {
+			drain();
+		}
+	}
+
+	/**
+	 * Applies the pending updates as one batch.
+	 *
+	 * @return number of updates applied
+	 */
+	@Scheduled(fixedDelayString = "${app.search.inventory.batch-interval-ms:200}")
+	public synchronized int drain() {
+		List<InventoryUpdate> batch = new ArrayList<>(Math.min(pending.size(), maxBatch));
+		for (String key : pending.keySet()) {
+			InventoryUpdate update = pending.remove(key);
+			if (update == null) {
+				continue;
+			}
+			if (isStale(update)) {
+				stale.incrementAndGet();
+			} else {
+				batch.add(update);
+			}
+		}
+		if (batch.isEmpty()) {
+			return 0;
+		}
+		try {
+			sink.accept(batch);
+		} catch (RuntimeException ex) {
+			logger.error("Cannot apply " + batch.size() + " inventory updates, retrying with the next batch", ex);
+			for (InventoryUpdate update : batch) {
+				if (attempts.merge(update.key(), 1, Integer::sum) >= maxAttempts) {
+					attempts.remove(update.key());
+					dropped.incrementAndGet();
+					logger.error("Dropping " + update + " after " + maxAttempts + " attempts");
+				} else {
+					pending.merge(update.key(), update, (current, next) -> current.supersedes(next) ? current : next);
+				}
+			}
+			return 0;
+		}
+		for (InventoryUpdate update : batch) {
+			attempts.remove(update.key());
+			if (update.isSequenced()) {
+				applied.merge(update.key(), update, (current, next) -> next.supersedes(current) ? next : current);
+			}
+		}
+		batches.incrementAndGet();
+		written.addAndGet(batch.size());
+		return batch.size();
+	}
+
+	/**
+	 * Forgets the last sequence applied for the flights that have departed,
+	 * whose inventory no longer changes.
+	 *
+	 * @return number of flights forgotten
+	 */
+	@Scheduled(fixedDelayString = "${app.search.inventory.evict-interval-ms:3600000}")
+	public int evictDeparted() {
+		// A day of margin for the time zones of the flights
+		LocalDate departed = LocalDate.now(clock).minusDays(1);
+		int evicted = 0;
+		for (InventoryUpdate update : applied.values()) {
+			if (update.getFlightDate().isBefore(departed) && applied.remove(update.key(), update)) {
+				evicted++;
+			}
+		}
+		return evicted;
+	}
+
+	public int getApplied() {
+		return applied.size();
+	}
+
+	public long getDropped() {
+		return dropped.get();
+	}
+
+	public int getPending() {
+		return pending.size();
+	}
+
+	public long getStale() {
+		return stale.get();
+	}
+
+	public long getCoalesced() {
+		return coalesced.get();
+	}
+
+	@Override
+	public Collection<Metric<?>> metrics() {
+		List<Metric<?>> metrics = new ArrayList<>();
+		metrics.add(new Metric<>("search.inventory.received", received.get()));
+		metrics.add(new Metric<>("search.inventory.coalesced", coalesced.get()));
+		metrics.add(new Metric<>("search.inventory.stale", stale.get()));
+		metrics.add(new Metric<>("search.inventory.batches", batches.get()));
+		metrics.add(new Metric<>("search.inventory.applied", written.get()));
+		metrics.add(new Metric<>("search.inventory.pending", pending.size()));
+		metrics.add(new Metric<>("search.inventory.dropped", dropped.get()));
+		return metrics;
+	}
+
+	private boolean isStale(InventoryUpdate update) {
+		InventoryUpdate last = applied.get(update.key());
+		return update.isSequenced() && last != null && update.getSequence() <= last.getSequence();
+	}
+}
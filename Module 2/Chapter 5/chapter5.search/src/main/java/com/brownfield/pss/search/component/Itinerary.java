@@ -0,0 +1,54 @@
+package com.brownfield.pss.search.component;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+
+import com.brownfield.pss.search.model.FlightSnapshot;
+
+/**
+ * Flights taken one after the other from the origin to the destination.
+ */
+public final class Itinerary {
+	private final List<FlightSnapshot> legs;
+	private final BigDecimal fare;
+	private final String currency;
+	private final long durationMinutes;
+
+	public Itinerary(List<FlightSnapshot> legs, BigDecimal fare, String currency, long durationMinutes) {
+		this.legs = Collections.unmodifiableList(legs);
+		this.fare = fare;
+		this.currency = currency;
+		this.durationMinutes = durationMinutes;
+	}
+
+	public List<FlightSnapshot> getLegs() {
+		return legs;
+	}
+
+	public int getStops() {
+		return legs.size() - 1;
+	}
+
+	public BigDecimal getFare() {
+		return fare;
+	}
+
+	public String getCurrency() {
+		return currency;
+	}
+
+	public long getDurationMinutes() {
+		return durationMinutes;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder route = new StringBuilder();
+		for (FlightSnapshot leg : legs) {
+			route.append(route.length() == 0 ? "" : ",").append(leg.getFlightNumber());
+		}
+		return "Itinerary [legs=" + route + ", fare=" + fare + ", currency=" + currency + ", durationMinutes="
+				+ durationMinutes + "]";
+	}
+}
@@ -0,0 +1,57 @@
+package com.brownfield.pss.search.component;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import com.brownfield.pss.common.FlightDates;
+
+/**
+ * Cheapest bookable flight of a route on one day.
+ */
+public final class LowestFare {
+	private final LocalDate flightDate;
+	private final BigDecimal fare;
+	private final String currency;
+	private final String flightNumber;
+	private final int flights;
+
+	public LowestFare(LocalDate flightDate, BigDecimal fare, String currency, String flightNumber, int flights) {
+		this.flightDate = flightDate;
+		this.fare = fare;
+		this.currency = currency;
+		this.flightNumber = flightNumber;
+		this.flights = flights;
+	}
+
+	@JsonSerialize(using = FlightDates.Serializer.class)
+	public LocalDate getFlightDate() {
+		return flightDate;
+	}
+
+	public BigDecimal getFare() {
+		return fare;
+	}
+
+	public String getCurrency() {
+		return currency;
+	}
+
+	public String getFlightNumber() {
+		return flightNumber;
+	}
+
+	/**
+	 * @return bookable flights of the route that day
+	 */
+	public int getFlights() {
+		return flights;
+	}
+
+	@Override
+	public String toString() {
+		return "LowestFare [flightDate=" + flightDate + ", fare=" + fare + ", currency=" + currency
+				+ ", flightNumber=" + flightNumber + ", flights=" + flights + "]";
+	}
+}
@@ -2,6 +2,8 @@ package com.brownfield.pss.search.component;
 
 import java.util.Map;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cloud.stream.annotation.EnableBinding;
 import org.springframework.cloud.stream.annotation.Input;
@@ -9,13 +11,16 @@ import org.springframework.integration.annotation.ServiceActivator;
 import org.springframework.messaging.MessageChannel;
 import org.springframework.stereotype.Component;
 
+import com.brownfield.pss.search.model.InventoryUpdate;
+
 
 @Component
 @EnableBinding(SearchSink.class)
 public class Receiver {
+	private static final Logger logger = LoggerFactory.getLogger(Receiver.class);
 	
 	@Autowired
-	SearchComponent searchComponent;
+	InventoryBatcher inventoryBatcher;
  	
 	public Receiver(){
 		
@@ -36,9 +41,20 @@ public class Receiver {
        //call repository and update the fare for the given flight
     }	**/
 	
+		/**
+		 * Malformed messages are logged and dropped; thrown back, they
+		 * would be redelivered forever.
+		 */
 		@ServiceActivator(inputChannel = SearchSink.INVENTORYQ)
 		public void accept(Map<String,Object> fare){
-		       searchComponent.updateInventory((String)fare.get("FLIGHT_NUMBER"),(String)fare.get("FLIGHT_DATE"),(int)fare.get("NEW_INVENTORY"));
+			InventoryUpdate update;
+			try {
+				update = InventoryUpdate.of(fare);
+			} catch (IllegalArgumentException ex) {
+				logger.warn("Skipping inventory message: " + ex.getMessage());
+				return;
+			}
+			inventoryBatcher.offer(update);
 		}	
 }
 
@@ -0,0 +1,161 @@
+package com.brownfield.pss.search.component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.stereotype.Component;
+
+import com.brownfield.pss.search.model.FlightSnapshot;
+
+/**
+ * Flights by (origin, destination, flightDate), held as immutable snapshots.
+ * Every route maps to an unmodifiable list which is replaced, never changed,
+ * so readers need no locking and always see a consistent list. Each route
+ * also keeps its flights presorted in every {@link FlightSort}, so a page is
+ * a binary search and a scan of the page.
+ */
+@Component
+public class RouteIndex {
+	private volatile ConcurrentHashMap<RouteKey, Route> routes = new ConcurrentHashMap<>();
+	private volatile ConcurrentHashMap<String, FlightSnapshot> flights = new ConcurrentHashMap<>();
+	private volatile boolean loaded;
+
+	public void load(Iterable<FlightSnapshot> flights) {
+		Map<RouteKey, List<FlightSnapshot>> built = new HashMap<>();
+		ConcurrentHashMap<String, FlightSnapshot> byFlight = new ConcurrentHashMap<>();
+		for (FlightSnapshot flight : flights) {
+			built.computeIfAbsent(RouteKey.of(flight), key -> new ArrayList<>()).add(flight);
+			byFlight.put(flightKey(flight.getFlightNumber(), flight.getFlightDate()), flight);
+		}
+		ConcurrentHashMap<RouteKey, Route> next = new ConcurrentHashMap<>(built.size() * 2);
+		built.forEach((key, list) -> next.put(key, new Route(list)));
+		routes = next;
+		this.flights = byFlight;
+		loaded = true;
+	}
+
+	public boolean isLoaded() {
+		return loaded;
+	}
+
+	public List<FlightSnapshot> find(String origin, String destination, LocalDate flightDate) {
+		Route route = routes.get(new RouteKey(origin, destination, flightDate));
+		return route == null ? Collections.emptyList() : route.flights;
+	}
+
+	/**
+	 * @param after cursor of the previous page, null for the first one
+	 * @return the flights of the route matching the filter, at most
+	 *         {@code limit} of them
+	 */
+	public FlightPage page(String origin, String destination, LocalDate flightDate, FlightSort sort,
+			FlightFilter filter, String after, int limit) {
+		Route route = routes.get(new RouteKey(origin, destination, flightDate));
+		return route == null ? FlightPage.empty() : FlightPage.of(route.sorted[sort.ordinal()], sort, filter, after,
+				limit);
+	}
+
+	/**
+	 * @return the flight, null if not indexed
+	 */
+	public FlightSnapshot get(String flightNumber, LocalDate flightDate) {
+		return flights.get(flightKey(flightNumber, flightDate));
+	}
+
+	/**
+	 * Adds the flight, or replaces the snapshot with the same id on its route.
+	 */
+	public void put(FlightSnapshot flight) {
+		routes.compute(RouteKey.of(flight), (key, current) -> {
+			List<FlightSnapshot> next = current == null ? new ArrayList<>(1) : new ArrayList<>(current.flights);
+			int i = indexOf(next, flight.getId());
+			if (i < 0) {
+				next.add(flight);
+			} else {
+				next.set(i, flight);
+			}
+			return new Route(next);
+		});
+		flights.put(flightKey(flight.getFlightNumber(), flight.getFlightDate()), flight);
+	}
+
+	public int size() {
+		int size = 0;
+		for (Route route : routes.values()) {
+			size += route.flights.size();
+		}
+		return size;
+	}
+
+	private static String flightKey(String flightNumber, LocalDate flightDate) {
+		return flightNumber + '|' + flightDate;
+	}
+
+	private static int indexOf(List<FlightSnapshot> flights, long id) {
+		for (int i = 0; i < flights.size(); i++) {
+			if (flights.get(i).getId() == id) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static final class Route {
+		final List<FlightSnapshot> flights;
+		final FlightSnapshot[][] sorted;
+
+		Route(List<FlightSnapshot> flights) {
+			this.flights = Collections.unmodifiableList(flights);
+			FlightSort[] sorts = FlightSort.values();
+			this.sorted = new FlightSnapshot[sorts.length][];
+			for (FlightSort sort : sorts) {
+				FlightSnapshot[] byOrder = flights.toArray(new FlightSnapshot[flights.size()]);
+				Arrays.sort(byOrder, sort.comparator());
+				sorted[sort.ordinal()] = byOrder;
+			}
+		}
+	}
+
+	static final class RouteKey {
+		private final String origin;
+		private final String destination;
+		private final LocalDate flightDate;
+		private final int hash;
+
+		RouteKey(String origin, String destination, LocalDate flightDate) {
+			this.origin = origin;
+			this.destination = destination;
+			this.flightDate = flightDate;
+			this.hash = Objects.hash(origin, destination, flightDate);
+		}
+
+		static RouteKey of(FlightSnapshot flight) {
+			return new RouteKey(flight.getOrigin(), flight.getDestination(), flight.getFlightDate());
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof RouteKey)) {
+				return false;
+			}
+			RouteKey other = (RouteKey) obj;
+			return Objects.equals(origin, other.origin) && Objects.equals(destination, other.destination)
+					&& Objects.equals(flightDate, other.flightDate);
+		}
+	}
+}
@@ -0,0 +1,205 @@
+package com.brownfield.pss.search.component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+import com.brownfield.pss.search.controller.SearchQuery;
+import com.brownfield.pss.search.model.FlightSnapshot;
+
+/**
+ * Search results by normalized {@link SearchQuery}, bounded in size and age.
+ * Every entry is also indexed by the flights it was computed from, so an
+ * inventory change drops exactly the results involving that flight. Hits, misses and
+ * invalidations are published on the actuator metrics endpoint.
+ */
+@Component
+public class SearchCache implements PublicMetrics {
+	private final int maxEntries;
+	private final long ttlMillis;
+	private final LongSupplier clock;
+
+	private final LinkedHashMap<SearchQuery, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private final Map<String, Set<SearchQuery>> queriesByFlight = new HashMap<>();
+
+	/**
+	 * Bumped by every invalidation; a result read before an invalidation is
+	 * not cached, it may already be stale
+	 */
+	private long generation;
+
+	private long hits;
+	private long misses;
+	private long invalidations;
+	private long evictions;
+
+	public SearchCache() {
+		this(1000, 60000);
+	}
+
+	@Autowired
+	public SearchCache(@Value("${app.search.cache.max-entries:1000}") int maxEntries,
+			@Value("${app.search.cache.ttl-ms:60000}") long ttlMillis) {
+		this(maxEntries, ttlMillis, System::currentTimeMillis);
+	}
+
+	SearchCache(int maxEntries, long ttlMillis, LongSupplier clock) {
+		this.maxEntries = maxEntries;
+		this.ttlMillis = ttlMillis;
+		this.clock = clock;
+	}
+
+	/**
+	 * @return the cached result, null on a miss
+	 */
+	public synchronized List<FlightSnapshot> get(SearchQuery query) {
+		Entry entry = entries.get(query);
+		if (entry != null && entry.expiresAt <= clock.getAsLong()) {
+			remove(query, entry);
+			entry = null;
+		}
+		if (entry == null) {
+			misses++;
+			return null;
+		}
+		hits++;
+		return entry.result;
+	}
+
+	/**
+	 * @return stamp to pass to {@link #put} for a result read from now on
+	 */
+	public synchronized long generation() {
+		return generation;
+	}
+
+	/**
+	 * Caches the result unless a flight was invalidated since {@code generation}.
+	 *
+	 * @param result flights to return on a hit
+	 * @param flights flights the result was computed from, including those
+	 *            filtered out, whose change invalidates the result
+	 */
+	public synchronized void put(SearchQuery query, List<FlightSnapshot> result, Collection<FlightSnapshot> flights,
+			long generation) {
+		if (maxEntries <= 0 || generation != this.generation) {
+			return;
+		}
+		Entry previous = entries.get(query);
+		if (previous != null) {
+			remove(query, previous);
+		}
+		Entry entry = new Entry(result, flights, clock.getAsLong() + ttlMillis);
+		entries.put(query, entry);
+		for (String flight : entry.flightKeys) {
+			queriesByFlight.computeIfAbsent(flight, key -> new HashSet<>()).add(query);
+		}
+		Iterator<Map.Entry<SearchQuery, Entry>> eldest = entries.entrySet().iterator();
+		while (entries.size() > maxEntries) {
+			Map.Entry<SearchQuery, Entry> next = eldest.next();
+			eldest.remove();
+			unindex(next.getKey(), next.getValue());
+			evictions++;
+		}
+	}
+
+	/**
+	 * Drops the results involving the given flight.
+	 *
+	 * @return number of results dropped
+	 */
+	public synchronized int invalidate(String flightNumber, LocalDate flightDate) {
+		generation++;
+		Set<SearchQuery> queries = queriesByFlight.remove(flightKey(flightNumber, flightDate));
+		if (queries == null) {
+			return 0;
+		}
+		for (SearchQuery query : queries) {
+			Entry entry = entries.remove(query);
+			if (entry != null) {
+				unindex(query, entry);
+			}
+		}
+		invalidations += queries.size();
+		return queries.size();
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	public synchronized long getInvalidations() {
+		return invalidations;
+	}
+
+	@Override
+	public Collection<Metric<?>> metrics() {
+		List<Metric<?>> metrics = new ArrayList<>();
+		synchronized (this) {
+			long lookups = hits + misses;
+			metrics.add(new Metric<>("search.cache.size", entries.size()));
+			metrics.add(new Metric<>("search.cache.hits", hits));
+			metrics.add(new Metric<>("search.cache.misses", misses));
+			metrics.add(new Metric<>("search.cache.hit-ratio", lookups == 0 ? 0.0 : (double) hits / lookups));
+			metrics.add(new Metric<>("search.cache.invalidations", invalidations));
+			metrics.add(new Metric<>("search.cache.evictions", evictions));
+		}
+		return metrics;
+	}
+
+	private void remove(SearchQuery query, Entry entry) {
+		entries.remove(query);
+		unindex(query, entry);
+	}
+
+	private void unindex(SearchQuery query, Entry entry) {
+		for (String flight : entry.flightKeys) {
+			Set<SearchQuery> queries = queriesByFlight.get(flight);
+			if (queries != null && queries.remove(query) && queries.isEmpty()) {
+				queriesByFlight.remove(flight);
+			}
+		}
+	}
+
+	static String flightKey(String flightNumber, LocalDate flightDate) {
+		return flightNumber + '|' + flightDate;
+	}
+
+	private static final class Entry {
+		private final List<FlightSnapshot> result;
+		private final String[] flightKeys;
+		private final long expiresAt;
+
+		Entry(List<FlightSnapshot> result, Collection<FlightSnapshot> flights, long expiresAt) {
+			this.result = result;
+			this.expiresAt = expiresAt;
+			this.flightKeys = new String[flights.size()];
+			int i = 0;
+			for (FlightSnapshot flight : flights) {
+				flightKeys[i++] = flightKey(flight.getFlightNumber(), flight.getFlightDate());
+			}
+		}
+	}
+}
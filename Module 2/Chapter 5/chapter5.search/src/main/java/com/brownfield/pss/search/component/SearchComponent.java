@@ -1,50 +1,221 @@
 package com.brownfield.pss.search.component;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Predicate;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
 import org.springframework.stereotype.Component;
 
+import com.brownfield.pss.common.FlightDates;
 import com.brownfield.pss.search.controller.SearchQuery;
 import com.brownfield.pss.search.entity.Flight;
-import com.brownfield.pss.search.entity.Inventory;
+import com.brownfield.pss.search.model.FlightSnapshot;
+import com.brownfield.pss.search.model.InventoryUpdate;
 import com.brownfield.pss.search.repository.FlightRepository;
 
 @Component
-public class SearchComponent {
+public class SearchComponent implements ApplicationListener<ApplicationReadyEvent> {
 	private FlightRepository flightRepository;
+	private RouteIndex routeIndex;
+	private SearchCache searchCache;
+	private ConnectionGraph connectionGraph;
+	private FareCalendar fareCalendar;
+	/**
+	 * Held by a load and by every inventory batch, so a load never replaces
+	 * the in-memory views with a read older than a batch already applied
+	 */
+	private final Object indexLock = new Object();
 	private static final Logger logger = LoggerFactory.getLogger(SearchComponent.class);
-	
-	
+
+
 	@Autowired
-	public SearchComponent(FlightRepository flightRepository){
+	public SearchComponent(FlightRepository flightRepository, RouteIndex routeIndex, SearchCache searchCache,
+			ConnectionGraph connectionGraph, FareCalendar fareCalendar){
 		this.flightRepository = flightRepository;
+		this.routeIndex = routeIndex;
+		this.searchCache = searchCache;
+		this.connectionGraph = connectionGraph;
+		this.fareCalendar = fareCalendar;
+	}
+
+	@Override
+	public void onApplicationEvent(ApplicationReadyEvent event) {
+		reloadIndex();
+	}
+
+	/**
+	 * Rebuilds the in-memory views from the database. Inventory batches
+	 * received meanwhile wait in the {@link InventoryBatcher} and are applied
+	 * on top of the new views once the load is done.
+	 */
+	public void reloadIndex() {
+		synchronized (indexLock) {
+			List<FlightSnapshot> snapshots = flightRepository.findAllSnapshots();
+			routeIndex.load(snapshots);
+			connectionGraph.load(snapshots);
+			fareCalendar.load(snapshots);
+			logger.info("Route index loaded with " + snapshots.size() + " flights");
+			long flights = flightRepository.count();
+			if (flights > snapshots.size()) {
+				logger.warn((flights - snapshots.size()) + " flights without fare or inventory left out of the index");
+			}
+		}
 	}
 
-	public List<Flight> search(SearchQuery query){
-		List<Flight> flights= flightRepository.findByOriginAndDestinationAndFlightDate(query.getOrigin(),
-																query.getDestination(),
-																query.getFlightDate()); 
-		List<Flight> searchResult = new ArrayList<Flight>();
-		searchResult.addAll(flights);
-		flights.forEach(flight -> {
-			flight.getFares();
-			int inv = flight.getInventory().getCount();
-			if(inv < 0) {
-				searchResult.remove(flight);
+	/**
+	 * Bookable flights of the query by departure, the default order of
+	 * /search/get, through the result cache.
+	 */
+	public List<FlightSnapshot> search(SearchQuery query){
+		SearchQuery key = query.normalize();
+		List<FlightSnapshot> cached = searchCache.get(key);
+		if (cached != null) {
+			return cached;
+		}
+		LocalDate date = FlightDates.parseDate(key.getFlightDate());
+		if (date == null) {
+			return Collections.emptyList();
+		}
+		if (!routeIndex.isLoaded()) {
+			// Until the index is built, e.g. for requests served before startup completes
+			List<FlightSnapshot> flights = new ArrayList<>(
+					flightRepository.findAvailable(key.getOrigin(), key.getDestination(), date));
+			flights.sort(FlightSort.DEPARTURE.comparator());
+			return flights;
+		}
+		long generation = searchCache.generation();
+		List<FlightSnapshot> flights = routeIndex.find(key.getOrigin(), key.getDestination(), date);
+		List<FlightSnapshot> searchResult = new ArrayList<FlightSnapshot>(flights.size());
+		for (FlightSnapshot flight : flights) {
+			if (flight.isAvailable()) {
+				searchResult.add(flight);
 			}
-		});
-		return searchResult; 
+		}
+		searchResult.sort(FlightSort.DEPARTURE.comparator());
+		List<FlightSnapshot> result = Collections.unmodifiableList(searchResult);
+		searchCache.put(key, result, flights, generation);
+		return result;
+	}
+
+	/**
+	 * One page of the flights of the query, read straight off the presorted
+	 * route index rather than the result cache.
+	 *
+	 * @param after cursor of the previous page, null for the first one
+	 */
+	public FlightPage search(SearchQuery query, FlightSort sort, FlightFilter filter, String after, int limit){
+		SearchQuery key = query.normalize();
+		LocalDate date = FlightDates.parseDate(key.getFlightDate());
+		if (date == null) {
+			return FlightPage.empty();
+		}
+		if (!routeIndex.isLoaded()) {
+			List<FlightSnapshot> flights = filter.getMaxFare() == null
+					? flightRepository.findAvailable(key.getOrigin(), key.getDestination(), date)
+					: flightRepository.findAvailableUpTo(key.getOrigin(), key.getDestination(), date,
+							filter.getMaxFare());
+			return FlightPage.of(flights, sort, filter, after, limit);
+		}
+		return routeIndex.page(key.getOrigin(), key.getDestination(), date, sort, filter, after, limit);
+	}
+
+	/**
+	 * @param excluded flights no itinerary may take
+	 */
+	public List<Itinerary> searchConnections(SearchQuery query, int maxLegs, int limit,
+			Predicate<FlightSnapshot> excluded){
+		SearchQuery key = query.normalize();
+		LocalDate date = FlightDates.parseDate(key.getFlightDate());
+		if (date == null) {
+			return Collections.emptyList();
+		}
+		return connectionGraph.search(key.getOrigin(), key.getDestination(), date, maxLegs, limit, excluded);
+	}
+
+	/**
+	 * Flights of the cheapest day within {@code days} of the requested date.
+	 *
+	 * @param excluded flights the cheapest day is picked without; null for none
+	 */
+	public List<FlightSnapshot> searchFlexible(SearchQuery query, int days, Predicate<FlightSnapshot> excluded){
+		SearchQuery key = query.normalize();
+		LocalDate date = FlightDates.parseDate(key.getFlightDate());
+		if (date == null) {
+			return Collections.emptyList();
+		}
+		LowestFare cheapest;
+		if (!routeIndex.isLoaded()) {
+			cheapest = FareCalendar.cheapest(FareCalendar.byDay(flightRepository.findAvailableBetween(
+					key.getOrigin(), key.getDestination(), date.minusDays(days), date.plusDays(days)), excluded), date);
+		} else {
+			cheapest = fareCalendar.cheapest(key.getOrigin(), key.getDestination(), date.minusDays(days),
+					date.plusDays(days), date, excluded);
+		}
+		if (cheapest == null) {
+			return Collections.emptyList();
+		}
+		return search(new SearchQuery(key.getOrigin(), key.getDestination(),
+				FlightDates.formatDate(cheapest.getFlightDate())));
+	}
+
+	/**
+	 * Lowest fare of every day of the route in [{@code from}, {@code from + days}).
+	 *
+	 * @param excluded flights no fare may come from; null for none
+	 */
+	public List<LowestFare> fareCalendar(SearchQuery query, int days, Predicate<FlightSnapshot> excluded){
+		SearchQuery key = query.normalize();
+		LocalDate from = FlightDates.parseDate(key.getFlightDate());
+		if (from == null || days <= 0) {
+			return Collections.emptyList();
+		}
+		if (!routeIndex.isLoaded()) {
+			return FareCalendar.byDay(flightRepository.findAvailableBetween(key.getOrigin(), key.getDestination(),
+					from, from.plusDays(days - 1)), excluded);
+		}
+		return fareCalendar.find(key.getOrigin(), key.getDestination(), from, from.plusDays(days - 1), excluded);
 	}
 
-	public void updateInventory(String flightNumber, String flightDate, int inventory) {
-		logger.info("Updating inventory for flight "+ flightNumber + " innventory "+ inventory); 
-		Flight flight = flightRepository.findByFlightNumberAndFlightDate(flightNumber,flightDate);
-		Inventory inv = flight.getInventory();
-		inv.setCount(inventory);
-		flightRepository.save(flight); 
-	}	 
+	public void updateInventory(String flightNumber, LocalDate flightDate, int inventory) {
+		applyInventory(Collections.singletonList(
+				new InventoryUpdate(flightNumber, flightDate, inventory, InventoryUpdate.UNSEQUENCED)));
+	}
+
+	/**
+	 * Writes the new inventory counts in one batch, then patches the in-memory
+	 * views. Waits for a load in progress.
+	 */
+	public void applyInventory(List<InventoryUpdate> updates) {
+		synchronized (indexLock) {
+			logger.info("Updating inventory for " + updates.size() + " flights");
+			int updated = flightRepository.updateInventories(updates);
+			if (updated != updates.size()) {
+				logger.warn("Updated inventory for " + updated + " of " + updates.size() + " flights");
+			}
+			for (InventoryUpdate update : updates) {
+				FlightSnapshot snapshot = routeIndex.get(update.getFlightNumber(), update.getFlightDate());
+				if (snapshot != null) {
+					snapshot = snapshot.withInventory(update.getInventory());
+				} else {
+					Flight flight = flightRepository.findByFlightNumberAndFlightDate(update.getFlightNumber(),
+							update.getFlightDate());
+					if (flight == null) {
+						continue;
+					}
+					snapshot = FlightSnapshot.of(flight);
+				}
+				routeIndex.put(snapshot);
+				connectionGraph.update(snapshot);
+				fareCalendar.refresh(snapshot.getOrigin(), snapshot.getDestination(), snapshot.getFlightDate());
+				searchCache.invalidate(update.getFlightNumber(), update.getFlightDate());
+			}
+		}
+	}
 }
@@ -0,0 +1,53 @@
+package com.brownfield.pss.search.component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.GaugeService;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.brownfield.pss.common.RequestMeter;
+
+/**
+ * Rate and latency of the search requests. Outlives the refresh-scoped
+ * controller, and keeps the {@code tpm} gauge, which the lifecycle manager
+ * scales on, at the requests of the last minute.
+ */
+@Component
+public class SearchTraffic implements PublicMetrics {
+	private final RequestMeter meter = new RequestMeter();
+	private final GaugeService gaugeService;
+
+	@Autowired
+	public SearchTraffic(GaugeService gaugeService) {
+		this.gaugeService = gaugeService;
+	}
+
+	public RequestMeter getMeter() {
+		return meter;
+	}
+
+	@Scheduled(fixedRateString = "${app.search.traffic.publish-interval-ms:1000}")
+	public void publish() {
+		gaugeService.submit("tpm", meter.getRequestsPerMinute());
+	}
+
+	/**
+	 * @return {@code search.requests.rpm}, {@code .count}, {@code .latency.p50}
+	 *         and {@code .latency.p99}
+	 */
+	@Override
+	public Collection<Metric<?>> metrics() {
+		List<Metric<?>> metrics = new ArrayList<>(4);
+		metrics.add(new Metric<>("search.requests.rpm", meter.getRequestsPerMinute()));
+		metrics.add(new Metric<>("search.requests.count", meter.getCount()));
+		metrics.add(new Metric<>("search.requests.latency.p50", meter.getLatencyPercentile(50)));
+		metrics.add(new Metric<>("search.requests.latency.p99", meter.getLatencyPercentile(99)));
+		return metrics;
+	}
+}
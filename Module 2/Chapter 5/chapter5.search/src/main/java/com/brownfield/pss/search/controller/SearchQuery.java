@@ -1,5 +1,8 @@
 package com.brownfield.pss.search.controller;
- 
+
+import java.util.Locale;
+import java.util.Objects;
+
 
 public class SearchQuery {
 	String origin;
@@ -26,6 +29,35 @@ public class SearchQuery {
 	}
 	
 	
+	/**
+	 * Copy with codes and date trimmed and upper-cased, as stored with the flights.
+	 */
+	public SearchQuery normalize() {
+		return new SearchQuery(normalize(origin), normalize(destination), normalize(flightDate));
+	}
+
+	private static String normalize(String value) {
+		return value == null ? null : value.trim().toUpperCase(Locale.ROOT);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(origin, destination, flightDate);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof SearchQuery)) {
+			return false;
+		}
+		SearchQuery other = (SearchQuery) obj;
+		return Objects.equals(origin, other.origin) && Objects.equals(destination, other.destination)
+				&& Objects.equals(flightDate, other.flightDate);
+	}
+
 	public String getOrigin() {
 		return origin;
 	}
@@ -1,87 +1,188 @@
 package com.brownfield.pss.search.controller;
 
+import java.math.BigDecimal;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Calendar;
 import java.util.List;
-import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.actuate.metrics.GaugeService;
 import org.springframework.cloud.context.config.annotation.RefreshScope;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.brownfield.pss.common.RequestMeter;
+import com.brownfield.pss.search.component.AvailabilityRule;
+import com.brownfield.pss.search.component.AvailabilityRules;
+import com.brownfield.pss.search.component.FlightFilter;
+import com.brownfield.pss.search.component.FlightPage;
+import com.brownfield.pss.search.model.FlightSnapshot;
+import com.brownfield.pss.search.component.FlightSort;
+import com.brownfield.pss.search.component.Itinerary;
+import com.brownfield.pss.search.component.LowestFare;
 import com.brownfield.pss.search.component.SearchComponent;
-import com.brownfield.pss.search.entity.Flight;
+import com.brownfield.pss.search.component.SearchTraffic;
 
 @RefreshScope
-@CrossOrigin
+@CrossOrigin(exposedHeaders = SearchRestController.NEXT_PAGE_HEADER)
 @RestController
 @RequestMapping("/search")
 class SearchRestController {
 	private static final Logger logger = LoggerFactory.getLogger(SearchComponent.class);
-	TPMCounter tpm = new TPMCounter();
+	private static final int MAX_CALENDAR_DAYS = 366;
+	private static final int DEFAULT_PAGE_SIZE = 50;
+	private static final int MAX_PAGE_SIZE = 200;
+
+	/**
+	 * Cursor of the next page of /get, to pass back as {@code after}; absent on the last page
+	 */
+	static final String NEXT_PAGE_HEADER = "X-Next-Page";
 
 	private SearchComponent searchComponent;
 	
-	@Value("${orginairports.shutdown}")
-	private String originAirportShutdownList;
+	private AvailabilityRules availabilityRules;
 	
-	GaugeService gaugeService;
+	RequestMeter meter;
 
 	
 	@Autowired
-	public SearchRestController(SearchComponent searchComponent, GaugeService gaugeService){
-		this.gaugeService = gaugeService;
+	public SearchRestController(SearchComponent searchComponent, AvailabilityRules availabilityRules,
+			SearchTraffic searchTraffic){
+		this.meter = searchTraffic.getMeter();
 		this.searchComponent = searchComponent;
+		this.availabilityRules = availabilityRules;
 	}
 	
 	@RequestMapping(value="/get", method = RequestMethod.POST)
-	List<Flight> search(@RequestBody SearchQuery query){
+	ResponseEntity<List<FlightSnapshot>> search(@RequestBody SearchQuery query,
+			@RequestParam(value = "sort", defaultValue = "departure") String sort,
+			@RequestParam(value = "maxFare", required = false) BigDecimal maxFare,
+			@RequestParam(value = "minSeats", defaultValue = "0") int minSeats,
+			@RequestParam(value = "after", required = false) String after,
+			@RequestParam(value = "limit", required = false) Integer limit){
 		logger.info("Input : "+ query);
-		if(Arrays.asList(originAirportShutdownList.split(",")).contains(query.getOrigin())){
-			logger.info("The origin airport is in shutdown state");
-			return new ArrayList<Flight>();
+		FlightSort order = FlightSort.of(sort);
+		if(isShutdown(query) || order == null){
+			return ResponseEntity.ok(new ArrayList<FlightSnapshot>());
+		}
+		long started = meter.start();
+		try {
+			if (order == FlightSort.DEPARTURE && maxFare == null && minSeats <= 0 && after == null && limit == null) {
+				// The website's search, the same for every visitor: served from the result cache
+				return ResponseEntity.ok(withoutClosed(searchComponent.search(query)));
+			}
+			FlightPage page = searchComponent.search(query, order, new FlightFilter(maxFare, minSeats, availabilityRules),
+					after, pageSize(limit, after));
+			if (page.getNext() == null) {
+				return ResponseEntity.ok(page.getFlights());
+			}
+			return ResponseEntity.ok().header(NEXT_PAGE_HEADER, page.getNext()).body(page.getFlights());
+		} finally {
+			meter.stop(started);
 		}
-		tpm.increment();
-		gaugeService.submit("tpm", tpm.count.intValue()); 
-		
-		return searchComponent.search(query);
 	}
-}
 
+	@RequestMapping(value="/connections", method = RequestMethod.POST)
+	List<Itinerary> searchConnections(@RequestBody SearchQuery query,
+			@RequestParam(value = "maxLegs", defaultValue = "3") int maxLegs,
+			@RequestParam(value = "limit", defaultValue = "10") int limit){
+		logger.info("Input : "+ query);
+		if(isShutdown(query)){
+			return new ArrayList<Itinerary>();
+		}
+		long started = meter.start();
+		try {
+			return searchComponent.searchConnections(query, maxLegs, limit, availabilityRules::isClosed);
+		} finally {
+			meter.stop(started);
+		}
+	}
 
-class TPMCounter {
-	LongAdder count;
-	Calendar expiry = null; 
+	@RequestMapping(value="/flexible", method = RequestMethod.POST)
+	List<FlightSnapshot> searchFlexible(@RequestBody SearchQuery query,
+			@RequestParam(value = "days", defaultValue = "3") int days){
+		logger.info("Input : "+ query);
+		if(isShutdown(query)){
+			return new ArrayList<FlightSnapshot>();
+		}
+		long started = meter.start();
+		try {
+			return withoutClosed(searchComponent.searchFlexible(query, Math.min(Math.max(days, 0), MAX_CALENDAR_DAYS),
+					closedFlights()));
+		} finally {
+			meter.stop(started);
+		}
+	}
 
-	TPMCounter(){
-		reset();
+	@RequestMapping(value="/calendar", method = RequestMethod.GET)
+	List<LowestFare> fareCalendar(@RequestParam("origin") String origin,
+			@RequestParam("destination") String destination, @RequestParam("from") String from,
+			@RequestParam(value = "days", defaultValue = "31") int days){
+		SearchQuery query = new SearchQuery(origin, destination, from).normalize();
+		if(isShutdown(query)){
+			return new ArrayList<LowestFare>();
+		}
+		List<LowestFare> fares = new ArrayList<LowestFare>();
+		for (LowestFare fare : searchComponent.fareCalendar(query, Math.min(days, MAX_CALENDAR_DAYS),
+				closedFlights())) {
+			if (availabilityRules.closedRoute(query.getOrigin(), query.getDestination(),
+					fare.getFlightDate().toEpochDay()) == null) {
+				fares.add(fare);
+			}
+		}
+		return fares;
 	}
-	
-	void reset (){
-		count = new LongAdder();
-		expiry = Calendar.getInstance();
-		expiry.add(Calendar.MINUTE, 1);
+
+	/**
+	 * Without {@code limit} or {@code after} the whole route is returned, as
+	 * the website expects; paging starts with either parameter.
+	 */
+	private static int pageSize(Integer limit, String after){
+		if (limit == null) {
+			return after == null ? Integer.MAX_VALUE : DEFAULT_PAGE_SIZE;
+		}
+		return Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
 	}
-	
-	boolean isExpired(){
-		return Calendar.getInstance().after(expiry);
+
+	/**
+	 * @return the flights shut down by a rule, carrier rules included; null
+	 *         without rules, so the fare calendar is read as stored
+	 */
+	private Predicate<FlightSnapshot> closedFlights(){
+		return availabilityRules.getRules().isEmpty() ? null : availabilityRules::isClosed;
 	}
 
-	
-	void increment(){
-		 if(isExpired()){
-			 reset();
-		 }
-		 count.increment();
+	/**
+	 * Cached results hold the flights of shut down carriers, since the rules
+	 * can change without the flights changing.
+	 */
+	private List<FlightSnapshot> withoutClosed(List<FlightSnapshot> flights){
+		List<FlightSnapshot> open = new ArrayList<FlightSnapshot>(flights.size());
+		for (FlightSnapshot flight : flights) {
+			if (!availabilityRules.isClosed(flight)) {
+				open.add(flight);
+			}
+		}
+		return open;
 	}
 
-}
\ No newline at end of file
+	/**
+	 * Rules are compiled with upper-case codes, as the flights are stored.
+	 */
+	private boolean isShutdown(SearchQuery query){
+		SearchQuery key = query.normalize();
+		AvailabilityRule rule = availabilityRules.closedRoute(key.getOrigin(), key.getDestination(),
+				key.getFlightDate());
+		if(rule != null){
+			logger.info("The route is in shutdown state by rule " + rule.getName());
+			return true;
+		}
+		return false;
+	}
+}
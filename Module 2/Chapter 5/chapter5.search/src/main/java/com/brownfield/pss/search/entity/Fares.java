@@ -1,12 +1,17 @@
 package com.brownfield.pss.search.entity;
 
+import java.math.BigDecimal;
+
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
 
 @Entity
+@Table(indexes = @Index(name = "fares_fare", columnList = "fare"))
 public class Fares {
 
     @Id
@@ -14,11 +19,12 @@ public class Fares {
     @Column(name = "fare_id")
 	long id;
     
-    String fare;
+    @Column(precision = 10, scale = 2)
+    BigDecimal fare;
     String currency;
 
     
-	public Fares(String fare,String currency) {
+	public Fares(BigDecimal fare,String currency) {
 		super();
 		this.fare = fare;
 		this.currency = currency;
@@ -37,11 +43,11 @@ public class Fares {
 		this.id = id;
 	}
 
-	public String getFare() {
+	public BigDecimal getFare() {
 		return fare;
 	}
 
-	public void setFare(String fare) {
+	public void setFare(BigDecimal fare) {
 		this.fare = fare;
 	}
 
@@ -1,14 +1,20 @@
 package com.brownfield.pss.search.entity;
 
+import java.time.LocalDate;
+
 import javax.persistence.CascadeType;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.OneToOne;
+import javax.persistence.Table;
 
 @Entity
+@Table(indexes = { @Index(name = "flight_route_date", columnList = "origin,destination,flight_date"),
+		@Index(name = "flight_number_date", columnList = "flight_number,flight_date") })
 public class Flight {
 
     @Id
@@ -18,7 +24,9 @@ public class Flight {
 	String flightNumber;
 	String origin;
 	String destination;
-	String flightDate;
+	LocalDate flightDate;
+	String departureTime;
+	String arrivalTime;
 	
 	@OneToOne(cascade = CascadeType.ALL)
 	@JoinColumn(name="fare_Id")
@@ -39,7 +47,7 @@ public class Flight {
  
 
 
-	public Flight(String flightNumber, String origin, String destination, String flightDate, Fares fares,
+	public Flight(String flightNumber, String origin, String destination, LocalDate flightDate, Fares fares,
 			Inventory inventory) {
 		super();
 		this.flightNumber = flightNumber;
@@ -50,6 +58,13 @@ public class Flight {
 		this.inventory = inventory;
 	}
 
+	public Flight(String flightNumber, String origin, String destination, LocalDate flightDate, String departureTime,
+			String arrivalTime, Fares fares, Inventory inventory) {
+		this(flightNumber, origin, destination, flightDate, fares, inventory);
+		this.departureTime = departureTime;
+		this.arrivalTime = arrivalTime;
+	}
+
 
 
 
@@ -86,13 +101,30 @@ public class Flight {
 		this.destination = destination;
 	}
 
-	public String getFlightDate() {
+	public LocalDate getFlightDate() {
 		return flightDate;
 	}
 
-	public void setFlightDate(String flightDate) {
+	public void setFlightDate(LocalDate flightDate) {
 		this.flightDate = flightDate;
 	}
+
+	public String getDepartureTime() {
+		return departureTime;
+	}
+
+	public void setDepartureTime(String departureTime) {
+		this.departureTime = departureTime;
+	}
+
+	public String getArrivalTime() {
+		return arrivalTime;
+	}
+
+	public void setArrivalTime(String arrivalTime) {
+		this.arrivalTime = arrivalTime;
+	}
+
 	public Fares getFares() {
 		return fares;
 	}
@@ -111,7 +143,8 @@ public class Flight {
 	@Override
 	public String toString() {
 		return "Flight [id=" + id + ", flightNUmber=" + flightNumber + ", origin=" + origin + ", destination="
-				+ destination + ", flightDate=" + flightDate + ", fares=" + fares + ", inventory=" + inventory + "]";
+				+ destination + ", flightDate=" + flightDate + ", departureTime=" + departureTime + ", arrivalTime="
+				+ arrivalTime + ", fares=" + fares + ", inventory=" + inventory + "]";
 	}
 
  
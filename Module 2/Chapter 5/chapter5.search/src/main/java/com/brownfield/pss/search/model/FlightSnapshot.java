@@ -0,0 +1,150 @@
+package com.brownfield.pss.search.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import com.brownfield.pss.common.FlightDates;
+import com.brownfield.pss.search.entity.Fares;
+import com.brownfield.pss.search.entity.Flight;
+import com.brownfield.pss.search.entity.Inventory;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+/**
+ * Immutable copy of a flight with its fare and inventory, as held by the
+ * route index. Flat, so that the repository can project a joined select
+ * straight into it. Serializes like {@link Flight}; the nested fare and
+ * inventory are detached copies, so callers cannot change the snapshot.
+ */
+public final class FlightSnapshot {
+	private final long id;
+	private final String flightNumber;
+	private final String carrier;
+	private final String origin;
+	private final String destination;
+	private final LocalDate flightDate;
+	private final String departureTime;
+	private final String arrivalTime;
+	private final long fareId;
+	private final BigDecimal fare;
+	private final String currency;
+	private final long inventoryId;
+	private final int inventory;
+
+	public FlightSnapshot(long id, String flightNumber, String origin, String destination, LocalDate flightDate,
+			String departureTime, String arrivalTime, long fareId, BigDecimal fare, String currency, long inventoryId,
+			int inventory) {
+		this.id = id;
+		this.flightNumber = flightNumber;
+		this.carrier = carrierOf(flightNumber);
+		this.origin = origin;
+		this.destination = destination;
+		this.flightDate = flightDate;
+		this.departureTime = departureTime;
+		this.arrivalTime = arrivalTime;
+		this.fareId = fareId;
+		this.fare = fare;
+		this.currency = currency;
+		this.inventoryId = inventoryId;
+		this.inventory = inventory;
+	}
+
+	public static FlightSnapshot of(Flight flight) {
+		Fares fares = flight.getFares();
+		Inventory inventory = flight.getInventory();
+		return new FlightSnapshot(flight.getId(), flight.getFlightNumber(), flight.getOrigin(),
+				flight.getDestination(), flight.getFlightDate(), flight.getDepartureTime(), flight.getArrivalTime(),
+				fares == null ? 0 : fares.getId(), fares == null ? null : fares.getFare(),
+				fares == null ? null : fares.getCurrency(),
+				inventory == null ? 0 : inventory.getId(), inventory == null ? 0 : inventory.getCount());
+	}
+
+	public FlightSnapshot withInventory(int count) {
+		return new FlightSnapshot(id, flightNumber, origin, destination, flightDate, departureTime, arrivalTime,
+				fareId, fare, currency, inventoryId, count);
+	}
+
+	public long getId() {
+		return id;
+	}
+
+	public String getFlightNumber() {
+		return flightNumber;
+	}
+
+	public String getOrigin() {
+		return origin;
+	}
+
+	public String getDestination() {
+		return destination;
+	}
+
+	@JsonSerialize(using = FlightDates.Serializer.class)
+	public LocalDate getFlightDate() {
+		return flightDate;
+	}
+
+	public String getDepartureTime() {
+		return departureTime;
+	}
+
+	public String getArrivalTime() {
+		return arrivalTime;
+	}
+
+	public Fares getFares() {
+		Fares fares = new Fares(fare, currency);
+		fares.setId(fareId);
+		return fares;
+	}
+
+	public Inventory getInventory() {
+		Inventory inv = new Inventory(inventory);
+		inv.setId(inventoryId);
+		return inv;
+	}
+
+	/**
+	 * @return airline designator the flight number starts with, "BF" for BF101
+	 */
+	@JsonIgnore
+	public String getCarrier() {
+		return carrier;
+	}
+
+	@JsonIgnore
+	public BigDecimal getFare() {
+		return fare;
+	}
+
+	@JsonIgnore
+	public String getCurrency() {
+		return currency;
+	}
+
+	@JsonIgnore
+	public int getSeats() {
+		return inventory;
+	}
+
+	@JsonIgnore
+	public boolean isAvailable() {
+		return inventory >= 0;
+	}
+
+	/**
+	 * Two-character airline designator, which may hold a digit (B6)
+	 */
+	private static String carrierOf(String flightNumber) {
+		return flightNumber == null || flightNumber.length() < 2 ? flightNumber : flightNumber.substring(0, 2);
+	}
+
+	@Override
+	public String toString() {
+		return "FlightSnapshot [id=" + id + ", flightNumber=" + flightNumber + ", origin=" + origin
+				+ ", destination=" + destination + ", flightDate=" + flightDate + ", departureTime=" + departureTime
+				+ ", arrivalTime=" + arrivalTime + ", fare=" + fare + ", currency=" + currency + ", inventory="
+				+ inventory + "]";
+	}
+}
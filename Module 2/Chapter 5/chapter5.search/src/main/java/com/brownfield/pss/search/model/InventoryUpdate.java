@@ -0,0 +1,82 @@
+package com.brownfield.pss.search.model;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+import com.brownfield.pss.common.FlightDates;
+
+/**
+ * New inventory of a flight, as carried by an inventoryQ message.
+ */
+public final class InventoryUpdate {
+	/**
+	 * Sequence of messages sent without one; always applied
+	 */
+	public static final long UNSEQUENCED = -1;
+
+	private final String flightNumber;
+	private final LocalDate flightDate;
+	private final int inventory;
+	private final long sequence;
+
+	public InventoryUpdate(String flightNumber, LocalDate flightDate, int inventory, long sequence) {
+		this.flightNumber = flightNumber;
+		this.flightDate = flightDate;
+		this.inventory = inventory;
+		this.sequence = sequence;
+	}
+
+	/**
+	 * @throws IllegalArgumentException if the message lacks the flight
+	 *             number, a valid flight date or the new inventory
+	 */
+	public static InventoryUpdate of(Map<String, Object> message) {
+		Object flightNumber = message.get("FLIGHT_NUMBER");
+		Object flightDate = message.get("FLIGHT_DATE");
+		Object inventory = message.get("NEW_INVENTORY");
+		Object sequence = message.get("SEQUENCE");
+		LocalDate date = flightDate instanceof String ? FlightDates.parseDate((String) flightDate) : null;
+		if (!(flightNumber instanceof String) || date == null || !(inventory instanceof Number)) {
+			throw new IllegalArgumentException("Malformed inventory message " + message);
+		}
+		return new InventoryUpdate((String) flightNumber, date, ((Number) inventory).intValue(),
+				sequence instanceof Number ? ((Number) sequence).longValue() : UNSEQUENCED);
+	}
+
+	public String getFlightNumber() {
+		return flightNumber;
+	}
+
+	public LocalDate getFlightDate() {
+		return flightDate;
+	}
+
+	public int getInventory() {
+		return inventory;
+	}
+
+	public long getSequence() {
+		return sequence;
+	}
+
+	public boolean isSequenced() {
+		return sequence != UNSEQUENCED;
+	}
+
+	/**
+	 * @return true unless the update is older than the given one
+	 */
+	public boolean supersedes(InventoryUpdate other) {
+		return !isSequenced() || !other.isSequenced() || sequence >= other.sequence;
+	}
+
+	public String key() {
+		return flightNumber + '|' + flightDate;
+	}
+
+	@Override
+	public String toString() {
+		return "InventoryUpdate [flightNumber=" + flightNumber + ", flightDate=" + flightDate + ", inventory="
+				+ inventory + ", sequence=" + sequence + "]";
+	}
+}
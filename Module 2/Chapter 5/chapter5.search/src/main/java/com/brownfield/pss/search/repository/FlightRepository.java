@@ -1,14 +1,58 @@
 package com.brownfield.pss.search.repository;
 
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import com.brownfield.pss.search.model.FlightSnapshot;
 import com.brownfield.pss.search.entity.Flight;
 
-public interface FlightRepository extends JpaRepository<Flight, Long> {
-	List<Flight> findByOriginAndDestinationAndFlightDate(String origin,String destination, String flightDate);
+public interface FlightRepository extends JpaRepository<Flight, Long>, FlightRepositoryCustom {
+	/**
+	 * Flights joined with their fare and inventory. The joins are inner: a
+	 * flight without a fare or inventory row cannot be sold, and is left out
+	 * of every snapshot query.
+	 */
+	String SNAPSHOT = "select new com.brownfield.pss.search.model.FlightSnapshot(f.id, f.flightNumber, f.origin, "
+			+ "f.destination, f.flightDate, f.departureTime, f.arrivalTime, fa.id, fa.fare, fa.currency, i.id, i.count) "
+			+ "from Flight f join f.fares fa join f.inventory i";
 
-	Flight findByFlightNumberAndFlightDate(String flightNumber, String flightDate);
-} 
\ No newline at end of file
+	List<Flight> findByOriginAndDestinationAndFlightDate(String origin,String destination, LocalDate flightDate);
+
+	Flight findByFlightNumberAndFlightDate(String flightNumber, LocalDate flightDate);
+
+	/**
+	 * Flights with their fare and inventory, in one joined select.
+	 */
+	@Query(SNAPSHOT)
+	List<FlightSnapshot> findAllSnapshots();
+
+	/**
+	 * Flights of the route with seats left, in one joined select.
+	 */
+	@Query(SNAPSHOT + " where f.origin = :origin and f.destination = :destination and f.flightDate = :flightDate"
+			+ " and i.count >= 0")
+	List<FlightSnapshot> findAvailable(@Param("origin") String origin, @Param("destination") String destination,
+			@Param("flightDate") LocalDate flightDate);
+
+	/**
+	 * Flights of the route with seats left in the date range, by date and fare.
+	 */
+	@Query(SNAPSHOT + " where f.origin = :origin and f.destination = :destination"
+			+ " and f.flightDate between :from and :to and i.count >= 0 order by f.flightDate, fa.fare")
+	List<FlightSnapshot> findAvailableBetween(@Param("origin") String origin,
+			@Param("destination") String destination, @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+	/**
+	 * Flights of the route with seats left, at most the given fare, cheapest first.
+	 */
+	@Query(SNAPSHOT + " where f.origin = :origin and f.destination = :destination and f.flightDate = :flightDate"
+			+ " and fa.fare <= :maxFare and i.count >= 0 order by fa.fare")
+	List<FlightSnapshot> findAvailableUpTo(@Param("origin") String origin, @Param("destination") String destination,
+			@Param("flightDate") LocalDate flightDate, @Param("maxFare") BigDecimal maxFare);
+}
\ No newline at end of file
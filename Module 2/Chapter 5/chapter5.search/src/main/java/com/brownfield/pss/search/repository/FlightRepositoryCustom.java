@@ -0,0 +1,15 @@
+package com.brownfield.pss.search.repository;
+
+import java.util.List;
+
+import com.brownfield.pss.search.model.InventoryUpdate;
+
+public interface FlightRepositoryCustom {
+
+	/**
+	 * Sets the inventory counts of the flights in one JDBC batch.
+	 *
+	 * @return number of flights updated
+	 */
+	int updateInventories(List<InventoryUpdate> updates);
+}
@@ -0,0 +1,45 @@
+package com.brownfield.pss.search.repository;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.brownfield.pss.search.model.InventoryUpdate;
+
+/**
+ * Bulk writes of {@link FlightRepository}, outside of the persistence context.
+ */
+public class FlightRepositoryImpl implements FlightRepositoryCustom {
+	private static final String UPDATE_INVENTORY = "update inventory set count = ? where inv_id = "
+			+ "(select f.inv_id from flight f where f.flight_number = ? and f.flight_date = ?)";
+
+	private final JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	public FlightRepositoryImpl(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	@Override
+	@Transactional
+	public int updateInventories(List<InventoryUpdate> updates) {
+		if (updates.isEmpty()) {
+			return 0;
+		}
+		List<Object[]> arguments = new ArrayList<>(updates.size());
+		for (InventoryUpdate update : updates) {
+			arguments.add(new Object[] { update.getInventory(), update.getFlightNumber(),
+					Date.valueOf(update.getFlightDate()) });
+		}
+		int updated = 0;
+		for (int rows : jdbcTemplate.batchUpdate(UPDATE_INVENTORY, arguments)) {
+			// Drivers may report a successful statement without its row count
+			updated += rows < 0 ? 1 : rows;
+		}
+		return updated;
+	}
+}
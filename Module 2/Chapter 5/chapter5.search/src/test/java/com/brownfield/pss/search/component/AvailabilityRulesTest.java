@@ -0,0 +1,106 @@
+package com.brownfield.pss.search.component;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.actuate.metrics.Metric;
+
+import com.sun.management.ThreadMXBean;
+
+import com.brownfield.pss.search.model.FlightSnapshot;
+
+public class AvailabilityRulesTest {
+	private AvailabilityRules rules;
+
+	@Before
+	public void setup() {
+		rules = new AvailabilityRules("SEA, lax", "storm: origin=NYC destination=SFO from=22-JAN-16 to=23-JAN-16;"
+				+ " closed: destination=HOU; grounded: carrier=XX; bad: origin=NYC from=FEB-16; to=SFO size=1");
+	}
+
+	@Test
+	public void compilesRulesAndSkipsMalformedOnes() {
+		assertEquals(Arrays.asList("origin-SEA", "origin-LAX", "storm", "closed", "grounded"), names());
+	}
+
+	@Test
+	public void shutsRoutesDownByOriginDestinationAndDate() {
+		assertEquals("origin-SEA", rules.closedRoute("SEA", "SFO", "22-JAN-16").getName());
+		assertEquals("closed", rules.closedRoute("NYC", "HOU", "22-JAN-16").getName());
+		assertEquals("storm", rules.closedRoute("NYC", "SFO", "23-jan-16").getName());
+		assertNull(rules.closedRoute("NYC", "SFO", "24-JAN-16"));
+		assertNull(rules.closedRoute("SFO", "NYC", "22-JAN-16"));
+		assertNull(rules.closedRoute("NYC", "SFO", "not a date"));
+	}
+
+	@Test
+	public void shutsFlightsDownByCarrier() {
+		assertNull(rules.closedRoute("NYC", "CHI", "22-JAN-16"));
+		assertTrue(rules.isClosed(flight("XX101", "NYC", "CHI")));
+		assertFalse(rules.isClosed(flight("BF101", "NYC", "CHI")));
+		assertTrue(rules.isClosed(flight("BF101", "NYC", "SFO")));
+
+		FlightFilter filter = new FlightFilter(null, 0, rules);
+		assertFalse(filter.matches(flight("XX101", "NYC", "CHI")));
+		assertTrue(filter.matches(flight("BF101", "NYC", "CHI")));
+	}
+
+	@Test
+	public void countsHitsPerRule() {
+		rules.closedRoute("SEA", "SFO", "22-JAN-16");
+		rules.closedRoute("SEA", "NYC", "22-JAN-16");
+		rules.isClosed(flight("XX101", "NYC", "CHI"));
+		assertEquals(2, rules.getRules().get(0).getHits());
+		assertEquals(0, rules.getRules().get(1).getHits());
+		assertEquals(1, rules.getRules().get(4).getHits());
+		for (Metric<?> metric : rules.metrics()) {
+			if (metric.getName().equals("search.rules.origin-SEA.hits")) {
+				assertEquals(2L, metric.getValue());
+			}
+		}
+		assertEquals(6, rules.metrics().size());
+	}
+
+	@Test
+	public void evaluatesWithoutAllocating() {
+		ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+		FlightSnapshot flight = flight("BF101", "NYC", "CHI");
+		long day = RouteIndexTest.JAN_22.toEpochDay();
+		int closed = 0;
+		for (int i = 0; i < 200000; i++) {
+			closed += rules.closedRoute("NYC", "SFO", day) == null ? 0 : 1;
+			closed += rules.isClosed(flight) ? 1 : 0;
+		}
+		long before = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+		for (int i = 0; i < 200000; i++) {
+			closed += rules.closedRoute("NYC", "SFO", day) == null ? 0 : 1;
+			closed += rules.isClosed(flight) ? 1 : 0;
+		}
+		long allocated = threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - before;
+		assertEquals(400000, closed);
+		assertTrue("allocated " + allocated + " bytes", allocated < 4096);
+	}
+
+	private List<String> names() {
+		List<String> names = new ArrayList<>();
+		for (AvailabilityRule rule : rules.getRules()) {
+			names.add(rule.getName());
+		}
+		return names;
+	}
+
+	private static FlightSnapshot flight(String flightNumber, String origin, String destination) {
+		return new FlightSnapshot(1, flightNumber, origin, destination, RouteIndexTest.JAN_22, "08:00", "10:00", 1,
+				new BigDecimal("100"), "USD", 1, 100);
+	}
+}
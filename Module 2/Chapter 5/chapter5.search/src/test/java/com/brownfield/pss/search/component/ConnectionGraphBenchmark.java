@@ -0,0 +1,64 @@
+package com.brownfield.pss.search.component;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.brownfield.pss.search.model.FlightSnapshot;
+
+/**
+ * Connection search latency on a synthetic network of 10,000 flights a day
+ * between 60 airports. Not part of the unit tests; run with
+ * <code>mvn test -Pbenchmark</code>. Fails if the p99 latency exceeds 50 ms,
+ * or the bound given by <code>-Dbenchmark.connections.p99-ms</code>.
+ */
+public class ConnectionGraphBenchmark {
+	private static final Logger logger = LoggerFactory.getLogger(ConnectionGraphBenchmark.class);
+	private static final LocalDate JAN_22 = RouteIndexTest.JAN_22;
+	private static final int AIRPORTS = 60;
+	private static final int SEARCHES = 500;
+	private static final long P99_MILLIS = Long.getLong("benchmark.connections.p99-ms", 50);
+
+	@Test
+	public void searchLatency() {
+		Random random = new Random(42);
+		List<FlightSnapshot> flights = ConnectionGraphTest.syntheticNetwork(random, AIRPORTS, 10000);
+		ConnectionGraph graph = new ConnectionGraph(45, "CHI:90", 360, 3);
+		graph.load(flights);
+
+		// warm up before measuring
+		searches(graph, random, new long[SEARCHES]);
+		long[] nanos = new long[SEARCHES];
+		int found = searches(graph, random, nanos);
+		Arrays.sort(nanos);
+		long p99 = nanos[SEARCHES * 99 / 100];
+		logger.info(String.format("%d flights, %d searches: p50 %.2f ms, p99 %.2f ms, %d with itineraries",
+				flights.size(), SEARCHES, nanos[SEARCHES / 2] / 1e6, p99 / 1e6, found));
+		Assert.assertTrue(String.format("p99 %.2f ms over %d ms", p99 / 1e6, P99_MILLIS),
+				p99 <= P99_MILLIS * 1000000);
+	}
+
+	/**
+	 * Searches between random airports, timing each search.
+	 *
+	 * @return number of searches finding itineraries
+	 */
+	private static int searches(ConnectionGraph graph, Random random, long[] nanos) {
+		int found = 0;
+		for (int i = 0; i < nanos.length; i++) {
+			int origin = random.nextInt(AIRPORTS);
+			int destination = (origin + 1 + random.nextInt(AIRPORTS - 1)) % AIRPORTS;
+			long started = System.nanoTime();
+			List<Itinerary> itineraries = graph.search("A" + origin, "A" + destination, JAN_22, 3, 10);
+			nanos[i] = System.nanoTime() - started;
+			found += itineraries.isEmpty() ? 0 : 1;
+		}
+		return found;
+	}
+}
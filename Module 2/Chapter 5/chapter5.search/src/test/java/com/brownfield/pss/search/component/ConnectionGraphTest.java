@@ -0,0 +1,149 @@
+package com.brownfield.pss.search.component;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.brownfield.pss.search.model.FlightSnapshot;
+
+public class ConnectionGraphTest {
+	private static final LocalDate JAN_22 = RouteIndexTest.JAN_22;
+
+	private ConnectionGraph graph;
+
+	@Before
+	public void setup() {
+		graph = new ConnectionGraph(45, "CHI:90", 360, 3);
+		graph.load(Arrays.asList(
+				flight(1, "BF101", "NYC", "SFO", "08:00", "11:30", "400"),
+				flight(2, "BF107", "NYC", "CHI", "06:00", "07:50", "60"),
+				flight(3, "BF102", "CHI", "SFO", "09:00", "11:40", "102"),
+				flight(4, "BF108", "CHI", "SFO", "10:00", "12:40", "150"),
+				flight(5, "BF109", "NYC", "HOU", "06:00", "09:00", "50"),
+				flight(6, "BF110", "HOU", "LAX", "09:50", "11:00", "50"),
+				flight(7, "BF111", "LAX", "SFO", "11:45", "13:00", "50")));
+	}
+
+	@Test
+	public void findsDirectAndConnectingItineraries() {
+		List<Itinerary> itineraries = graph.search("NYC", "SFO", JAN_22, 3, 10);
+
+		// BF102 leaves CHI within the 90 minutes connection time there
+		assertEquals(Arrays.asList("BF109,BF110,BF111", "BF107,BF108", "BF101"), routes(itineraries));
+		assertEquals(new BigDecimal("150.00"), itineraries.get(0).getFare());
+		assertEquals(2, itineraries.get(0).getStops());
+		assertEquals(400, itineraries.get(1).getDurationMinutes());
+		assertEquals(Arrays.asList("BF107,BF108", "BF101"), routes(graph.search("NYC", "SFO", JAN_22, 2, 10)));
+		assertEquals(Arrays.asList("BF101"), routes(graph.search("NYC", "SFO", JAN_22, 1, 10)));
+		assertTrue(graph.search("NYC", "SFO", JAN_22.plusDays(1), 3, 10).isEmpty());
+	}
+
+	@Test
+	public void limitCountsOnlyItinerariesWithoutExcludedFlights() {
+		List<Itinerary> itineraries = graph.search("NYC", "SFO", JAN_22, 3, 1,
+				flight -> flight.getOrigin().equals("HOU"));
+		assertEquals(Arrays.asList("BF107,BF108"), routes(itineraries));
+	}
+
+	@Test
+	public void followsInventoryChanges() {
+		graph.update(flight(6, "BF110", "HOU", "LAX", "09:50", "11:00", "50").withInventory(-1));
+		assertEquals(Arrays.asList("BF107,BF108", "BF101"), routes(graph.search("NYC", "SFO", JAN_22, 3, 10)));
+
+		// retimed, now too close to BF107 for the connection time at CHI
+		graph.update(flight(4, "BF108", "CHI", "SFO", "09:10", "11:50", "150"));
+		assertEquals(Arrays.asList("BF101"), routes(graph.search("NYC", "SFO", JAN_22, 3, 10)));
+
+		graph.update(flight(8, "BF112", "CHI", "SFO", "13:00", "15:40", "100"));
+		assertEquals(Arrays.asList("BF107,BF112", "BF101"), routes(graph.search("NYC", "SFO", JAN_22, 3, 10)));
+		assertEquals(8, graph.size());
+	}
+
+	@Test
+	public void connectsOvernight() {
+		graph.load(Arrays.asList(
+				flight(1, "BF201", "SEA", "NYC", "22:00", "06:00", "200"),
+				new FlightSnapshot(2, "BF202", "NYC", "BOS", JAN_22.plusDays(1), "07:00", "08:00", 2, new BigDecimal("80"),
+						"USD", 2, 10)));
+		List<Itinerary> itineraries = graph.search("SEA", "BOS", JAN_22, 3, 10);
+		assertEquals(Arrays.asList("BF201,BF202"), routes(itineraries));
+		assertEquals(600, itineraries.get(0).getDurationMinutes());
+	}
+
+	/**
+	 * Every search on a synthetic network of 2,000 flights a day between 60
+	 * airports finds itineraries within the leg limit.
+	 */
+	@Test
+	public void searchesSyntheticNetwork() {
+		Random random = new Random(42);
+		graph.load(syntheticNetwork(random, 60, 2000));
+		for (int i = 0; i < 100; i++) {
+			int origin = random.nextInt(60);
+			int destination = (origin + 1 + random.nextInt(59)) % 60;
+			List<Itinerary> itineraries = graph.search("A" + origin, "A" + destination, JAN_22, 3, 10);
+			assertFalse(itineraries.isEmpty());
+			assertTrue(itineraries.size() <= 10);
+			for (Itinerary itinerary : itineraries) {
+				assertFalse(itinerary.getLegs().isEmpty());
+				assertTrue(itinerary.getLegs().size() <= 3);
+				assertEquals("A" + origin, itinerary.getLegs().get(0).getOrigin());
+				assertEquals("A" + destination, itinerary.getLegs().get(itinerary.getLegs().size() - 1).getDestination());
+			}
+		}
+	}
+
+	/**
+	 * Two days of random flights between the airports A0, A1..., one in ten
+	 * sold out.
+	 */
+	static List<FlightSnapshot> syntheticNetwork(Random random, int airports, int flightsPerDay) {
+		List<FlightSnapshot> flights = new ArrayList<>();
+		for (int day = 0; day < 2; day++) {
+			LocalDate date = JAN_22.plusDays(day);
+			for (int i = 0; i < flightsPerDay; i++) {
+				int origin = random.nextInt(airports);
+				int destination = (origin + 1 + random.nextInt(airports - 1)) % airports;
+				int departure = 300 + random.nextInt(1080);
+				int arrival = (departure + 60 + random.nextInt(300)) % 1440;
+				long id = flights.size() + 1;
+				flights.add(new FlightSnapshot(id, "BF" + id, "A" + origin, "A" + destination, date,
+						time(departure), time(arrival), id, BigDecimal.valueOf(50 + random.nextInt(450)), "USD", id,
+						random.nextInt(10) == 0 ? -1 : 100));
+			}
+		}
+		return flights;
+	}
+
+	private static String time(int minutes) {
+		return String.format("%02d:%02d", minutes / 60, minutes % 60);
+	}
+
+	private static List<String> routes(List<Itinerary> itineraries) {
+		List<String> routes = new ArrayList<>();
+		for (Itinerary itinerary : itineraries) {
+			StringBuilder route = new StringBuilder();
+			for (FlightSnapshot leg : itinerary.getLegs()) {
+				route.append(route.length() == 0 ? "" : ",").append(leg.getFlightNumber());
+			}
+			routes.add(route.toString());
+		}
+		return routes;
+	}
+
+	static FlightSnapshot flight(long id, String flightNumber, String origin, String destination, String departure,
+			String arrival, String fare) {
+		return new FlightSnapshot(id, flightNumber, origin, destination, JAN_22, departure, arrival, id,
+				new BigDecimal(fare), "USD", id, 100);
+	}
+}
@@ -0,0 +1,43 @@
+package com.brownfield.pss.search.component;
+
+import java.util.List;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.brownfield.pss.search.model.FlightSnapshot;
+
+/**
+ * Cost of reading a month of lowest fares off the calendar. Not part of the
+ * unit tests; run with <code>mvn test -Pbenchmark</code>.
+ */
+public class FareCalendarBenchmark {
+	private static final Logger logger = LoggerFactory.getLogger(FareCalendarBenchmark.class);
+	private static final int LOOKUPS = 100000;
+
+	@Test
+	public void monthLookupLatency() {
+		List<FlightSnapshot> flights = FareCalendarTest.sixtyDays();
+		RouteIndex index = new RouteIndex();
+		index.load(flights);
+		FareCalendar calendar = new FareCalendar(index);
+		calendar.load(flights);
+
+		// warm up before measuring
+		lookups(calendar, LOOKUPS);
+		long started = System.nanoTime();
+		int days = lookups(calendar, LOOKUPS);
+		long nanos = (System.nanoTime() - started) / LOOKUPS;
+		logger.info(String.format("month of lowest fares: %.1f us per lookup, %d days read", nanos / 1000.0, days));
+	}
+
+	private static int lookups(FareCalendar calendar, int lookups) {
+		int days = 0;
+		for (int i = 0; i < lookups; i++) {
+			days += calendar.find("NYC", "SFO", FareCalendarTest.JAN_1.plusDays(i % 28),
+					FareCalendarTest.JAN_1.plusDays(i % 28 + 30)).size();
+		}
+		return days;
+	}
+}
@@ -0,0 +1,130 @@
+package com.brownfield.pss.search.component;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.brownfield.pss.search.model.FlightSnapshot;
+
+public class FareCalendarTest {
+	static final LocalDate JAN_1 = LocalDate.of(2016, 1, 1);
+
+	private RouteIndex index;
+	private FareCalendar calendar;
+
+	@Before
+	public void setup() {
+		List<FlightSnapshot> flights = sixtyDays();
+		index = new RouteIndex();
+		index.load(flights);
+		calendar = new FareCalendar(index);
+		calendar.load(flights);
+	}
+
+	@Test
+	public void findsTheLowestFareOfEveryDay() {
+		List<LowestFare> january = calendar.find("NYC", "SFO", JAN_1, JAN_1.plusDays(30));
+		assertEquals(31, january.size());
+		assertEquals(JAN_1, january.get(0).getFlightDate());
+		assertEquals(new BigDecimal("150"), january.get(0).getFare());
+		assertEquals("BF105", january.get(4).getFlightNumber());
+		assertEquals(new BigDecimal("80"), january.get(4).getFare());
+		assertEquals(2, january.get(4).getFlights());
+		assertTrue(calendar.find("SFO", "NYC", JAN_1, JAN_1.plusDays(30)).isEmpty());
+	}
+
+	@Test
+	public void picksTheCheapestDayNearestToTheRequestedOne() {
+		LocalDate jan14 = JAN_1.plusDays(13);
+		assertEquals(JAN_1.plusDays(11), calendar.cheapest("NYC", "SFO", jan14.minusDays(3), jan14.plusDays(3), jan14)
+				.getFlightDate());
+		assertEquals("150", calendar.cheapest("NYC", "SFO", jan14.minusDays(1), jan14.plusDays(1), jan14)
+				.getFare().toString());
+		assertNull(calendar.cheapest("NYC", "SFO", JAN_1.minusDays(10), JAN_1.minusDays(1), JAN_1));
+	}
+
+	@Test
+	public void computesTheSameFaresFromFlightsReadElsewhere() {
+		List<FlightSnapshot> flights = new ArrayList<>();
+		for (int day = 0; day < 31; day++) {
+			flights.addAll(index.find("NYC", "SFO", JAN_1.plusDays(day)));
+		}
+		List<LowestFare> january = FareCalendar.byDay(flights, null);
+		assertEquals(calendar.find("NYC", "SFO", JAN_1, JAN_1.plusDays(30)).toString(), january.toString());
+		LocalDate jan14 = JAN_1.plusDays(13);
+		assertEquals(JAN_1.plusDays(11), FareCalendar.cheapest(january.subList(10, 17), jan14).getFlightDate());
+	}
+
+	@Test
+	public void skipsFlightsOfGroundedCarriers() {
+		List<FlightSnapshot> flights = sixtyDays();
+		flights.add(flight(1000, "XX900", JAN_1.plusDays(1), 50, 100));
+		index.load(flights);
+		calendar.load(flights);
+		AvailabilityRules rules = new AvailabilityRules("", "grounded: carrier=XX");
+
+		assertEquals("XX900", calendar.find("NYC", "SFO", JAN_1.plusDays(1), JAN_1.plusDays(1)).get(0)
+				.getFlightNumber());
+		LowestFare open = calendar.find("NYC", "SFO", JAN_1.plusDays(1), JAN_1.plusDays(1), rules::isClosed).get(0);
+		assertEquals("BF105", open.getFlightNumber());
+		assertEquals(new BigDecimal("150"), open.getFare());
+		assertEquals(2, open.getFlights());
+
+		assertEquals("XX900", calendar.cheapest("NYC", "SFO", JAN_1.plusDays(1), JAN_1.plusDays(5), JAN_1.plusDays(1))
+				.getFlightNumber());
+		LowestFare cheapest = calendar.cheapest("NYC", "SFO", JAN_1.plusDays(1), JAN_1.plusDays(5), JAN_1.plusDays(1),
+				rules::isClosed);
+		assertEquals(JAN_1.plusDays(4), cheapest.getFlightDate());
+		assertEquals(new BigDecimal("80"), cheapest.getFare());
+		assertEquals("BF105", FareCalendar.byDay(index.find("NYC", "SFO", JAN_1.plusDays(1)), rules::isClosed).get(0)
+				.getFlightNumber());
+	}
+
+	@Test
+	public void followsInventoryChanges() {
+		FlightSnapshot cheapest = index.find("NYC", "SFO", JAN_1.plusDays(4)).get(1);
+		index.put(cheapest.withInventory(-1));
+		calendar.refresh("NYC", "SFO", JAN_1.plusDays(4));
+		assertEquals("BF101", calendar.find("NYC", "SFO", JAN_1.plusDays(4), JAN_1.plusDays(4)).get(0)
+				.getFlightNumber());
+
+		for (FlightSnapshot flight : index.find("NYC", "SFO", JAN_1.plusDays(4))) {
+			index.put(flight.withInventory(-1));
+		}
+		calendar.refresh("NYC", "SFO", JAN_1.plusDays(4));
+		assertEquals(30, calendar.find("NYC", "SFO", JAN_1, JAN_1.plusDays(30)).size());
+
+		index.put(cheapest);
+		calendar.refresh("NYC", "SFO", JAN_1.plusDays(4));
+		assertEquals(new BigDecimal("80"), calendar.find("NYC", "SFO", JAN_1.plusDays(4), JAN_1.plusDays(4)).get(0)
+				.getFare());
+	}
+
+	/**
+	 * Two NYC-SFO flights a day from January 1st, cheapest on Tuesdays.
+	 */
+	static List<FlightSnapshot> sixtyDays() {
+		List<FlightSnapshot> flights = new ArrayList<>();
+		long id = 1;
+		for (int day = 0; day < 60; day++) {
+			LocalDate date = JAN_1.plusDays(day);
+			int base = date.getDayOfWeek().getValue() == 2 ? 80 : 150;
+			flights.add(flight(id++, "BF101", date, base + 20, 100));
+			flights.add(flight(id++, "BF105", date, base, 100));
+		}
+		return flights;
+	}
+
+	private static FlightSnapshot flight(long id, String flightNumber, LocalDate date, int fare, int inventory) {
+		return new FlightSnapshot(id, flightNumber, "NYC", "SFO", date, "08:00", "11:30", id, BigDecimal.valueOf(fare),
+				"USD", id, inventory);
+	}
+}
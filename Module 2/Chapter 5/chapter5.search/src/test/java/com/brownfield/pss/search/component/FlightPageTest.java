@@ -0,0 +1,115 @@
+package com.brownfield.pss.search.component;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.brownfield.pss.search.model.FlightSnapshot;
+
+public class FlightPageTest {
+	private RouteIndex index;
+
+	@Before
+	public void setup() {
+		index = new RouteIndex();
+		index.load(Arrays.asList(
+				flight(1, "BF101", "08:00", "101", 100),
+				flight(2, "BF105", "13:00", "105", 3),
+				flight(3, "BF106", "19:00", "99", 100),
+				flight(4, "BF108", "06:30", "105", -1),
+				flight(5, "BF110", "10:00", "120", 100),
+				flight(6, "BF112", "13:00", "99", 100)));
+	}
+
+	@Test
+	public void sortsByFareOrDeparture() {
+		assertEquals(Arrays.asList("BF112", "BF106", "BF101", "BF105", "BF110"),
+				flightNumbers(page(FlightSort.FARE, FlightFilter.AVAILABLE, null, 10).getFlights()));
+		assertEquals(Arrays.asList("BF101", "BF110", "BF112", "BF105", "BF106"),
+				flightNumbers(page(FlightSort.DEPARTURE, FlightFilter.AVAILABLE, null, 10).getFlights()));
+	}
+
+	@Test
+	public void pagesThroughTheRoute() {
+		List<String> seen = new ArrayList<>();
+		String after = null;
+		int pages = 0;
+		do {
+			FlightPage page = page(FlightSort.FARE, FlightFilter.AVAILABLE, after, 2);
+			seen.addAll(flightNumbers(page.getFlights()));
+			after = page.getNext();
+			pages++;
+		} while (after != null);
+		assertEquals(3, pages);
+		assertEquals(Arrays.asList("BF112", "BF106", "BF101", "BF105", "BF110"), seen);
+	}
+
+	@Test
+	public void unboundedPageHoldsTheWholeRoute() {
+		FlightPage page = page(FlightSort.DEPARTURE, FlightFilter.AVAILABLE, null, Integer.MAX_VALUE);
+		assertEquals(5, page.getFlights().size());
+		assertNull(page.getNext());
+	}
+
+	@Test
+	public void resumesAfterTheRouteChanges() {
+		FlightPage first = page(FlightSort.DEPARTURE, FlightFilter.AVAILABLE, null, 2);
+		assertEquals(Arrays.asList("BF101", "BF110"), flightNumbers(first.getFlights()));
+		index.put(flight(7, "BF100", "07:00", "90", 100));
+		index.put(flight(5, "BF110", "10:00", "120", -1));
+		assertEquals(Arrays.asList("BF112", "BF105"),
+				flightNumbers(page(FlightSort.DEPARTURE, FlightFilter.AVAILABLE, first.getNext(), 2).getFlights()));
+	}
+
+	@Test
+	public void filtersByFareAndSeats() {
+		FlightFilter filter = new FlightFilter(new BigDecimal("105"), 10, null);
+		assertEquals(Arrays.asList("BF112", "BF106", "BF101"),
+				flightNumbers(page(FlightSort.FARE, filter, null, 10).getFlights()));
+		assertEquals(Arrays.asList("BF101", "BF112", "BF106"),
+				flightNumbers(page(FlightSort.DEPARTURE, filter, null, 10).getFlights()));
+		FlightPage exact = page(FlightSort.FARE, filter, null, 3);
+		assertEquals(3, exact.getFlights().size());
+		assertNull(exact.getNext());
+	}
+
+	@Test
+	public void rejectsMalformedCursors() {
+		assertTrue(page(FlightSort.FARE, FlightFilter.AVAILABLE, "BF101", 10).getFlights().isEmpty());
+		assertTrue(page(FlightSort.FARE, FlightFilter.AVAILABLE, "x_08:00_1", 10).getFlights().isEmpty());
+		assertTrue(index.page("SFO", "NYC", RouteIndexTest.JAN_22, FlightSort.FARE, FlightFilter.AVAILABLE, null, 10)
+				.getFlights().isEmpty());
+	}
+
+	@Test
+	public void sortsUnindexedFlightsTheSameWay() {
+		List<FlightSnapshot> flights = index.find("NYC", "SFO", RouteIndexTest.JAN_22);
+		assertEquals(flightNumbers(page(FlightSort.FARE, FlightFilter.AVAILABLE, null, 10).getFlights()),
+				flightNumbers(FlightPage.of(flights, FlightSort.FARE, FlightFilter.AVAILABLE, null, 10).getFlights()));
+	}
+
+	private FlightPage page(FlightSort sort, FlightFilter filter, String after, int limit) {
+		return index.page("NYC", "SFO", RouteIndexTest.JAN_22, sort, filter, after, limit);
+	}
+
+	private static List<String> flightNumbers(List<FlightSnapshot> flights) {
+		List<String> flightNumbers = new ArrayList<>();
+		for (FlightSnapshot flight : flights) {
+			flightNumbers.add(flight.getFlightNumber());
+		}
+		return flightNumbers;
+	}
+
+	private static FlightSnapshot flight(long id, String flightNumber, String departure, String fare, int inventory) {
+		return new FlightSnapshot(id, flightNumber, "NYC", "SFO", RouteIndexTest.JAN_22, departure, "23:00", id,
+				new BigDecimal(fare), "USD", id, inventory);
+	}
+}
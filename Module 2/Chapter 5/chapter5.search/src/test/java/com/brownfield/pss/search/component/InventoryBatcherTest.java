@@ -0,0 +1,149 @@
+package com.brownfield.pss.search.component;
+
+import static org.junit.Assert.assertEquals;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.brownfield.pss.search.model.InventoryUpdate;
+
+public class InventoryBatcherTest {
+	private static final Clock JAN_20 = Clock.fixed(Instant.parse("2016-01-20T12:00:00Z"), ZoneOffset.UTC);
+
+	private List<List<InventoryUpdate>> batches;
+	private InventoryBatcher batcher;
+
+	@Before
+	public void setup() {
+		batches = new ArrayList<>();
+		batcher = new InventoryBatcher(batches::add, 100, 3, JAN_20);
+	}
+
+	@Test
+	public void coalescesUpdatesPerFlight() {
+		batcher.offer(update("BF101", 90, 1));
+		batcher.offer(update("BF101", 80, 3));
+		batcher.offer(update("BF101", 85, 2));
+		batcher.offer(update("BF105", 70, 1));
+
+		assertEquals(2, batcher.drain());
+		assertEquals(1, batches.size());
+		assertEquals(80, find(batches.get(0), "BF101").getInventory());
+		assertEquals(2, batcher.getCoalesced());
+		assertEquals(1, batcher.getStale());
+		assertEquals(0, batcher.drain());
+	}
+
+	@Test
+	public void dropsUpdatesOlderThanTheAppliedOne() {
+		batcher.offer(update("BF101", 80, 3));
+		batcher.drain();
+		batcher.offer(update("BF101", 90, 2));
+		batcher.offer(update("BF101", 80, 3));
+		assertEquals(0, batcher.getPending());
+		assertEquals(2, batcher.getStale());
+
+		batcher.offer(update("BF101", 75, 4));
+		assertEquals(1, batcher.drain());
+		assertEquals(75, batches.get(1).get(0).getInventory());
+	}
+
+	@Test
+	public void appliesUnsequencedUpdatesInArrivalOrder() {
+		Map<String, Object> message = new HashMap<>();
+		message.put("FLIGHT_NUMBER", "BF101");
+		message.put("FLIGHT_DATE", "22-JAN-16");
+		message.put("NEW_INVENTORY", 60);
+		batcher.offer(update("BF101", 80, 3));
+		batcher.offer(InventoryUpdate.of(message));
+		batcher.drain();
+		assertEquals(60, batches.get(0).get(0).getInventory());
+	}
+
+	@Test
+	public void drainsFullBatchesRightAway() {
+		for (int i = 0; i < 250; i++) {
+			batcher.offer(update("BF" + i, 10, 1));
+		}
+		assertEquals(2, batches.size());
+		assertEquals(50, batcher.getPending());
+	}
+
+	@Test
+	public void retriesFailedBatches() {
+		List<List<InventoryUpdate>> applied = new ArrayList<>();
+		boolean[] failing = { true };
+		batcher = new InventoryBatcher(batch -> {
+			if (failing[0]) {
+				throw new IllegalStateException("database down");
+			}
+			applied.add(batch);
+		}, 100, 3, JAN_20);
+		batcher.offer(update("BF101", 80, 3));
+		assertEquals(0, batcher.drain());
+		batcher.offer(update("BF101", 90, 2));
+		failing[0] = false;
+		assertEquals(1, batcher.drain());
+		assertEquals(80, applied.get(0).get(0).getInventory());
+	}
+
+	@Test
+	public void dropsUpdatesAfterMaxAttempts() {
+		boolean[] failing = { true };
+		batcher = new InventoryBatcher(batch -> {
+			if (failing[0]) {
+				throw new IllegalStateException("database down");
+			}
+			batches.add(batch);
+		}, 100, 3, JAN_20);
+		batcher.offer(update("BF101", 80, 3));
+		batcher.drain();
+		batcher.drain();
+		assertEquals(1, batcher.getPending());
+		batcher.drain();
+		assertEquals(0, batcher.getPending());
+		assertEquals(1, batcher.getDropped());
+
+		// a later update of the flight starts over
+		batcher.offer(update("BF101", 70, 4));
+		batcher.drain();
+		failing[0] = false;
+		assertEquals(1, batcher.drain());
+		assertEquals(70, batches.get(0).get(0).getInventory());
+	}
+
+	@Test
+	public void forgetsDepartedFlights() {
+		batcher.offer(update("BF101", 80, 3));
+		batcher.offer(new InventoryUpdate("BF105", LocalDate.of(2016, 1, 18), 80, 3));
+		batcher.drain();
+		assertEquals(2, batcher.getApplied());
+		assertEquals(1, batcher.evictDeparted());
+		assertEquals(1, batcher.getApplied());
+
+		batcher.offer(update("BF101", 90, 2));
+		assertEquals(0, batcher.getPending());
+	}
+
+	private static InventoryUpdate update(String flightNumber, int inventory, long sequence) {
+		return new InventoryUpdate(flightNumber, LocalDate.of(2016, 1, 22), inventory, sequence);
+	}
+
+	private static InventoryUpdate find(List<InventoryUpdate> batch, String flightNumber) {
+		for (InventoryUpdate update : batch) {
+			if (update.getFlightNumber().equals(flightNumber)) {
+				return update;
+			}
+		}
+		return null;
+	}
+}
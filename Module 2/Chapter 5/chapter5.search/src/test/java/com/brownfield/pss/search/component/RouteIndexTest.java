@@ -0,0 +1,64 @@
+package com.brownfield.pss.search.component;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.brownfield.pss.search.model.FlightSnapshot;
+
+public class RouteIndexTest {
+	static final LocalDate JAN_22 = LocalDate.of(2016, 1, 22);
+
+	private RouteIndex index;
+
+	@Before
+	public void setup() {
+		index = new RouteIndex();
+		index.load(Arrays.asList(
+				flight(1, "BF100", "SEA", "SFO", 100),
+				flight(2, "BF101", "NYC", "SFO", 100),
+				flight(3, "BF105", "NYC", "SFO", 100)));
+	}
+
+	@Test
+	public void findsFlightsByRoute() {
+		assertEquals(2, index.find("NYC", "SFO", JAN_22).size());
+		assertEquals("BF100", index.find("SEA", "SFO", JAN_22).get(0).getFlightNumber());
+		assertTrue(index.find("NYC", "SFO", JAN_22.plusDays(1)).isEmpty());
+		assertEquals(3, index.size());
+	}
+
+	@Test
+	public void patchesSnapshotsInPlaceOfCopies() {
+		List<FlightSnapshot> before = index.find("NYC", "SFO", JAN_22);
+		index.put(before.get(1).withInventory(42));
+
+		List<FlightSnapshot> after = index.find("NYC", "SFO", JAN_22);
+		assertEquals(100, before.get(1).getSeats());
+		assertEquals(42, after.get(1).getSeats());
+		assertSame(before.get(0), after.get(0));
+
+		index.put(flight(4, "BF106", "NYC", "SFO", 10));
+		assertEquals(3, index.find("NYC", "SFO", JAN_22).size());
+		assertEquals(4, index.size());
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void routesAreUnmodifiable() {
+		index.find("NYC", "SFO", JAN_22).clear();
+	}
+
+	static FlightSnapshot flight(long id, String flightNumber, String origin, String destination, int inventory) {
+		return new FlightSnapshot(id, flightNumber, origin, destination, JAN_22, "08:00", "10:00", id,
+				new BigDecimal("100"),
+				"USD", id, inventory);
+	}
+}
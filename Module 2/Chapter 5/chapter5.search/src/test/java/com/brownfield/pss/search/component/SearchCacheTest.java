@@ -0,0 +1,80 @@
+package com.brownfield.pss.search.component;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.brownfield.pss.search.controller.SearchQuery;
+import com.brownfield.pss.search.model.FlightSnapshot;
+
+public class SearchCacheTest {
+	private AtomicLong now;
+	private SearchCache cache;
+
+	private final SearchQuery nycSfo = new SearchQuery("nyc ", "SFO", "22-jan-16").normalize();
+	private final SearchQuery seaSfo = new SearchQuery("SEA", "SFO", "22-JAN-16");
+	private final List<FlightSnapshot> nycFlights = Arrays.asList(
+			RouteIndexTest.flight(2, "BF101", "NYC", "SFO", 100),
+			RouteIndexTest.flight(3, "BF105", "NYC", "SFO", -1));
+	private final List<FlightSnapshot> seaFlights = Collections.singletonList(
+			RouteIndexTest.flight(1, "BF100", "SEA", "SFO", 100));
+
+	@Before
+	public void setup() {
+		now = new AtomicLong();
+		cache = new SearchCache(2, 1000, now::get);
+	}
+
+	@Test
+	public void normalizesQueries() {
+		assertEquals(new SearchQuery("NYC", "SFO", "22-JAN-16"), nycSfo);
+		cache.put(nycSfo, nycFlights.subList(0, 1), nycFlights, cache.generation());
+		assertNotNull(cache.get(new SearchQuery(" Nyc", "sfo", "22-Jan-16").normalize()));
+	}
+
+	@Test
+	public void invalidatesOnlyResultsInvolvingTheFlight() {
+		cache.put(nycSfo, nycFlights.subList(0, 1), nycFlights, cache.generation());
+		cache.put(seaSfo, seaFlights, seaFlights, cache.generation());
+
+		// BF105 is sold out, so not shown, yet a change to it must drop the result
+		assertEquals(1, cache.invalidate("BF105", RouteIndexTest.JAN_22));
+		assertNull(cache.get(nycSfo));
+		assertNotNull(cache.get(seaSfo));
+		assertEquals(0, cache.invalidate("BF999", RouteIndexTest.JAN_22));
+		assertEquals(1, cache.getInvalidations());
+		assertEquals(1, cache.getHits());
+		assertEquals(1, cache.getMisses());
+	}
+
+	@Test
+	public void skipsResultsReadBeforeAnInvalidation() {
+		long generation = cache.generation();
+		cache.invalidate("BF101", RouteIndexTest.JAN_22);
+		cache.put(nycSfo, nycFlights, nycFlights, generation);
+		assertNull(cache.get(nycSfo));
+	}
+
+	@Test
+	public void expiresAndEvicts() {
+		cache.put(nycSfo, nycFlights, nycFlights, cache.generation());
+		now.addAndGet(1000);
+		assertNull(cache.get(nycSfo));
+
+		cache.put(nycSfo, nycFlights, nycFlights, cache.generation());
+		cache.put(seaSfo, seaFlights, seaFlights, cache.generation());
+		cache.get(nycSfo);
+		cache.put(new SearchQuery("LAX", "SFO", "22-JAN-16"), seaFlights, seaFlights, cache.generation());
+		assertEquals(2, cache.size());
+		assertNull(cache.get(seaSfo));
+		assertNotNull(cache.get(nycSfo));
+	}
+}
@@ -0,0 +1,52 @@
+package com.brownfield.pss.search.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class InventoryUpdateTest {
+
+	@Test
+	public void readsMessage() {
+		Map<String, Object> message = message("BF101", "22-JAN-16", 80);
+		message.put("SEQUENCE", 7L);
+		InventoryUpdate update = InventoryUpdate.of(message);
+		assertEquals("BF101", update.getFlightNumber());
+		assertEquals(LocalDate.of(2016, 1, 22), update.getFlightDate());
+		assertEquals(80, update.getInventory());
+		assertEquals(7, update.getSequence());
+	}
+
+	@Test
+	public void messageWithoutSequenceIsUnsequenced() {
+		assertFalse(InventoryUpdate.of(message("BF101", "22-JAN-16", 80)).isSequenced());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsMalformedDate() {
+		InventoryUpdate.of(message("BF101", "2016-01-22", 80));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsMissingInventory() {
+		InventoryUpdate.of(message("BF101", "22-JAN-16", null));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsMissingFlightNumber() {
+		InventoryUpdate.of(message(null, "22-JAN-16", 80));
+	}
+
+	private static Map<String, Object> message(String flightNumber, String flightDate, Object inventory) {
+		Map<String, Object> message = new HashMap<>();
+		message.put("FLIGHT_NUMBER", flightNumber);
+		message.put("FLIGHT_DATE", flightDate);
+		message.put("NEW_INVENTORY", inventory);
+		return message;
+	}
+}
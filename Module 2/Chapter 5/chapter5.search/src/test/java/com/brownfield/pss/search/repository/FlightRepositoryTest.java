@@ -0,0 +1,145 @@
+package com.brownfield.pss.search.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.context.PropertyPlaceholderAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.orm.jpa.EntityScan;
+import org.springframework.boot.test.SpringApplicationConfiguration;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.convert.threeten.Jsr310JpaConverters;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import com.brownfield.pss.search.entity.Fares;
+import com.brownfield.pss.search.entity.Flight;
+import com.brownfield.pss.search.entity.Inventory;
+import com.brownfield.pss.search.model.FlightSnapshot;
+import com.brownfield.pss.search.model.InventoryUpdate;
+
+/**
+ * Runs the snapshot queries and the inventory batch against an embedded H2
+ * database, with only the JPA configuration of the service.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringApplicationConfiguration(classes = FlightRepositoryTest.JpaConfiguration.class)
+public class FlightRepositoryTest {
+	static final LocalDate JAN_22 = LocalDate.of(2016, 1, 22);
+
+	@Configuration
+	@ImportAutoConfiguration({ DataSourceAutoConfiguration.class, HibernateJpaAutoConfiguration.class,
+			PropertyPlaceholderAutoConfiguration.class })
+	@EntityScan(basePackageClasses = { Flight.class, Jsr310JpaConverters.class })
+	@EnableJpaRepositories(basePackageClasses = FlightRepository.class)
+	static class JpaConfiguration {
+	}
+
+	@Autowired
+	private FlightRepository flightRepository;
+
+	@Before
+	public void setup() {
+		flightRepository.deleteAll();
+		List<Flight> flights = new ArrayList<>();
+		flights.add(flight("BF100", "SEA", "SFO", JAN_22, "100", 100));
+		flights.add(flight("BF101", "NYC", "SFO", JAN_22, "101", 10));
+		flights.add(flight("BF105", "NYC", "SFO", JAN_22, "105", -1));
+		flights.add(flight("BF106", "NYC", "SFO", JAN_22.plusDays(1), "106", 100));
+		flights.add(new Flight("BF199", "NYC", "SFO", JAN_22, "19:00", "22:30",
+				new Fares(new BigDecimal("99"), "USD"), null));
+		flightRepository.save(flights);
+	}
+
+	@Test
+	public void projectsFlightsWithFareAndInventory() {
+		List<FlightSnapshot> snapshots = flightRepository.findAllSnapshots();
+		assertEquals(4, snapshots.size());
+		FlightSnapshot bf101 = find(snapshots, "BF101");
+		assertEquals("NYC", bf101.getOrigin());
+		assertEquals("SFO", bf101.getDestination());
+		assertEquals(JAN_22, bf101.getFlightDate());
+		assertEquals("08:00", bf101.getDepartureTime());
+		assertEquals(0, new BigDecimal("101").compareTo(bf101.getFare()));
+		assertEquals("USD", bf101.getCurrency());
+		assertEquals(10, bf101.getSeats());
+	}
+
+	@Test
+	public void flightsWithoutInventoryLeftOut() {
+		assertNull(find(flightRepository.findAllSnapshots(), "BF199"));
+		assertEquals(5, flightRepository.count());
+	}
+
+	@Test
+	public void findsAvailableFlightsOfRoute() {
+		List<FlightSnapshot> available = flightRepository.findAvailable("NYC", "SFO", JAN_22);
+		assertEquals(1, available.size());
+		assertEquals("BF101", available.get(0).getFlightNumber());
+	}
+
+	@Test
+	public void findsAvailableFlightsUpToFare() {
+		flightRepository.save(flight("BF102", "NYC", "SFO", JAN_22, "90", 5));
+		List<FlightSnapshot> available = flightRepository.findAvailableUpTo("NYC", "SFO", JAN_22,
+				new BigDecimal("101.00"));
+		assertEquals(2, available.size());
+		assertEquals("BF102", available.get(0).getFlightNumber());
+		assertEquals("BF101", available.get(1).getFlightNumber());
+		assertEquals(1, flightRepository.findAvailableUpTo("NYC", "SFO", JAN_22, new BigDecimal("100")).size());
+	}
+
+	@Test
+	public void findsAvailableFlightsBetweenDates() {
+		flightRepository.save(flight("BF102", "NYC", "SFO", JAN_22, "90", 5));
+		flightRepository.save(flight("BF107", "NYC", "SFO", JAN_22.plusDays(2), "80", 5));
+		List<FlightSnapshot> available = flightRepository.findAvailableBetween("NYC", "SFO", JAN_22,
+				JAN_22.plusDays(1));
+		assertEquals(3, available.size());
+		assertEquals("BF102", available.get(0).getFlightNumber());
+		assertEquals("BF101", available.get(1).getFlightNumber());
+		assertEquals("BF106", available.get(2).getFlightNumber());
+		assertEquals(1, flightRepository.findAvailableBetween("NYC", "SFO", JAN_22.plusDays(2),
+				JAN_22.plusDays(5)).size());
+	}
+
+	@Test
+	public void updatesInventoriesInOneBatch() {
+		int updated = flightRepository.updateInventories(Arrays.asList(
+				new InventoryUpdate("BF101", JAN_22, 7, InventoryUpdate.UNSEQUENCED),
+				new InventoryUpdate("BF105", JAN_22, 3, InventoryUpdate.UNSEQUENCED),
+				new InventoryUpdate("BF999", JAN_22, 3, InventoryUpdate.UNSEQUENCED)));
+		assertEquals(2, updated);
+		List<FlightSnapshot> snapshots = flightRepository.findAllSnapshots();
+		assertEquals(7, find(snapshots, "BF101").getSeats());
+		assertEquals(3, find(snapshots, "BF105").getSeats());
+		assertEquals(100, find(snapshots, "BF106").getSeats());
+	}
+
+	private static Flight flight(String flightNumber, String origin, String destination, LocalDate date,
+			String fare, int inventory) {
+		return new Flight(flightNumber, origin, destination, date, "08:00", "10:00",
+				new Fares(new BigDecimal(fare), "USD"), new Inventory(inventory));
+	}
+
+	private static FlightSnapshot find(List<FlightSnapshot> snapshots, String flightNumber) {
+		for (FlightSnapshot snapshot : snapshots) {
+			if (snapshot.getFlightNumber().equals(flightNumber)) {
+				return snapshot;
+			}
+		}
+		return null;
+	}
+}